@@ -1,7 +1,5 @@
 package s10k.tool;
 
-import java.time.LocalDateTime;
-
 import org.springframework.boot.Banner.Mode;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.ExitCodeGenerator;
@@ -11,16 +9,12 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.builder.SpringApplicationBuilder;
 import org.springframework.context.annotation.ReflectiveScan;
 
-import net.solarnetwork.domain.datum.ObjectDatumKind;
 import picocli.CommandLine;
 import picocli.CommandLine.Command;
 import picocli.CommandLine.IFactory;
 import s10k.tool.c2c.cmd.CloudIntegrationsCmd;
 import s10k.tool.common.cmd.ToolCmd;
 import s10k.tool.common.cmd.VersionCmd;
-import s10k.tool.common.domain.ClaimableJobState;
-import s10k.tool.common.domain.EnabledOrDisabled;
-import s10k.tool.common.util.StringUtils;
 import s10k.tool.datum.cmd.DatumCmd;
 import s10k.tool.datum.imp.domain.DatumImportState;
 import s10k.tool.flux.cmd.FluxCmd;
@@ -52,25 +46,27 @@ public class SnCliTool implements CommandLineRunner, ExitCodeGenerator {
 
 	@Override
 	public void run(String... args) throws Exception {
-		final var app = new ToolCmd();
-		System.setProperty("picocli.converters.excludes", "java.time.LocalDateTime");
+		exitCode = commandLine(new ToolCmd(), factory).execute(args);
+	}
+
+	/**
+	 * Create the tool command line.
+	 * 
+	 * @param app     the root command
+	 * @param factory the command factory
+	 * @return the command line, with all tool commands added
+	 */
+	public static CommandLine commandLine(ToolCmd app, IFactory factory) {
 		// @formatter:off
-		exitCode = new CommandLine(app, factory)
-				.setExecutionStrategy(app::globalInit)
-				.addSubcommand(new VersionCmd())
-				.addSubcommand(new CloudIntegrationsCmd())
-				.addSubcommand(new DatumCmd())
-				.addSubcommand(new FluxCmd())
-				.addSubcommand(new InstructionsCmd())
-				.addSubcommand(new NodesCmd())
-				.addSubcommand(new SecTokensCmd())
-				.setCaseInsensitiveEnumValuesAllowed(true)
-				.registerConverter(ClaimableJobState.class, ClaimableJobState::fromValue)
-				.registerConverter(DatumImportState.class, DatumImportState::fromValue)
-				.registerConverter(EnabledOrDisabled.class, EnabledOrDisabled::fromValue)
-				.registerConverter(LocalDateTime.class, StringUtils::parseLocalDateTime)
-				.registerConverter(ObjectDatumKind.class, ObjectDatumKind::fromValue)
-				.execute(args);
+		return app.commandLine(factory,
+					new VersionCmd(),
+					new CloudIntegrationsCmd(),
+					new DatumCmd(),
+					new FluxCmd(),
+					new InstructionsCmd(),
+					new NodesCmd(),
+					new SecTokensCmd())
+				.registerConverter(DatumImportState.class, DatumImportState::fromValue);
 		// @formatter:on
 	}
 
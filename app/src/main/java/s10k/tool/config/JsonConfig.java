@@ -30,6 +30,15 @@ public class JsonConfig {
 	@Bean
 	@Primary
 	public ObjectMapper objectMapper() {
+		return toolObjectMapper();
+	}
+
+	/**
+	 * Create a new object mapper configured for the tool.
+	 * 
+	 * @return the new mapper
+	 */
+	public static ObjectMapper toolObjectMapper() {
 		ObjectMapper mapper = JsonUtils.newDatumObjectMapper();
 
 		SimpleModule toolModule = new SimpleModule("s10k");
@@ -0,0 +1,306 @@
+package s10k.tool.bench;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.zip.GZIPOutputStream;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+
+import net.solarnetwork.domain.datum.Datum;
+import net.solarnetwork.domain.datum.DatumSamples;
+import net.solarnetwork.domain.datum.GeneralDatum;
+import s10k.tool.instructions.util.InstructionsUtils.ServiceInfo;
+
+/**
+ * Synthetic data sets for benchmarks.
+ *
+ * <p>
+ * All data is generated from a fixed random seed, so each run of a benchmark
+ * works with the same data. The data is shaped like a typical SolarNetwork
+ * fleet: each node has a handful of sources such as meters and inverters, each
+ * source has a mix of instantaneous, accumulating, and status properties, and
+ * datum are posted once per minute.
+ * </p>
+ */
+public final class BenchmarkData {
+
+	/** The random seed used for all generated data. */
+	public static final long SEED = 20251017L;
+
+	/** The starting timestamp for generated datum. */
+	public static final Instant START = Instant.parse("2025-01-01T00:00:00Z");
+
+	/** The number of milliseconds between generated datum in a stream. */
+	public static final long INTERVAL_MS = 60_000L;
+
+	/** The instantaneous property names. */
+	public static final List<String> INSTANTANEOUS = List.of("watts", "current", "voltage", "frequency",
+			"powerFactor", "apparentPower", "reactivePower", "temp");
+
+	/** The accumulating property names. */
+	public static final List<String> ACCUMULATING = List.of("wattHours", "wattHoursReverse");
+
+	/** The status property names. */
+	public static final List<String> STATUS = List.of("phase", "mode");
+
+	/** The number of sources per node. */
+	public static final int SOURCES_PER_NODE = 4;
+
+	private static final String[] SOURCE_PREFIXES = { "/meter/", "/inv/", "/bat/", "/ws/" };
+
+	private BenchmarkData() {
+		// not available
+	}
+
+	/**
+	 * Get the node ID for a stream.
+	 *
+	 * @param stream the stream index
+	 * @return the node ID
+	 */
+	public static long nodeId(int stream) {
+		return 100L + stream / SOURCES_PER_NODE;
+	}
+
+	/**
+	 * Get the source ID for a stream.
+	 *
+	 * @param stream the stream index
+	 * @return the source ID
+	 */
+	public static String sourceId(int stream) {
+		return SOURCE_PREFIXES[stream % SOURCES_PER_NODE] + (1 + stream / SOURCES_PER_NODE % 3);
+	}
+
+	/**
+	 * Get the stream ID for a stream.
+	 *
+	 * @param stream the stream index
+	 * @return the stream ID
+	 */
+	public static UUID streamId(int stream) {
+		return new UUID(SEED, stream);
+	}
+
+	/**
+	 * Generate a stream datum result set, CBOR encoded as returned by the
+	 * SolarQuery stream datum API.
+	 *
+	 * @param streamCount the number of streams
+	 * @param datumCount  the total number of datum, spread evenly over all
+	 *                    streams
+	 * @param aggregate   {@code true} to generate aggregate datum
+	 * @return the encoded result set
+	 */
+	public static byte[] streamDatumCbor(int streamCount, int datumCount, boolean aggregate) {
+		final SplittableRandom rng = new SplittableRandom(SEED);
+		final ByteArrayOutputStream byos = new ByteArrayOutputStream(datumCount * 128);
+		try (JsonGenerator g = new CBORFactory().createGenerator(byos)) {
+			g.writeStartObject();
+			g.writeBooleanField("success", true);
+			g.writeArrayFieldStart("meta");
+			for (int s = 0; s < streamCount; s++) {
+				g.writeStartObject();
+				g.writeStringField("streamId", streamId(s).toString());
+				g.writeStringField("zone", "Pacific/Auckland");
+				g.writeStringField("kind", "n");
+				g.writeNumberField("objectId", nodeId(s));
+				g.writeStringField("sourceId", sourceId(s));
+				writeStringArray(g, "i", INSTANTANEOUS);
+				writeStringArray(g, "a", ACCUMULATING);
+				writeStringArray(g, "s", STATUS);
+				g.writeEndObject();
+			}
+			g.writeEndArray();
+			g.writeArrayFieldStart("data");
+			for (int d = 0; d < datumCount; d++) {
+				final int s = d % streamCount;
+				final long ts = START.toEpochMilli() + (d / streamCount) * INTERVAL_MS;
+				g.writeStartArray();
+				g.writeNumber(s);
+				if (aggregate) {
+					g.writeStartArray();
+					g.writeNumber(ts);
+					g.writeNumber(ts + INTERVAL_MS);
+					g.writeEndArray();
+				} else {
+					g.writeNumber(ts);
+				}
+				for (int i = 0; i < INSTANTANEOUS.size(); i++) {
+					BigDecimal v = decimal(rng, 10_000);
+					if (aggregate) {
+						g.writeStartArray();
+						g.writeNumber(v);
+						g.writeNumber(60);
+						g.writeNumber(v.subtract(BigDecimal.TEN));
+						g.writeNumber(v.add(BigDecimal.TEN));
+						g.writeEndArray();
+					} else {
+						g.writeNumber(v);
+					}
+				}
+				for (int i = 0; i < ACCUMULATING.size(); i++) {
+					long v = 1_000_000L + d * 10L;
+					if (aggregate) {
+						g.writeStartArray();
+						g.writeNumber(10);
+						g.writeNumber(v);
+						g.writeNumber(v + 10);
+						g.writeEndArray();
+					} else {
+						g.writeNumber(v);
+					}
+				}
+				g.writeString(rng.nextBoolean() ? "A" : "B");
+				g.writeString(rng.nextInt(10) == 0 ? "fault" : "ok");
+				g.writeEndArray();
+			}
+			g.writeEndArray();
+			g.writeEndObject();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return byos.toByteArray();
+	}
+
+	private static void writeStringArray(JsonGenerator g, String field, List<String> values) throws IOException {
+		g.writeArrayFieldStart(field);
+		for (String v : values) {
+			g.writeString(v);
+		}
+		g.writeEndArray();
+	}
+
+	private static BigDecimal decimal(SplittableRandom rng, int max) {
+		return BigDecimal.valueOf(rng.nextLong(max * 1000L), 3);
+	}
+
+	/**
+	 * Generate general datum.
+	 *
+	 * @param streamCount the number of streams
+	 * @param datumCount  the total number of datum, spread evenly over all
+	 *                    streams
+	 * @return the datum
+	 */
+	public static List<Datum> generalDatum(int streamCount, int datumCount) {
+		final SplittableRandom rng = new SplittableRandom(SEED);
+		final List<Datum> result = new ArrayList<>(datumCount);
+		for (int d = 0; d < datumCount; d++) {
+			final int s = d % streamCount;
+			final DatumSamples samples = new DatumSamples();
+			for (String prop : INSTANTANEOUS) {
+				samples.putInstantaneousSampleValue(prop, decimal(rng, 10_000));
+			}
+			for (String prop : ACCUMULATING) {
+				samples.putAccumulatingSampleValue(prop, 1_000_000L + d * 10L);
+			}
+			samples.putStatusSampleValue(STATUS.get(0), rng.nextBoolean() ? "A" : "B");
+			samples.putStatusSampleValue(STATUS.get(1), rng.nextInt(10) == 0 ? "fault" : "ok");
+			result.add(GeneralDatum.nodeDatum(nodeId(s), sourceId(s), START.plusMillis((d / streamCount) * INTERVAL_MS),
+					samples));
+		}
+		return result;
+	}
+
+	/**
+	 * Generate tabular data rows like those rendered by list commands.
+	 *
+	 * @param rowCount    the number of rows
+	 * @param columnCount the number of columns
+	 * @return the rows
+	 */
+	public static List<Object[]> tableRows(int rowCount, int columnCount) {
+		final SplittableRandom rng = new SplittableRandom(SEED);
+		final List<Object[]> result = new ArrayList<>(rowCount);
+		for (int r = 0; r < rowCount; r++) {
+			Object[] row = new Object[columnCount];
+			row[0] = START.plusMillis(r * INTERVAL_MS).toString();
+			for (int c = 1; c < columnCount; c++) {
+				row[c] = switch (c) {
+				case 1 -> nodeId(r);
+				case 2 -> sourceId(r);
+				default -> decimal(rng, 10_000).toPlainString();
+				};
+			}
+			result.add(row);
+		}
+		return result;
+	}
+
+	/**
+	 * Generate a SolarFlux datum message, CBOR encoded as posted by SolarNode.
+	 *
+	 * @param objectMapper the object mapper to use
+	 * @param n            the message number, which determines the content
+	 * @return the encoded message
+	 */
+	public static byte[] fluxMessageCbor(ObjectMapper objectMapper, int n) {
+		final SplittableRandom rng = new SplittableRandom(SEED + n);
+		final Map<String, Object> msg = new LinkedHashMap<>(16);
+		msg.put("_v", 2);
+		msg.put("created", START.toEpochMilli() + n * 1000L);
+		msg.put("nodeId", nodeId(n));
+		msg.put("sourceId", sourceId(n));
+		for (String prop : INSTANTANEOUS) {
+			msg.put(prop, rng.nextDouble(10_000.0));
+		}
+		for (String prop : ACCUMULATING) {
+			msg.put(prop, 1_000_000L + n * 10L);
+		}
+		msg.put(STATUS.get(0), rng.nextBoolean() ? "A" : "B");
+		msg.put(STATUS.get(1), "ok");
+		try {
+			return objectMapper.copyWith(new CBORFactory()).writeValueAsBytes(msg);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Generate an instruction result parameter map with a compressed service
+	 * listing, as returned by SolarNode for large results.
+	 *
+	 * @param objectMapper the object mapper to use
+	 * @param count        the number of services to include
+	 * @param compressed   {@code true} to compress and Base64 encode the result,
+	 *                     or {@code false} for plain JSON
+	 * @return the result parameters
+	 */
+	public static Map<String, ?> serviceResultParameters(ObjectMapper objectMapper, int count,
+			boolean compressed) {
+		final List<ServiceInfo> services = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			services.add(new ServiceInfo("net.solarnetwork.node.datum.service.%d".formatted(i),
+					"Service %d component with a typical descriptive title".formatted(i)));
+		}
+		try {
+			byte[] json = objectMapper.writeValueAsBytes(services);
+			if (!compressed) {
+				return Map.of("result", new String(json, UTF_8));
+			}
+			ByteArrayOutputStream byos = new ByteArrayOutputStream(json.length / 4);
+			try (GZIPOutputStream out = new GZIPOutputStream(byos)) {
+				out.write(json);
+			}
+			return Map.of("result", Base64.getEncoder().encodeToString(byos.toByteArray()));
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+}
@@ -0,0 +1,64 @@
+package s10k.tool.bench;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import net.solarnetwork.codec.JsonUtils;
+import s10k.tool.common.util.RestUtils;
+
+/**
+ * Benchmark the conversion of CBOR stream datum results to JSON.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class CborToJsonBenchmark {
+
+	/** The number of streams. */
+	@Param({ "10", "400" })
+	public int streamCount;
+
+	/** The total number of datum. */
+	@Param({ "1000", "100000" })
+	public int datumCount;
+
+	/** {@code true} for aggregate results. */
+	@Param({ "false", "true" })
+	public boolean aggregate;
+
+	private ObjectMapper objectMapper;
+	private byte[] cbor;
+
+	/**
+	 * Generate the CBOR content.
+	 */
+	@Setup
+	public void setup() {
+		objectMapper = JsonUtils.newDatumObjectMapper();
+		cbor = BenchmarkData.streamDatumCbor(streamCount, datumCount, aggregate);
+	}
+
+	/**
+	 * Convert the CBOR content to JSON.
+	 *
+	 * @throws IOException if any IO error occurs
+	 */
+	@Benchmark
+	public void cborToJson() throws IOException {
+		RestUtils.cborToJson(objectMapper, new ByteArrayInputStream(cbor), OutputStream.nullOutputStream());
+	}
+
+}
@@ -0,0 +1,62 @@
+package s10k.tool.bench;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import net.solarnetwork.codec.JsonUtils;
+import s10k.tool.instructions.util.InstructionsUtils;
+import s10k.tool.instructions.util.InstructionsUtils.ServiceInfo;
+
+/**
+ * Benchmark parsing compressed instruction service results.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CompressedResultListBenchmark {
+
+	/** The number of services in the result. */
+	@Param({ "50", "1000" })
+	public int serviceCount;
+
+	/** {@code true} for a compressed result. */
+	@Param({ "false", "true" })
+	public boolean compressed;
+
+	private ObjectMapper objectMapper;
+	private Map<String, ?> resultParams;
+
+	/**
+	 * Generate the result parameters.
+	 */
+	@Setup
+	public void setup() {
+		objectMapper = JsonUtils.newObjectMapper();
+		resultParams = BenchmarkData.serviceResultParameters(objectMapper, serviceCount, compressed);
+	}
+
+	/**
+	 * Parse the result.
+	 *
+	 * @return the services
+	 * @throws IOException if any IO error occurs
+	 */
+	@Benchmark
+	public List<ServiceInfo> parseCompressedResultList() throws IOException {
+		return InstructionsUtils.parseCompressedResultList(resultParams, objectMapper, ServiceInfo[].class);
+	}
+
+}
@@ -0,0 +1,109 @@
+package s10k.tool.bench;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+
+import net.solarnetwork.codec.JsonUtils;
+import s10k.tool.common.domain.ResultDisplayMode;
+import s10k.tool.flux.util.FluxMessageFormatter;
+import s10k.tool.flux.util.FluxPropertyDecoder;
+
+/**
+ * Benchmark the per-message decode and format path of the flux tail command.
+ *
+ * <p>
+ * Run with the JMH {@code gc} profiler to compare the allocation rate per
+ * message, reported as {@code gc.alloc.rate.norm}, of the streaming
+ * {@link FluxPropertyDecoder} used for output of selected properties with
+ * the full map decoding path:
+ * </p>
+ *
+ * <pre>{@code
+ * ./gradlew :sn-cli-bench:jmh -PjmhIncludes=FluxMessage -PjmhProfilers=gc
+ * }</pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class FluxMessageBenchmark {
+
+	/** The number of distinct messages to cycle through. */
+	private static final int MESSAGE_COUNT = 1024;
+
+	/** The display mode. */
+	@Param({ "PRETTY", "CSV", "JSON" })
+	public ResultDisplayMode mode;
+
+	/** {@code true} to format only a subset of properties. */
+	@Param({ "false", "true" })
+	public boolean selectProperties;
+
+	private FluxMessageFormatter formatter;
+	private FluxPropertyDecoder propertyDecoder;
+	private byte[][] messages;
+	private long msgNum;
+
+	/**
+	 * Generate the messages.
+	 */
+	@Setup
+	public void setup() {
+		ObjectMapper objectMapper = JsonUtils.newObjectMapper();
+		final String[] propertyNames = new String[] { "created", "sourceId", "watts", "wattHours" };
+		formatter = new FluxMessageFormatter(objectMapper, mode, selectProperties ? propertyNames : null, true, 3);
+		propertyDecoder = new FluxPropertyDecoder(new CBORFactory(), propertyNames, 3);
+		messages = new byte[MESSAGE_COUNT][];
+		for (int i = 0; i < MESSAGE_COUNT; i++) {
+			messages[i] = BenchmarkData.fluxMessageCbor(objectMapper, i);
+		}
+		msgNum = 0;
+	}
+
+	/**
+	 * Decode and format one message.
+	 *
+	 * @throws IOException if any IO error occurs
+	 */
+	@Benchmark
+	public void decodeAndFormat() throws IOException {
+		final long n = ++msgNum;
+		formatter.write("node/1/datum/0/s", messages[(int) (n % MESSAGE_COUNT)], n, OutputStream.nullOutputStream());
+	}
+
+	/**
+	 * Decode one message.
+	 *
+	 * @return the decoded message
+	 * @throws IOException if any IO error occurs
+	 */
+	@Benchmark
+	public Object decode() throws IOException {
+		return formatter.decode(messages[(int) (++msgNum % MESSAGE_COUNT)]);
+	}
+
+	/**
+	 * Decode the selected properties of one message with the streaming decoder.
+	 *
+	 * @return the decoded value of the last property
+	 * @throws IOException if any IO error occurs
+	 */
+	@Benchmark
+	public Object decodeProperties() throws IOException {
+		propertyDecoder.decode(messages[(int) (++msgNum % MESSAGE_COUNT)]);
+		return propertyDecoder.value(propertyDecoder.size() - 1);
+	}
+
+}
@@ -0,0 +1,73 @@
+package s10k.tool.bench;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.freva.asciitable.Column;
+import com.github.freva.asciitable.HorizontalAlign;
+
+import net.solarnetwork.codec.JsonUtils;
+import s10k.tool.common.domain.ResultDisplayMode;
+import s10k.tool.common.util.TableUtils;
+
+/**
+ * Benchmark rendering tabular data in each display mode.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class RenderTableDataBenchmark {
+
+	/** The display mode. */
+	@Param({ "PRETTY", "CSV", "JSON" })
+	public ResultDisplayMode mode;
+
+	/** The number of rows. */
+	@Param({ "100", "10000" })
+	public int rowCount;
+
+	/** The number of columns. */
+	@Param({ "6", "20" })
+	public int columnCount;
+
+	private ObjectMapper objectMapper;
+	private Column[] columns;
+	private List<Object[]> rows;
+
+	/**
+	 * Generate the table data.
+	 */
+	@Setup
+	public void setup() {
+		objectMapper = JsonUtils.newObjectMapper();
+		columns = new Column[columnCount];
+		for (int i = 0; i < columnCount; i++) {
+			columns[i] = new Column().header(i == 0 ? "Timestamp" : "Column %d".formatted(i))
+					.dataAlign(i == 0 ? HorizontalAlign.LEFT : HorizontalAlign.RIGHT);
+		}
+		rows = BenchmarkData.tableRows(rowCount, columnCount);
+	}
+
+	/**
+	 * Render the table data.
+	 *
+	 * @throws IOException if any IO error occurs
+	 */
+	@Benchmark
+	public void renderTableData() throws IOException {
+		TableUtils.renderTableData(columns, rows, mode, objectMapper, OutputStream.nullOutputStream());
+	}
+
+}
@@ -0,0 +1,55 @@
+package s10k.tool.bench;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import net.solarnetwork.domain.datum.Datum;
+import s10k.tool.common.util.DatumUtils;
+import s10k.tool.common.util.DatumUtils.DatumResultStructure;
+
+/**
+ * Benchmark analyzing the structure of a datum result set.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ResultStructureBenchmark {
+
+	/** The number of streams. */
+	@Param({ "10", "400" })
+	public int streamCount;
+
+	/** The total number of datum. */
+	@Param({ "1000", "100000" })
+	public int datumCount;
+
+	private List<Datum> datum;
+
+	/**
+	 * Generate the datum.
+	 */
+	@Setup
+	public void setup() {
+		datum = BenchmarkData.generalDatum(streamCount, datumCount);
+	}
+
+	/**
+	 * Analyze the datum.
+	 *
+	 * @return the result structure
+	 */
+	@Benchmark
+	public DatumResultStructure resultStructure() {
+		return DatumUtils.resultStructure(datum);
+	}
+
+}
@@ -0,0 +1,88 @@
+package s10k.tool.datum.cmd;
+
+import static s10k.tool.datum.util.StreamDatumDecoder.decodeCbor;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.freva.asciitable.Column;
+
+import net.solarnetwork.codec.JsonUtils;
+import net.solarnetwork.domain.datum.Aggregation;
+import s10k.tool.bench.BenchmarkData;
+import s10k.tool.datum.domain.DatumFilter;
+
+/**
+ * Benchmark generating pretty table rows from stream datum results in the
+ * datum list command.
+ *
+ * <p>
+ * This class is in the command package to access the package-private row
+ * generation methods of {@link ListDatumCmd}.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ListDatumPrettyBenchmark {
+
+	/** The number of streams. */
+	@Param({ "10", "400" })
+	public int streamCount;
+
+	/** The total number of datum. */
+	@Param({ "1000", "100000" })
+	public int datumCount;
+
+	/** {@code true} for aggregate results. */
+	@Param({ "false", "true" })
+	public boolean aggregate;
+
+	private ObjectMapper objectMapper;
+	private ListDatumCmd cmd;
+	private DatumFilter filter;
+	private byte[] cbor;
+
+	/**
+	 * Generate the CBOR content.
+	 */
+	@Setup
+	public void setup() {
+		objectMapper = JsonUtils.newDatumObjectMapper();
+		cmd = new ListDatumCmd(new SimpleClientHttpRequestFactory(), objectMapper);
+		filter = new DatumFilter();
+		if (aggregate) {
+			filter.setAggregation(Aggregation.Hour);
+		}
+		cbor = BenchmarkData.streamDatumCbor(streamCount, datumCount, aggregate);
+	}
+
+	/**
+	 * Decode the results into pretty table rows.
+	 *
+	 * @return the rows
+	 * @throws IOException if any IO error occurs
+	 */
+	@Benchmark
+	public List<Object[]> prettyRows() throws IOException {
+		final List<Column> columns = cmd.prettyColumns(filter);
+		final List<Object[]> rows = new ArrayList<>(datumCount);
+		decodeCbor(objectMapper, new ByteArrayInputStream(cbor), cmd.prettyTableHandler(filter, columns, rows));
+		return rows;
+	}
+
+}
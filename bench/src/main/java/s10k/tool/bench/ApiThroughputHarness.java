@@ -0,0 +1,164 @@
+package s10k.tool.bench;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import picocli.CommandLine;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.Parameters;
+import s10k.tool.SnCliTool;
+import s10k.tool.common.cmd.ToolCmd;
+import s10k.tool.config.JsonConfig;
+import s10k.tool.test.FakeSolarNetworkServer;
+import s10k.tool.test.ToolCommandFactory;
+
+/**
+ * Run a tool command repeatedly against a local SolarNetwork API stand-in and
+ * report the throughput.
+ *
+ * <p>
+ * The command is parsed and executed with the same command line as the
+ * {@code s10k} tool, with all HTTP requests sent to a {@link FakeSolarNetworkServer}. The command
+ * output is discarded. For example:
+ * </p>
+ *
+ * <pre>{@code
+ * ./gradlew :sn-cli-bench:apiHarness -PharnessArgs="--nodes 50 --latency 20 -- datum list --node-id 100 --min-date 2025-01-01 --max-date 2025-01-02 --no-cache"
+ * }</pre>
+ */
+@Command(name = "api-harness", mixinStandardHelpOptions = true, sortSynopsis = false, showDefaultValues = true)
+public class ApiThroughputHarness implements Callable<Integer> {
+
+	// @formatter:off
+	@Option(names = { "--nodes" },
+			description = "the number of nodes in the fleet",
+			defaultValue = "10")
+	int nodeCount;
+
+	@Option(names = { "--sources" },
+			description = "the number of sources per node",
+			defaultValue = "4")
+	int sourcesPerNode;
+
+	@Option(names = { "--latency" },
+			description = "the latency to add to each response, in milliseconds",
+			defaultValue = "0")
+	long latency;
+
+	@Option(names = { "--page-size" },
+			description = "the maximum number of results returned by list requests, or 0 for no limit",
+			defaultValue = "0")
+	int pageSize;
+
+	@Option(names = { "--warmup" },
+			description = "the number of times to run the command before measuring",
+			defaultValue = "3")
+	int warmupIterations;
+
+	@Option(names = { "--iterations" },
+			description = "the number of times to run the command",
+			defaultValue = "20")
+	int iterations;
+
+	@Parameters(arity = "1..*",
+			paramLabel = "command",
+			description = "the tool command and arguments to run, after a -- separator")
+	String[] command;
+	// @formatter:on
+
+	/**
+	 * Constructor.
+	 */
+	public ApiThroughputHarness() {
+		super();
+	}
+
+	@Override
+	public Integer call() throws Exception {
+		final PrintStream out = System.out;
+		try (FakeSolarNetworkServer server = new FakeSolarNetworkServer(nodeCount, sourcesPerNode)) {
+			server.setLatency(Duration.ofMillis(latency));
+			server.setPageSize(pageSize);
+			server.start();
+
+			final ClientHttpRequestFactory reqFactory = server.requestFactory(httpRequestFactory());
+			final ObjectMapper objectMapper = JsonConfig.toolObjectMapper();
+
+			// discard command output while running
+			System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+			for (int i = 0; i < warmupIterations; i++) {
+				execute(reqFactory, objectMapper);
+			}
+			server.resetStats();
+
+			final long[] latencies = new long[iterations];
+			int failures = 0;
+			final long start = System.nanoTime();
+			for (int i = 0; i < iterations; i++) {
+				final long t = System.nanoTime();
+				if (execute(reqFactory, objectMapper) != 0) {
+					failures++;
+				}
+				latencies[i] = System.nanoTime() - t;
+			}
+			final double elapsed = (System.nanoTime() - start) / 1_000_000_000.0;
+			System.setOut(out);
+
+			final FakeSolarNetworkServer.Stats stats = server.stats();
+			Arrays.sort(latencies);
+			out.println("Command:      %s".formatted(String.join(" ", command)));
+			out.println("Iterations:   %d (%d failed), %.1f/s".formatted(iterations, failures, iterations / elapsed));
+			out.println("Requests:     %d, %.1f/s".formatted(stats.requestCount(), stats.requestCount() / elapsed));
+			out.println("Bytes:        %d, %.1f KB/s".formatted(stats.bytesSent(), stats.bytesSent() / elapsed / 1024));
+			out.println("Latency (ms): min %.2f, p50 %.2f, p90 %.2f, p99 %.2f, max %.2f".formatted(
+					percentile(latencies, 0), percentile(latencies, 50), percentile(latencies, 90),
+					percentile(latencies, 99), percentile(latencies, 100)));
+			return (failures > 0 ? 1 : 0);
+		} finally {
+			System.setOut(out);
+		}
+	}
+
+	private int execute(ClientHttpRequestFactory reqFactory, ObjectMapper objectMapper) {
+		return SnCliTool.commandLine(new ToolCmd("harness", "harness"),
+				new ToolCommandFactory(reqFactory, objectMapper)).execute(command);
+	}
+
+	private static double percentile(long[] sorted, int percentile) {
+		if (sorted.length < 1) {
+			return 0.0;
+		}
+		final int idx = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+		return sorted[Math.max(0, Math.min(sorted.length - 1, idx))] / 1_000_000.0;
+	}
+
+	private static ClientHttpRequestFactory httpRequestFactory() {
+		// @formatter:off
+		return new HttpComponentsClientHttpRequestFactory(HttpClients.custom()
+				.disableCookieManagement()
+				.setConnectionManager(new PoolingHttpClientConnectionManager())
+				.build());
+		// @formatter:on
+	}
+
+	/**
+	 * Command line entry point.
+	 *
+	 * @param args the arguments
+	 */
+	public static void main(String[] args) {
+		System.exit(new CommandLine(new ApiThroughputHarness()).execute(args));
+	}
+
+}
@@ -1,8 +1,14 @@
 package s10k.tool.c2c.cmd;
 
+import java.time.Duration;
+
 import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.ScopeType;
 import s10k.tool.c2c.ds.cmd.DatumStreamsCmd;
 import s10k.tool.c2c.i9n.cmd.IntegrationsCmd;
+import s10k.tool.c2c.util.CloudConfigurationSnapshots;
+import s10k.tool.c2c.util.CloudIntegrationsCacheUtils;
 import s10k.tool.common.cmd.BaseSubCmd;
 import s10k.tool.common.cmd.ToolCmd;
 
@@ -17,4 +23,35 @@ import s10k.tool.common.cmd.ToolCmd;
 // @formatter:on
 public class CloudIntegrationsCmd extends BaseSubCmd<ToolCmd> {
 
+	// @formatter:off
+	@Option(names = { "--refresh" },
+			description = "download a fresh snapshot of the datum stream and integration configurations",
+			scope = ScopeType.INHERIT)
+	boolean refreshConfig;
+
+	@Option(names = { "--config-ttl" },
+			description = "the maximum age of the local configuration snapshot to use, or PT0S to not use it",
+			paramLabel = "duration",
+			defaultValue = "PT15M",
+			scope = ScopeType.INHERIT)
+	Duration configTtl = CloudIntegrationsCacheUtils.DEFAULT_CONFIG_TTL;
+	// @formatter:on
+
+	private CloudConfigurationSnapshots configSnapshots;
+
+	/**
+	 * Get the datum stream and integration configuration snapshots for the
+	 * active profile.
+	 *
+	 * @return the snapshots
+	 * @throws IllegalStateException if the profile does not have credentials
+	 */
+	public synchronized CloudConfigurationSnapshots configurationSnapshots() {
+		if (configSnapshots == null) {
+			configSnapshots = new CloudConfigurationSnapshots(CloudIntegrationsCacheUtils.configCache(),
+					profileWithCredentials().tokenCredentials().tokenId(), configTtl, refreshConfig);
+		}
+		return configSnapshots;
+	}
+
 }
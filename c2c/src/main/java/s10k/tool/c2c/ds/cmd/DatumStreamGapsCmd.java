@@ -0,0 +1,374 @@
+package s10k.tool.c2c.ds.cmd;
+
+import static com.github.freva.asciitable.HorizontalAlign.LEFT;
+import static com.github.freva.asciitable.HorizontalAlign.RIGHT;
+import static java.util.function.Function.identity;
+import static java.util.stream.Collectors.toMap;
+import static s10k.tool.c2c.ds.poll.cmd.ListTasksCmd.listCloudDatumStreamPollTasks;
+import static s10k.tool.c2c.util.CloudIntegrationsUtils.datumStreamServiceLocalizedName;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+import org.threeten.extra.Interval;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.freva.asciitable.Column;
+
+import net.solarnetwork.domain.datum.ObjectDatumStreamMetadata;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+import s10k.tool.c2c.cmd.CloudIntegrationsCmd;
+import s10k.tool.c2c.domain.CloudDatumStreamConfiguration;
+import s10k.tool.c2c.domain.CloudDatumStreamPollTaskConfiguration;
+import s10k.tool.c2c.domain.CloudIntegrationsFilter;
+import s10k.tool.common.cmd.BaseSubCmd;
+import s10k.tool.common.domain.ResultDisplayMode;
+import s10k.tool.common.util.BulkRequestUtils;
+import s10k.tool.common.util.BulkRequestUtils.BulkResult;
+import s10k.tool.common.util.BulkRequestUtils.RetryPolicy;
+import s10k.tool.common.util.DateUtils;
+import s10k.tool.common.util.IntervalCoverage;
+import s10k.tool.common.util.TableUtils;
+import s10k.tool.datum.cmd.ListDatumCmd;
+import s10k.tool.datum.domain.DatumFilter;
+import s10k.tool.datum.domain.StreamDatumView;
+import s10k.tool.datum.util.DatumPagingUtils;
+import s10k.tool.datum.util.StreamDatumDecoder.StreamDatumHandler;
+
+/**
+ * Find the time ranges missing from SolarNetwork for Cloud Datum Streams.
+ */
+@Component
+@Command(name = "gaps", sortSynopsis = false, showDefaultValues = true)
+public class DatumStreamGapsCmd extends BaseSubCmd<DatumStreamsCmd> implements Callable<Integer> {
+
+	/** The default gap resolution. */
+	public static final Duration DEFAULT_RESOLUTION = Duration.ofHours(1);
+
+	// @formatter:off
+	@Option(names = { "-stream", "--stream-id" },
+			description = "a datum stream ID to find gaps for",
+			split = "\\s*,\\s*",
+			splitSynopsisLabel = ",",
+			paramLabel = "datumStreamId")
+	Long[] datumStreamIds;
+
+	@Option(names = { "-t", "--stream-type" },
+			description = """
+					a datum stream type to restrict finding gaps for;
+					can be prefixed with ! to exclude that type""",
+			split = "\\s*,\\s*",
+			splitSynopsisLabel = ",",
+			paramLabel = "datumStreamType")
+	String[] types;
+
+	@Option(names = { "-min", "--min-date" },
+			description = "the minimum date to find gaps from",
+			required = true)
+	LocalDateTime minDate;
+
+	@Option(names = { "-max", "--max-date" },
+			description = "the maximum date (exclusive) to find gaps to, instead of the current time")
+	LocalDateTime maxDate;
+
+	@Option(names = { "-tz", "--time-zone" },
+			description = "a time zone to interpret the min and max dates as, instead of the local time zone")
+	ZoneId zone;
+
+	@Option(names = { "-r", "--resolution" },
+			description = "the time period each datum covers, such that a period without any datum is a gap",
+			paramLabel = "duration",
+			defaultValue = "PT1H")
+	Duration resolution = DEFAULT_RESOLUTION;
+
+	@Option(names = { "-mode", "--display-mode" },
+			description = "how to display the data",
+			defaultValue = "PRETTY")
+	ResultDisplayMode displayMode = ResultDisplayMode.PRETTY;
+
+	@Option(names = { "--parallel" },
+			description = "the maximum number of datum streams to query at once",
+			paramLabel = "count",
+			defaultValue = "" + BulkRequestUtils.DEFAULT_PARALLELISM)
+	int parallelism = BulkRequestUtils.DEFAULT_PARALLELISM;
+
+	@Option(names = { "--retries" },
+			description = "the maximum number of times to retry a request after a server error",
+			paramLabel = "count",
+			defaultValue = "" + BulkRequestUtils.DEFAULT_RETRIES)
+	int retries = BulkRequestUtils.DEFAULT_RETRIES;
+	// @formatter:on
+
+	/**
+	 * A missing time range for a datum stream source.
+	 *
+	 * @param datumStream the datum stream
+	 * @param sourceId    the source ID
+	 * @param gap         the missing time range
+	 */
+	public static record DatumStreamGap(CloudDatumStreamConfiguration datumStream, String sourceId, Interval gap) {
+
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param reqFactory   the HTTP request factory to use
+	 * @param objectMapper the mapper to use
+	 */
+	public DatumStreamGapsCmd(ClientHttpRequestFactory reqFactory, ObjectMapper objectMapper) {
+		super(reqFactory, objectMapper);
+	}
+
+	@Override
+	public Integer call() throws Exception {
+		if (resolution == null || resolution.isNegative() || resolution.isZero()) {
+			System.err.println("The resolution must be a positive duration.");
+			return 1;
+		}
+		final RestClient restClient = restClient();
+		final ZonedDateTime start = DateUtils.zonedDate(minDate, zone);
+		final ZonedDateTime end = (maxDate != null ? DateUtils.zonedDate(maxDate, zone)
+				: ZonedDateTime.now(zone != null ? zone : ZoneId.systemDefault()));
+		if (!start.isBefore(end)) {
+			System.err.println("The minimum date must be before the maximum date.");
+			return 1;
+		}
+
+		try {
+			final CloudIntegrationsFilter filter = new CloudIntegrationsFilter();
+			if (datumStreamIds != null && datumStreamIds.length > 0) {
+				filter.setDatumStreamIds(List.of(datumStreamIds));
+			}
+			final SortedMap<Long, CloudDatumStreamConfiguration> datumStreams = ancestorCmd(
+					CloudIntegrationsCmd.class).configurationSnapshots()
+					.datumStreamsOfType(restClient, objectMapper, filter, types);
+			final List<CloudDatumStreamConfiguration> candidates = new ArrayList<>(datumStreams.size());
+			for (CloudDatumStreamConfiguration datumStream : datumStreams.values()) {
+				if (datumStream.objectId() == null || datumStream.sourceIds().isEmpty()) {
+					System.err.println("Datum stream %d has no object or source ID configured; skipping."
+							.formatted(datumStream.configId()));
+				} else {
+					candidates.add(datumStream);
+				}
+			}
+			if (candidates.isEmpty()) {
+				System.err.println("No datum streams matched your criteria.");
+				return 0;
+			}
+
+			// only filter tasks by explicit stream IDs, to keep the query short for many streams
+			final Map<Long, CloudDatumStreamPollTaskConfiguration> pollTasks = listCloudDatumStreamPollTasks(
+					restClient, objectMapper, filter.getDatumStreamIds() != null ? filter : null).stream()
+					.collect(toMap(CloudDatumStreamPollTaskConfiguration::datumStreamId, identity(), (l, _) -> l));
+
+			final RetryPolicy retryPolicy = RetryPolicy.withRetries(retries);
+			final List<BulkResult<CloudDatumStreamConfiguration, List<DatumStreamGap>>> results = BulkRequestUtils
+					.executeAll(candidates, parallelism, RetryPolicy.NONE,
+							datumStream -> findGaps(restClient, retryPolicy, datumStream, start,
+									expectedEnd(end, pollTasks.get(datumStream.configId()))),
+							verbosity() > 0 ? r -> {
+								if (r.isSuccess()) {
+									System.err.println("Found %d gaps in datum stream %d."
+											.formatted(r.result().size(), r.item().configId()));
+								}
+							} : null);
+
+			final List<DatumStreamGap> gaps = new ArrayList<>();
+			int failed = 0;
+			for (BulkResult<CloudDatumStreamConfiguration, List<DatumStreamGap>> r : results) {
+				if (r.isSuccess()) {
+					gaps.addAll(r.result());
+				} else {
+					failed++;
+					System.err.println("Error finding gaps in datum stream %d: %s".formatted(r.item().configId(),
+							r.error()));
+				}
+			}
+
+			if (gaps.isEmpty()) {
+				if (failed < 1) {
+					System.err.println("No gaps found.");
+				}
+			} else {
+				final List<?> tableData = (displayMode == ResultDisplayMode.JSON
+						? gaps.stream().map(DatumStreamGapsCmd::gapObject).toList()
+						: gaps.stream().map(DatumStreamGapsCmd::gapTableDataRow).toList());
+				TableUtils.renderTableData(gapTableDataColumns(), tableData, displayMode, objectMapper,
+						TableUtils.TableDataJsonPrettyPrinter.INSTANCE, System.out);
+			}
+			if (failed > 0) {
+				System.err.println("Failed to find gaps in %d of %d datum streams.".formatted(failed,
+						results.size()));
+				return 1;
+			}
+			return 0;
+		} catch (Exception e) {
+			System.err.println("Error finding cloud datum stream gaps: %s".formatted(e.getMessage()));
+		}
+
+		return 1;
+	}
+
+	/**
+	 * Get the end of the time range data is expected for.
+	 *
+	 * <p>
+	 * A poll task has not collected any data from its start date, so that is the
+	 * most data can be expected for.
+	 * </p>
+	 *
+	 * @param end      the requested end date
+	 * @param pollTask the datum stream poll task, or {@code null} if there is no
+	 *                 task
+	 * @return the end date
+	 */
+	private static Instant expectedEnd(ZonedDateTime end, CloudDatumStreamPollTaskConfiguration pollTask) {
+		final Instant result = end.toInstant();
+		if (pollTask != null && pollTask.startAt() != null && pollTask.startAt().isBefore(result)) {
+			return pollTask.startAt();
+		}
+		return result;
+	}
+
+	private List<DatumStreamGap> findGaps(RestClient restClient, RetryPolicy retryPolicy,
+			CloudDatumStreamConfiguration datumStream, ZonedDateTime start, Instant end) {
+		if (!start.toInstant().isBefore(end)) {
+			return List.of();
+		}
+
+		// track coverage per source, so a source without any datum is reported as a gap
+		final Map<String, IntervalCoverage> coverage = new TreeMap<>();
+		for (String sourceId : datumStream.sourceIds()) {
+			coverage.put(sourceId, new IntervalCoverage(resolution));
+		}
+		final CoverageHandler handler = new CoverageHandler(coverage);
+
+		final DatumFilter filter = new DatumFilter();
+		filter.setObjectKind(datumStream.kind());
+		filter.setObjectIds(List.of(datumStream.objectId()));
+		filter.setSourceIds(List.copyOf(coverage.keySet()));
+		filter.setStartDate(start);
+		filter.setEndDate(end.atZone(start.getZone()));
+
+		try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+			// each page is fetched only after the previous one completes, so the handler is
+			// never called concurrently; re-adding timestamps from a retried page is harmless
+			DatumPagingUtils.forEachPage(filter, DatumPagingUtils.DEFAULT_PAGE_SIZE, executor,
+					f -> BulkRequestUtils.retry(retryPolicy,
+							() -> ListDatumCmd.listDatum(restClient, objectMapper, f, handler)),
+					Long::intValue, (_, _, _) -> {
+					});
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+
+		final Interval range = Interval.of(start.toInstant(), end);
+		final List<DatumStreamGap> result = new ArrayList<>();
+		for (Entry<String, IntervalCoverage> e : coverage.entrySet()) {
+			for (Interval gap : e.getValue().gaps(range)) {
+				result.add(new DatumStreamGap(datumStream, e.getKey(), gap));
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Add each datum timestamp to the coverage of its source.
+	 */
+	private static final class CoverageHandler implements StreamDatumHandler {
+
+		private final Map<String, IntervalCoverage> coverage;
+		private IntervalCoverage[] streamCoverage = new IntervalCoverage[0];
+
+		private CoverageHandler(Map<String, IntervalCoverage> coverage) {
+			super();
+			this.coverage = coverage;
+		}
+
+		@Override
+		public void handleMetadata(List<ObjectDatumStreamMetadata> metadata) {
+			// map each page's metadata index to a coverage instance once, for cheap lookup per datum
+			streamCoverage = new IntervalCoverage[metadata.size()];
+			for (int i = 0, len = metadata.size(); i < len; i++) {
+				streamCoverage[i] = coverage.get(metadata.get(i).getSourceId());
+			}
+		}
+
+		@Override
+		public void handleDatum(StreamDatumView datum) {
+			final int idx = datum.getMetadataIndex();
+			if (idx >= 0 && idx < streamCoverage.length && streamCoverage[idx] != null) {
+				streamCoverage[idx].add(datum.getTimestamp());
+			}
+		}
+
+	}
+
+	private static Column[] gapTableDataColumns() {
+		// @formatter:off
+		return new Column[] {
+				new Column().header("ID").dataAlign(RIGHT),
+				new Column().header("Type").dataAlign(LEFT),
+				new Column().header("Kind").dataAlign(LEFT),
+				new Column().header("Object ID").dataAlign(RIGHT),
+				new Column().header("Source ID").dataAlign(LEFT),
+				new Column().header("Gap Start").dataAlign(LEFT),
+				new Column().header("Gap End").dataAlign(LEFT),
+				new Column().header("Duration").dataAlign(RIGHT),
+			};
+		// @formatter:on
+	}
+
+	private static Object[] gapTableDataRow(DatumStreamGap gap) {
+		final CloudDatumStreamConfiguration datumStream = gap.datumStream();
+		// @formatter:off
+		return new Object[] {
+				datumStream.configId(),
+				datumStreamServiceLocalizedName(datumStream.serviceIdentifier()),
+				(datumStream.kind() != null ? datumStream.kind().keyValue() : null),
+				datumStream.objectId(),
+				gap.sourceId(),
+				gap.gap().getStart(),
+				gap.gap().getEnd(),
+				gap.gap().toDuration(),
+			};
+		// @formatter:on
+	}
+
+	private static Map<String, Object> gapObject(DatumStreamGap gap) {
+		final CloudDatumStreamConfiguration datumStream = gap.datumStream();
+		final Map<String, Object> result = new LinkedHashMap<>(8);
+		result.put("datumStreamId", datumStream.configId());
+		result.put("serviceIdentifier", datumStream.serviceIdentifier());
+		if (datumStream.kind() != null) {
+			result.put("kind", datumStream.kind().keyValue());
+		}
+		result.put("objectId", datumStream.objectId());
+		result.put("sourceId", gap.sourceId());
+		result.put("startDate", gap.gap().getStart());
+		result.put("endDate", gap.gap().getEnd());
+		result.put("duration", gap.gap().toDuration());
+		return result;
+	}
+
+}
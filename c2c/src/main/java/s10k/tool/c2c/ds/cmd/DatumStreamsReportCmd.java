@@ -11,7 +11,6 @@ import static s10k.tool.c2c.ds.poll.cmd.ListTasksCmd.listCloudDatumStreamPollTas
 import static s10k.tool.c2c.ds.poll.cmd.ListTasksCmd.pollTaskMessage;
 import static s10k.tool.c2c.ds.rake.cmd.ListTasksCmd.listCloudDatumStreamRakeTasks;
 import static s10k.tool.c2c.ds.rake.cmd.ListTasksCmd.rakeTaskMessage;
-import static s10k.tool.c2c.util.CloudIntegrationRestUtils.datumStreamsOfType;
 import static s10k.tool.c2c.util.CloudIntegrationsUtils.datumStreamServiceLocalizedName;
 
 import java.io.IOException;
@@ -21,12 +20,23 @@ import java.nio.file.Path;
 import java.time.Duration;
 import java.time.Instant;
 import java.time.Period;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
 import java.util.SortedMap;
 import java.util.TreeMap;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
 import java.util.function.Function;
+import java.util.function.Supplier;
 
 import org.springframework.aot.hint.annotation.RegisterReflectionForBinding;
 import org.springframework.http.client.ClientHttpRequestFactory;
@@ -41,10 +51,12 @@ import com.github.freva.asciitable.Column;
 
 import picocli.CommandLine.Command;
 import picocli.CommandLine.Option;
+import s10k.tool.c2c.cmd.CloudIntegrationsCmd;
 import s10k.tool.c2c.domain.CloudDatumStreamConfiguration;
 import s10k.tool.c2c.domain.CloudDatumStreamPollTaskConfiguration;
 import s10k.tool.c2c.domain.CloudDatumStreamRakeTaskConfiguration;
 import s10k.tool.c2c.domain.CloudIntegrationsFilter;
+import s10k.tool.c2c.util.CloudConfigurationSnapshots;
 import s10k.tool.c2c.util.CloudIntegrationsUtils;
 import s10k.tool.common.cmd.BaseSubCmd;
 import s10k.tool.common.domain.ClaimableJobState;
@@ -61,6 +73,9 @@ public class DatumStreamsReportCmd extends BaseSubCmd<DatumStreamsCmd> implement
 
 	public static final Duration DEFAULT_LAG_THRESHOLD = Duration.ofDays(3);
 
+	/** The maximum number of datum stream IDs to include in one task query. */
+	public static final int TASK_QUERY_SHARD_SIZE = 200;
+
 	// @formatter:off
 	@Option(names = { "-d", "--directory" },
 			description = "a directory to export the report to")
@@ -84,6 +99,17 @@ public class DatumStreamsReportCmd extends BaseSubCmd<DatumStreamsCmd> implement
 			description = "how to display the data",
 			defaultValue = "PRETTY")
 	ResultDisplayMode displayMode = ResultDisplayMode.PRETTY;
+
+	@Option(names = { "--parallel" },
+			description = "the maximum number of queries to run at once",
+			paramLabel = "count",
+			defaultValue = "4")
+	int parallelism = 4;
+
+	@Option(names = { "--watch" },
+			description = "keep running, refreshing the task states at this interval and printing only changed warnings",
+			paramLabel = "duration")
+	Duration watchInterval;
 	// @formatter:on
 
 	/**
@@ -96,76 +122,26 @@ public class DatumStreamsReportCmd extends BaseSubCmd<DatumStreamsCmd> implement
 		super(reqFactory, objectMapper);
 	}
 
-	@SuppressWarnings("ClosingStandardOutputStreams")
 	@Override
 	public Integer call() throws Exception {
 		final RestClient restClient = restClient();
 
 		try {
 			final var checkup = createCheckup(restClient);
+			if (watchInterval != null) {
+				if (watchInterval.isNegative() || watchInterval.isZero()) {
+					System.err.println("The watch interval must be a positive duration.");
+					return 1;
+				}
+				return watch(restClient, checkup);
+			}
 			if (checkup.isWithoutWarnings()) {
 				System.err.println("No warnings found.");
 				return 0;
 			}
 
 			final Path outputDir = (outputDirectory != null ? OutputUtils.ensureDirectory(outputDirectory) : null);
-
-			if (displayMode == ResultDisplayMode.JSON) {
-				if (outputDir == null) {
-					OutputUtils.writeJsonObject(objectMapper, checkup.asReport());
-				} else {
-					// export to file
-					try (OutputStream out = Files.newOutputStream(outputDir.resolve("datum-stream-report.json"))) {
-						objectMapper.writeValue(out, checkup.asReport());
-					}
-				}
-			} else {
-				// overall report
-				try (OutputStream out = (outputDir != null
-						? Files.newOutputStream(outputDir.resolve(fileName("datum-stream-overall-report")))
-						: nonClosing(System.out))) {
-					// @formatter:off
-					TableUtils.renderTableData(new Column[] {
-						  new Column().header("Datum Stream Count").dataAlign(RIGHT)
-						, new Column().header("Warning Count").dataAlign(RIGHT)
-						, new Column().header("Poll Task Count").dataAlign(RIGHT)
-						, new Column().header("Poll Warning Count").dataAlign(RIGHT)
-						, new Column().header("Rake Task Count").dataAlign(RIGHT)
-						, new Column().header("Rake Warning Count").dataAlign(RIGHT)
-					}, List.of(List.of(
-						  checkup.datumStreamCount()
-						, checkup.warningCount()
-						, checkup.pollTasks.taskCount()
-						, checkup.pollTasks.warningCount()
-						, checkup.rakeTasks.taskCount()
-						, checkup.rakeTasks.warningCount()
-					)), displayMode, objectMapper,
-							TableUtils.TableDataJsonPrettyPrinter.INSTANCE, out);
-					// @formatter:on
-				}
-
-				// missing task reports
-				generateDatumStreamReport(checkup.pollTasks.datumStreamsWithoutTasks, "Missing Poll Task",
-						"datum-stream-poll-task-missing-report", outputDir);
-				generateDatumStreamReport(checkup.rakeTasks.datumStreamsWithoutTasks, "Missing Rake Task",
-						"datum-stream-rake-task-missing-report", outputDir);
-
-				// poll task reports
-				generatePollTaskReport(checkup.datumStreams, checkup.pollTasks.stoppedTasks, "Stopped",
-						"datum-stream-poll-task-stopped-report", outputDir);
-				generatePollTaskReport(checkup.datumStreams, checkup.pollTasks.errorTasks, "Failing",
-						"datum-stream-poll-task-failing-report", outputDir);
-				generatePollTaskReport(checkup.datumStreams, checkup.pollTasks.laggingTasks, "Lagging",
-						"datum-stream-poll-task-lagging-report", outputDir);
-
-				// rake task reports
-				generateRakeTaskReport(checkup.datumStreams, checkup.rakeTasks.stoppedTasks, "Stopped",
-						"datum-stream-rake-task-stopped-report", outputDir);
-				generateRakeTaskReport(checkup.datumStreams, checkup.rakeTasks.errorTasks, "Failing",
-						"datum-stream-rake-task-failing-report", outputDir);
-				generateRakeTaskReport(checkup.datumStreams, checkup.rakeTasks.laggingTasks, "Lagging",
-						"datum-stream-rake-task-lagging-report", outputDir);
-			}
+			renderReport(checkup, outputDir);
 			if (outputDir != null) {
 				System.err.printf("Report generated in %s\n", outputDir);
 			}
@@ -177,6 +153,66 @@ public class DatumStreamsReportCmd extends BaseSubCmd<DatumStreamsCmd> implement
 
 	}
 
+	@SuppressWarnings("ClosingStandardOutputStreams")
+	private void renderReport(Checkup checkup, Path outputDir) throws IOException {
+		if (displayMode == ResultDisplayMode.JSON) {
+			if (outputDir == null) {
+				OutputUtils.writeJsonObject(objectMapper, checkup.asReport());
+			} else {
+				// export to file
+				try (OutputStream out = Files.newOutputStream(outputDir.resolve("datum-stream-report.json"))) {
+					objectMapper.writeValue(out, checkup.asReport());
+				}
+			}
+		} else {
+			// overall report
+			try (OutputStream out = (outputDir != null
+					? Files.newOutputStream(outputDir.resolve(fileName("datum-stream-overall-report")))
+					: nonClosing(System.out))) {
+				// @formatter:off
+				TableUtils.renderTableData(new Column[] {
+					  new Column().header("Datum Stream Count").dataAlign(RIGHT)
+					, new Column().header("Warning Count").dataAlign(RIGHT)
+					, new Column().header("Poll Task Count").dataAlign(RIGHT)
+					, new Column().header("Poll Warning Count").dataAlign(RIGHT)
+					, new Column().header("Rake Task Count").dataAlign(RIGHT)
+					, new Column().header("Rake Warning Count").dataAlign(RIGHT)
+				}, List.of(List.of(
+					  checkup.datumStreamCount()
+					, checkup.warningCount()
+					, checkup.pollTasks.taskCount()
+					, checkup.pollTasks.warningCount()
+					, checkup.rakeTasks.taskCount()
+					, checkup.rakeTasks.warningCount()
+				)), displayMode, objectMapper,
+						TableUtils.TableDataJsonPrettyPrinter.INSTANCE, out);
+				// @formatter:on
+			}
+
+			// missing task reports
+			generateDatumStreamReport(checkup.pollTasks.datumStreamsWithoutTasks, "Missing Poll Task",
+					"datum-stream-poll-task-missing-report", outputDir);
+			generateDatumStreamReport(checkup.rakeTasks.datumStreamsWithoutTasks, "Missing Rake Task",
+					"datum-stream-rake-task-missing-report", outputDir);
+
+			// poll task reports
+			generatePollTaskReport(checkup.datumStreams, checkup.pollTasks.stoppedTasks, "Stopped",
+					"datum-stream-poll-task-stopped-report", outputDir);
+			generatePollTaskReport(checkup.datumStreams, checkup.pollTasks.errorTasks, "Failing",
+					"datum-stream-poll-task-failing-report", outputDir);
+			generatePollTaskReport(checkup.datumStreams, checkup.pollTasks.laggingTasks, "Lagging",
+					"datum-stream-poll-task-lagging-report", outputDir);
+
+			// rake task reports
+			generateRakeTaskReport(checkup.datumStreams, checkup.rakeTasks.stoppedTasks, "Stopped",
+					"datum-stream-rake-task-stopped-report", outputDir);
+			generateRakeTaskReport(checkup.datumStreams, checkup.rakeTasks.errorTasks, "Failing",
+					"datum-stream-rake-task-failing-report", outputDir);
+			generateRakeTaskReport(checkup.datumStreams, checkup.rakeTasks.laggingTasks, "Lagging",
+					"datum-stream-rake-task-lagging-report", outputDir);
+		}
+	}
+
 	@SuppressWarnings("ClosingStandardOutputStreams")
 	private void generateDatumStreamReport(SortedMap<Long, CloudDatumStreamConfiguration> datumStreams, String title,
 			String fileName, Path outputDir) throws IOException {
@@ -229,22 +265,277 @@ public class DatumStreamsReportCmd extends BaseSubCmd<DatumStreamsCmd> implement
 		}
 	}
 
+	/**
+	 * Keep refreshing the task states and print the warnings that appear or are
+	 * resolved after each refresh.
+	 * 
+	 * <p>
+	 * All warnings in the initial checkup are printed as new warnings. The datum
+	 * stream configurations are loaded once and reused for every refresh, so only
+	 * the poll and rake tasks are queried again.
+	 * </p>
+	 * 
+	 * @param restClient the REST client
+	 * @param checkup    the initial checkup
+	 * @return the command result
+	 * @throws IOException if any IO error occurs
+	 */
+	private int watch(RestClient restClient, Checkup checkup) throws IOException {
+		final SortedMap<Long, CloudDatumStreamConfiguration> datumStreams = checkup.datumStreams();
+		final List<CloudIntegrationsFilter> taskFilters = (types != null && types.length > 0
+				? taskFilters(datumStreams.keySet())
+				: List.of(new CloudIntegrationsFilter()));
+		SortedMap<WarningKey, ReportWarning> warnings = new TreeMap<>();
+		Checkup next = checkup;
+		boolean header = true;
+		while (true) {
+			if (next != null) {
+				final SortedMap<WarningKey, ReportWarning> nextWarnings = warnings(next);
+				final Instant now = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+				final List<Object> changes = new ArrayList<>();
+				for (Entry<WarningKey, ReportWarning> e : nextWarnings.entrySet()) {
+					if (!warnings.containsKey(e.getKey())) {
+						changes.add(warningChange(now, "New", e.getValue()));
+					}
+				}
+				for (Entry<WarningKey, ReportWarning> e : warnings.entrySet()) {
+					if (!nextWarnings.containsKey(e.getKey())) {
+						changes.add(warningChange(now, "Resolved", e.getValue()));
+					}
+				}
+				warnings = nextWarnings;
+				if (verbosity() > 0) {
+					System.err.printf("%s: %d warnings, %d changed\n", now, nextWarnings.size(), changes.size());
+				}
+				if (!changes.isEmpty()) {
+					// only output the CSV header once, so the output is one continuous CSV stream
+					TableUtils.renderTableData(
+							header || displayMode != ResultDisplayMode.CSV ? warningTableDataColumns() : null, changes,
+							displayMode, objectMapper, null, System.out);
+					System.out.flush();
+					header = false;
+				}
+			}
+			try {
+				Thread.sleep(watchInterval);
+			} catch (InterruptedException e) {
+				return 0;
+			}
+			try {
+				next = refreshCheckup(restClient, datumStreams, taskFilters);
+			} catch (Exception e) {
+				System.err.printf("Error refreshing cloud datum stream tasks: %s\n", e.getMessage());
+				next = null;
+			}
+		}
+	}
+
+	private Checkup refreshCheckup(RestClient restClient, SortedMap<Long, CloudDatumStreamConfiguration> datumStreams,
+			List<CloudIntegrationsFilter> taskFilters) {
+		final Semaphore permits = new Semaphore(Math.max(1, parallelism));
+		final SortedMap<Long, CloudDatumStreamPollTaskConfiguration> allPollTasks;
+		final SortedMap<Long, SortedMap<Period, CloudDatumStreamRakeTaskConfiguration>> allRakeTasks;
+		try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+			final CompletableFuture<SortedMap<Long, CloudDatumStreamPollTaskConfiguration>> pollTasksFuture = CompletableFuture
+					.supplyAsync(() -> allPollTasks(restClient, taskFilters, permits, executor), executor);
+			final CompletableFuture<SortedMap<Long, SortedMap<Period, CloudDatumStreamRakeTaskConfiguration>>> rakeTasksFuture = CompletableFuture
+					.supplyAsync(() -> allRakeTasks(restClient, taskFilters, permits, executor), executor);
+			allPollTasks = join(pollTasksFuture);
+			allRakeTasks = join(rakeTasksFuture);
+		}
+		return analyze(datumStreams, allPollTasks, allRakeTasks);
+	}
+
+	/**
+	 * A unique key for a report warning.
+	 * 
+	 * @param warning       the warning type
+	 * @param datumStreamId the datum stream ID
+	 * @param taskId        the rake task ID, or {@code 0} for a datum stream or
+	 *                      poll task warning
+	 */
+	private static record WarningKey(String warning, Long datumStreamId, Long taskId)
+			implements Comparable<WarningKey> {
+
+		@Override
+		public int compareTo(WarningKey o) {
+			int result = datumStreamId.compareTo(o.datumStreamId);
+			if (result == 0) {
+				result = warning.compareTo(o.warning);
+				if (result == 0) {
+					result = taskId.compareTo(o.taskId);
+				}
+			}
+			return result;
+		}
+
+	}
+
+	/**
+	 * A report warning.
+	 */
+	@JsonPropertyOrder({ "warning", "datumStreamId", "datumStreamType", "objectId", "sourceId", "taskId", "state",
+			"errorCount", "date", "message" })
+	@RegisterReflectionForBinding
+	public static record ReportWarning(String warning, Long datumStreamId, String datumStreamType, Long objectId,
+			String sourceId, Long taskId, String state, Integer errorCount, Instant date, String message) {
+
+	}
+
+	private static SortedMap<WarningKey, ReportWarning> warnings(Checkup checkup) {
+		final SortedMap<WarningKey, ReportWarning> result = new TreeMap<>();
+		final PollTaskCheckup poll = checkup.pollTasks();
+		final RakeTaskCheckup rake = checkup.rakeTasks();
+		for (CloudDatumStreamConfiguration ds : poll.datumStreamsWithoutTasks().values()) {
+			addWarning(result, "Missing Poll Task", ds, null, null, null, null, null, null);
+		}
+		for (CloudDatumStreamConfiguration ds : rake.datumStreamsWithoutTasks().values()) {
+			addWarning(result, "Missing Rake Task", ds, null, null, null, null, null, null);
+		}
+		addPollTaskWarnings(result, "Poll Task Stopped", checkup.datumStreams(), poll.stoppedTasks());
+		addPollTaskWarnings(result, "Poll Task Failing", checkup.datumStreams(), poll.errorTasks());
+		addPollTaskWarnings(result, "Poll Task Lagging", checkup.datumStreams(), poll.laggingTasks());
+		addRakeTaskWarnings(result, "Rake Task Stopped", checkup.datumStreams(), rake.stoppedTasks());
+		addRakeTaskWarnings(result, "Rake Task Failing", checkup.datumStreams(), rake.errorTasks());
+		addRakeTaskWarnings(result, "Rake Task Lagging", checkup.datumStreams(), rake.laggingTasks());
+		return result;
+	}
+
+	private static void addPollTaskWarnings(SortedMap<WarningKey, ReportWarning> warnings, String warning,
+			SortedMap<Long, CloudDatumStreamConfiguration> datumStreams,
+			SortedMap<Long, CloudDatumStreamPollTaskConfiguration> tasks) {
+		for (CloudDatumStreamPollTaskConfiguration task : tasks.values()) {
+			addWarning(warnings, warning, datumStreams.get(task.datumStreamId()), task.datumStreamId(), null,
+					task.state(), task.errorCount(), task.startAt(), pollTaskMessage(task));
+		}
+	}
+
+	private static void addRakeTaskWarnings(SortedMap<WarningKey, ReportWarning> warnings, String warning,
+			SortedMap<Long, CloudDatumStreamConfiguration> datumStreams,
+			SortedMap<Long, SortedMap<Period, CloudDatumStreamRakeTaskConfiguration>> tasks) {
+		for (SortedMap<Period, CloudDatumStreamRakeTaskConfiguration> streamTasks : tasks.values()) {
+			for (CloudDatumStreamRakeTaskConfiguration task : streamTasks.values()) {
+				addWarning(warnings, warning, datumStreams.get(task.datumStreamId()), task.datumStreamId(),
+						task.configId(), task.state(), task.errorCount(), task.executeAt(), rakeTaskMessage(task));
+			}
+		}
+	}
+
+	private static void addWarning(SortedMap<WarningKey, ReportWarning> warnings, String warning,
+			CloudDatumStreamConfiguration datumStream, Long datumStreamId, Long taskId, String state,
+			Integer errorCount, Instant date, String message) {
+		final Long dsId = (datumStreamId != null ? datumStreamId : datumStream.configId());
+		// @formatter:off
+		warnings.put(new WarningKey(warning, dsId, taskId != null ? taskId : 0L), new ReportWarning(
+				warning,
+				dsId,
+				(datumStream != null ? datumStreamServiceLocalizedName(datumStream.serviceIdentifier()) : null),
+				(datumStream != null ? datumStream.objectId() : null),
+				(datumStream != null ? datumStream.sourceIdsValue() : null),
+				taskId,
+				state,
+				errorCount,
+				date,
+				message));
+		// @formatter:on
+	}
+
+	private Object warningChange(Instant now, String change, ReportWarning warning) {
+		if (displayMode == ResultDisplayMode.JSON) {
+			final Map<String, Object> result = new LinkedHashMap<>(4);
+			result.put("date", now);
+			result.put("change", change);
+			result.put("warning", warning);
+			return result;
+		}
+		// @formatter:off
+		return new Object[] {
+				now,
+				change,
+				warning.warning(),
+				warning.datumStreamId(),
+				warning.datumStreamType(),
+				warning.objectId(),
+				warning.sourceId(),
+				warning.taskId(),
+				warning.state(),
+				warning.errorCount(),
+				warning.date(),
+				warning.message(),
+			};
+		// @formatter:on
+	}
+
+	private static Column[] warningTableDataColumns() {
+		// @formatter:off
+		return new Column[] {
+				new Column().header("Date").dataAlign(LEFT),
+				new Column().header("Change").dataAlign(LEFT),
+				new Column().header("Warning").dataAlign(LEFT),
+				new Column().header("Datum Stream ID").dataAlign(RIGHT),
+				new Column().header("Datum Stream Type").dataAlign(LEFT),
+				new Column().header("Object ID").dataAlign(RIGHT),
+				new Column().header("Source ID").dataAlign(LEFT),
+				new Column().header("Task ID").dataAlign(RIGHT),
+				new Column().header("State").dataAlign(LEFT),
+				new Column().header("Error Count").dataAlign(RIGHT),
+				new Column().header("Task Date").dataAlign(LEFT),
+				new Column().header("Message").dataAlign(LEFT),
+			};
+		// @formatter:on
+	}
+
 	private String fileName(String name) {
 		return "%s.%s".formatted(name, displayMode == ResultDisplayMode.CSV ? "csv" : "txt");
 	}
 
 	private Checkup createCheckup(RestClient restClient) {
-		final SortedMap<Long, CloudDatumStreamConfiguration> allDatumStreams = datumStreamsOfType(restClient,
-				objectMapper, null, types);
-		final CloudIntegrationsFilter taskFilter = new CloudIntegrationsFilter();
-		if (types != null && types.length > 0) {
-			taskFilter.setDatumStreamIds(allDatumStreams.keySet().stream().toList());
+		final long start = System.nanoTime();
+		final Map<String, Duration> timings = new LinkedHashMap<>(8);
+		final Semaphore permits = new Semaphore(Math.max(1, parallelism));
+		final CloudConfigurationSnapshots snapshots = ancestorCmd(CloudIntegrationsCmd.class).configurationSnapshots();
+		final SortedMap<Long, CloudDatumStreamConfiguration> allDatumStreams;
+		final SortedMap<Long, CloudDatumStreamPollTaskConfiguration> allPollTasks;
+		final SortedMap<Long, SortedMap<Period, CloudDatumStreamRakeTaskConfiguration>> allRakeTasks;
+		try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+			final CompletableFuture<SortedMap<Long, CloudDatumStreamConfiguration>> datumStreamsFuture = CompletableFuture
+					.supplyAsync(timed("Datum streams", timings, () -> limited(permits,
+							() -> snapshots.datumStreamsOfType(restClient, objectMapper, null, types))), executor);
+
+			final List<CloudIntegrationsFilter> taskFilters;
+			if (types != null && types.length > 0) {
+				// tasks must be restricted to the matching datum streams, so wait for those first
+				taskFilters = taskFilters(join(datumStreamsFuture).keySet());
+			} else {
+				taskFilters = List.of(new CloudIntegrationsFilter());
+			}
+
+			final CompletableFuture<SortedMap<Long, CloudDatumStreamPollTaskConfiguration>> pollTasksFuture = CompletableFuture
+					.supplyAsync(timed("Poll tasks", timings,
+							() -> allPollTasks(restClient, taskFilters, permits, executor)), executor);
+			final CompletableFuture<SortedMap<Long, SortedMap<Period, CloudDatumStreamRakeTaskConfiguration>>> rakeTasksFuture = CompletableFuture
+					.supplyAsync(timed("Rake tasks", timings,
+							() -> allRakeTasks(restClient, taskFilters, permits, executor)), executor);
+
+			allDatumStreams = join(datumStreamsFuture);
+			allPollTasks = join(pollTasksFuture);
+			allRakeTasks = join(rakeTasksFuture);
 		}
-		final SortedMap<Long, CloudDatumStreamPollTaskConfiguration> allPollTasks = allPollTasks(restClient,
-				taskFilter);
-		final SortedMap<Long, SortedMap<Period, CloudDatumStreamRakeTaskConfiguration>> allRakeTasks = allRakeTasks(
-				restClient, taskFilter);
 
+		final Checkup result = timed("Analysis", timings,
+				() -> analyze(allDatumStreams, allPollTasks, allRakeTasks)).get();
+
+		if (verbosity() > 0) {
+			timings.forEach((phase, time) -> System.err.printf("%-14s %6d ms\n", phase + ":", time.toMillis()));
+			System.err.printf("%-14s %6d ms\n", "Total:", Duration.ofNanos(System.nanoTime() - start).toMillis());
+		}
+
+		return result;
+	}
+
+	private Checkup analyze(SortedMap<Long, CloudDatumStreamConfiguration> allDatumStreams,
+			SortedMap<Long, CloudDatumStreamPollTaskConfiguration> allPollTasks,
+			SortedMap<Long, SortedMap<Period, CloudDatumStreamRakeTaskConfiguration>> allRakeTasks) {
 		final Instant now = Instant.now();
 		final Instant lagMax = now.minus(lagThreshold);
 
@@ -270,13 +561,12 @@ public class DatumStreamsReportCmd extends BaseSubCmd<DatumStreamsCmd> implement
 				pollCheckup.stoppedTasks.put(task.datumStreamId(), task);
 			} else {
 				// look for error tasks
-				var sprops = task.serviceProperties();
-				if (sprops != null && sprops.get("errorCount") instanceof Number n && n.longValue() > 0L) {
+				if (TaskSelectorOptions.isFailing(task.state(), task.errorCount())) {
 					pollCheckup.errorTasks.put(task.datumStreamId(), task);
 				}
 			}
 			// find lagging tasks
-			if (task.startAt().isBefore(lagMax)) {
+			if (TaskSelectorOptions.isLagging(task.startAt(), lagMax)) {
 				pollCheckup.laggingTasks.put(task.datumStreamId(), task);
 			}
 		}
@@ -292,14 +582,13 @@ public class DatumStreamsReportCmd extends BaseSubCmd<DatumStreamsCmd> implement
 							_ -> new TreeMap<>(CloudIntegrationsUtils::comparePeriods)).put(offset, task);
 				} else {
 					// look for error tasks
-					var sprops = task.serviceProperties();
-					if (sprops != null && sprops.get("errorCount") instanceof Number n && n.longValue() > 0L) {
+					if (TaskSelectorOptions.isFailing(task.state(), task.errorCount())) {
 						rakeCheckup.errorTasks.computeIfAbsent(task.datumStreamId(),
 								_ -> new TreeMap<>(CloudIntegrationsUtils::comparePeriods)).put(offset, task);
 					}
 				}
 				// find lagging tasks
-				if (task.executeAt().isBefore(lagMax)) {
+				if (TaskSelectorOptions.isLagging(task.executeAt(), lagMax)) {
 					rakeCheckup.laggingTasks.computeIfAbsent(task.datumStreamId(),
 							_ -> new TreeMap<>(CloudIntegrationsUtils::comparePeriods)).put(offset, task);
 				}
@@ -553,18 +842,95 @@ public class DatumStreamsReportCmd extends BaseSubCmd<DatumStreamsCmd> implement
 		return (map == null || map.isEmpty() ? null : map);
 	}
 
+	/**
+	 * Get task filters for a set of datum stream IDs.
+	 * 
+	 * <p>
+	 * The IDs are split into shards of at most {@link #TASK_QUERY_SHARD_SIZE}
+	 * IDs, so each shard can be queried in parallel without creating overly long
+	 * request URLs.
+	 * </p>
+	 * 
+	 * @param datumStreamIds the datum stream IDs
+	 * @return the filters, one per shard
+	 */
+	private static List<CloudIntegrationsFilter> taskFilters(Collection<Long> datumStreamIds) {
+		final List<Long> ids = List.copyOf(datumStreamIds);
+		final List<CloudIntegrationsFilter> result = new ArrayList<>(
+				(ids.size() + TASK_QUERY_SHARD_SIZE - 1) / TASK_QUERY_SHARD_SIZE);
+		for (int i = 0; i < ids.size(); i += TASK_QUERY_SHARD_SIZE) {
+			final CloudIntegrationsFilter filter = new CloudIntegrationsFilter();
+			filter.setDatumStreamIds(ids.subList(i, Math.min(ids.size(), i + TASK_QUERY_SHARD_SIZE)));
+			result.add(filter);
+		}
+		return result;
+	}
+
 	private SortedMap<Long, CloudDatumStreamPollTaskConfiguration> allPollTasks(RestClient restClient,
-			CloudIntegrationsFilter filter) {
-		return listCloudDatumStreamPollTasks(restClient, objectMapper, filter).stream().collect(
-				toMap(CloudDatumStreamPollTaskConfiguration::datumStreamId, identity(), (_, n) -> n, TreeMap::new));
+			List<CloudIntegrationsFilter> filters, Semaphore permits, ExecutorService executor) {
+		return fetchShards(filters, permits, executor,
+				f -> listCloudDatumStreamPollTasks(restClient, objectMapper, f)).stream().collect(
+						toMap(CloudDatumStreamPollTaskConfiguration::datumStreamId, identity(), (_, n) -> n,
+								TreeMap::new));
 	}
 
 	private SortedMap<Long, SortedMap<Period, CloudDatumStreamRakeTaskConfiguration>> allRakeTasks(
-			RestClient restClient, CloudIntegrationsFilter filter) {
-		return listCloudDatumStreamRakeTasks(restClient, objectMapper, filter).stream()
+			RestClient restClient, List<CloudIntegrationsFilter> filters, Semaphore permits,
+			ExecutorService executor) {
+		return fetchShards(filters, permits, executor,
+				f -> listCloudDatumStreamRakeTasks(restClient, objectMapper, f)).stream()
 				.collect(groupingBy(CloudDatumStreamRakeTaskConfiguration::datumStreamId, TreeMap::new,
 						mapping(Function.identity(), toMap(t -> Period.parse(t.offset()), identity(), (_, n) -> n,
 								() -> new TreeMap<>(CloudIntegrationsUtils::comparePeriods)))));
 	}
 
+	private static <T> List<T> fetchShards(List<CloudIntegrationsFilter> filters, Semaphore permits,
+			ExecutorService executor, Function<CloudIntegrationsFilter, List<T>> fetcher) {
+		if (filters.size() == 1) {
+			return limited(permits, () -> fetcher.apply(filters.getFirst()));
+		}
+		final List<CompletableFuture<List<T>>> shards = filters.stream()
+				.map(f -> CompletableFuture.supplyAsync(() -> limited(permits, () -> fetcher.apply(f)), executor))
+				.toList();
+		final List<T> result = new ArrayList<>();
+		for (CompletableFuture<List<T>> shard : shards) {
+			result.addAll(join(shard));
+		}
+		return result;
+	}
+
+	private static <T> T limited(Semaphore permits, Supplier<T> supplier) {
+		permits.acquireUninterruptibly();
+		try {
+			return supplier.get();
+		} finally {
+			permits.release();
+		}
+	}
+
+	private static <T> Supplier<T> timed(String phase, Map<String, Duration> timings, Supplier<T> supplier) {
+		return () -> {
+			final long start = System.nanoTime();
+			try {
+				return supplier.get();
+			} finally {
+				final Duration time = Duration.ofNanos(System.nanoTime() - start);
+				synchronized (timings) {
+					timings.put(phase, time);
+				}
+			}
+		};
+	}
+
+	private static <T> T join(CompletableFuture<T> future) {
+		try {
+			return future.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException re) {
+				throw re;
+			}
+			throw e;
+		}
+	}
+
 }
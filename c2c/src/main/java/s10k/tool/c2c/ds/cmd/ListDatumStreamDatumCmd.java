@@ -4,27 +4,53 @@ import static com.github.freva.asciitable.HorizontalAlign.LEFT;
 import static com.github.freva.asciitable.HorizontalAlign.RIGHT;
 import static java.util.stream.StreamSupport.stream;
 import static org.springframework.util.StreamUtils.nonClosing;
-import static s10k.tool.common.util.RestUtils.checkSuccess;
+import static s10k.tool.common.util.SystemUtils.systemConsoleIsTerminal;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.SequencedSet;
+import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.springframework.http.MediaType;
 import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.RestClient;
+import org.springframework.web.util.UriBuilder;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.ObjectWriter;
 import com.github.freva.asciitable.Column;
 
 import net.solarnetwork.domain.datum.Datum;
 import net.solarnetwork.domain.datum.DatumAuxiliaryRecord;
+import net.solarnetwork.domain.datum.DatumSamplesOperations;
+import net.solarnetwork.domain.datum.DatumSamplesType;
 import picocli.CommandLine.ArgGroup;
 import picocli.CommandLine.Command;
 import picocli.CommandLine.Option;
@@ -36,6 +62,7 @@ import s10k.tool.common.domain.ResultDisplayMode;
 import s10k.tool.common.util.DateUtils;
 import s10k.tool.common.util.DatumUtils;
 import s10k.tool.common.util.DatumUtils.DatumResultStructure;
+import s10k.tool.common.util.RestUtils;
 import s10k.tool.common.util.TableUtils;
 
 /**
@@ -62,8 +89,33 @@ public class ListDatumStreamDatumCmd extends BaseSubCmd<DatumStreamsCmd> impleme
 			description = "how to display the data",
 			defaultValue = "PRETTY")
 	ResultDisplayMode displayMode = ResultDisplayMode.PRETTY;
+
+	@Option(names = { "-prop", "--property" },
+			description = "show only this property name in the results, in this order (applies only to CSV and PRETTY display modes)",
+			split = "\\s*,\\s*",
+			splitSynopsisLabel = ",",
+			paramLabel = "propName")
+	String[] propertyNames;
+
+	@Option(names = { "--window" },
+			description = "split the date range into windows of at most this size, fetched in parallel",
+			paramLabel = "duration")
+	Duration window;
+
+	@Option(names = { "--parallel" },
+			description = "the maximum number of windows to fetch at once",
+			paramLabel = "count",
+			defaultValue = "4")
+	int parallelism = 4;
 	// @formatter:on
 
+	/** The property types to look for {@code -prop} properties in, in order. */
+	private static final DatumSamplesType[] PROPERTY_TYPES = new DatumSamplesType[] {
+			DatumSamplesType.Instantaneous, DatumSamplesType.Accumulating, DatumSamplesType.Status };
+
+	/** A structure without any properties, for the datum columns alone. */
+	private static final DatumResultStructure BASE_STRUCTURE = DatumUtils.resultStructure(List.of());
+
 	/**
 	 * Grouping of min/max date range.
 	 */
@@ -98,6 +150,10 @@ public class ListDatumStreamDatumCmd extends BaseSubCmd<DatumStreamsCmd> impleme
 		final CloudIntegrationsFilter filter = filter();
 
 		try {
+			if (window != null && filter.hasDateRange()) {
+				return listWindows(restClient, windows(filter));
+			}
+
 			CloudDatumStreamQueryResult datum = listCloudDatumStreamDatum(restClient, objectMapper, datumStreamId,
 					filter);
 			if (datum.isEmpty()) {
@@ -108,18 +164,15 @@ public class ListDatumStreamDatumCmd extends BaseSubCmd<DatumStreamsCmd> impleme
 			if (displayMode == ResultDisplayMode.JSON) {
 				objectMapper.writeValue(nonClosing(System.out), datum);
 			} else {
-				final DatumResultStructure structure = DatumUtils.resultStructure(datum);
-				List<?> tableData = stream(datum.spliterator(), false).map(d -> structure.tableDataRow(d)).toList();
-				TableUtils.renderTableData(structure != null ? structure.columns().toArray(Column[]::new) : null,
-						tableData, displayMode, objectMapper, TableUtils.TableDataJsonPrettyPrinter.INSTANCE,
-						System.out);
+				renderTableData(hasPropertyNames() ? null : DatumUtils.resultStructure(datum), datum, true);
 				if (displayMode == ResultDisplayMode.PRETTY && datum.getAuxiliary() != null
 						&& !datum.getAuxiliary().isEmpty()) {
-					tableData = datum.getAuxiliary().stream()
-							.map(d -> datumAuxiliaryTableDataRow(d, objectMapper.writerWithDefaultPrettyPrinter()))
-							.toList();
-					TableUtils.renderTableData(datumAuxiliaryTableDataColumns(), tableData, displayMode, objectMapper,
-							TableUtils.TableDataJsonPrettyPrinter.INSTANCE, System.out);
+					renderAuxiliary(datum.getAuxiliary());
+				}
+				if (datum.getNextQueryFilter() != null && !datum.getNextQueryFilter().isEmpty()) {
+					System.err.println(
+							"More datum are available (next query filter %s); use --window to fetch them all."
+									.formatted(datum.getNextQueryFilter()));
 				}
 			}
 			return 0;
@@ -130,6 +183,273 @@ public class ListDatumStreamDatumCmd extends BaseSubCmd<DatumStreamsCmd> impleme
 		return 1;
 	}
 
+	private boolean hasPropertyNames() {
+		return (propertyNames != null && propertyNames.length > 0);
+	}
+
+	/**
+	 * Render datum as table data.
+	 * 
+	 * @param structure the structure to render the datum with, or {@code null} to
+	 *                  render the {@code -prop} properties
+	 * @param datum     the datum to render
+	 * @param header    {@code true} to render a header row
+	 * @throws IOException if any IO error occurs
+	 */
+	private void renderTableData(DatumResultStructure structure, Iterable<Datum> datum, boolean header)
+			throws IOException {
+		final List<?> tableData = stream(datum.spliterator(), false)
+				.map(d -> structure != null ? structure.tableDataRow(d) : propertyTableDataRow(d)).toList();
+		final Column[] columns = (structure != null ? structure.columns().toArray(Column[]::new)
+				: propertyColumns());
+		TableUtils.renderTableData(header ? columns : null, tableData, displayMode, objectMapper,
+				TableUtils.TableDataJsonPrettyPrinter.INSTANCE, System.out);
+	}
+
+	private Column[] propertyColumns() {
+		final List<Column> result = new ArrayList<>(BASE_STRUCTURE.columns());
+		for (String propName : propertyNames) {
+			result.add(new Column().header(propName).dataAlign(RIGHT));
+		}
+		return result.toArray(Column[]::new);
+	}
+
+	private Object[] propertyTableDataRow(Datum datum) {
+		final Object[] base = BASE_STRUCTURE.tableDataRow(datum);
+		final Object[] result = Arrays.copyOf(base, base.length + propertyNames.length);
+		final DatumSamplesOperations ops = datum.asSampleOperations();
+		for (int i = 0; i < propertyNames.length; i++) {
+			Object val = null;
+			for (DatumSamplesType propType : PROPERTY_TYPES) {
+				val = ops.getSampleValue(propType, propertyNames[i]);
+				if (val != null) {
+					break;
+				}
+			}
+			result[base.length + i] = (val instanceof BigDecimal num ? num.toPlainString() : val);
+		}
+		return result;
+	}
+
+	private void renderAuxiliary(Collection<DatumAuxiliaryRecord> auxiliary) throws IOException {
+		final List<?> tableData = auxiliary.stream()
+				.map(d -> datumAuxiliaryTableDataRow(d, objectMapper.writerWithDefaultPrettyPrinter())).toList();
+		TableUtils.renderTableData(datumAuxiliaryTableDataColumns(), tableData, displayMode, objectMapper,
+				TableUtils.TableDataJsonPrettyPrinter.INSTANCE, System.out);
+	}
+
+	/**
+	 * Split the filter date range into windows.
+	 * 
+	 * @param filter the filter
+	 * @return the window filters, or a list with just {@code filter} if the date
+	 *         range fits within a single window
+	 */
+	private List<CloudIntegrationsFilter> windows(CloudIntegrationsFilter filter) {
+		if (window.isZero() || window.isNegative()) {
+			return List.of(filter);
+		}
+		final ZonedDateTime end = filter.getEndDate();
+		final List<CloudIntegrationsFilter> result = new ArrayList<>();
+		ZonedDateTime start = filter.getStartDate();
+		while (start.isBefore(end)) {
+			final ZonedDateTime windowEnd = start.plus(window);
+			final CloudIntegrationsFilter f = new CloudIntegrationsFilter();
+			f.setStartDate(start);
+			f.setEndDate(windowEnd.isBefore(end) ? windowEnd : end);
+			result.add(f);
+			start = windowEnd;
+		}
+		return (result.isEmpty() ? List.of(filter) : result);
+	}
+
+	/**
+	 * List datum over a set of date range windows.
+	 * 
+	 * <p>
+	 * Up to {@code parallelism} windows are fetched at once, each following its
+	 * next query filters until all its datum have been fetched. The results are
+	 * output in date order as each window completes, so the complete result set
+	 * is never held in memory.
+	 * </p>
+	 * 
+	 * @param restClient the REST client
+	 * @param windows    the window filters, in date order
+	 * @return the command result
+	 * @throws IOException if any IO error occurs
+	 */
+	private int listWindows(RestClient restClient, List<CloudIntegrationsFilter> windows) throws IOException {
+		final int maxPending = Math.max(1, parallelism);
+		final WindowWriter writer = new WindowWriter();
+		try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+			final Deque<CompletableFuture<List<CloudDatumStreamQueryResult>>> pending = new ArrayDeque<>(
+					maxPending);
+			int next = 0;
+			try {
+				while (next < windows.size() || !pending.isEmpty()) {
+					while (next < windows.size() && pending.size() < maxPending) {
+						final CloudIntegrationsFilter f = windows.get(next++);
+						pending.add(CompletableFuture.supplyAsync(() -> listWindowDatum(restClient, f), executor));
+					}
+					for (CloudDatumStreamQueryResult datum : join(pending.removeFirst())) {
+						writer.write(datum);
+					}
+				}
+			} finally {
+				for (CompletableFuture<List<CloudDatumStreamQueryResult>> f : pending) {
+					f.cancel(true);
+				}
+			}
+		}
+		if (writer.finish() < 1) {
+			System.err.println("No datum matched your criteria.");
+		}
+		return 0;
+	}
+
+	/**
+	 * List the datum of a single date range window.
+	 * 
+	 * <p>
+	 * The cloud provider can return fewer results than the window holds, with a
+	 * next query filter for the rest, so each next query filter is followed until
+	 * no more results are available.
+	 * </p>
+	 * 
+	 * @param restClient the REST client
+	 * @param filter     the window filter
+	 * @return the results, in date order
+	 * @throws IllegalStateException if an error occurs fetching the datum, or the
+	 *                               cloud provider returns a next query filter
+	 *                               that has already been followed
+	 */
+	private List<CloudDatumStreamQueryResult> listWindowDatum(RestClient restClient,
+			CloudIntegrationsFilter filter) {
+		final List<CloudDatumStreamQueryResult> result = new ArrayList<>(1);
+		final Set<Map<String, Object>> followed = new HashSet<>(2);
+		CloudDatumStreamQueryResult datum = listCloudDatumStreamDatum(restClient, objectMapper, datumStreamId,
+				filter);
+		result.add(datum);
+		Map<String, Object> next;
+		while ((next = datum.getNextQueryFilter()) != null && !next.isEmpty()) {
+			if (!followed.add(next)) {
+				throw new IllegalStateException(
+						"The cloud provider returned the same next query filter more than once: %s"
+								.formatted(next));
+			}
+			datum = listCloudDatumStreamDatum(restClient, objectMapper, datumStreamId, next);
+			result.add(datum);
+		}
+		return result;
+	}
+
+	private static <T> T join(CompletableFuture<T> future) {
+		try {
+			return future.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException re) {
+				throw re;
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * Write window results incrementally.
+	 * 
+	 * <p>
+	 * In {@code JSON} mode a single result object is written, with the datum of
+	 * each window appended to its {@code results} array. In {@code CSV} mode the
+	 * rows of each window are appended under a single header row, with the
+	 * columns given by {@code -prop} or otherwise the properties of the first
+	 * window; any properties only found in later windows are omitted, and listed
+	 * in a warning by {@link #finish()}. In {@code PRETTY} mode a table is written
+	 * for each window.
+	 * </p>
+	 */
+	private final class WindowWriter {
+
+		private final List<DatumAuxiliaryRecord> auxiliary = new ArrayList<>();
+		private final SequencedSet<String> omitted = new LinkedHashSet<>();
+		private JsonGenerator json;
+		private DatumResultStructure structure;
+		private int count;
+
+		private void write(CloudDatumStreamQueryResult datum) throws IOException {
+			if (datum.getAuxiliary() != null) {
+				auxiliary.addAll(datum.getAuxiliary());
+			}
+			if (datum.isEmpty()) {
+				return;
+			}
+			count += datum.size();
+			if (displayMode == ResultDisplayMode.JSON) {
+				if (json == null) {
+					json = objectMapper.createGenerator(nonClosing(System.out));
+					if (systemConsoleIsTerminal()) {
+						json.useDefaultPrettyPrinter();
+					}
+					json.writeStartObject();
+					json.writeArrayFieldStart("results");
+				}
+				for (Datum d : datum) {
+					json.writeObject(d);
+				}
+				json.flush();
+				return;
+			}
+			final boolean first = (count == datum.size());
+			final boolean header = (displayMode == ResultDisplayMode.PRETTY || first);
+			if (hasPropertyNames()) {
+				renderTableData(null, datum, header);
+			} else if (displayMode == ResultDisplayMode.PRETTY || first) {
+				structure = DatumUtils.resultStructure(structure, datum);
+				renderTableData(structure, datum, header);
+			} else {
+				// the CSV columns cannot change once the header is written
+				final DatumResultStructure curr = DatumUtils.resultStructure(structure, datum);
+				for (Entry<DatumSamplesType, SequencedSet<String>> e : curr.propertyNames().entrySet()) {
+					final SequencedSet<String> known = structure.propertyNames().get(e.getKey());
+					for (String propName : e.getValue()) {
+						if (known == null || !known.contains(propName)) {
+							omitted.add(propName);
+						}
+					}
+				}
+				structure = structure.withDatum(datum);
+				renderTableData(structure, datum, false);
+			}
+			System.out.flush();
+		}
+
+		private int finish() throws IOException {
+			if (json != null) {
+				json.writeEndArray();
+				json.writeNumberField("returnedResultCount", count);
+				if (!auxiliary.isEmpty()) {
+					json.writeArrayFieldStart("auxiliary");
+					for (DatumAuxiliaryRecord aux : auxiliary) {
+						json.writeObject(aux);
+					}
+					json.writeEndArray();
+				}
+				json.writeEndObject();
+				json.close();
+				if (systemConsoleIsTerminal()) {
+					System.out.println();
+				}
+			} else if (displayMode == ResultDisplayMode.PRETTY && !auxiliary.isEmpty()) {
+				renderAuxiliary(auxiliary);
+			}
+			if (!omitted.isEmpty()) {
+				System.err.println("Properties not in the first window were omitted: %s; use -prop to include them."
+						.formatted(String.join(", ", omitted)));
+			}
+			return count;
+		}
+
+	}
+
 	private CloudIntegrationsFilter filter() {
 		final CloudIntegrationsFilter filter = new CloudIntegrationsFilter();
 		if (dateRange != null && dateRange.minDate != null) {
@@ -154,45 +474,126 @@ public class ListDatumStreamDatumCmd extends BaseSubCmd<DatumStreamsCmd> impleme
 	 */
 	public static CloudDatumStreamQueryResult listCloudDatumStreamDatum(RestClient restClient,
 			ObjectMapper objectMapper, Long datumStreamId, CloudIntegrationsFilter filter) {
-		final boolean latest = (filter == null || !filter.hasDateRange());
+		if (filter == null || !filter.hasDateRange()) {
+			return listCloudDatumStreamDatum(restClient, objectMapper, datumStreamId, (Map<String, ?>) null);
+		}
+		final Map<String, Object> queryFilter = new LinkedHashMap<>(2);
+		queryFilter.put("startDate", filter.startDate());
+		queryFilter.put("endDate", filter.endDate());
+		return listCloudDatumStreamDatum(restClient, objectMapper, datumStreamId, queryFilter);
+	}
+
+	/**
+	 * List cloud datum stream datum using a query filter map, such as the next
+	 * query filter of a previous result.
+	 * 
+	 * <p>
+	 * Each filter property is sent as a query parameter. Collection values are
+	 * sent as repeated parameters, and map values as {@code name[key]}
+	 * parameters.
+	 * </p>
+	 * 
+	 * @param restClient    the REST client
+	 * @param objectMapper  the object mapper
+	 * @param datumStreamId the datum stream ID to list datum for
+	 * @param queryFilter   an optional query filter; if {@code null} then the
+	 *                      most recent data will be returned
+	 * @return the result
+	 * @throws IllegalStateException if an error occurs fetching the datum
+	 */
+	public static CloudDatumStreamQueryResult listCloudDatumStreamDatum(RestClient restClient,
+			ObjectMapper objectMapper, Long datumStreamId, Map<String, ?> queryFilter) {
+		final boolean latest = (queryFilter == null);
 		final String action = (latest ? "latest-datum" : "datum");
 		// @formatter:off
-		JsonNode response = restClient.get()
+		CloudDatumStreamQueryResult result = restClient.get()
 			.uri(b -> {
 				b.path("/solaruser/api/v1/sec/user/c2c/datum-streams/{datumStreamId}/{action}");
 				if (!latest) {
-					b.queryParam("startDate", filter.startDate());
-					b.queryParam("endDate", filter.endDate());
+					for (Entry<String, ?> e : queryFilter.entrySet()) {
+						queryParam(b, e.getKey(), e.getValue());
+					}
 				}
 				return b.build(datumStreamId, action);
 			})
 			.accept(MediaType.APPLICATION_JSON)
-			.retrieve()
-			.body(JsonNode.class)
-			;		
+			.exchange((_, res) -> {
+				if (res.getStatusCode().is2xxSuccessful()) {
+					return parseDatumResponse(objectMapper, res.getBody(), latest);
+				}
+				throw RestUtils.responseException(res);
+			})
+			;
 		// @formatter:on
+		if (result == null) {
+			throw new IllegalStateException("No response returned");
+		}
+		return result;
+	}
 
-		checkSuccess(response);
-
-		final JsonNode dataNode = response.path("data");
+	private static void queryParam(UriBuilder b, String name, Object value) {
+		if (value instanceof Map<?, ?> map) {
+			for (Entry<?, ?> e : map.entrySet()) {
+				queryParam(b, "%s[%s]".formatted(name, e.getKey()), e.getValue());
+			}
+		} else if (value instanceof Collection<?> coll) {
+			b.queryParam(name, coll);
+		} else if (value != null) {
+			b.queryParam(name, value);
+		}
+	}
 
-		try {
-			if (latest) {
-				List<Datum> result = new ArrayList<>(dataNode.size());
-				for (JsonNode node : dataNode) {
-					Datum conf;
-					conf = objectMapper.treeToValue(node, Datum.class);
-					if (conf != null) {
-						result.add(conf);
+	/**
+	 * Parse a datum response, without first reading the entire response into a
+	 * tree.
+	 * 
+	 * @param objectMapper the object mapper
+	 * @param in           the response content
+	 * @param latest       {@code true} if the response is from a latest datum
+	 *                     query, which returns a list of datum rather than a
+	 *                     query result object
+	 * @return the result
+	 * @throws IllegalStateException if the response is not a success or cannot
+	 *                               be parsed
+	 */
+	private static CloudDatumStreamQueryResult parseDatumResponse(ObjectMapper objectMapper, InputStream in,
+			boolean latest) {
+		boolean success = false;
+		String message = null;
+		CloudDatumStreamQueryResult result = null;
+		try (JsonParser p = objectMapper.createParser(in)) {
+			if (p.nextToken() != JsonToken.START_OBJECT) {
+				throw new IllegalStateException("No response returned");
+			}
+			while (p.nextToken() == JsonToken.FIELD_NAME) {
+				final String field = p.currentName();
+				final JsonToken t = p.nextToken();
+				if ("success".equals(field)) {
+					success = (t == JsonToken.VALUE_TRUE);
+				} else if ("message".equals(field) && t == JsonToken.VALUE_STRING) {
+					message = p.getText();
+				} else if ("data".equals(field) && t != JsonToken.VALUE_NULL) {
+					if (latest) {
+						List<Datum> datum = objectMapper.readValue(p, new TypeReference<List<Datum>>() {
+						});
+						result = new BasicCloudDatumStreamQueryResult(
+								datum.stream().filter(d -> d != null).toList());
+					} else {
+						result = objectMapper.readValue(p, BasicCloudDatumStreamQueryResult.class);
 					}
+				} else {
+					p.skipChildren();
 				}
-				return new BasicCloudDatumStreamQueryResult(result);
 			}
-			return objectMapper.treeToValue(dataNode, BasicCloudDatumStreamQueryResult.class);
-		} catch (JsonProcessingException | IllegalArgumentException e) {
+		} catch (IOException | IllegalArgumentException e) {
 			throw new IllegalStateException("Error parsing cloud datum stream datum list response: " + e.getMessage(),
 					e);
 		}
+		if (!success) {
+			throw new IllegalStateException(
+					"Non-success response returned: " + (message != null ? message : "Unknown reason."));
+		}
+		return (result != null ? result : new BasicCloudDatumStreamQueryResult(null));
 	}
 
 	/**
@@ -2,7 +2,6 @@ package s10k.tool.c2c.ds.cmd;
 
 import static com.github.freva.asciitable.HorizontalAlign.LEFT;
 import static com.github.freva.asciitable.HorizontalAlign.RIGHT;
-import static s10k.tool.c2c.util.CloudIntegrationRestUtils.listCloudDatumStreams;
 import static s10k.tool.c2c.util.CloudIntegrationsUtils.datumStreamServiceLocalizedName;
 
 import java.util.List;
@@ -19,8 +18,10 @@ import com.github.freva.asciitable.Column;
 import picocli.CommandLine.ArgGroup;
 import picocli.CommandLine.Command;
 import picocli.CommandLine.Option;
+import s10k.tool.c2c.cmd.CloudIntegrationsCmd;
 import s10k.tool.c2c.domain.CloudDatumStreamConfiguration;
 import s10k.tool.c2c.domain.CloudIntegrationsFilter;
+import s10k.tool.c2c.util.CloudIntegrationRestUtils;
 import s10k.tool.c2c.util.CloudIntegrationsUtils;
 import s10k.tool.common.cmd.BaseSubCmd;
 import s10k.tool.common.domain.ResultDisplayMode;
@@ -90,6 +91,10 @@ public class ListDatumStreamsCmd extends BaseSubCmd<DatumStreamsCmd> implements
 			description = "how to display the data",
 			defaultValue = "PRETTY")
 	ResultDisplayMode displayMode = ResultDisplayMode.PRETTY;
+
+	@Option(names = { "--snapshot" },
+			description = "answer the query from the local configuration snapshot when possible, which can be up to --config-ttl old")
+	boolean useSnapshot;
 	// @formatter:on
 
 	/**
@@ -125,7 +130,10 @@ public class ListDatumStreamsCmd extends BaseSubCmd<DatumStreamsCmd> implements
 		final ObjectWriter pretty = objectMapper.writerWithDefaultPrettyPrinter();
 		final CloudIntegrationsFilter filter = filter();
 		try {
-			List<CloudDatumStreamConfiguration> confs = listCloudDatumStreams(restClient, objectMapper, filter);
+			List<CloudDatumStreamConfiguration> confs = (useSnapshot
+					? ancestorCmd(CloudIntegrationsCmd.class).configurationSnapshots().listCloudDatumStreams(restClient,
+							objectMapper, filter)
+					: CloudIntegrationRestUtils.listCloudDatumStreams(restClient, objectMapper, filter));
 			if (confs.isEmpty()) {
 				System.err.println("No datum streams matched your criteria.");
 				return 0;
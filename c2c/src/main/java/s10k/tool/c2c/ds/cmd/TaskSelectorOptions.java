@@ -0,0 +1,157 @@
+package s10k.tool.c2c.ds.cmd;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import picocli.CommandLine.Option;
+import s10k.tool.c2c.domain.CloudIntegrationsFilter;
+import s10k.tool.common.domain.ClaimableJobState;
+
+/**
+ * Options for selecting datum stream poll or rake tasks.
+ *
+ * <p>
+ * All given options must match for a task to be selected.
+ * </p>
+ */
+public class TaskSelectorOptions {
+
+	// @formatter:off
+	@Option(names = { "-stream", "--stream-id" },
+			description = "a datum stream ID of the task to change the state of",
+			split = "\\s*,\\s*",
+			splitSynopsisLabel = ",",
+			paramLabel = "datumStreamId")
+	Long[] datumStreamIds;
+
+	@Option(names = { "-t", "--stream-type" },
+			description = """
+					a datum stream type of the task to change the state of;
+					can be prefixed with ! to exclude that type""",
+			split = "\\s*,\\s*",
+			splitSynopsisLabel = ",",
+			paramLabel = "datumStreamType")
+	String[] types;
+
+	@Option(names = { "-state", "--job-state" },
+			description = "a current job state of the task to change the state of",
+			split = "\\s*,\\s*",
+			splitSynopsisLabel = ",",
+			paramLabel = "jobState")
+	ClaimableJobState[] jobStates;
+
+	@Option(names = { "-lag", "--lag-threshold" },
+			description = "only change the state of tasks lagging behind the current date by at least this amount",
+			paramLabel = "duration")
+	Duration lagThreshold;
+
+	@Option(names = { "--failing" },
+			description = "only change the state of running tasks that have failed to acquire datum")
+	boolean failing;
+	// @formatter:on
+
+	/**
+	 * Test if no selection options are configured.
+	 *
+	 * @return {@code true} if no options are configured
+	 */
+	public boolean isEmpty() {
+		// @formatter:off
+		return (datumStreamIds == null || datumStreamIds.length < 1)
+				&& !hasTypes()
+				&& (jobStates == null || jobStates.length < 1)
+				&& lagThreshold == null
+				&& !failing;
+		// @formatter:on
+	}
+
+	/**
+	 * Test if datum stream type options are configured.
+	 *
+	 * @return {@code true} if datum stream type options are configured
+	 */
+	public boolean hasTypes() {
+		return (types != null && types.length > 0);
+	}
+
+	/**
+	 * Get the datum stream type filters.
+	 *
+	 * @return the type filters, or {@code null}
+	 */
+	public String[] types() {
+		return types;
+	}
+
+	/**
+	 * Get a filter for the datum streams to select tasks for.
+	 *
+	 * @return the filter
+	 */
+	public CloudIntegrationsFilter datumStreamFilter() {
+		final CloudIntegrationsFilter filter = new CloudIntegrationsFilter();
+		if (datumStreamIds != null && datumStreamIds.length > 0) {
+			filter.setDatumStreamIds(List.of(datumStreamIds));
+		}
+		return filter;
+	}
+
+	/**
+	 * Get a filter for the tasks to select.
+	 *
+	 * <p>
+	 * The lag and failing options are not included, and must be tested with
+	 * {@link #matches(String, Instant, int, Instant)}.
+	 * </p>
+	 *
+	 * @return the filter
+	 */
+	public CloudIntegrationsFilter taskFilter() {
+		final CloudIntegrationsFilter filter = datumStreamFilter();
+		if (jobStates != null && jobStates.length > 0) {
+			filter.setClaimableJobStates(List.of(jobStates));
+		}
+		return filter;
+	}
+
+	/**
+	 * Test if a task matches the lag and failing options.
+	 *
+	 * @param state      the task state key
+	 * @param date       the date the task is acquiring datum at
+	 * @param errorCount the task error count
+	 * @param now        the current date
+	 * @return {@code true} if the task matches
+	 */
+	public boolean matches(String state, Instant date, int errorCount, Instant now) {
+		if (failing && !isFailing(state, errorCount)) {
+			return false;
+		}
+		return (lagThreshold == null || isLagging(date, now.minus(lagThreshold)));
+	}
+
+	/**
+	 * Test if a task is failing, meaning it is still running but has failed to
+	 * acquire datum.
+	 *
+	 * @param state      the task state key
+	 * @param errorCount the task error count
+	 * @return {@code true} if the task is failing
+	 */
+	public static boolean isFailing(String state, int errorCount) {
+		return (!ClaimableJobState.Completed.keyValue().equals(state) && errorCount > 0);
+	}
+
+	/**
+	 * Test if a task is lagging.
+	 *
+	 * @param date   the date the task is acquiring datum at
+	 * @param lagMax the date before which a task is lagging
+	 * @return {@code true} if the task is lagging
+	 */
+	public static boolean isLagging(Instant date, Instant lagMax) {
+		return (date != null && date.isBefore(lagMax));
+	}
+
+}
@@ -29,6 +29,7 @@ import picocli.CommandLine.ArgGroup;
 import picocli.CommandLine.Command;
 import picocli.CommandLine.Option;
 import picocli.CommandLine.Parameters;
+import s10k.tool.c2c.cmd.CloudIntegrationsCmd;
 import s10k.tool.c2c.domain.CloudDatumStreamConfiguration;
 import s10k.tool.c2c.util.CloudIntegrationsUtils;
 import s10k.tool.common.cmd.BaseSubCmd;
@@ -216,6 +217,7 @@ public class UpdateDatumStreamCmd extends BaseSubCmd<DatumStreamsCmd> implements
 						CloudDatumStreamConfiguration.class);
 			} else {
 				result = updateCloudDatumStream(restClient, objectMapper, datumStreamId, settings);
+				ancestorCmd(CloudIntegrationsCmd.class).configurationSnapshots().invalidate();
 			}
 
 			List<?> tableData = (displayMode == ResultDisplayMode.JSON ? List.of(result)
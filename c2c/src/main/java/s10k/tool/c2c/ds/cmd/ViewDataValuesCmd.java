@@ -7,11 +7,21 @@ import static s10k.tool.c2c.util.CloudIntegrationRestUtils.viewDatumStreamFilter
 import static s10k.tool.c2c.util.CloudIntegrationsUtils.findDatumStreamServiceId;
 import static s10k.tool.common.util.RestUtils.checkSuccess;
 
+import java.io.IOException;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.SequencedMap;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
 
 import org.springframework.http.MediaType;
 import org.springframework.http.client.ClientHttpRequestFactory;
@@ -32,8 +42,10 @@ import s10k.tool.c2c.domain.CloudDataValue;
 import s10k.tool.c2c.domain.CloudIntegrationConfiguration;
 import s10k.tool.c2c.domain.CloudIntegrationsFilter;
 import s10k.tool.c2c.util.CloudIntegrationRestUtils;
+import s10k.tool.c2c.util.CloudIntegrationsCacheUtils;
 import s10k.tool.common.cmd.BaseSubCmd;
 import s10k.tool.common.domain.ResultDisplayMode;
+import s10k.tool.common.util.DiskCache;
 import s10k.tool.common.util.RestUtils;
 import s10k.tool.common.util.TableUtils;
 
@@ -69,6 +81,32 @@ public class ViewDataValuesCmd extends BaseSubCmd<DatumStreamsCmd> implements Ca
 			description = "how to display the data",
 			defaultValue = "PRETTY")
 	ResultDisplayMode displayMode = ResultDisplayMode.PRETTY;
+
+	@Option(names = { "--crawl" },
+			description = "fetch the children of each data value, down to --depth levels")
+	boolean crawl;
+
+	@Option(names = { "--depth" },
+			description = "the maximum number of levels to crawl",
+			paramLabel = "count",
+			defaultValue = "5")
+	int depth = 5;
+
+	@Option(names = { "--parallel" },
+			description = "the maximum number of data value requests to make at once when crawling",
+			paramLabel = "count",
+			defaultValue = "4")
+	int parallelism = 4;
+
+	@Option(names = { "--cache-ttl" },
+			description = "the maximum age of cached data values to use",
+			paramLabel = "duration",
+			defaultValue = "P1D")
+	Duration cacheTtl = CloudIntegrationsCacheUtils.DEFAULT_DATA_VALUE_TTL;
+
+	@Option(names = { "--no-cache" },
+			description = "do not use the local data value cache")
+	boolean noCache;
 	// @formatter:on
 
 	/**
@@ -96,9 +134,10 @@ public class ViewDataValuesCmd extends BaseSubCmd<DatumStreamsCmd> implements Ca
 			return 1;
 		}
 
-		if (pathIdentifiers != null && !pathIdentifiers.isEmpty() && type == null && datumStreamId == null) {
+		if ((crawl || (pathIdentifiers != null && !pathIdentifiers.isEmpty())) && type == null
+				&& datumStreamId == null) {
 			System.err.print("""
-					The --stream-type or --stream-id option must be provided when --path is specified.
+					The --stream-type or --stream-id option must be provided when --path or --crawl is specified.
 					""");
 			return 1;
 		}
@@ -124,8 +163,13 @@ public class ViewDataValuesCmd extends BaseSubCmd<DatumStreamsCmd> implements Ca
 		}
 
 		try {
-			List<CloudDataValue> confs = viewDatumDataValues(restClient, objectMapper, integrationId, datumStreamId,
-					datumStreamServiceId, pathIdentifiers);
+			final DataValueFetcher fetcher = new DataValueFetcher(restClient, integrationId, datumStreamServiceId);
+			List<CloudDataValue> confs = fetcher.fetch(pathIdentifiers);
+			if (crawl) {
+				try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+					confs = crawl(fetcher, confs, 0, executor);
+				}
+			}
 			if (confs.isEmpty()) {
 				System.err.println("No sources matched your criteria.");
 				return 0;
@@ -135,6 +179,14 @@ public class ViewDataValuesCmd extends BaseSubCmd<DatumStreamsCmd> implements Ca
 					: CloudDataValue.flatList(confs).stream().map(c -> tableDataRow(c, identifiersAsPaths)).toList());
 			TableUtils.renderTableData(tableDataColumns(), tableData, displayMode, objectMapper,
 					TableUtils.TableDataJsonPrettyPrinter.INSTANCE, System.out);
+			if (!fetcher.failedPaths.isEmpty()) {
+				System.err.println("Data values could not be fetched for %d paths, so the results are incomplete:"
+						.formatted(fetcher.failedPaths.size()));
+				for (String failedPath : fetcher.failedPaths) {
+					System.err.println("  /%s".formatted(failedPath));
+				}
+				return 1;
+			}
 			return 0;
 		} catch (Exception e) {
 			System.err.println("Error viewing cloud data values: %s".formatted(e.getMessage()));
@@ -158,6 +210,151 @@ public class ViewDataValuesCmd extends BaseSubCmd<DatumStreamsCmd> implements Ca
 		return null;
 	}
 
+	/**
+	 * Fetch data values, using the local cache when possible.
+	 */
+	private final class DataValueFetcher {
+
+		private final RestClient restClient;
+		private final Long integrationId;
+		private final String datumStreamServiceId;
+		private final Semaphore permits;
+		private final DiskCache cache;
+		private final String cacheTokenId;
+		private final Queue<String> failedPaths = new ConcurrentLinkedQueue<>();
+		private volatile SequencedMap<String, String> filterKeys;
+
+		private DataValueFetcher(RestClient restClient, Long integrationId, String datumStreamServiceId) {
+			super();
+			this.restClient = restClient;
+			this.integrationId = integrationId;
+			this.datumStreamServiceId = datumStreamServiceId;
+			this.permits = new Semaphore(Math.max(1, parallelism));
+			this.cache = (noCache ? null : CloudIntegrationsCacheUtils.dataValueCache());
+			this.cacheTokenId = (noCache ? null : profileWithCredentials().tokenCredentials().tokenId());
+		}
+
+		private SequencedMap<String, String> filterKeys() {
+			SequencedMap<String, String> keys = filterKeys;
+			if (keys == null) {
+				keys = viewDatumStreamFilters(restClient, objectMapper, datumStreamServiceId);
+				filterKeys = keys;
+			}
+			return keys;
+		}
+
+		private boolean canExpand(CloudDataValue dataValue) {
+			return dataValue.getIdentifiers().size() < filterKeys().size();
+		}
+
+		private List<CloudDataValue> fetch(List<String> pathIdentifiers) throws IOException {
+			final String key = (cache != null
+					? CloudIntegrationsCacheUtils.dataValueCacheKey(cacheTokenId, integrationId, datumStreamId,
+							datumStreamServiceId, pathIdentifiers)
+					: null);
+			if (cache != null) {
+				final byte[] content = cache.get(key, cacheTtl);
+				if (content != null) {
+					if (verbosity() > 0) {
+						System.err.println("Using cached data values for path /%s"
+								.formatted(pathIdentifiers != null ? String.join("/", pathIdentifiers) : ""));
+					}
+					return parseCloudDataValues(objectMapper.readTree(content));
+				}
+			}
+			final SequencedMap<String, String> keys = (pathIdentifiers != null && !pathIdentifiers.isEmpty()
+					? filterKeys()
+					: null);
+			final JsonNode data;
+			permits.acquireUninterruptibly();
+			try {
+				data = datumDataValuesData(restClient, integrationId, datumStreamId, datumStreamServiceId,
+						pathIdentifiers, keys);
+			} finally {
+				permits.release();
+			}
+			if (cache != null) {
+				cache.put(key, objectMapper.writeValueAsBytes(data));
+			}
+			return parseCloudDataValues(data);
+		}
+
+	}
+
+	/**
+	 * Crawl a list of data values, fetching the children of each value
+	 * concurrently.
+	 * 
+	 * @param fetcher  the fetcher
+	 * @param values   the values to crawl
+	 * @param level    the level of {@code values}, starting from {@code 0}
+	 * @param executor the executor
+	 * @return the values, with children populated
+	 */
+	private List<CloudDataValue> crawl(DataValueFetcher fetcher, List<CloudDataValue> values, int level,
+			ExecutorService executor) {
+		if (level >= depth || values.isEmpty()) {
+			return values;
+		}
+		final List<CompletableFuture<CloudDataValue>> futures = values.stream()
+				.map(v -> CompletableFuture.supplyAsync(() -> expand(fetcher, v, level, executor), executor))
+				.toList();
+		final List<CloudDataValue> result = new ArrayList<>(futures.size());
+		for (CompletableFuture<CloudDataValue> f : futures) {
+			try {
+				result.add(f.join());
+			} catch (CompletionException e) {
+				if (e.getCause() instanceof RuntimeException re) {
+					throw re;
+				}
+				throw e;
+			}
+		}
+		return result;
+	}
+
+	private CloudDataValue expand(DataValueFetcher fetcher, CloudDataValue value, int level,
+			ExecutorService executor) {
+		final Collection<CloudDataValue> children = value.getChildren();
+		if (children != null && !children.isEmpty()) {
+			return withChildren(value, crawl(fetcher, List.copyOf(children), level + 1, executor));
+		}
+		if (!fetcher.canExpand(value)) {
+			return value;
+		}
+		final List<String> idents = value.getIdentifiers();
+		final List<CloudDataValue> fetched;
+		try {
+			fetched = fetcher.fetch(idents);
+		} catch (IOException | RuntimeException e) {
+			final String failedPath = String.join("/", idents);
+			fetcher.failedPaths.add(failedPath);
+			System.err.println("Error fetching data values for path /%s: %s".formatted(failedPath, e.getMessage()));
+			return value;
+		}
+		final List<CloudDataValue> descendants = new ArrayList<>(fetched.size());
+		for (CloudDataValue dv : fetched) {
+			if (dv.getIdentifiers().equals(idents)) {
+				// the value itself was returned, with its children nested
+				if (dv.getChildren() != null) {
+					descendants.addAll(dv.getChildren());
+				}
+			} else if (dv.getIdentifiers().size() > idents.size()
+					&& dv.getIdentifiers().subList(0, idents.size()).equals(idents)) {
+				descendants.add(dv);
+			}
+		}
+		if (descendants.isEmpty()) {
+			return value;
+		}
+		return withChildren(value, crawl(fetcher, descendants, level + 1, executor));
+	}
+
+	private static CloudDataValue withChildren(CloudDataValue value, List<CloudDataValue> children) {
+		return new CloudDataValue(value.getIdentifiers(), value.getName(), value.getReference(), value.getMetadata(),
+				children);
+	}
+
 	/**
 	 * Get integrations info tabular structure columns.
 	 * 
@@ -210,7 +407,16 @@ public class ViewDataValuesCmd extends BaseSubCmd<DatumStreamsCmd> implements Ca
 	 */
 	public static List<CloudDataValue> viewDatumDataValues(RestClient restClient, ObjectMapper objectMapper,
 			Long integrationId, Long datumStreamId, String datumStreamServiceId, List<String> pathIdentifiers) {
+		// get datum stream filter names for given service type
+		final SequencedMap<String, String> filterKeys = (pathIdentifiers != null && !pathIdentifiers.isEmpty()
+				? viewDatumStreamFilters(restClient, objectMapper, datumStreamServiceId)
+				: null);
+		return parseCloudDataValues(datumDataValuesData(restClient, integrationId, datumStreamId,
+				datumStreamServiceId, pathIdentifiers, filterKeys));
+	}
 
+	private static JsonNode datumDataValuesData(RestClient restClient, Long integrationId, Long datumStreamId,
+			String datumStreamServiceId, List<String> pathIdentifiers, SequencedMap<String, String> filterKeys) {
 		final MultiValueMap<String, String> queryParameters = new LinkedMultiValueMap<>(
 				(pathIdentifiers != null ? pathIdentifiers.size() : 0) + (datumStreamId != null ? 1 : 0)
 						+ (datumStreamServiceId != null ? 1 : 0));
@@ -220,11 +426,7 @@ public class ViewDataValuesCmd extends BaseSubCmd<DatumStreamsCmd> implements Ca
 		if (datumStreamId != null) {
 			queryParameters.put("datumStreamId", List.of(datumStreamId.toString()));
 		}
-		if (pathIdentifiers != null && !pathIdentifiers.isEmpty()) {
-			// get datum stream filter names for given service type
-			SequencedMap<String, String> filterKeys = viewDatumStreamFilters(restClient, objectMapper,
-					datumStreamServiceId);
-
+		if (pathIdentifiers != null && !pathIdentifiers.isEmpty() && filterKeys != null) {
 			// skip past leading empty path identifiers
 			int i = 0;
 			for (; i < pathIdentifiers.size(); i++) {
@@ -259,7 +461,10 @@ public class ViewDataValuesCmd extends BaseSubCmd<DatumStreamsCmd> implements Ca
 
 		checkSuccess(response);
 
-		final JsonNode data = response.path("data");
+		return response.path("data");
+	}
+
+	private static List<CloudDataValue> parseCloudDataValues(JsonNode data) {
 		if (data.isEmpty()) {
 			return List.of();
 		}
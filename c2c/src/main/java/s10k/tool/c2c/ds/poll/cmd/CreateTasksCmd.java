@@ -5,7 +5,6 @@ import static com.github.freva.asciitable.HorizontalAlign.RIGHT;
 import static java.util.function.Function.identity;
 import static java.util.stream.Collectors.toMap;
 import static s10k.tool.c2c.ds.poll.cmd.ListTasksCmd.listCloudDatumStreamPollTasks;
-import static s10k.tool.c2c.util.CloudIntegrationRestUtils.datumStreamsOfType;
 import static s10k.tool.c2c.util.CloudIntegrationsUtils.datumStreamServiceLocalizedName;
 import static s10k.tool.common.util.RestUtils.checkSuccess;
 
@@ -14,7 +13,9 @@ import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.temporal.ChronoUnit;
 import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.SortedMap;
 import java.util.TreeMap;
 import java.util.concurrent.Callable;
@@ -30,12 +31,15 @@ import com.github.freva.asciitable.Column;
 
 import picocli.CommandLine.Command;
 import picocli.CommandLine.Option;
+import s10k.tool.c2c.cmd.CloudIntegrationsCmd;
 import s10k.tool.c2c.domain.CloudDatumStreamConfiguration;
 import s10k.tool.c2c.domain.CloudDatumStreamPollTaskConfiguration;
 import s10k.tool.c2c.domain.CloudIntegrationsFilter;
 import s10k.tool.common.cmd.BaseSubCmd;
 import s10k.tool.common.domain.ClaimableJobState;
 import s10k.tool.common.domain.ResultDisplayMode;
+import s10k.tool.common.util.BulkRequestUtils;
+import s10k.tool.common.util.BulkRequestUtils.BulkResult;
 import s10k.tool.common.util.DateUtils;
 import s10k.tool.common.util.TableUtils;
 
@@ -75,6 +79,18 @@ public class CreateTasksCmd extends BaseSubCmd<PollTasksCmd> implements Callable
 			description = "how to display the data",
 			defaultValue = "PRETTY")
 	ResultDisplayMode displayMode = ResultDisplayMode.PRETTY;
+
+	@Option(names = { "--parallel" },
+			description = "the maximum number of tasks to create at once",
+			paramLabel = "count",
+			defaultValue = "" + BulkRequestUtils.DEFAULT_PARALLELISM)
+	int parallelism = BulkRequestUtils.DEFAULT_PARALLELISM;
+
+	@Option(names = { "--retries" },
+			description = "the maximum number of times to retry creating a task after a server error",
+			paramLabel = "count",
+			defaultValue = "" + BulkRequestUtils.DEFAULT_RETRIES)
+	int retries = BulkRequestUtils.DEFAULT_RETRIES;
 	// @formatter:on
 
 	/**
@@ -98,8 +114,9 @@ public class CreateTasksCmd extends BaseSubCmd<PollTasksCmd> implements Callable
 					.toInstant().truncatedTo(ChronoUnit.MINUTES);
 
 			// get datum streams
-			final SortedMap<Long, CloudDatumStreamConfiguration> datumStreams = datumStreamsOfType(restClient,
-					objectMapper, filter, types);
+			final SortedMap<Long, CloudDatumStreamConfiguration> datumStreams = ancestorCmd(
+					CloudIntegrationsCmd.class).configurationSnapshots()
+					.datumStreamsOfType(restClient, objectMapper, filter, types);
 
 			// get existing poll tasks
 			final SortedMap<Long, CloudDatumStreamPollTaskConfiguration> tasks = pollTasks(restClient, filter);
@@ -113,15 +130,30 @@ public class CreateTasksCmd extends BaseSubCmd<PollTasksCmd> implements Callable
 				return 0;
 			}
 
-			if (!isDryRun()) {
-				createTasks(restClient, tasksToCreate.values());
+			if (isDryRun()) {
+				final List<?> tableData = (displayMode == ResultDisplayMode.JSON
+						? tasksToCreate.values().stream().toList()
+						: tasksToCreate.entrySet().stream()
+								.map(e -> tableDataRow(datumStreams.get(e.getKey()), e.getValue())).toList());
+				TableUtils.renderTableData(tableDataColumns(), tableData, displayMode, objectMapper,
+						TableUtils.TableDataJsonPrettyPrinter.INSTANCE, System.out);
+				return 0;
 			}
 
-			final List<?> tableData = (displayMode == ResultDisplayMode.JSON ? tasksToCreate.values().stream().toList()
-					: tasksToCreate.entrySet().stream()
-							.map(e -> tableDataRow(datumStreams.get(e.getKey()), e.getValue())).toList());
-			TableUtils.renderTableData(tableDataColumns(), tableData, displayMode, objectMapper,
+			final List<BulkResult<CloudDatumStreamPollTaskConfiguration, JsonNode>> results = createTasks(restClient,
+					tasksToCreate.values());
+			final List<?> tableData = (displayMode == ResultDisplayMode.JSON
+					? results.stream().map(this::resultObject).toList()
+					: results.stream().map(r -> resultTableDataRow(datumStreams.get(r.item().datumStreamId()), r))
+							.toList());
+			TableUtils.renderTableData(resultTableDataColumns(), tableData, displayMode, objectMapper,
 					TableUtils.TableDataJsonPrettyPrinter.INSTANCE, System.out);
+
+			final long failCount = results.stream().filter(r -> !r.isSuccess()).count();
+			if (failCount > 0) {
+				System.err.println("Failed to create %d of %d poll tasks.".formatted(failCount, results.size()));
+				return 1;
+			}
 			return 0;
 		} catch (
 
@@ -193,13 +225,58 @@ public class CreateTasksCmd extends BaseSubCmd<PollTasksCmd> implements Callable
 		// @formatter:on
 	}
 
-	private void createTasks(RestClient restClient, Collection<CloudDatumStreamPollTaskConfiguration> tasksToCreate) {
-		for (CloudDatumStreamPollTaskConfiguration task : tasksToCreate) {
-			createPollTask(restClient, task.datumStreamId(), task);
+	private static Column[] resultTableDataColumns() {
+		// @formatter:off
+		return new Column[] {
+				new Column().header("Datum Stream ID").dataAlign(RIGHT),
+				new Column().header("Datum Stream Type").dataAlign(LEFT),
+				new Column().header("Object ID").dataAlign(RIGHT),
+				new Column().header("Source ID").dataAlign(LEFT),
+				new Column().header("State").dataAlign(LEFT),
+				new Column().header("Start At").dataAlign(LEFT),
+				new Column().header("Result").dataAlign(LEFT),
+				new Column().header("Attempts").dataAlign(RIGHT),
+				new Column().header("Message").dataAlign(LEFT),
+			};
+		// @formatter:on
+	}
+
+	private static Object[] resultTableDataRow(CloudDatumStreamConfiguration datumStream,
+			BulkResult<CloudDatumStreamPollTaskConfiguration, JsonNode> result) {
+		// @formatter:off
+		return new Object[] {
+				datumStream.configId(),
+				datumStreamServiceLocalizedName(datumStream.serviceIdentifier()),
+				datumStream.objectId(),
+				datumStream.sourceIdsValue(),
+				result.item().state(),
+				result.item().startAt(),
+				result.isSuccess() ? "Created" : "Failed",
+				result.attempts(),
+				result.error(),
+			};
+		// @formatter:on
+	}
+
+	private Map<String, Object> resultObject(BulkResult<CloudDatumStreamPollTaskConfiguration, JsonNode> result) {
+		final Map<String, Object> obj = new LinkedHashMap<>(8);
+		obj.put("task", result.item());
+		obj.put("created", result.isSuccess());
+		obj.put("attempts", result.attempts());
+		if (result.error() != null) {
+			obj.put("message", result.error());
 		}
+		return obj;
+	}
+
+	private List<BulkResult<CloudDatumStreamPollTaskConfiguration, JsonNode>> createTasks(RestClient restClient,
+			Collection<CloudDatumStreamPollTaskConfiguration> tasksToCreate) {
+		return BulkRequestUtils.executeAll(tasksToCreate, parallelism,
+				BulkRequestUtils.RetryPolicy.withRetries(retries),
+				task -> createPollTask(restClient, task.datumStreamId(), task));
 	}
 
-	private static void createPollTask(RestClient restClient, Long datumStreamId,
+	private static JsonNode createPollTask(RestClient restClient, Long datumStreamId,
 			CloudDatumStreamPollTaskConfiguration task) {
 		// @formatter:off
 			JsonNode response = restClient.post()
@@ -215,7 +292,7 @@ public class CreateTasksCmd extends BaseSubCmd<PollTasksCmd> implements Callable
 				;		
 			// @formatter:on
 
-		checkSuccess(response);
+		return checkSuccess(response);
 	}
 
 }
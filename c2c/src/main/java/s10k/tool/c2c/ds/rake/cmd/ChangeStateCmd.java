@@ -2,16 +2,16 @@ package s10k.tool.c2c.ds.rake.cmd;
 
 import static com.github.freva.asciitable.HorizontalAlign.LEFT;
 import static com.github.freva.asciitable.HorizontalAlign.RIGHT;
-import static java.util.function.Function.identity;
-import static java.util.stream.Collectors.toMap;
 import static s10k.tool.c2c.ds.rake.cmd.ListTasksCmd.listCloudDatumStreamRakeTasks;
-import static s10k.tool.c2c.util.CloudIntegrationRestUtils.listCloudDatumStreams;
 import static s10k.tool.c2c.util.CloudIntegrationsUtils.datumStreamServiceLocalizedName;
 import static s10k.tool.common.util.RestUtils.checkSuccess;
 
+import java.time.Instant;
 import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.Callable;
 
 import org.springframework.http.MediaType;
@@ -24,15 +24,20 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.freva.asciitable.Column;
 
 import picocli.CommandLine.Command;
+import picocli.CommandLine.Mixin;
 import picocli.CommandLine.Option;
 import picocli.CommandLine.Parameters;
+import s10k.tool.c2c.cmd.CloudIntegrationsCmd;
 import s10k.tool.c2c.domain.CloudDatumStreamConfiguration;
 import s10k.tool.c2c.domain.CloudDatumStreamRakeTaskConfiguration;
-import s10k.tool.c2c.domain.CloudIntegrationsFilter;
+import s10k.tool.c2c.ds.cmd.TaskSelectorOptions;
 import s10k.tool.common.cmd.BaseSubCmd;
 import s10k.tool.common.domain.ClaimableJobState;
 import s10k.tool.common.domain.EnabledOrDisabled;
 import s10k.tool.common.domain.ResultDisplayMode;
+import s10k.tool.common.util.BulkRequestUtils;
+import s10k.tool.common.util.BulkRequestUtils.BulkResult;
+import s10k.tool.common.util.BulkRequestUtils.RetryPolicy;
 import s10k.tool.common.util.TableUtils;
 
 /**
@@ -43,22 +48,29 @@ import s10k.tool.common.util.TableUtils;
 public class ChangeStateCmd extends BaseSubCmd<RakeTasksCmd> implements Callable<Integer> {
 
 	// @formatter:off
-		@Option(names = { "-stream", "--stream-id" },
-				description = "a datum stream ID of the task to change the state of",
-				split = "\\s*,\\s*",
-				splitSynopsisLabel = ",",
-				paramLabel = "datumStreamId",
-				required = true)
-		Long[] datumStreamIds;
-
-		@Option(names = { "-mode", "--display-mode" },
-				description = "how to display the data",
-				defaultValue = "PRETTY")
-		ResultDisplayMode displayMode = ResultDisplayMode.PRETTY;
-		
-		@Parameters(arity = "1")
-		EnabledOrDisabled desiredState;
-		// @formatter:on
+	@Mixin
+	TaskSelectorOptions selector;
+
+	@Option(names = { "-mode", "--display-mode" },
+			description = "how to display the data",
+			defaultValue = "PRETTY")
+	ResultDisplayMode displayMode = ResultDisplayMode.PRETTY;
+
+	@Option(names = { "--parallel" },
+			description = "the maximum number of tasks to change at once",
+			paramLabel = "count",
+			defaultValue = "" + BulkRequestUtils.DEFAULT_PARALLELISM)
+	int parallelism = BulkRequestUtils.DEFAULT_PARALLELISM;
+
+	@Option(names = { "--retries" },
+			description = "the maximum number of times to retry a request after a server error",
+			paramLabel = "count",
+			defaultValue = "" + BulkRequestUtils.DEFAULT_RETRIES)
+	int retries = BulkRequestUtils.DEFAULT_RETRIES;
+
+	@Parameters(arity = "1")
+	EnabledOrDisabled desiredState;
+	// @formatter:on
 
 	/**
 	 * Constructor.
@@ -72,44 +84,77 @@ public class ChangeStateCmd extends BaseSubCmd<RakeTasksCmd> implements Callable
 
 	@Override
 	public Integer call() throws Exception {
-		final RestClient restClient = restClient();
+		if (selector == null || selector.isEmpty()) {
+			System.err.println("At least one task selection option is required.");
+			return 1;
+		}
 
-		final var filter = new CloudIntegrationsFilter();
-		filter.setDatumStreamIds(List.of(datumStreamIds));
+		final RestClient restClient = restClient();
 
 		try {
+			final Map<Long, CloudDatumStreamConfiguration> streams = (displayMode != ResultDisplayMode.JSON
+					|| selector.hasTypes()
+							? ancestorCmd(CloudIntegrationsCmd.class).configurationSnapshots().datumStreamsOfType(
+									restClient, objectMapper, selector.datumStreamFilter(), selector.types())
+							: null);
+			final Instant now = Instant.now();
 			final List<CloudDatumStreamRakeTaskConfiguration> tasks = listCloudDatumStreamRakeTasks(restClient,
-					objectMapper, filter).stream()
+					objectMapper, selector.taskFilter()).stream()
+					.filter(t -> !selector.hasTypes() || streams.containsKey(t.datumStreamId()))
+					.filter(t -> selector.matches(t.state(), t.executeAt(), t.errorCount(), now))
 					.sorted(Comparator.comparing(CloudDatumStreamRakeTaskConfiguration::datumStreamId)
 							.thenComparing(CloudDatumStreamRakeTaskConfiguration::configId))
 					.toList();
-			final Map<Long, CloudDatumStreamConfiguration> streams = (displayMode != ResultDisplayMode.JSON
-					? listCloudDatumStreams(restClient, objectMapper, filter).stream()
-							.collect(toMap(c -> c.configId(), identity()))
-					: null);
+			if (tasks.isEmpty()) {
+				System.err.println("No rake tasks matched your criteria.");
+				return 0;
+			}
 
-			if (!isDryRun()) {
-				for (CloudDatumStreamRakeTaskConfiguration task : tasks) {
-					changeTaskState(restClient, task.configId(), desiredState);
+			// only change tasks not already in the desired state
+			final List<CloudDatumStreamRakeTaskConfiguration> toChange = tasks.stream()
+					.filter(t -> EnabledOrDisabled.fromValue(ClaimableJobState.fromValue(t.state())) != desiredState)
+					.toList();
+			final Set<Long> failed = new HashSet<>();
+			if (!isDryRun() && !toChange.isEmpty()) {
+				final List<BulkResult<CloudDatumStreamRakeTaskConfiguration, JsonNode>> results = BulkRequestUtils
+						.executeAll(toChange, parallelism, RetryPolicy.withRetries(retries),
+								t -> changeTaskState(restClient, t.configId(), desiredState));
+				for (BulkResult<CloudDatumStreamRakeTaskConfiguration, JsonNode> r : results) {
+					if (!r.isSuccess()) {
+						failed.add(r.item().configId());
+						System.err.println("Error changing rake task %d state: %s".formatted(r.item().configId(),
+								r.error()));
+					}
 				}
 			}
 
 			final List<?> tableData = (displayMode == ResultDisplayMode.JSON
-					? (isDryRun() ? tasks.stream().map(c -> c.copyWithState(desiredState.asJobState())).toList()
-							: tasks)
-					: tasks.stream().map(c -> stateChangeTableDataRow(c, desiredState, streams.get(c.datumStreamId())))
-							.toList());
+					? tasks.stream().map(c -> failed.contains(c.configId()) ? c
+							: c.copyWithState(desiredState.asJobState())).toList()
+					: tasks.stream().map(c -> stateChangeTableDataRow(c, desiredState, streams.get(c.datumStreamId()),
+							failed.contains(c.configId()))).toList());
 			TableUtils.renderTableData(stateChangeTableDataColumns(), tableData, displayMode, objectMapper,
 					TableUtils.TableDataJsonPrettyPrinter.INSTANCE, System.out);
+
+			if (verbosity() > 0 || tasks.size() > 1) {
+				System.err.println("%s %d of %d rake tasks to %s; %d already %s.".formatted(
+						isDryRun() ? "Would change" : "Changed", toChange.size() - failed.size(), tasks.size(),
+						desiredState, tasks.size() - toChange.size(), desiredState));
+			}
+			if (!failed.isEmpty()) {
+				System.err.println("Failed to change the state of %d of %d rake tasks.".formatted(failed.size(),
+						toChange.size()));
+				return 1;
+			}
 			return 0;
 		} catch (Exception e) {
-			System.err.println("Error changing cloud datum stream pake task state: %s".formatted(e.getMessage()));
+			System.err.println("Error changing cloud datum stream rake task state: %s".formatted(e.getMessage()));
 		}
 
 		return 1;
 	}
 
-	private static void changeTaskState(RestClient restClient, Long taskId, EnabledOrDisabled desiredState) {
+	private static JsonNode changeTaskState(RestClient restClient, Long taskId, EnabledOrDisabled desiredState) {
 		// @formatter:off
 			JsonNode response = restClient.post()
 				.uri(b -> {
@@ -124,7 +169,7 @@ public class ChangeStateCmd extends BaseSubCmd<RakeTasksCmd> implements Callable
 				;		
 			// @formatter:on
 
-		checkSuccess(response);
+		return checkSuccess(response);
 	}
 
 	private static Column[] stateChangeTableDataColumns() {
@@ -142,26 +187,29 @@ public class ChangeStateCmd extends BaseSubCmd<RakeTasksCmd> implements Callable
 				new Column().header("Offset").dataAlign(LEFT),
 				new Column().header("Old State").dataAlign(LEFT),
 				new Column().header("New State").dataAlign(LEFT),
+				new Column().header("Result").dataAlign(LEFT),
 			};
 		// @formatter:on
 	}
 
 	private static Object[] stateChangeTableDataRow(CloudDatumStreamRakeTaskConfiguration conf,
-			EnabledOrDisabled desiredState, CloudDatumStreamConfiguration datumStream) {
+			EnabledOrDisabled desiredState, CloudDatumStreamConfiguration datumStream, boolean failed) {
+		final EnabledOrDisabled oldState = EnabledOrDisabled.fromValue(ClaimableJobState.fromValue(conf.state()));
 		// @formatter:off
 		return new Object[] {
 				conf.datumStreamId(),
 				conf.configId(),
-				datumStream.name(),
-				datumStreamServiceLocalizedName(datumStream.serviceIdentifier()),
-				(datumStream.kind() != null ?  datumStream.kind().keyValue() : null),
-				datumStream.objectId(),
-				datumStream.sourceIdsValue(),
-				datumStream.schedule(),
+				(datumStream != null ? datumStream.name() : null),
+				(datumStream != null ? datumStreamServiceLocalizedName(datumStream.serviceIdentifier()) : null),
+				(datumStream != null && datumStream.kind() != null ?  datumStream.kind().keyValue() : null),
+				(datumStream != null ? datumStream.objectId() : null),
+				(datumStream != null ? datumStream.sourceIdsValue() : null),
+				(datumStream != null ? datumStream.schedule() : null),
 				conf.executeAt(),
 				conf.offset(),
-				EnabledOrDisabled.fromValue(ClaimableJobState.fromValue(conf.state())),
+				oldState,
 				desiredState,
+				(failed ? "Failed" : oldState == desiredState ? "Unchanged" : "Changed"),
 			};
 		// @formatter:on
 	}
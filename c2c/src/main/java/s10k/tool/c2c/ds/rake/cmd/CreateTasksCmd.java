@@ -8,12 +8,14 @@ import static java.util.stream.Collectors.mapping;
 import static java.util.stream.Collectors.toMap;
 import static org.springframework.util.StreamUtils.nonClosing;
 import static s10k.tool.c2c.ds.rake.cmd.ListTasksCmd.listCloudDatumStreamRakeTasks;
-import static s10k.tool.c2c.util.CloudIntegrationRestUtils.datumStreamsOfType;
 import static s10k.tool.c2c.util.CloudIntegrationsUtils.datumStreamServiceLocalizedName;
 import static s10k.tool.common.util.RestUtils.checkSuccess;
+import static s10k.tool.common.util.SystemUtils.systemConsoleIsTerminal;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.time.Instant;
 import java.time.Period;
 import java.time.ZoneId;
@@ -21,6 +23,7 @@ import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -31,6 +34,7 @@ import java.util.SortedSet;
 import java.util.TreeMap;
 import java.util.TreeSet;
 import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Function;
 
 import org.springframework.aot.hint.annotation.RegisterReflectionForBinding;
@@ -39,12 +43,14 @@ import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.RestClient;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.freva.asciitable.Column;
 
 import picocli.CommandLine.Command;
 import picocli.CommandLine.Option;
+import s10k.tool.c2c.cmd.CloudIntegrationsCmd;
 import s10k.tool.c2c.domain.CloudDatumStreamConfiguration;
 import s10k.tool.c2c.domain.CloudDatumStreamRakeTaskConfiguration;
 import s10k.tool.c2c.domain.CloudIntegrationsFilter;
@@ -52,6 +58,9 @@ import s10k.tool.c2c.util.CloudIntegrationsUtils;
 import s10k.tool.common.cmd.BaseSubCmd;
 import s10k.tool.common.domain.ClaimableJobState;
 import s10k.tool.common.domain.ResultDisplayMode;
+import s10k.tool.common.util.BulkRequestUtils;
+import s10k.tool.common.util.BulkRequestUtils.BulkResult;
+import s10k.tool.common.util.BulkRequestUtils.RetryPolicy;
 import s10k.tool.common.util.OutputUtils;
 import s10k.tool.common.util.TableUtils;
 import s10k.tool.nodes.cmd.ListNodesCmd;
@@ -93,6 +102,18 @@ public class CreateTasksCmd extends BaseSubCmd<RakeTasksCmd> implements Callable
 			description = "how to display the data",
 			defaultValue = "PRETTY")
 	ResultDisplayMode displayMode = ResultDisplayMode.PRETTY;
+
+	@Option(names = { "--parallel" },
+			description = "the maximum number of datum streams to update at once",
+			paramLabel = "count",
+			defaultValue = "" + BulkRequestUtils.DEFAULT_PARALLELISM)
+	int parallelism = BulkRequestUtils.DEFAULT_PARALLELISM;
+
+	@Option(names = { "--retries" },
+			description = "the maximum number of times to retry a request after a server error",
+			paramLabel = "count",
+			defaultValue = "" + BulkRequestUtils.DEFAULT_RETRIES)
+	int retries = BulkRequestUtils.DEFAULT_RETRIES;
 	// @formatter:on
 
 	/**
@@ -112,8 +133,9 @@ public class CreateTasksCmd extends BaseSubCmd<RakeTasksCmd> implements Callable
 			final CloudIntegrationsFilter filter = filter();
 
 			// get datum streams
-			final SortedMap<Long, CloudDatumStreamConfiguration> datumStreams = datumStreamsOfType(restClient,
-					objectMapper, filter, types);
+			final SortedMap<Long, CloudDatumStreamConfiguration> datumStreams = ancestorCmd(
+					CloudIntegrationsCmd.class).configurationSnapshots()
+					.datumStreamsOfType(restClient, objectMapper, filter, types);
 
 			// get existing rake tasks
 			final SortedMap<Long, SortedMap<Period, CloudDatumStreamRakeTaskConfiguration>> tasks = rakeTasks(
@@ -124,7 +146,7 @@ public class CreateTasksCmd extends BaseSubCmd<RakeTasksCmd> implements Callable
 			final Map<Long, ZoneId> nodeTimeZones = nodeTimeZonesForCreate(restClient, taskActions.values());
 
 			if (!isDryRun()) {
-				updateTasks(restClient, datumStreams, nodeTimeZones, taskActions);
+				return (updateTasks(restClient, datumStreams, nodeTimeZones, taskActions) ? 0 : 1);
 			}
 			if (displayMode == ResultDisplayMode.JSON) {
 				OutputUtils.writeJsonObject(objectMapper, taskActions);
@@ -249,27 +271,97 @@ public class CreateTasksCmd extends BaseSubCmd<RakeTasksCmd> implements Callable
 		return result;
 	}
 
-	private void updateTasks(RestClient restClient, SortedMap<Long, CloudDatumStreamConfiguration> datumStreams,
-			Map<Long, ZoneId> nodeTimeZones, SortedMap<Long, TaskActions> taskActions) {
-		for (TaskActions actions : taskActions.values()) {
-			final CloudDatumStreamConfiguration datumStream = datumStreams.get(actions.datumStreamId());
-			final ZoneId zone = (nodeTimeZones.containsKey(datumStream.objectId())
-					? nodeTimeZones.get(datumStream.objectId())
-					: ZoneOffset.UTC);
-			if (actions.missingOffsets.size() == offsets.length) {
-				bulkCreateRakeTasks(restClient, actions.datumStreamId, zone, actions.missingOffsets);
-			} else {
-				for (Period offset : actions.missingOffsets) {
-					createRakeTask(restClient, actions.datumStreamId, zone, offset);
-				}
-				for (CloudDatumStreamRakeTaskConfiguration task : actions.undesiredOffsets.values()) {
-					deleteRakeTask(restClient, task.configId());
+	/**
+	 * Perform the task actions.
+	 * 
+	 * <p>
+	 * The actions for up to {@code parallelism} datum streams are performed at
+	 * once, and the report for each datum stream is written as soon as its
+	 * actions complete.
+	 * </p>
+	 * 
+	 * @param restClient    the REST client
+	 * @param datumStreams  the datum streams
+	 * @param nodeTimeZones the node time zones
+	 * @param taskActions   the actions to perform
+	 * @return {@code true} if all actions completed successfully
+	 * @throws IOException if any IO error occurs
+	 */
+	private boolean updateTasks(RestClient restClient, SortedMap<Long, CloudDatumStreamConfiguration> datumStreams,
+			Map<Long, ZoneId> nodeTimeZones, SortedMap<Long, TaskActions> taskActions) throws IOException {
+		final RetryPolicy retryPolicy = RetryPolicy.withRetries(retries);
+		final List<BulkResult<TaskActions, TaskActions>> results;
+		try (TaskActionReportWriter writer = new TaskActionReportWriter(datumStreams, nodeTimeZones)) {
+			results = BulkRequestUtils.executeAll(taskActions.values(), parallelism, RetryPolicy.NONE, actions -> {
+				final CloudDatumStreamConfiguration datumStream = datumStreams.get(actions.datumStreamId());
+				final ZoneId zone = (nodeTimeZones.containsKey(datumStream.objectId())
+						? nodeTimeZones.get(datumStream.objectId())
+						: ZoneOffset.UTC);
+				updateTasks(restClient, retryPolicy, zone, actions);
+				return actions;
+			}, result -> {
+				if (result.isSuccess()) {
+					writer.write(result.item());
+				} else {
+					System.err.println("Error updating datum stream %d rake tasks: %s"
+							.formatted(result.item().datumStreamId(), result.error()));
 				}
+			});
+		}
+		return results.stream().allMatch(BulkResult::isSuccess);
+	}
+
+	private void updateTasks(RestClient restClient, RetryPolicy retryPolicy, ZoneId zone, TaskActions actions) {
+		if (actions.missingOffsets.size() == offsets.length) {
+			// the bulk endpoint replaces all tasks, removing any undesired ones
+			BulkRequestUtils.retry(retryPolicy,
+					() -> bulkCreateRakeTasks(restClient, actions.datumStreamId, zone, actions.missingOffsets));
+		} else {
+			for (Period offset : actions.missingOffsets) {
+				createRakeTask(restClient, retryPolicy, actions.datumStreamId, zone, offset);
+			}
+			for (CloudDatumStreamRakeTaskConfiguration task : actions.undesiredOffsets.values()) {
+				BulkRequestUtils.retry(retryPolicy, () -> deleteRakeTask(restClient, task.configId()));
 			}
 		}
 	}
 
-	private static void bulkCreateRakeTasks(RestClient restClient, Long datumStreamId, ZoneId zone,
+	/**
+	 * Create a rake task, retrying after server errors only if the task was not
+	 * created.
+	 * 
+	 * <p>
+	 * Creating a task is not idempotent: a request that fails with a server error
+	 * might still have created the task. Before each retry the datum stream's
+	 * tasks are listed again, and the task is not created again if it exists.
+	 * </p>
+	 * 
+	 * @param restClient    the REST client
+	 * @param retryPolicy   the retry policy
+	 * @param datumStreamId the datum stream ID
+	 * @param zone          the time zone
+	 * @param offset        the task offset
+	 */
+	private void createRakeTask(RestClient restClient, RetryPolicy retryPolicy, Long datumStreamId, ZoneId zone,
+			Period offset) {
+		final AtomicBoolean attempted = new AtomicBoolean();
+		BulkRequestUtils.retry(retryPolicy, () -> {
+			if (attempted.getAndSet(true) && hasRakeTask(restClient, datumStreamId, offset)) {
+				return true;
+			}
+			createRakeTask(restClient, datumStreamId, zone, offset);
+			return true;
+		});
+	}
+
+	private boolean hasRakeTask(RestClient restClient, Long datumStreamId, Period offset) {
+		final CloudIntegrationsFilter filter = new CloudIntegrationsFilter();
+		filter.setDatumStreamIds(List.of(datumStreamId));
+		return rakeTasks(restClient, filter).getOrDefault(datumStreamId, Collections.emptySortedMap())
+				.containsKey(offset);
+	}
+
+	private static JsonNode bulkCreateRakeTasks(RestClient restClient, Long datumStreamId, ZoneId zone,
 			Set<Period> offsets) {
 		final Instant executeAt = ZonedDateTime.now(zone).toLocalDate().plusDays(1).atStartOfDay(zone).toInstant();
 		final List<CloudDatumStreamRakeTaskConfiguration> tasks = offsets.stream().map(p -> {
@@ -300,10 +392,10 @@ public class CreateTasksCmd extends BaseSubCmd<RakeTasksCmd> implements Callable
 			;		
 		// @formatter:on
 
-		checkSuccess(response);
+		return checkSuccess(response);
 	}
 
-	private static void createRakeTask(RestClient restClient, Long datumStreamId, ZoneId zone, Period offset) {
+	private static JsonNode createRakeTask(RestClient restClient, Long datumStreamId, ZoneId zone, Period offset) {
 		final Instant executeAt = ZonedDateTime.now(zone).toLocalDate().plusDays(1).atStartOfDay(zone).toInstant();
 		final CloudDatumStreamRakeTaskConfiguration task = new CloudDatumStreamRakeTaskConfiguration(
 		// @formatter:off
@@ -331,10 +423,10 @@ public class CreateTasksCmd extends BaseSubCmd<RakeTasksCmd> implements Callable
 			;		
 		// @formatter:on
 
-		checkSuccess(response);
+		return checkSuccess(response);
 	}
 
-	private static void deleteRakeTask(RestClient restClient, Long taskId) {
+	private static JsonNode deleteRakeTask(RestClient restClient, Long taskId) {
 		// @formatter:off
 		JsonNode response = restClient.delete()
 			.uri(b -> {
@@ -347,7 +439,7 @@ public class CreateTasksCmd extends BaseSubCmd<RakeTasksCmd> implements Callable
 			;		
 		// @formatter:on
 
-		checkSuccess(response);
+		return checkSuccess(response);
 	}
 
 	@SuppressWarnings("ClosingStandardOutputStreams")
@@ -357,32 +449,109 @@ public class CreateTasksCmd extends BaseSubCmd<RakeTasksCmd> implements Callable
 			return;
 		}
 		try (OutputStream out = nonClosing(System.out)) {
-			TableUtils.renderTableData(tableDataColumns(), taskActions.values().stream().flatMap(actions -> {
-				List<Object[]> rows = new ArrayList<>();
-				rows.addAll(actions.missingOffsets.stream().map(p -> {
-					final CloudDatumStreamConfiguration datumStream = datumStreams.get(actions.datumStreamId());
-					final ZoneId tz = (nodeTimeZones.containsKey(datumStream.objectId())
-							? nodeTimeZones.get(datumStream.objectId())
-							: ZoneOffset.UTC);
-					final Instant executeAt = ZonedDateTime.now(tz).toLocalDate().plusDays(1).atStartOfDay(tz)
-							.toInstant();
-					return tableDataRow(datumStream, new CloudDatumStreamRakeTaskConfiguration(
-					// @formatter:off
-									  null
-									, actions.datumStreamId()
-									, ClaimableJobState.Queued.keyValue()
-									, executeAt
-									, p.toString()
-									, null
-									, null
-									// @formatter:on
-					), "Create");
-				}).toList());
-				rows.addAll(actions.undesiredOffsets.values().stream()
-						.map(c -> tableDataRow(datumStreams.get(actions.datumStreamId()), c, "Remove")).toList());
-				return rows.stream();
-			}).toList(), displayMode, objectMapper, TableUtils.TableDataJsonPrettyPrinter.INSTANCE, out);
+			TableUtils.renderTableData(tableDataColumns(),
+					taskActions.values().stream()
+							.flatMap(actions -> tableDataRows(datumStreams, nodeTimeZones, actions).stream())
+							.toList(),
+					displayMode, objectMapper, TableUtils.TableDataJsonPrettyPrinter.INSTANCE, out);
 		}
 	}
 
+	private static List<Object[]> tableDataRows(SortedMap<Long, CloudDatumStreamConfiguration> datumStreams,
+			Map<Long, ZoneId> nodeTimeZones, TaskActions actions) {
+		final CloudDatumStreamConfiguration datumStream = datumStreams.get(actions.datumStreamId());
+		final List<Object[]> rows = new ArrayList<>();
+		rows.addAll(actions.missingOffsets.stream().map(p -> {
+			final ZoneId tz = (nodeTimeZones.containsKey(datumStream.objectId())
+					? nodeTimeZones.get(datumStream.objectId())
+					: ZoneOffset.UTC);
+			final Instant executeAt = ZonedDateTime.now(tz).toLocalDate().plusDays(1).atStartOfDay(tz).toInstant();
+			return tableDataRow(datumStream, new CloudDatumStreamRakeTaskConfiguration(
+			// @formatter:off
+							  null
+							, actions.datumStreamId()
+							, ClaimableJobState.Queued.keyValue()
+							, executeAt
+							, p.toString()
+							, null
+							, null
+							// @formatter:on
+			), "Create");
+		}).toList());
+		rows.addAll(actions.undesiredOffsets.values().stream().map(c -> tableDataRow(datumStream, c, "Remove"))
+				.toList());
+		return rows;
+	}
+
+	/**
+	 * Write the task action report incrementally, one datum stream at a time.
+	 * 
+	 * <p>
+	 * In {@code JSON} mode an object of datum stream IDs to {@link TaskActions}
+	 * is written, and in {@code CSV} mode a row per action is written, as each
+	 * datum stream completes. In {@code PRETTY} mode the table cannot be laid out
+	 * until all rows are known, so it is written when the writer is closed.
+	 * </p>
+	 */
+	private final class TaskActionReportWriter implements Closeable {
+
+		private final SortedMap<Long, CloudDatumStreamConfiguration> datumStreams;
+		private final Map<Long, ZoneId> nodeTimeZones;
+		private final List<Object[]> prettyRows = new ArrayList<>();
+		private final JsonGenerator json;
+		private boolean csvHeaderWritten;
+
+		private TaskActionReportWriter(SortedMap<Long, CloudDatumStreamConfiguration> datumStreams,
+				Map<Long, ZoneId> nodeTimeZones) throws IOException {
+			super();
+			this.datumStreams = datumStreams;
+			this.nodeTimeZones = nodeTimeZones;
+			if (displayMode == ResultDisplayMode.JSON) {
+				json = objectMapper.createGenerator(nonClosing(System.out));
+				if (systemConsoleIsTerminal()) {
+					json.useDefaultPrettyPrinter();
+				}
+				json.writeStartObject();
+			} else {
+				json = null;
+			}
+		}
+
+		private void write(TaskActions actions) {
+			try {
+				if (json != null) {
+					json.writeFieldName(actions.datumStreamId().toString());
+					json.writeObject(actions);
+					json.flush();
+				} else if (displayMode == ResultDisplayMode.CSV) {
+					final List<Object[]> rows = tableDataRows(datumStreams, nodeTimeZones, actions);
+					if (!rows.isEmpty()) {
+						TableUtils.renderTableData(csvHeaderWritten ? null : tableDataColumns(), rows, displayMode,
+								objectMapper, System.out);
+						System.out.flush();
+						csvHeaderWritten = true;
+					}
+				} else {
+					prettyRows.addAll(tableDataRows(datumStreams, nodeTimeZones, actions));
+				}
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (json != null) {
+				json.writeEndObject();
+				json.close();
+				if (systemConsoleIsTerminal()) {
+					System.out.println();
+				}
+			} else if (!prettyRows.isEmpty()) {
+				TableUtils.renderTableData(tableDataColumns(), prettyRows, displayMode, objectMapper, System.out);
+			}
+		}
+
+	}
+
 }
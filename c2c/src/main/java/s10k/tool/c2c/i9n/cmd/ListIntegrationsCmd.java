@@ -2,7 +2,6 @@ package s10k.tool.c2c.i9n.cmd;
 
 import static com.github.freva.asciitable.HorizontalAlign.LEFT;
 import static com.github.freva.asciitable.HorizontalAlign.RIGHT;
-import static s10k.tool.c2c.util.CloudIntegrationRestUtils.listCloudIntegrations;
 import static s10k.tool.c2c.util.CloudIntegrationsUtils.integrationServiceLocalizedName;
 
 import java.util.List;
@@ -18,8 +17,10 @@ import com.github.freva.asciitable.Column;
 import picocli.CommandLine.ArgGroup;
 import picocli.CommandLine.Command;
 import picocli.CommandLine.Option;
+import s10k.tool.c2c.cmd.CloudIntegrationsCmd;
 import s10k.tool.c2c.domain.CloudIntegrationConfiguration;
 import s10k.tool.c2c.domain.CloudIntegrationsFilter;
+import s10k.tool.c2c.util.CloudIntegrationRestUtils;
 import s10k.tool.c2c.util.CloudIntegrationsUtils;
 import s10k.tool.common.cmd.BaseSubCmd;
 import s10k.tool.common.domain.ResultDisplayMode;
@@ -75,6 +76,10 @@ public class ListIntegrationsCmd extends BaseSubCmd<IntegrationsCmd> implements
 			description = "how to display the data",
 			defaultValue = "PRETTY")
 	ResultDisplayMode displayMode = ResultDisplayMode.PRETTY;
+
+	@Option(names = { "--snapshot" },
+			description = "answer the query from the local configuration snapshot when possible, which can be up to --config-ttl old")
+	boolean useSnapshot;
 	// @formatter:on
 
 	/**
@@ -110,7 +115,10 @@ public class ListIntegrationsCmd extends BaseSubCmd<IntegrationsCmd> implements
 		final CloudIntegrationsFilter filter = filter();
 
 		try {
-			List<CloudIntegrationConfiguration> confs = listCloudIntegrations(restClient, objectMapper, filter);
+			List<CloudIntegrationConfiguration> confs = (useSnapshot
+					? ancestorCmd(CloudIntegrationsCmd.class).configurationSnapshots().listCloudIntegrations(restClient,
+							objectMapper, filter)
+					: CloudIntegrationRestUtils.listCloudIntegrations(restClient, objectMapper, filter));
 			if (confs.isEmpty()) {
 				System.err.println("No sources matched your criteria.");
 				return 0;
@@ -1,14 +1,22 @@
 package s10k.tool.c2c.i9n.cmd;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
+import static s10k.tool.c2c.util.CloudIntegrationRestUtils.listCloudIntegrations;
 import static s10k.tool.c2c.util.CloudIntegrationRestUtils.viewCloudIntegration;
 import static s10k.tool.common.util.RestUtils.checkSuccess;
 import static s10k.tool.common.util.StringUtils.stringOrFileContents;
 
+import java.io.IOException;
 import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.SequencedMap;
+import java.util.Set;
 import java.util.concurrent.Callable;
 
 import org.springframework.http.MediaType;
@@ -24,10 +32,16 @@ import net.solarnetwork.codec.JsonUtils;
 import picocli.CommandLine.Command;
 import picocli.CommandLine.Option;
 import picocli.CommandLine.Parameters;
+import s10k.tool.c2c.cmd.CloudIntegrationsCmd;
 import s10k.tool.c2c.domain.CloudIntegrationConfiguration;
+import s10k.tool.c2c.domain.CloudIntegrationsFilter;
+import s10k.tool.c2c.util.ServicePropertiesUpdateUtils;
+import s10k.tool.c2c.util.ServicePropertiesUpdateUtils.ServicePropertiesUpdate;
 import s10k.tool.common.cmd.BaseSubCmd;
 import s10k.tool.common.domain.MergeMode;
 import s10k.tool.common.domain.ResultDisplayMode;
+import s10k.tool.common.util.BulkRequestUtils;
+import s10k.tool.common.util.BulkRequestUtils.BulkResult;
 import s10k.tool.common.util.CollectionUtils;
 import s10k.tool.common.util.SystemUtils;
 import s10k.tool.common.util.TableUtils;
@@ -37,14 +51,21 @@ import s10k.tool.common.util.TableUtils;
  */
 @Component
 @Command(name = "update-service-properties", aliases = "update-props", sortSynopsis = false, showDefaultValues = true, descriptionHeading = "%n", optionListHeading = "%n", description = {
-		"Update a cloud integration's service properties using a @|bold merge|@ operation.%n" })
+		"Update cloud integration service properties using a @|bold merge|@ operation.%n" })
 public class UpdateIntegrationServicePropertiesCmd extends BaseSubCmd<IntegrationsCmd> implements Callable<Integer> {
 
 	// @formatter:off
 	@Option(names = { "-i", "--integration-id" },
-			description = "the ID of the integration to update",
-			required =  true)
-	Long integrationId;
+			description = "the ID of an integration to update",
+			split = "\\s*,\\s*",
+			splitSynopsisLabel = ",",
+			paramLabel = "integrationId")
+	Long[] integrationIds;
+
+	@Option(names = { "--csv" },
+			description = "a CSV file of integration IDs and service properties to update each with",
+			paramLabel = "file")
+	Path csvFile;
 	
 	@Option(names = { "-g", "--merge-mode" },
 			description = "the merge style to perform",
@@ -65,6 +86,24 @@ public class UpdateIntegrationServicePropertiesCmd extends BaseSubCmd<Integratio
 			defaultValue = "PRETTY")
 	ResultDisplayMode displayMode = ResultDisplayMode.PRETTY;
 
+	@Option(names = { "--parallel" },
+			description = "the maximum number of integrations to update at once",
+			paramLabel = "count",
+			defaultValue = "" + BulkRequestUtils.DEFAULT_PARALLELISM)
+	int parallelism = BulkRequestUtils.DEFAULT_PARALLELISM;
+
+	@Option(names = { "--rate" },
+			description = "the maximum number of integration updates to start per second, or 0 for no limit",
+			paramLabel = "count",
+			defaultValue = "" + ServicePropertiesUpdateUtils.DEFAULT_RATE)
+	double rate = ServicePropertiesUpdateUtils.DEFAULT_RATE;
+
+	@Option(names = { "--retries" },
+			description = "the maximum number of times to retry an integration update after a server error",
+			paramLabel = "count",
+			defaultValue = "" + BulkRequestUtils.DEFAULT_RETRIES)
+	int retries = BulkRequestUtils.DEFAULT_RETRIES;
+
 	@Parameters(index = "0", paramLabel = "<config>", description = "the properties to save, or @file for file to load", arity = "0..1")
 	String value;
 	// @formatter:on
@@ -81,7 +120,15 @@ public class UpdateIntegrationServicePropertiesCmd extends BaseSubCmd<Integratio
 
 	@Override
 	public Integer call() throws Exception {
+		if ((integrationIds == null || integrationIds.length < 1) && csvFile == null) {
+			System.err.println("An integration ID or CSV file must be provided.");
+			return 1;
+		}
 		final RestClient restClient = restClient();
+		if (integrationIds == null || integrationIds.length > 1 || csvFile != null) {
+			return bulkUpdate(restClient);
+		}
+		final Long integrationId = integrationIds[0];
 		try {
 			final CloudIntegrationConfiguration existing;
 			if (isDryRun()) {
@@ -93,32 +140,20 @@ public class UpdateIntegrationServicePropertiesCmd extends BaseSubCmd<Integratio
 			final Map<String, Object> settings = (existing != null ? existing.serviceProperties()
 					: new LinkedHashMap<>(4));
 
-			// look for JSON on stdin if allowed
-			if (!(ignoreStdIn || SystemUtils.systemConsoleIsTerminal())) {
-				Map<String, Object> inputProps = objectMapper.readValue(new InputStreamReader(System.in, UTF_8),
-						JsonUtils.STRING_MAP_TYPE);
-				CollectionUtils.mergeServiceProperties(inputProps, settings, mode);
-			}
-
 			try {
-				populateSettings(settings);
+				populateInputSettings(settings);
 			} catch (RuntimeException e) {
 				System.err.println(e.getMessage());
 				return 1;
 			}
 
-			if (value != null && !value.isBlank()) {
-				Map<String, Object> inputProps = objectMapper.readValue(stringOrFileContents(value),
-						JsonUtils.STRING_MAP_TYPE);
-				CollectionUtils.mergeServiceProperties(inputProps, settings, mode);
-			}
-
 			Map<String, Object> result;
 			if (isDryRun()) {
 				result = settings;
 			} else {
 				result = updateCloudIntegrationServiceProperties(restClient, objectMapper, integrationId, mode,
 						settings);
+				ancestorCmd(CloudIntegrationsCmd.class).configurationSnapshots().invalidate();
 			}
 
 			TableUtils.renderTableData(TableUtils.mapColumns("Property", "Value", false), List.of(result), displayMode,
@@ -130,6 +165,95 @@ public class UpdateIntegrationServicePropertiesCmd extends BaseSubCmd<Integratio
 		return 1;
 	}
 
+	private int bulkUpdate(RestClient restClient) {
+		try {
+			final Map<String, Object> input = new LinkedHashMap<>(4);
+			final SequencedMap<Long, Map<String, Object>> csvSettings;
+			try {
+				populateInputSettings(input);
+				csvSettings = (csvFile != null
+						? ServicePropertiesUpdateUtils.parseServicePropertiesCsv(Files.readString(csvFile, UTF_8),
+								objectMapper)
+						: Collections.emptySortedMap());
+			} catch (RuntimeException e) {
+				System.err.println(e.getMessage());
+				return 1;
+			}
+			if (input.isEmpty() && csvSettings.isEmpty()) {
+				System.err.println("No service properties provided.");
+				return 1;
+			}
+
+			// always get the latest integrations, so the diff is accurate
+			final Set<Long> ids = new LinkedHashSet<>(csvSettings.keySet());
+			if (integrationIds != null) {
+				ids.addAll(List.of(integrationIds));
+			}
+			if (ids.isEmpty()) {
+				System.err.println("No integrations matched your criteria.");
+				return 0;
+			}
+			final CloudIntegrationsFilter filter = new CloudIntegrationsFilter();
+			filter.setIntegrationIds(List.copyOf(ids));
+			final List<CloudIntegrationConfiguration> integrations = listCloudIntegrations(restClient, objectMapper,
+					filter);
+			if (integrations.isEmpty()) {
+				System.err.println("No integrations matched your criteria.");
+				return 0;
+			}
+
+			final List<ServicePropertiesUpdate> updates = integrations.stream()
+					.map(c -> ServicePropertiesUpdateUtils.update(objectMapper, c.configId(), c.serviceProperties(),
+							mode, input, csvSettings.get(c.configId())))
+					.toList();
+			final boolean dryRun = isDryRun();
+			final List<BulkResult<ServicePropertiesUpdate, Map<String, Object>>> results = ServicePropertiesUpdateUtils
+					.executeUpdates(updates, parallelism, rate, retries, dryRun,
+							u -> updateCloudIntegrationServiceProperties(restClient, objectMapper, u.id(), mode,
+									u.input()));
+			if (!dryRun && results.stream().anyMatch(r -> r.attempts() > 0)) {
+				ancestorCmd(CloudIntegrationsCmd.class).configurationSnapshots().invalidate();
+			}
+
+			final List<?> tableData = (displayMode == ResultDisplayMode.JSON
+					? results.stream().map(r -> ServicePropertiesUpdateUtils.diffResultObject(objectMapper, r, dryRun))
+							.toList()
+					: results.stream()
+							.flatMap(r -> ServicePropertiesUpdateUtils.diffTableDataRows(objectMapper, r, dryRun)
+									.stream())
+							.toList());
+			TableUtils.renderTableData(ServicePropertiesUpdateUtils.diffTableDataColumns("Integration ID"), tableData,
+					displayMode, objectMapper, TableUtils.TableDataJsonPrettyPrinter.INSTANCE, System.out);
+
+			final long failCount = results.stream().filter(r -> !r.isSuccess()).count();
+			if (failCount > 0) {
+				System.err.println("Failed to update %d of %d integrations.".formatted(failCount, results.size()));
+				return 1;
+			}
+			return 0;
+		} catch (Exception e) {
+			System.err.println("Error updating cloud integrations: %s".formatted(e.getMessage()));
+		}
+		return 1;
+	}
+
+	private void populateInputSettings(Map<String, Object> settings) throws IOException {
+		// look for JSON on stdin if allowed
+		if (!(ignoreStdIn || SystemUtils.systemConsoleIsTerminal())) {
+			Map<String, Object> inputProps = objectMapper.readValue(new InputStreamReader(System.in, UTF_8),
+					JsonUtils.STRING_MAP_TYPE);
+			CollectionUtils.mergeServiceProperties(inputProps, settings, mode);
+		}
+
+		populateSettings(settings);
+
+		if (value != null && !value.isBlank()) {
+			Map<String, Object> inputProps = objectMapper.readValue(stringOrFileContents(value),
+					JsonUtils.STRING_MAP_TYPE);
+			CollectionUtils.mergeServiceProperties(inputProps, settings, mode);
+		}
+	}
+
 	private void populateSettings(Map<String, Object> settings) {
 		CollectionUtils.populateServiceProperties(serviceProperties, settings, objectMapper);
 	}
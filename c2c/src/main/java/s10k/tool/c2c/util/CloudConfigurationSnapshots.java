@@ -0,0 +1,236 @@
+package s10k.tool.c2c.util;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import org.jspecify.annotations.Nullable;
+import org.springframework.web.client.RestClient;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import s10k.tool.c2c.domain.CloudDatumStreamConfiguration;
+import s10k.tool.c2c.domain.CloudIntegrationConfiguration;
+import s10k.tool.c2c.domain.CloudIntegrationsFilter;
+import s10k.tool.common.util.DiskCache;
+
+/**
+ * Local snapshots of the cloud datum stream and integration configurations.
+ *
+ * <p>
+ * The full set of configurations for a credentials token is downloaded once and
+ * stored in the local configuration cache, and then reused by subsequent
+ * commands until it is older than a maximum age. Queries are answered from the
+ * snapshot when the filter only uses criteria that can be applied locally;
+ * otherwise they are sent to SolarNetwork as usual.
+ * </p>
+ *
+ * <p>
+ * Snapshots are meant for commands that resolve sets of datum streams or
+ * integrations to act on, where a slightly stale configuration is acceptable.
+ * Read-only list commands query SolarNetwork directly, unless snapshots are
+ * explicitly requested.
+ * </p>
+ *
+ * <p>
+ * SolarNetwork does not support querying for configurations modified since a
+ * given date, so commands that modify configurations must call
+ * {@link #invalidate()} so the next command downloads a fresh snapshot.
+ * </p>
+ */
+public class CloudConfigurationSnapshots {
+
+	/** The snapshot type for datum streams. */
+	public static final String DATUM_STREAMS_TYPE = "datum-streams";
+
+	/** The snapshot type for integrations. */
+	public static final String INTEGRATIONS_TYPE = "integrations";
+
+	private final @Nullable DiskCache cache;
+	private final String tokenId;
+	private final Duration maxAge;
+	private final boolean refresh;
+	private final Map<String, JsonNode> snapshots = new ConcurrentHashMap<>(2);
+
+	/**
+	 * Constructor.
+	 *
+	 * @param cache   the cache to store snapshots in, or {@code null} to not use
+	 *                snapshots
+	 * @param tokenId the credentials token ID the snapshots are for
+	 * @param maxAge  the maximum age of a stored snapshot to use
+	 * @param refresh {@code true} to ignore any stored snapshot and download a
+	 *                fresh one
+	 */
+	public CloudConfigurationSnapshots(@Nullable DiskCache cache, String tokenId, Duration maxAge,
+			boolean refresh) {
+		super();
+		this.cache = (maxAge.isNegative() || maxAge.isZero() ? null : cache);
+		this.tokenId = tokenId;
+		this.maxAge = maxAge;
+		this.refresh = refresh;
+	}
+
+	/**
+	 * List cloud datum streams.
+	 *
+	 * @param restClient   the REST client
+	 * @param objectMapper the object mapper
+	 * @param filter       an optional filter
+	 * @return the result
+	 * @throws IllegalStateException if an error occurs fetching the streams
+	 * @see CloudIntegrationRestUtils#listCloudDatumStreams(RestClient,
+	 *      ObjectMapper, CloudIntegrationsFilter)
+	 */
+	public List<CloudDatumStreamConfiguration> listCloudDatumStreams(RestClient restClient,
+			ObjectMapper objectMapper, @Nullable CloudIntegrationsFilter filter) {
+		final DiskCache cache = this.cache;
+		if (cache == null || !isDatumStreamFilterLocal(filter)) {
+			return CloudIntegrationRestUtils.listCloudDatumStreams(restClient, objectMapper, filter);
+		}
+		final JsonNode data = snapshot(cache, DATUM_STREAMS_TYPE, objectMapper,
+				() -> CloudIntegrationRestUtils.listCloudDatumStreamsData(restClient, null));
+		// @formatter:off
+		return CloudIntegrationRestUtils.parseCloudDatumStreams(objectMapper, data).stream()
+				.filter(c -> filter == null || (
+						matches(filter.getDatumStreamIds(), c.configId())
+						&& matches(filter.getDatumStreamMappingIds(), c.datumStreamMappingId())
+						&& matches(filter.getServiceIdentifiers(), c.serviceIdentifier())
+						&& (filter.getEnabled() == null || filter.getEnabled().booleanValue() == c.enabled())))
+				.toList();
+		// @formatter:on
+	}
+
+	/**
+	 * Get a collection of Cloud Datum Stream entities for services that match a set
+	 * of type filters.
+	 *
+	 * @param restClient   the client to use
+	 * @param objectMapper the mapper to use
+	 * @param filter       the query filter
+	 * @param typeFilters  optional include/exclude filters (prefix with {@code !}
+	 *                     to exclude
+	 * @return the matching datum streams
+	 * @throws IllegalStateException if an error occurs fetching the streams
+	 * @see CloudIntegrationRestUtils#datumStreamsOfType(Collection, String[])
+	 */
+	public SortedMap<Long, CloudDatumStreamConfiguration> datumStreamsOfType(RestClient restClient,
+			ObjectMapper objectMapper, @Nullable CloudIntegrationsFilter filter, String[] typeFilters) {
+		return CloudIntegrationRestUtils.datumStreamsOfType(listCloudDatumStreams(restClient, objectMapper, filter),
+				typeFilters);
+	}
+
+	/**
+	 * List cloud integrations.
+	 *
+	 * @param restClient   the REST client
+	 * @param objectMapper the object mapper
+	 * @param filter       an optional filter
+	 * @return the result
+	 * @throws IllegalStateException if an error occurs fetching the integrations
+	 * @see CloudIntegrationRestUtils#listCloudIntegrations(RestClient,
+	 *      ObjectMapper, CloudIntegrationsFilter)
+	 */
+	public List<CloudIntegrationConfiguration> listCloudIntegrations(RestClient restClient,
+			ObjectMapper objectMapper, @Nullable CloudIntegrationsFilter filter) {
+		final DiskCache cache = this.cache;
+		if (cache == null || !isIntegrationFilterLocal(filter)) {
+			return CloudIntegrationRestUtils.listCloudIntegrations(restClient, objectMapper, filter);
+		}
+		final JsonNode data = snapshot(cache, INTEGRATIONS_TYPE, objectMapper,
+				() -> CloudIntegrationRestUtils.listCloudIntegrationsData(restClient, null));
+		// @formatter:off
+		return CloudIntegrationRestUtils.parseCloudIntegrations(objectMapper, data).stream()
+				.filter(c -> filter == null || (
+						matches(filter.getIntegrationIds(), c.configId())
+						&& matches(filter.getServiceIdentifiers(), c.serviceIdentifier())
+						&& (filter.getEnabled() == null || filter.getEnabled().booleanValue() == c.enabled())))
+				.toList();
+		// @formatter:on
+	}
+
+	/**
+	 * Remove all stored snapshots, so the next query downloads fresh ones.
+	 */
+	public void invalidate() {
+		snapshots.clear();
+		if (cache != null) {
+			cache.remove(cacheKey(DATUM_STREAMS_TYPE));
+			cache.remove(cacheKey(INTEGRATIONS_TYPE));
+		}
+	}
+
+	private String cacheKey(String type) {
+		return DiskCache.cacheKey(tokenId, type);
+	}
+
+	private JsonNode snapshot(DiskCache cache, String type, ObjectMapper objectMapper, Supplier<JsonNode> loader) {
+		return snapshots.computeIfAbsent(type, _ -> {
+			final String key = cacheKey(type);
+			if (!refresh) {
+				final byte[] content = cache.get(key, maxAge);
+				if (content != null) {
+					try {
+						return objectMapper.readTree(content);
+					} catch (IOException e) {
+						// ignore and download again
+					}
+				}
+			}
+			final JsonNode data = loader.get();
+			try {
+				cache.put(key, objectMapper.writeValueAsBytes(data));
+			} catch (JsonProcessingException e) {
+				// ignore and continue without storing
+			}
+			return data;
+		});
+	}
+
+	private static boolean isDatumStreamFilterLocal(@Nullable CloudIntegrationsFilter filter) {
+		// @formatter:off
+		return (filter == null || (
+				isEmpty(filter.getIntegrationIds())
+				&& isEmpty(filter.getTaskIds())
+				&& isEmpty(filter.getIndexes())
+				&& isEmpty(filter.getClaimableJobStates())
+				&& isEmpty(filter.getNames())
+				&& isEmpty(filter.getNodeIds())
+				&& isEmpty(filter.getSourceIds())
+				&& filter.getStartDate() == null
+				&& filter.getEndDate() == null));
+		// @formatter:on
+	}
+
+	private static boolean isIntegrationFilterLocal(@Nullable CloudIntegrationsFilter filter) {
+		// @formatter:off
+		return (filter == null || (
+				isEmpty(filter.getDatumStreamIds())
+				&& isEmpty(filter.getDatumStreamMappingIds())
+				&& isEmpty(filter.getTaskIds())
+				&& isEmpty(filter.getIndexes())
+				&& isEmpty(filter.getClaimableJobStates())
+				&& isEmpty(filter.getNames())
+				&& isEmpty(filter.getNodeIds())
+				&& isEmpty(filter.getSourceIds())
+				&& filter.getStartDate() == null
+				&& filter.getEndDate() == null));
+		// @formatter:on
+	}
+
+	private static boolean isEmpty(@Nullable Collection<?> values) {
+		return (values == null || values.isEmpty());
+	}
+
+	private static boolean matches(@Nullable Collection<?> values, @Nullable Object value) {
+		return (isEmpty(values) || values.contains(value));
+	}
+
+}
@@ -6,6 +6,7 @@ import static s10k.tool.c2c.util.CloudIntegrationsUtils.datumStreamServiceLocali
 import static s10k.tool.common.util.RestUtils.checkSuccess;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -78,6 +79,18 @@ public final class CloudIntegrationRestUtils {
 	 */
 	public static List<CloudDatumStreamConfiguration> listCloudDatumStreams(RestClient restClient,
 			ObjectMapper objectMapper, CloudIntegrationsFilter filter) {
+		return parseCloudDatumStreams(objectMapper, listCloudDatumStreamsData(restClient, filter));
+	}
+
+	/**
+	 * List cloud datum streams as raw JSON.
+	 * 
+	 * @param restClient the REST client
+	 * @param filter     an optional filter
+	 * @return the JSON array of datum stream configurations
+	 * @throws IllegalStateException if an error occurs fetching the streams
+	 */
+	public static JsonNode listCloudDatumStreamsData(RestClient restClient, CloudIntegrationsFilter filter) {
 		// @formatter:off
 		JsonNode response = restClient.get()
 			.uri(b -> {
@@ -95,8 +108,21 @@ public final class CloudIntegrationRestUtils {
 
 		checkSuccess(response);
 
-		List<CloudDatumStreamConfiguration> result = new ArrayList<>(response.path("data").size());
-		for (JsonNode node : response.path("data").path("results")) {
+		return response.path("data").path("results");
+	}
+
+	/**
+	 * Parse a JSON array of cloud datum stream configurations.
+	 * 
+	 * @param objectMapper the object mapper
+	 * @param data         the JSON array to parse
+	 * @return the result
+	 * @throws IllegalStateException if an error occurs parsing the streams
+	 */
+	public static List<CloudDatumStreamConfiguration> parseCloudDatumStreams(ObjectMapper objectMapper,
+			JsonNode data) {
+		List<CloudDatumStreamConfiguration> result = new ArrayList<>(data.size());
+		for (JsonNode node : data) {
 			CloudDatumStreamConfiguration conf;
 			try {
 				conf = objectMapper.treeToValue(node, CloudDatumStreamConfiguration.class);
@@ -124,6 +150,20 @@ public final class CloudIntegrationRestUtils {
 	 */
 	public static SortedMap<Long, CloudDatumStreamConfiguration> datumStreamsOfType(RestClient restClient,
 			ObjectMapper objectMapper, CloudIntegrationsFilter filter, String[] typeFilters) {
+		return datumStreamsOfType(listCloudDatumStreams(restClient, objectMapper, filter), typeFilters);
+	}
+
+	/**
+	 * Filter a collection of Cloud Datum Stream entities to those for services
+	 * that match a set of type filters.
+	 * 
+	 * @param datumStreams the datum streams to filter
+	 * @param typeFilters  optional include/exclude filters (prefix with {@code !}
+	 *                     to exclude
+	 * @return the matching datum streams
+	 */
+	public static SortedMap<Long, CloudDatumStreamConfiguration> datumStreamsOfType(
+			Collection<CloudDatumStreamConfiguration> datumStreams, String[] typeFilters) {
 		// local cache of known service identifiers to exclude
 		final Set<String> includeServiceIdents = new HashSet<>();
 		final Set<String> excludeServiceIdents = new HashSet<>();
@@ -141,7 +181,7 @@ public final class CloudIntegrationRestUtils {
 			}
 		}
 
-		return listCloudDatumStreams(restClient, objectMapper, filter).stream().filter(c -> {
+		return datumStreams.stream().filter(c -> {
 			if (!(lcExcludeTypes.isEmpty() && lcIncludeTypes.isEmpty())) {
 				final String serviceIdent = c.serviceIdentifier();
 				if (excludeServiceIdents.contains(serviceIdent)) {
@@ -265,6 +305,17 @@ public final class CloudIntegrationRestUtils {
 	 */
 	public static List<CloudIntegrationConfiguration> listCloudIntegrations(RestClient restClient,
 			ObjectMapper objectMapper, CloudIntegrationsFilter filter) {
+		return parseCloudIntegrations(objectMapper, listCloudIntegrationsData(restClient, filter));
+	}
+
+	/**
+	 * List cloud integrations as raw JSON.
+	 * 
+	 * @param restClient the REST client
+	 * @param filter     the filter
+	 * @return the JSON array of integration configurations
+	 */
+	public static JsonNode listCloudIntegrationsData(RestClient restClient, CloudIntegrationsFilter filter) {
 		// @formatter:off
 		JsonNode response = restClient.get()
 			.uri(b -> {
@@ -281,9 +332,22 @@ public final class CloudIntegrationRestUtils {
 		// @formatter:on
 	
 		checkSuccess(response);
-	
-		List<CloudIntegrationConfiguration> result = new ArrayList<>(response.path("data").size());
-		for (JsonNode node : response.path("data").path("results")) {
+
+		return response.path("data").path("results");
+	}
+
+	/**
+	 * Parse a JSON array of cloud integration configurations.
+	 * 
+	 * @param objectMapper the object mapper
+	 * @param data         the JSON array to parse
+	 * @return the result
+	 * @throws IllegalStateException if an error occurs parsing the integrations
+	 */
+	public static List<CloudIntegrationConfiguration> parseCloudIntegrations(ObjectMapper objectMapper,
+			JsonNode data) {
+		List<CloudIntegrationConfiguration> result = new ArrayList<>(data.size());
+		for (JsonNode node : data) {
 			CloudIntegrationConfiguration conf;
 			try {
 				conf = objectMapper.treeToValue(node, CloudIntegrationConfiguration.class);
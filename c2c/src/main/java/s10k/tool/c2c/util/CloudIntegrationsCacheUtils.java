@@ -0,0 +1,79 @@
+package s10k.tool.c2c.util;
+
+import java.time.Duration;
+import java.util.List;
+
+import s10k.tool.common.util.DiskCache;
+
+/**
+ * Utilities for the local cloud integrations caches.
+ *
+ * <p>
+ * Cloud provider data value hierarchies change rarely, but can take a long time
+ * to discover. Data values are cached per integration, keyed by the credentials
+ * token ID, the integration and datum stream details, and the hierarchy path.
+ * </p>
+ *
+ * <p>
+ * Snapshots of the datum stream and integration configurations are cached per
+ * credentials token ID. See {@link CloudConfigurationSnapshots}.
+ * </p>
+ */
+public final class CloudIntegrationsCacheUtils {
+
+	/** The data value cache name. */
+	public static final String DATA_VALUE_CACHE_NAME = "c2c-data-values";
+
+	/** The configuration snapshot cache name. */
+	public static final String CONFIG_CACHE_NAME = "c2c-config";
+
+	/** The cache entry file name extension. */
+	public static final String CACHE_EXTENSION = ".json";
+
+	/** The default maximum age of cached data values. */
+	public static final Duration DEFAULT_DATA_VALUE_TTL = Duration.ofDays(1);
+
+	/** The default maximum age of cached configuration snapshots. */
+	public static final Duration DEFAULT_CONFIG_TTL = Duration.ofMinutes(15);
+
+	private CloudIntegrationsCacheUtils() {
+		// not available
+	}
+
+	/**
+	 * Create the data value cache.
+	 *
+	 * @return the cache
+	 */
+	public static DiskCache dataValueCache() {
+		return new DiskCache(DiskCache.userCacheDirectory(DATA_VALUE_CACHE_NAME), DiskCache.DEFAULT_MAX_SIZE,
+				CACHE_EXTENSION);
+	}
+
+	/**
+	 * Create the configuration snapshot cache.
+	 *
+	 * @return the cache
+	 */
+	public static DiskCache configCache() {
+		return new DiskCache(DiskCache.userCacheDirectory(CONFIG_CACHE_NAME), DiskCache.DEFAULT_MAX_SIZE,
+				CACHE_EXTENSION);
+	}
+
+	/**
+	 * Generate a cache key for a data value query.
+	 *
+	 * @param tokenId              the credentials token ID
+	 * @param integrationId        the integration ID
+	 * @param datumStreamId        the optional datum stream ID
+	 * @param datumStreamServiceId the optional datum stream service ID
+	 * @param pathIdentifiers      the optional path identifiers
+	 * @return the key
+	 */
+	public static String dataValueCacheKey(String tokenId, Long integrationId, Long datumStreamId,
+			String datumStreamServiceId, List<String> pathIdentifiers) {
+		return DiskCache.cacheKey(tokenId, integrationId, datumStreamId, datumStreamServiceId,
+				pathIdentifiers != null ? String.join("/", pathIdentifiers) : null);
+	}
+
+}
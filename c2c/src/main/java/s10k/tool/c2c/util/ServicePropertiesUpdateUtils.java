@@ -0,0 +1,314 @@
+package s10k.tool.c2c.util;
+
+import static com.github.freva.asciitable.HorizontalAlign.LEFT;
+import static com.github.freva.asciitable.HorizontalAlign.RIGHT;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SequencedMap;
+import java.util.function.Function;
+
+import org.jspecify.annotations.Nullable;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.freva.asciitable.Column;
+
+import de.siegmar.fastcsv.reader.CommentStrategy;
+import de.siegmar.fastcsv.reader.CsvReader;
+import de.siegmar.fastcsv.reader.CsvRecord;
+import de.siegmar.fastcsv.reader.CsvRecordHandler;
+import de.siegmar.fastcsv.reader.FieldModifiers;
+import net.solarnetwork.codec.JsonUtils;
+import s10k.tool.common.domain.MergeMode;
+import s10k.tool.common.domain.ServicePropertyChange;
+import s10k.tool.common.util.BulkRequestUtils;
+import s10k.tool.common.util.BulkRequestUtils.BulkResult;
+import s10k.tool.common.util.BulkRequestUtils.RateLimiter;
+import s10k.tool.common.util.BulkRequestUtils.RetryPolicy;
+import s10k.tool.common.util.CollectionUtils;
+
+/**
+ * Utilities for updating the service properties of many configurations at once.
+ */
+public final class ServicePropertiesUpdateUtils {
+
+	/** The default maximum number of updates to start per second. */
+	public static final double DEFAULT_RATE = 10.0;
+
+	private ServicePropertiesUpdateUtils() {
+		// not available
+	}
+
+	/**
+	 * A service properties update for a single configuration.
+	 *
+	 * @param id            the configuration ID
+	 * @param input         the service properties to merge into the existing
+	 *                      properties
+	 * @param oldProperties the existing service properties
+	 * @param newProperties the expected service properties after the update
+	 */
+	public static record ServicePropertiesUpdate(Long id, Map<String, Object> input,
+			Map<String, Object> oldProperties, Map<String, Object> newProperties) {
+
+		/**
+		 * Test if the update changes any service properties.
+		 *
+		 * @return {@code true} if the expected properties differ from the existing
+		 *         properties
+		 */
+		public boolean isChanged() {
+			return !oldProperties.equals(newProperties);
+		}
+
+	}
+
+	/**
+	 * Parse a CSV of service properties per configuration.
+	 *
+	 * <p>
+	 * The first row must be a header row. The first column holds configuration
+	 * IDs and each remaining column header is a service property path, in the
+	 * same form supported by
+	 * {@link CollectionUtils#populateServiceProperty(String, Map, ObjectMapper)}.
+	 * Empty cells are ignored.
+	 * </p>
+	 *
+	 * @param csv          the CSV to parse
+	 * @param objectMapper the object mapper
+	 * @return a mapping of configuration IDs to associated service properties
+	 * @throws IllegalArgumentException if the CSV is invalid
+	 */
+	public static SequencedMap<Long, Map<String, Object>> parseServicePropertiesCsv(String csv,
+			ObjectMapper objectMapper) {
+		final SequencedMap<Long, Map<String, Object>> result = new LinkedHashMap<>();
+		try (CsvReader<CsvRecord> in = CsvReader.builder().allowExtraFields(true).allowMissingFields(true)
+				.commentStrategy(CommentStrategy.SKIP)
+				.build(CsvRecordHandler.builder().fieldModifier(FieldModifiers.TRIM).build(), csv)) {
+			List<String> header = null;
+			for (CsvRecord row : in) {
+				if (header == null) {
+					header = row.getFields();
+					continue;
+				}
+				final String idValue = row.getField(0);
+				if (idValue.isEmpty()) {
+					continue;
+				}
+				final Long id;
+				try {
+					id = Long.valueOf(idValue);
+				} catch (NumberFormatException e) {
+					throw new IllegalArgumentException("Invalid ID [%s] on CSV line %d."
+							.formatted(idValue, row.getStartingLineNumber()));
+				}
+				final Map<String, Object> props = result.computeIfAbsent(id, _ -> new LinkedHashMap<>(4));
+				for (int i = 1, len = Math.min(header.size(), row.getFieldCount()); i < len; i++) {
+					final String path = header.get(i);
+					final String value = row.getField(i);
+					if (!(path.isEmpty() || value.isEmpty())) {
+						CollectionUtils.populateServiceProperty(path + ":" + value, props, objectMapper);
+					}
+				}
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return result;
+	}
+
+	/**
+	 * Create a service properties update.
+	 *
+	 * @param objectMapper the object mapper
+	 * @param id           the configuration ID
+	 * @param existing     the existing service properties
+	 * @param mode         the merge mode
+	 * @param inputs       the service properties to merge, in order
+	 * @return the update
+	 */
+	@SafeVarargs
+	public static ServicePropertiesUpdate update(ObjectMapper objectMapper, Long id,
+			@Nullable Map<String, Object> existing, MergeMode mode, @Nullable Map<String, Object>... inputs) {
+		final Map<String, Object> input = new LinkedHashMap<>(8);
+		for (Map<String, Object> m : inputs) {
+			CollectionUtils.mergeServiceProperties(copy(objectMapper, m), input, mode);
+		}
+		final Map<String, Object> oldProps = copy(objectMapper, existing);
+		final Map<String, Object> newProps = copy(objectMapper, oldProps);
+		CollectionUtils.mergeServiceProperties(copy(objectMapper, input), newProps, mode);
+		return new ServicePropertiesUpdate(id, input, oldProps, newProps);
+	}
+
+	/**
+	 * Execute service property updates.
+	 *
+	 * <p>
+	 * Updates that do not change any properties are not executed. When
+	 * {@code dryRun} is {@code true} no updates are executed, and each result holds
+	 * the expected service properties.
+	 * </p>
+	 *
+	 * @param updates     the updates
+	 * @param parallelism the maximum number of updates to execute at once
+	 * @param rate        the maximum number of updates to start per second, or
+	 *                    {@code 0} for no limit
+	 * @param retries     the maximum number of times to retry an update after a
+	 *                    server error
+	 * @param dryRun      {@code true} to not execute any updates
+	 * @param request     the function to execute an update, returning the updated
+	 *                    service properties
+	 * @return the results, ordered by configuration ID
+	 */
+	public static List<BulkResult<ServicePropertiesUpdate, Map<String, Object>>> executeUpdates(
+			Collection<ServicePropertiesUpdate> updates, int parallelism, double rate, int retries, boolean dryRun,
+			Function<ServicePropertiesUpdate, Map<String, Object>> request) {
+		final List<BulkResult<ServicePropertiesUpdate, Map<String, Object>>> result = new ArrayList<>(
+				updates.size());
+		final List<ServicePropertiesUpdate> toExecute = new ArrayList<>(updates.size());
+		for (ServicePropertiesUpdate update : updates) {
+			if (dryRun || !update.isChanged()) {
+				result.add(new BulkResult<>(update, update.newProperties(), 0, null));
+			} else {
+				toExecute.add(update);
+			}
+		}
+		if (!toExecute.isEmpty()) {
+			result.addAll(BulkRequestUtils.executeAll(toExecute, parallelism, new RateLimiter(rate),
+					RetryPolicy.withRetries(retries), request, null));
+		}
+		result.sort(Comparator.comparing(r -> r.item().id()));
+		return result;
+	}
+
+	/**
+	 * Get the diff report table columns.
+	 *
+	 * @param idHeader the configuration ID column header
+	 * @return the columns
+	 */
+	public static Column[] diffTableDataColumns(String idHeader) {
+		// @formatter:off
+		return new Column[] {
+				new Column().header(idHeader).dataAlign(RIGHT),
+				new Column().header("Result").dataAlign(LEFT),
+				new Column().header("Property").dataAlign(LEFT),
+				new Column().header("Old Value").dataAlign(LEFT),
+				new Column().header("New Value").dataAlign(LEFT),
+				new Column().header("Message").dataAlign(LEFT),
+			};
+		// @formatter:on
+	}
+
+	/**
+	 * Get diff report table rows for an update result.
+	 *
+	 * <p>
+	 * A row is returned for each changed property, or a single row if the update
+	 * failed or did not change anything.
+	 * </p>
+	 *
+	 * @param objectMapper the object mapper to format object values with
+	 * @param result       the update result
+	 * @param dryRun       {@code true} if the update was not executed
+	 * @return the rows
+	 */
+	public static List<Object[]> diffTableDataRows(ObjectMapper objectMapper,
+			BulkResult<ServicePropertiesUpdate, Map<String, Object>> result, boolean dryRun) {
+		final Long id = result.item().id();
+		if (!result.isSuccess()) {
+			return List.<Object[]>of(new Object[] { id, "Failed", null, null, null, result.error() });
+		}
+		final List<ServicePropertyChange> changes = changes(objectMapper, result);
+		if (changes.isEmpty()) {
+			return List.<Object[]>of(new Object[] { id, "Unchanged", null, null, null, null });
+		}
+		final String label = resultLabel(result, changes, dryRun);
+		final List<Object[]> rows = new ArrayList<>(changes.size());
+		for (ServicePropertyChange change : changes) {
+			// @formatter:off
+			rows.add(new Object[] {
+					id,
+					label,
+					change.path(),
+					displayValue(objectMapper, change.oldValue()),
+					displayValue(objectMapper, change.newValue()),
+					null,
+				});
+			// @formatter:on
+		}
+		return rows;
+	}
+
+	/**
+	 * Get a diff report object for an update result.
+	 *
+	 * @param objectMapper the object mapper
+	 * @param result       the update result
+	 * @param dryRun       {@code true} if the update was not executed
+	 * @return the object
+	 */
+	public static Map<String, Object> diffResultObject(ObjectMapper objectMapper,
+			BulkResult<ServicePropertiesUpdate, Map<String, Object>> result, boolean dryRun) {
+		final Map<String, Object> obj = new LinkedHashMap<>(8);
+		obj.put("id", result.item().id());
+		final List<ServicePropertyChange> changes = (result.isSuccess() ? changes(objectMapper, result) : List.of());
+		obj.put("result", resultLabel(result, changes, dryRun));
+		obj.put("attempts", result.attempts());
+		if (result.error() != null) {
+			obj.put("message", result.error());
+		}
+		obj.put("changes", changes);
+		return obj;
+	}
+
+	private static List<ServicePropertyChange> changes(ObjectMapper objectMapper,
+			BulkResult<ServicePropertiesUpdate, Map<String, Object>> result) {
+		return CollectionUtils.diffServiceProperties(result.item().oldProperties(),
+				copy(objectMapper, result.result()));
+	}
+
+	private static String resultLabel(BulkResult<ServicePropertiesUpdate, Map<String, Object>> result,
+			List<ServicePropertyChange> changes, boolean dryRun) {
+		if (!result.isSuccess()) {
+			return "Failed";
+		} else if (changes.isEmpty()) {
+			return "Unchanged";
+		}
+		return (dryRun ? "Preview" : "Updated");
+	}
+
+	private static @Nullable Object displayValue(ObjectMapper objectMapper, @Nullable Object value) {
+		if (value instanceof Map<?, ?> || value instanceof Collection<?>) {
+			try {
+				return objectMapper.writeValueAsString(value);
+			} catch (JsonProcessingException e) {
+				// fall back to default display
+			}
+		}
+		return value;
+	}
+
+	/**
+	 * Make a deep copy of service properties, normalizing values to plain maps,
+	 * lists, and scalars so they can be compared.
+	 */
+	private static Map<String, Object> copy(ObjectMapper objectMapper, @Nullable Map<String, Object> props) {
+		if (props == null || props.isEmpty()) {
+			return new LinkedHashMap<>(8);
+		}
+		try {
+			return objectMapper.readValue(objectMapper.writeValueAsBytes(props), JsonUtils.STRING_MAP_TYPE);
+		} catch (IOException e) {
+			throw new IllegalStateException("Error copying service properties: " + e.getMessage(), e);
+		}
+	}
+
+}
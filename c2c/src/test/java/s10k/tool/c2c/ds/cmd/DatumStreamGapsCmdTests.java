@@ -0,0 +1,122 @@
+package s10k.tool.c2c.ds.cmd;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.BDDAssertions.then;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import net.solarnetwork.codec.JsonUtils;
+import s10k.tool.c2c.cmd.CloudIntegrationsCmd;
+import s10k.tool.common.cmd.ToolCmd;
+import s10k.tool.test.FakeSolarNetworkData;
+import s10k.tool.test.FakeSolarNetworkServer;
+import s10k.tool.test.ToolCommandFactory;
+
+/**
+ * Test cases for the {@link DatumStreamGapsCmd} class, run against a
+ * {@link FakeSolarNetworkServer}.
+ */
+public class DatumStreamGapsCmdTests {
+
+	private static final String DATUM_REQUEST = "GET /solarquery/api/v1/sec/datum/stream/datum";
+
+	@TempDir
+	private Path tmpDir;
+
+	private String userHome;
+	private PrintStream stdout;
+	private ByteArrayOutputStream out;
+	private ObjectMapper objectMapper;
+	private FakeSolarNetworkServer server;
+
+	@BeforeEach
+	public void setup() throws Exception {
+		// keep the configuration snapshots out of the real home directory
+		userHome = System.getProperty("user.home");
+		System.setProperty("user.home", tmpDir.toString());
+		stdout = System.out;
+		out = new ByteArrayOutputStream();
+		System.setOut(new PrintStream(out, true, UTF_8));
+		objectMapper = JsonUtils.newDatumObjectMapper();
+		server = new FakeSolarNetworkServer(2, 2);
+		server.start();
+	}
+
+	@AfterEach
+	public void teardown() {
+		server.close();
+		System.setOut(stdout);
+		System.setProperty("user.home", userHome);
+	}
+
+	private int execute(String... args) {
+		out.reset();
+		server.resetStats();
+		final var app = new ToolCmd("test", "secret");
+		return app.commandLine(new ToolCommandFactory(server.requestFactory(new SimpleClientHttpRequestFactory()),
+				objectMapper), new CloudIntegrationsCmd()).execute(args);
+	}
+
+	@Test
+	public void noDatumBeforeTaskStart() throws Exception {
+		// GIVEN
+		final FakeSolarNetworkData data = server.getData();
+
+		// WHEN
+		// the poll tasks start at the start of the data, so the range is clamped to the day before that
+		final int result = execute("c2c", "ds", "gaps", "-min", "2024-12-31", "-max", "2025-01-02", "-tz", "UTC",
+				"-mode", "JSON");
+
+		// THEN
+		then(result).as("Command succeeded").isZero();
+		final JsonNode gaps = objectMapper.readTree(out.toString(UTF_8));
+		then(gaps).as("One gap per datum stream source").hasSize(4);
+		then(gaps.findValuesAsText("sourceId")).as("Gap for every source").containsExactlyInAnyOrder(
+				data.sourceId(0), data.sourceId(1), data.sourceId(2), data.sourceId(3));
+		for (JsonNode gap : gaps) {
+			then(gap.path("startDate").asText()).as("Gap starts at range start").startsWith("2024-12-31");
+			then(gap.path("endDate").asText()).as("Gap ends at task start").startsWith("2025-01-01");
+		}
+		then(server.requests()).as("Datum queried for each datum stream").filteredOn(DATUM_REQUEST::equals)
+				.hasSize(2);
+	}
+
+	@Test
+	public void noGapsAfterTaskStart() throws Exception {
+		// WHEN
+		final int result = execute("c2c", "ds", "gaps", "-min", "2025-01-01", "-max", "2025-01-02", "-tz", "UTC",
+				"-mode", "JSON");
+
+		// THEN
+		then(result).as("Command succeeded").isZero();
+		then(out.toString(UTF_8)).as("No gaps output").isEmpty();
+		then(server.requests()).as("No datum expected after task start").filteredOn(DATUM_REQUEST::equals)
+				.isEmpty();
+	}
+
+	@Test
+	public void datumQueryFailure() throws Exception {
+		// GIVEN
+		server.setFailureFilter(DATUM_REQUEST::equals);
+
+		// WHEN
+		final int result = execute("c2c", "ds", "gaps", "-min", "2024-12-31", "-max", "2025-01-02", "-tz", "UTC",
+				"-mode", "JSON", "--retries", "0");
+
+		// THEN
+		then(result).as("Command failed").isOne();
+		then(out.toString(UTF_8)).as("No gaps output for failed streams").isEmpty();
+	}
+
+}
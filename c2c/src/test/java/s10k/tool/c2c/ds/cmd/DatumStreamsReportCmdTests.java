@@ -0,0 +1,116 @@
+package s10k.tool.c2c.ds.cmd;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.BDDAssertions.then;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import net.solarnetwork.codec.JsonUtils;
+import s10k.tool.c2c.cmd.CloudIntegrationsCmd;
+import s10k.tool.common.cmd.ToolCmd;
+import s10k.tool.test.FakeSolarNetworkServer;
+import s10k.tool.test.ToolCommandFactory;
+
+/**
+ * Test cases for the {@link DatumStreamsReportCmd} class, run against a
+ * {@link FakeSolarNetworkServer}.
+ */
+public class DatumStreamsReportCmdTests {
+
+	private static final String POLL_TASKS_REQUEST = "GET /solaruser/api/v1/sec/user/c2c/datum-stream-poll-tasks";
+
+	@TempDir
+	private Path tmpDir;
+
+	private String userHome;
+	private PrintStream stdout;
+	private ByteArrayOutputStream out;
+	private ObjectMapper objectMapper;
+	private FakeSolarNetworkServer server;
+
+	@BeforeEach
+	public void setup() throws Exception {
+		// keep the configuration snapshots out of the real home directory
+		userHome = System.getProperty("user.home");
+		System.setProperty("user.home", tmpDir.toString());
+		stdout = System.out;
+		out = new ByteArrayOutputStream();
+		System.setOut(new PrintStream(out, true, UTF_8));
+		objectMapper = JsonUtils.newDatumObjectMapper();
+		server = new FakeSolarNetworkServer(10, 1);
+		server.start();
+	}
+
+	@AfterEach
+	public void teardown() {
+		server.close();
+		System.setOut(stdout);
+		System.setProperty("user.home", userHome);
+	}
+
+	private int execute(String... args) {
+		out.reset();
+		server.resetStats();
+		final var app = new ToolCmd("test", "secret");
+		return app.commandLine(new ToolCommandFactory(server.requestFactory(new SimpleClientHttpRequestFactory()),
+				objectMapper), new CloudIntegrationsCmd()).execute(args);
+	}
+
+	private long pollTaskRequestCount() {
+		return server.requests().stream().filter(POLL_TASKS_REQUEST::equals).count();
+	}
+
+	@Test
+	public void watch_unchangedWarningsPrintedOnce() throws Exception {
+		// GIVEN
+		final FutureTask<Integer> result = new FutureTask<>(
+				() -> execute("c2c", "ds", "report", "--watch", "PT0.05S", "-mode", "CSV"));
+		final Thread thread = Thread.ofPlatform().name("report-watch").start(result);
+
+		// WHEN
+		final long deadline = System.currentTimeMillis() + 10_000L;
+		while (pollTaskRequestCount() < 4 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(20);
+		}
+		// interrupt until stopped, in case an interrupt lands in a request instead of the sleep
+		while (!result.isDone() && System.currentTimeMillis() < deadline) {
+			thread.interrupt();
+			Thread.sleep(20);
+		}
+
+		// THEN
+		then(result.get(1, TimeUnit.SECONDS)).as("Command stopped without error when interrupted").isZero();
+		then(pollTaskRequestCount()).as("Poll tasks refreshed on each interval").isGreaterThanOrEqualTo(4L);
+		final List<String> lines = out.toString(UTF_8).lines().toList();
+		then(lines).as("Output present").isNotEmpty();
+		then(lines.getFirst()).as("CSV header first").startsWith("Date,Change,");
+		then(lines).as("CSV header output once").filteredOn(l -> l.startsWith("Date,Change,")).hasSize(1);
+		final List<String> changes = lines.subList(1, lines.size());
+		then(changes).as("Initial warnings output").isNotEmpty().allMatch(l -> l.contains(",New,"));
+		then(changes.stream().map(l -> l.substring(l.indexOf(','))).toList())
+				.as("Unchanged warnings not output again").doesNotHaveDuplicates();
+	}
+
+	@Test
+	public void watch_invalidInterval() throws Exception {
+		// WHEN
+		final int result = execute("c2c", "ds", "report", "--watch", "PT0S", "-mode", "CSV");
+
+		// THEN
+		then(result).as("Command failed").isOne();
+	}
+
+}
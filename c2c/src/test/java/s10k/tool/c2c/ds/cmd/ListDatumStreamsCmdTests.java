@@ -0,0 +1,104 @@
+package s10k.tool.c2c.ds.cmd;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.BDDAssertions.then;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import net.solarnetwork.codec.JsonUtils;
+import s10k.tool.c2c.cmd.CloudIntegrationsCmd;
+import s10k.tool.common.cmd.ToolCmd;
+import s10k.tool.test.FakeSolarNetworkServer;
+import s10k.tool.test.ToolCommandFactory;
+
+/**
+ * Test cases for the {@link ListDatumStreamsCmd} class, run against a
+ * {@link FakeSolarNetworkServer}.
+ */
+public class ListDatumStreamsCmdTests {
+
+	private static final String LIST_REQUEST = "GET /solaruser/api/v1/sec/user/c2c/datum-streams";
+
+	private static final int STREAM_COUNT = 10;
+
+	@TempDir
+	private Path tmpDir;
+
+	private String userHome;
+	private PrintStream stdout;
+	private ByteArrayOutputStream out;
+	private ObjectMapper objectMapper;
+	private FakeSolarNetworkServer server;
+
+	@BeforeEach
+	public void setup() throws Exception {
+		// keep the configuration snapshots out of the real home directory
+		userHome = System.getProperty("user.home");
+		System.setProperty("user.home", tmpDir.toString());
+		stdout = System.out;
+		out = new ByteArrayOutputStream();
+		System.setOut(new PrintStream(out, true, UTF_8));
+		objectMapper = JsonUtils.newDatumObjectMapper();
+		server = new FakeSolarNetworkServer(STREAM_COUNT, 1);
+		server.start();
+	}
+
+	@AfterEach
+	public void teardown() {
+		server.close();
+		System.setOut(stdout);
+		System.setProperty("user.home", userHome);
+	}
+
+	private int execute(String... args) {
+		out.reset();
+		server.resetStats();
+		final var app = new ToolCmd("test", "secret");
+		return app.commandLine(new ToolCommandFactory(server.requestFactory(new SimpleClientHttpRequestFactory()),
+				objectMapper), new CloudIntegrationsCmd()).execute(args);
+	}
+
+	private long listRequestCount() {
+		return server.requests().stream().filter(LIST_REQUEST::equals).count();
+	}
+
+	@Test
+	public void list_notFromSnapshot() throws Exception {
+		// GIVEN
+		then(execute("c2c", "ds", "list", "-mode", "JSON")).as("First list succeeded").isZero();
+
+		// WHEN
+		final int result = execute("c2c", "ds", "list", "-mode", "JSON");
+
+		// THEN
+		then(result).as("Command succeeded").isZero();
+		then(listRequestCount()).as("List queried SolarNetwork directly").isOne();
+		then(objectMapper.readTree(out.toString(UTF_8))).as("All streams listed").hasSize(STREAM_COUNT);
+	}
+
+	@Test
+	public void list_fromSnapshot() throws Exception {
+		// GIVEN
+		then(execute("c2c", "ds", "list", "-mode", "JSON", "--snapshot")).as("First list succeeded").isZero();
+		then(listRequestCount()).as("Snapshot downloaded").isOne();
+
+		// WHEN
+		final int result = execute("c2c", "ds", "list", "-mode", "JSON", "--snapshot");
+
+		// THEN
+		then(result).as("Command succeeded").isZero();
+		then(listRequestCount()).as("List answered from snapshot").isZero();
+		then(objectMapper.readTree(out.toString(UTF_8))).as("All streams listed").hasSize(STREAM_COUNT);
+	}
+
+}
@@ -0,0 +1,143 @@
+package s10k.tool.c2c.ds.poll.cmd;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.BDDAssertions.then;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import net.solarnetwork.codec.JsonUtils;
+import s10k.tool.c2c.cmd.CloudIntegrationsCmd;
+import s10k.tool.common.cmd.ToolCmd;
+import s10k.tool.test.FakeSolarNetworkServer;
+import s10k.tool.test.ToolCommandFactory;
+
+/**
+ * Test cases for the poll task {@link ChangeStateCmd} class, run against a
+ * {@link FakeSolarNetworkServer}.
+ */
+public class ChangeStateCmdTests {
+
+	private static final String STATE_REQUEST = "POST /solaruser/api/v1/sec/user/c2c/datum-stream-poll-tasks/%d/state";
+
+	/** The number of datum streams, where only task 7 is already disabled. */
+	private static final int STREAM_COUNT = 10;
+
+	@TempDir
+	private Path tmpDir;
+
+	private String userHome;
+	private PrintStream stdout;
+	private ByteArrayOutputStream out;
+	private ObjectMapper objectMapper;
+	private FakeSolarNetworkServer server;
+
+	@BeforeEach
+	public void setup() throws Exception {
+		// keep the configuration snapshots out of the real home directory
+		userHome = System.getProperty("user.home");
+		System.setProperty("user.home", tmpDir.toString());
+		stdout = System.out;
+		out = new ByteArrayOutputStream();
+		System.setOut(new PrintStream(out, true, UTF_8));
+		objectMapper = JsonUtils.newDatumObjectMapper();
+		server = new FakeSolarNetworkServer(STREAM_COUNT, 1);
+		server.start();
+	}
+
+	@AfterEach
+	public void teardown() {
+		server.close();
+		System.setOut(stdout);
+		System.setProperty("user.home", userHome);
+	}
+
+	private int execute(String... args) {
+		out.reset();
+		server.resetStats();
+		final var app = new ToolCmd("test", "secret");
+		return app.commandLine(new ToolCommandFactory(server.requestFactory(new SimpleClientHttpRequestFactory()),
+				objectMapper), new CloudIntegrationsCmd()).execute(args);
+	}
+
+	private List<String> stateRequests() {
+		return server.requests().stream().filter(r -> r.startsWith("POST ") && r.endsWith("/state")).toList();
+	}
+
+	@Test
+	public void disableAll() throws Exception {
+		// WHEN
+		final int result = execute("c2c", "ds", "polls", "change-state", "-stream", "1,2,3,4,5,6,7,8,9,10",
+				"-mode", "JSON", "disabled");
+
+		// THEN
+		then(result).as("Command succeeded").isZero();
+		then(stateRequests()).as("State changed for each task not already disabled").hasSize(STREAM_COUNT - 1)
+				.doesNotContain(STATE_REQUEST.formatted(7)).contains(STATE_REQUEST.formatted(1))
+				.contains(STATE_REQUEST.formatted(STREAM_COUNT));
+		final JsonNode tasks = objectMapper.readTree(out.toString(UTF_8));
+		then(tasks).as("All tasks output").hasSize(STREAM_COUNT);
+		for (JsonNode task : tasks) {
+			then(task.path("state").textValue()).as("Task %s disabled", task.path("datumStreamId")).isEqualTo("c");
+		}
+	}
+
+	@Test
+	public void dryRun() throws Exception {
+		// WHEN
+		final int result = execute("-n", "c2c", "ds", "polls", "change-state", "-stream", "1,2,3", "-mode", "JSON",
+				"disabled");
+
+		// THEN
+		then(result).as("Command succeeded").isZero();
+		then(stateRequests()).as("No state changed in dry run mode").isEmpty();
+	}
+
+	@Test
+	public void retryServerError() throws Exception {
+		// GIVEN
+		final AtomicBoolean failed = new AtomicBoolean();
+		server.setFailureFilter(r -> r.equals(STATE_REQUEST.formatted(3)) && failed.compareAndSet(false, true));
+
+		// WHEN
+		final int result = execute("c2c", "ds", "polls", "change-state", "-stream", "1,2,3,4", "-mode", "JSON",
+				"--retries", "1", "disabled");
+
+		// THEN
+		then(result).as("Command succeeded after retry").isZero();
+		then(stateRequests()).as("Failed request retried")
+				.filteredOn(STATE_REQUEST.formatted(3)::equals).hasSize(2);
+	}
+
+	@Test
+	public void partialFailure() throws Exception {
+		// GIVEN
+		server.setFailureFilter(STATE_REQUEST.formatted(3)::equals);
+
+		// WHEN
+		final int result = execute("c2c", "ds", "polls", "change-state", "-stream", "1,2,3,4", "-mode", "JSON",
+				"--retries", "0", "disabled");
+
+		// THEN
+		then(result).as("Command failed").isOne();
+		then(stateRequests()).as("Remaining tasks still changed after failure").hasSize(4);
+		final JsonNode tasks = objectMapper.readTree(out.toString(UTF_8));
+		for (JsonNode task : tasks) {
+			then(task.path("state").textValue()).as("Task %s state", task.path("datumStreamId"))
+					.isEqualTo(task.path("datumStreamId").intValue() == 3 ? "q" : "c");
+		}
+	}
+
+}
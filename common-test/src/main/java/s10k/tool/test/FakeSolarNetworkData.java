@@ -0,0 +1,641 @@
+package s10k.tool.test;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.zip.GZIPOutputStream;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Deterministic SolarNetwork data for the {@link FakeSolarNetworkServer}.
+ *
+ * <p>
+ * All values are derived from the fleet size settings and a fixed seed, so the
+ * same request always produces the same response. The fleet is made up of
+ * {@code nodeCount} nodes with node IDs starting at {@link #FIRST_NODE_ID},
+ * each with {@code sourcesPerNode} sources posting datum every
+ * {@code datumInterval} milliseconds from {@link #START}. Every node also has
+ * one cloud integration datum stream with a poll task and a rake task.
+ * </p>
+ */
+public class FakeSolarNetworkData {
+
+	/** The seed used for all generated values. */
+	public static final long SEED = 20251017L;
+
+	/** The first node ID. */
+	public static final long FIRST_NODE_ID = 100L;
+
+	/** The user ID that owns all nodes. */
+	public static final long USER_ID = 1L;
+
+	/** The earliest datum date. */
+	public static final Instant START = Instant.parse("2025-01-01T00:00:00Z");
+
+	/** The default number of milliseconds between datum in a stream. */
+	public static final long DEFAULT_DATUM_INTERVAL = 60_000L;
+
+	/** The instantaneous datum property names. */
+	public static final List<String> INSTANTANEOUS = List.of("watts", "current", "voltage", "frequency",
+			"powerFactor", "temp");
+
+	/** The accumulating datum property names. */
+	public static final List<String> ACCUMULATING = List.of("wattHours", "wattHoursReverse");
+
+	/** The status datum property names. */
+	public static final List<String> STATUS = List.of("phase", "mode");
+
+	/** The date format used in SolarNetwork API responses. */
+	public static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter
+			.ofPattern("yyyy-MM-dd HH:mm:ss.SSS'Z'").withZone(ZoneOffset.UTC);
+
+	private static final String[] SOURCE_PREFIXES = { "/meter/", "/inv/", "/bat/", "/ws/" };
+
+	private static final String[] INTEGRATION_SERVICES = { "s10k.c2c.i9n.solaredge", "s10k.c2c.i9n.egauge",
+			"s10k.c2c.i9n.locus" };
+
+	private static final String[] DATUM_STREAM_SERVICES = { "s10k.c2c.ds.solaredge", "s10k.c2c.ds.egauge",
+			"s10k.c2c.ds.locus" };
+
+	private final int nodeCount;
+	private final int sourcesPerNode;
+	private final long datumInterval;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param nodeCount      the number of nodes
+	 * @param sourcesPerNode the number of sources per node
+	 * @param datumInterval  the number of milliseconds between datum in a stream
+	 */
+	public FakeSolarNetworkData(int nodeCount, int sourcesPerNode, long datumInterval) {
+		super();
+		this.nodeCount = nodeCount;
+		this.sourcesPerNode = sourcesPerNode;
+		this.datumInterval = datumInterval;
+	}
+
+	/**
+	 * Get the number of nodes.
+	 *
+	 * @return the node count
+	 */
+	public int getNodeCount() {
+		return nodeCount;
+	}
+
+	/**
+	 * Get the number of sources per node.
+	 *
+	 * @return the source count
+	 */
+	public int getSourcesPerNode() {
+		return sourcesPerNode;
+	}
+
+	/**
+	 * Get the number of milliseconds between datum in a stream.
+	 *
+	 * @return the interval
+	 */
+	public long getDatumInterval() {
+		return datumInterval;
+	}
+
+	/**
+	 * Get the total number of datum streams.
+	 *
+	 * @return the stream count
+	 */
+	public int streamCount() {
+		return nodeCount * sourcesPerNode;
+	}
+
+	/**
+	 * Test if a node ID is part of the fleet.
+	 *
+	 * @param nodeId the node ID
+	 * @return {@code true} if the node exists
+	 */
+	public boolean isNode(long nodeId) {
+		return nodeId >= FIRST_NODE_ID && nodeId < FIRST_NODE_ID + nodeCount;
+	}
+
+	/**
+	 * Get all node IDs.
+	 *
+	 * @return the node IDs
+	 */
+	public List<Long> nodeIds() {
+		List<Long> result = new ArrayList<>(nodeCount);
+		for (int i = 0; i < nodeCount; i++) {
+			result.add(FIRST_NODE_ID + i);
+		}
+		return result;
+	}
+
+	/**
+	 * Get the node ID of a stream.
+	 *
+	 * @param stream the stream index
+	 * @return the node ID
+	 */
+	public long nodeId(int stream) {
+		return FIRST_NODE_ID + stream / sourcesPerNode;
+	}
+
+	/**
+	 * Get the source ID of a stream.
+	 *
+	 * @param stream the stream index
+	 * @return the source ID
+	 */
+	public String sourceId(int stream) {
+		final int s = stream % sourcesPerNode;
+		return SOURCE_PREFIXES[s % SOURCE_PREFIXES.length] + (1 + s / SOURCE_PREFIXES.length);
+	}
+
+	/**
+	 * Get the stream ID of a stream.
+	 *
+	 * @param stream the stream index
+	 * @return the stream ID
+	 */
+	public static UUID streamId(int stream) {
+		return new UUID(SEED, stream);
+	}
+
+	/**
+	 * Find the streams matching a set of criteria.
+	 *
+	 * @param nodeIds   the node IDs to match, or {@code null} for all nodes
+	 * @param sourceIds the source IDs to match, or {@code null} for all sources
+	 * @param streamIds the stream IDs to match, or {@code null} for all streams
+	 * @return the matching stream indexes, in stream order
+	 */
+	public List<Integer> streams(Collection<Long> nodeIds, Collection<String> sourceIds,
+			Collection<UUID> streamIds) {
+		final List<Integer> result = new ArrayList<>();
+		for (int s = 0, len = streamCount(); s < len; s++) {
+			if ((nodeIds == null || nodeIds.contains(nodeId(s)))
+					&& (sourceIds == null || sourceIds.contains(sourceId(s)))
+					&& (streamIds == null || streamIds.contains(streamId(s)))) {
+				result.add(s);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Get the stream metadata for a stream.
+	 *
+	 * @param stream the stream index
+	 * @return the metadata, as returned by SolarQuery
+	 */
+	public Map<String, Object> streamMetadata(int stream) {
+		final Map<String, Object> result = new LinkedHashMap<>(8);
+		result.put("streamId", streamId(stream).toString());
+		result.put("zone", "Pacific/Auckland");
+		result.put("kind", "n");
+		result.put("objectId", nodeId(stream));
+		result.put("sourceId", sourceId(stream));
+		result.put("i", INSTANTANEOUS);
+		result.put("a", ACCUMULATING);
+		result.put("s", STATUS);
+		return result;
+	}
+
+	/**
+	 * Write a stream datum data row.
+	 *
+	 * <p>
+	 * If {@code endTs} is not negative an aggregate row is written, with
+	 * statistics for each instantaneous and accumulating property.
+	 * </p>
+	 *
+	 * @param g       the generator to write to
+	 * @param metaIdx the result metadata index of the stream
+	 * @param stream  the stream index
+	 * @param ts      the datum timestamp, in milliseconds
+	 * @param endTs   the aggregate end timestamp, or {@code -1} for a raw datum
+	 * @throws IOException if any IO error occurs
+	 */
+	public void writeStreamDatum(JsonGenerator g, int metaIdx, int stream, long ts, long endTs) throws IOException {
+		final boolean agg = endTs >= 0;
+		g.writeStartArray();
+		g.writeNumber(metaIdx);
+		if (agg) {
+			g.writeStartArray();
+			g.writeNumber(ts);
+			g.writeNumber(endTs);
+			g.writeEndArray();
+		} else {
+			g.writeNumber(ts);
+		}
+		final long hash = mix(SEED ^ (stream * 0x9E3779B97F4A7C15L) ^ ts);
+		for (int i = 0, len = INSTANTANEOUS.size(); i < len; i++) {
+			BigDecimal v = decimal(hash + i);
+			if (agg) {
+				g.writeStartArray();
+				g.writeNumber(v);
+				g.writeNumber(Math.max(1L, (endTs - ts) / datumInterval));
+				g.writeNumber(v.subtract(BigDecimal.TEN));
+				g.writeNumber(v.add(BigDecimal.TEN));
+				g.writeEndArray();
+			} else {
+				g.writeNumber(v);
+			}
+		}
+		for (int i = 0, len = ACCUMULATING.size(); i < len; i++) {
+			final long start = accumulatingValue(stream, i, ts);
+			if (agg) {
+				final long end = accumulatingValue(stream, i, endTs);
+				g.writeStartArray();
+				g.writeNumber(end - start);
+				g.writeNumber(start);
+				g.writeNumber(end);
+				g.writeEndArray();
+			} else {
+				g.writeNumber(start);
+			}
+		}
+		g.writeString((hash & 1) == 0 ? "A" : "B");
+		g.writeString((hash & 0xF0) == 0 ? "fault" : "ok");
+		g.writeEndArray();
+	}
+
+	private long accumulatingValue(int stream, int prop, long ts) {
+		return 1_000_000L * (prop + 1) + stream + ((ts - START.toEpochMilli()) / datumInterval) * 10L;
+	}
+
+	private static BigDecimal decimal(long hash) {
+		return BigDecimal.valueOf(Math.floorMod(mix(hash), 10_000_000L), 3);
+	}
+
+	/**
+	 * Mix the bits of a value, as a stateless pseudo-random function.
+	 *
+	 * @param z the value to mix
+	 * @return the mixed value
+	 */
+	private static long mix(long z) {
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+	/**
+	 * Format a date like the SolarNetwork API.
+	 *
+	 * @param date the date
+	 * @return the formatted date
+	 */
+	public static String date(Instant date) {
+		return DATE_FORMAT.format(date);
+	}
+
+	/**
+	 * Get the user nodes list.
+	 *
+	 * @return the node info list, as returned by SolarUser
+	 */
+	public List<Map<String, Object>> userNodes() {
+		final List<Map<String, Object>> result = new ArrayList<>(nodeCount);
+		for (Long nodeId : nodeIds()) {
+			final Map<String, Object> node = new LinkedHashMap<>(8);
+			node.put("id", nodeId);
+			node.put("created", date(START.minusSeconds(86_400L * (nodeId - FIRST_NODE_ID + 1))));
+			node.put("requiresAuthorization", nodeId % 2 == 0);
+			node.put("userId", USER_ID);
+			node.put("user", Map.of("id", USER_ID, "email", "fleet@example.com"));
+			node.put("nodeLocation", Map.of("id", nodeId, "country", "NZ", "timeZoneId", "Pacific/Auckland"));
+			result.add(node);
+		}
+		return result;
+	}
+
+	/**
+	 * Get the node metadata for a set of nodes.
+	 *
+	 * @param nodeIds the node IDs, or {@code null} for all nodes
+	 * @return the metadata list, as returned by SolarUser
+	 */
+	public List<Map<String, Object>> nodeMetadata(Collection<Long> nodeIds) {
+		final List<Map<String, Object>> result = new ArrayList<>(nodeCount);
+		for (Long nodeId : nodeIds()) {
+			if (nodeIds != null && !nodeIds.contains(nodeId)) {
+				continue;
+			}
+			final Map<String, Object> meta = new LinkedHashMap<>(8);
+			meta.put("nodeId", nodeId);
+			meta.put("created", date(START));
+			meta.put("updated", date(START));
+			meta.put("m", Map.of("name", "Node %d".formatted(nodeId), "capacity", 5000 + nodeId));
+			meta.put("pm", Map.of("config", Map.of("version", "1.%d".formatted(nodeId % 10))));
+			meta.put("t", List.of("fleet"));
+			result.add(meta);
+		}
+		return result;
+	}
+
+	/**
+	 * Get the cloud integrations.
+	 *
+	 * <p>
+	 * There is one integration for each supported service type.
+	 * </p>
+	 *
+	 * @return the integrations, as returned by SolarUser
+	 */
+	public List<Map<String, Object>> integrations() {
+		final List<Map<String, Object>> result = new ArrayList<>(INTEGRATION_SERVICES.length);
+		for (int i = 0; i < INTEGRATION_SERVICES.length; i++) {
+			final Map<String, Object> conf = new LinkedHashMap<>(8);
+			conf.put("userId", USER_ID);
+			conf.put("configId", i + 1L);
+			conf.put("created", date(START));
+			conf.put("modified", date(START));
+			conf.put("name", "Integration %d".formatted(i + 1));
+			conf.put("serviceIdentifier", INTEGRATION_SERVICES[i]);
+			conf.put("enabled", true);
+			conf.put("serviceProperties", Map.of("username", "fleet-%d".formatted(i + 1)));
+			result.add(conf);
+		}
+		return result;
+	}
+
+	/**
+	 * Get the cloud datum streams.
+	 *
+	 * @return the datum streams, as returned by SolarUser
+	 */
+	public List<Map<String, Object>> datumStreams() {
+		final List<Map<String, Object>> result = new ArrayList<>(nodeCount);
+		for (int i = 0; i < nodeCount; i++) {
+			result.add(datumStream(i + 1L));
+		}
+		return result;
+	}
+
+	/**
+	 * Get a cloud datum stream.
+	 *
+	 * @param datumStreamId the datum stream ID
+	 * @return the datum stream, or {@code null} if not found
+	 */
+	public Map<String, Object> datumStream(long datumStreamId) {
+		if (datumStreamId < 1 || datumStreamId > nodeCount) {
+			return null;
+		}
+		final int i = (int) (datumStreamId - 1);
+		final long nodeId = FIRST_NODE_ID + i;
+		final Map<String, Object> sourceIdMap = new LinkedHashMap<>(sourcesPerNode);
+		for (int s = 0; s < sourcesPerNode; s++) {
+			sourceIdMap.put("/%d/%d".formatted(nodeId, s), sourceId(i * sourcesPerNode + s));
+		}
+		final Map<String, Object> conf = new LinkedHashMap<>(12);
+		conf.put("userId", USER_ID);
+		conf.put("configId", datumStreamId);
+		conf.put("created", date(START));
+		conf.put("modified", date(START));
+		conf.put("name", "Datum Stream %d".formatted(datumStreamId));
+		conf.put("serviceIdentifier", DATUM_STREAM_SERVICES[i % DATUM_STREAM_SERVICES.length]);
+		conf.put("enabled", true);
+		conf.put("datumStreamMappingId", datumStreamId);
+		conf.put("schedule", "0 0/5 * * * *");
+		conf.put("kind", "n");
+		conf.put("objectId", nodeId);
+		conf.put("sourceId", "/c2c/%d".formatted(nodeId));
+		conf.put("serviceProperties", Map.of("sourceIdMap", sourceIdMap));
+		return conf;
+	}
+
+	/**
+	 * Get a cloud datum stream mapping.
+	 *
+	 * @param mappingId the mapping ID
+	 * @return the mapping, or {@code null} if not found
+	 */
+	public Map<String, Object> datumStreamMapping(long mappingId) {
+		if (mappingId < 1 || mappingId > nodeCount) {
+			return null;
+		}
+		final Map<String, Object> conf = new LinkedHashMap<>(8);
+		conf.put("userId", USER_ID);
+		conf.put("configId", mappingId);
+		conf.put("created", date(START));
+		conf.put("modified", date(START));
+		conf.put("name", "Mapping %d".formatted(mappingId));
+		conf.put("integrationId", 1 + (mappingId - 1) % INTEGRATION_SERVICES.length);
+		return conf;
+	}
+
+	/**
+	 * Get the properties of a cloud datum stream mapping.
+	 *
+	 * @param mappingId the mapping ID
+	 * @return the properties
+	 */
+	public List<Map<String, Object>> datumStreamMappingProperties(long mappingId) {
+		final List<Map<String, Object>> result = new ArrayList<>(INSTANTANEOUS.size() + ACCUMULATING.size());
+		final List<String> names = new ArrayList<>(INSTANTANEOUS);
+		names.addAll(ACCUMULATING);
+		for (int i = 0; i < names.size(); i++) {
+			final Map<String, Object> prop = new LinkedHashMap<>(10);
+			prop.put("userId", USER_ID);
+			prop.put("datumStreamMappingId", mappingId);
+			prop.put("index", i);
+			prop.put("created", date(START));
+			prop.put("modified", date(START));
+			prop.put("enabled", true);
+			prop.put("propertyType", i < INSTANTANEOUS.size() ? "i" : "a");
+			prop.put("propertyName", names.get(i));
+			prop.put("valueType", "r");
+			prop.put("valueReference", "/{siteId}/{componentId}/%s".formatted(names.get(i)));
+			result.add(prop);
+		}
+		return result;
+	}
+
+	/**
+	 * Get the cloud datum stream poll tasks.
+	 *
+	 * @return the tasks, one for each datum stream
+	 */
+	public List<Map<String, Object>> pollTasks() {
+		final List<Map<String, Object>> result = new ArrayList<>(nodeCount);
+		for (int i = 0; i < nodeCount; i++) {
+			result.add(pollTask(i + 1L));
+		}
+		return result;
+	}
+
+	/**
+	 * Get a cloud datum stream poll task.
+	 *
+	 * @param datumStreamId the datum stream ID
+	 * @return the task, or {@code null} if not found
+	 */
+	public Map<String, Object> pollTask(long datumStreamId) {
+		if (datumStreamId < 1 || datumStreamId > nodeCount) {
+			return null;
+		}
+		final Map<String, Object> task = new LinkedHashMap<>(8);
+		task.put("userId", USER_ID);
+		task.put("datumStreamId", datumStreamId);
+		task.put("state", datumStreamId % 7 == 0 ? "c" : "q");
+		task.put("executeAt", date(START.plusSeconds(300L * datumStreamId)));
+		task.put("startAt", date(START));
+		task.put("message", datumStreamId % 7 == 0 ? "Authentication failed." : null);
+		task.put("serviceProperties", Map.of("errorCount", (int) (datumStreamId % 7 == 0 ? 3 : 0)));
+		return task;
+	}
+
+	/**
+	 * Get the cloud datum stream rake tasks.
+	 *
+	 * @return the tasks, one for each datum stream
+	 */
+	public List<Map<String, Object>> rakeTasks() {
+		final List<Map<String, Object>> result = new ArrayList<>(nodeCount);
+		for (int i = 0; i < nodeCount; i++) {
+			result.add(rakeTask(i + 1L));
+		}
+		return result;
+	}
+
+	/**
+	 * Get a cloud datum stream rake task.
+	 *
+	 * @param taskId the task ID, which is the same as the datum stream ID
+	 * @return the task, or {@code null} if not found
+	 */
+	public Map<String, Object> rakeTask(long taskId) {
+		if (taskId < 1 || taskId > nodeCount) {
+			return null;
+		}
+		final Map<String, Object> task = new LinkedHashMap<>(8);
+		task.put("userId", USER_ID);
+		task.put("configId", taskId);
+		task.put("datumStreamId", taskId);
+		task.put("state", "q");
+		task.put("executeAt", date(START.plusSeconds(86_400L)));
+		task.put("offset", "P1D");
+		task.put("message", null);
+		task.put("serviceProperties", Map.of());
+		return task;
+	}
+
+	/**
+	 * Get the instructions for a set of nodes.
+	 *
+	 * <p>
+	 * Each node has {@code count} completed instructions.
+	 * </p>
+	 *
+	 * @param nodeIds the node IDs, or {@code null} for all nodes
+	 * @param count   the number of instructions per node
+	 * @return the instructions, as returned by SolarUser
+	 */
+	public List<Map<String, Object>> instructions(Collection<Long> nodeIds, int count) {
+		final List<Map<String, Object>> result = new ArrayList<>();
+		for (Long nodeId : nodeIds()) {
+			if (nodeIds != null && !nodeIds.contains(nodeId)) {
+				continue;
+			}
+			for (int i = 0; i < count; i++) {
+				final long id = (nodeId - FIRST_NODE_ID) * count + i + 1;
+				result.add(instruction(id, nodeId, "Signal", Map.of("signal", "ping"), Map.of("message", "OK")));
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Get an instruction.
+	 *
+	 * @param id      the instruction ID
+	 * @param nodeId  the node ID
+	 * @param topic   the topic
+	 * @param params  the instruction parameters
+	 * @param results the result parameters
+	 * @return the instruction, as returned by SolarUser
+	 */
+	public Map<String, Object> instruction(long id, long nodeId, String topic, Map<String, ?> params,
+			Map<String, ?> results) {
+		final Instant date = START.plusSeconds(id);
+		final List<Map<String, Object>> paramList = new ArrayList<>(params.size());
+		for (Map.Entry<String, ?> e : params.entrySet()) {
+			paramList.add(Map.of("name", e.getKey(), "value", e.getValue()));
+		}
+		final Map<String, Object> instr = new LinkedHashMap<>(12);
+		instr.put("id", id);
+		instr.put("instructionId", id);
+		instr.put("created", date(date));
+		instr.put("nodeId", nodeId);
+		instr.put("topic", topic);
+		instr.put("instructionDate", date(date));
+		instr.put("state", "Completed");
+		instr.put("statusDate", date(date.plusSeconds(1)));
+		instr.put("parameters", paramList);
+		instr.put("resultParameters", results);
+		return instr;
+	}
+
+	/**
+	 * Generate the result parameters for an executed instruction.
+	 *
+	 * <p>
+	 * For the {@code SystemConfiguration} topic a list of {@code serviceCount}
+	 * services is returned in a {@code result} parameter, compressed if the
+	 * {@code compress} parameter is {@code true}. All other topics return a
+	 * simple message.
+	 * </p>
+	 *
+	 * @param objectMapper the mapper to encode JSON with
+	 * @param topic        the instruction topic
+	 * @param params       the instruction parameters
+	 * @param serviceCount the number of services to return for service listings
+	 * @return the result parameters
+	 */
+	public static Map<String, ?> instructionResult(ObjectMapper objectMapper, String topic, Map<String, ?> params,
+			int serviceCount) {
+		if (!"SystemConfiguration".equals(topic)) {
+			return Map.of("message", "OK");
+		}
+		final List<Map<String, Object>> services = new ArrayList<>(serviceCount);
+		for (int i = 0; i < serviceCount; i++) {
+			services.add(Map.of("id", "net.solarnetwork.node.service.%d".formatted(i), "title",
+					"Service %d component".formatted(i)));
+		}
+		try {
+			final byte[] json = objectMapper.writeValueAsBytes(services);
+			if (!"true".equals(String.valueOf(params.get("compress")))) {
+				return Map.of("result", new String(json, UTF_8));
+			}
+			final ByteArrayOutputStream byos = new ByteArrayOutputStream(json.length / 4);
+			try (GZIPOutputStream out = new GZIPOutputStream(byos)) {
+				out.write(json);
+			}
+			return Map.of("result", Base64.getEncoder().encodeToString(byos.toByteArray()));
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+}
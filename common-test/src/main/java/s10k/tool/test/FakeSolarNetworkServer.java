@@ -0,0 +1,711 @@
+package s10k.tool.test;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.Closeable;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.MissingNode;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * An embeddable stand-in for the SolarQuery and SolarUser APIs.
+ *
+ * <p>
+ * This server responds to the API endpoints used by the tool with
+ * deterministic data from a {@link FakeSolarNetworkData} fleet, encoded as
+ * JSON or, when the request accepts {@code application/cbor}, as CBOR.
+ * Requests are not authenticated, and requests that modify data are
+ * acknowledged but not persisted. A fixed latency can be added to every
+ * response, and a page size can be configured to limit the number of results
+ * returned by list endpoints.
+ * </p>
+ *
+ * <p>
+ * Use {@link #requestFactory(ClientHttpRequestFactory)} to direct tool
+ * requests to this server, and {@link #stats()} to get the number of requests
+ * and bytes served. Every request is logged, for {@link #requests()}, and a
+ * {@link #setFailureFilter(Predicate) failure filter} can be configured to
+ * respond to matching requests with an error.
+ * </p>
+ */
+public class FakeSolarNetworkServer implements Closeable {
+
+	/** The CBOR content type. */
+	public static final String CBOR_CONTENT_TYPE = "application/cbor";
+
+	/** The JSON content type. */
+	public static final String JSON_CONTENT_TYPE = "application/json;charset=UTF-8";
+
+	/** The default number of instructions returned for each node. */
+	public static final int DEFAULT_INSTRUCTIONS_PER_NODE = 10;
+
+	/** The default number of services returned by a service listing. */
+	public static final int DEFAULT_SERVICE_COUNT = 50;
+
+	private static final Pattern STREAM_DATUM = Pattern.compile("/solarquery/api/v1/sec/datum/stream/(datum|reading)");
+	private static final Pattern STREAM_META = Pattern.compile("/solarquery/api/v1/sec/datum/stream/meta/node");
+	private static final Pattern INTEGRATION = Pattern.compile("/solaruser/api/v1/sec/user/c2c/integrations/(\\d+)");
+	private static final Pattern DATUM_STREAM = Pattern.compile("/solaruser/api/v1/sec/user/c2c/datum-streams/(\\d+)");
+	private static final Pattern MAPPING = Pattern
+			.compile("/solaruser/api/v1/sec/user/c2c/datum-stream-mappings/(\\d+)(/properties)?");
+	private static final Pattern POLL_TASK = Pattern
+			.compile("/solaruser/api/v1/sec/user/c2c/datum-stream-poll-tasks/(\\d+)(/state)?");
+	private static final Pattern RAKE_TASK = Pattern
+			.compile("/solaruser/api/v1/sec/user/c2c/datum-stream-rake-tasks/(\\d+)(/state)?");
+	private static final Pattern INSTRUCTION_EXEC = Pattern.compile("/solaruser/api/v1/sec/instr/(exec|add)/(\\w+)");
+
+	private final FakeSolarNetworkData data;
+	private final ObjectMapper jsonMapper;
+	private final ObjectMapper cborMapper;
+	private final AtomicLong requestCount = new AtomicLong();
+	private final AtomicLong bytesSent = new AtomicLong();
+	private final AtomicLong instructionId = new AtomicLong(1_000_000L);
+	private final List<String> requests = new CopyOnWriteArrayList<>();
+
+	private Duration latency = Duration.ZERO;
+	private int pageSize = 0;
+	private int instructionsPerNode = DEFAULT_INSTRUCTIONS_PER_NODE;
+	private int serviceCount = DEFAULT_SERVICE_COUNT;
+	private volatile Predicate<String> failureFilter;
+
+	private HttpServer server;
+	private ExecutorService executor;
+
+	/**
+	 * The request statistics of a server.
+	 *
+	 * @param requestCount the number of requests handled
+	 * @param bytesSent    the number of response body bytes sent
+	 */
+	public static record Stats(long requestCount, long bytesSent) {
+
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param nodeCount      the number of nodes in the fleet
+	 * @param sourcesPerNode the number of sources per node
+	 */
+	public FakeSolarNetworkServer(int nodeCount, int sourcesPerNode) {
+		this(new FakeSolarNetworkData(nodeCount, sourcesPerNode, FakeSolarNetworkData.DEFAULT_DATUM_INTERVAL));
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param data the data to serve
+	 */
+	public FakeSolarNetworkServer(FakeSolarNetworkData data) {
+		super();
+		this.data = data;
+		this.jsonMapper = new ObjectMapper();
+		this.cborMapper = new ObjectMapper(new CBORFactory());
+	}
+
+	/**
+	 * Start the server, listening on a free port of the loopback address.
+	 *
+	 * @throws IOException if the server cannot be started
+	 */
+	public synchronized void start() throws IOException {
+		if (server != null) {
+			return;
+		}
+		executor = Executors.newVirtualThreadPerTaskExecutor();
+		server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+		server.setExecutor(executor);
+		server.createContext("/", this::handle);
+		server.start();
+	}
+
+	@Override
+	public synchronized void close() {
+		if (server != null) {
+			server.stop(0);
+			server = null;
+		}
+		if (executor != null) {
+			executor.shutdownNow();
+			executor = null;
+		}
+	}
+
+	/**
+	 * Get the base URL of the server.
+	 *
+	 * @return the base URL
+	 * @throws IllegalStateException if the server has not been started
+	 */
+	public synchronized URI getBaseUrl() {
+		if (server == null) {
+			throw new IllegalStateException("Server not started.");
+		}
+		return URI.create("http://%s:%d".formatted(server.getAddress().getHostString(),
+				server.getAddress().getPort()));
+	}
+
+	/**
+	 * Create a request factory that sends all requests to this server.
+	 *
+	 * <p>
+	 * The scheme, host, and port of every request URI are replaced with those of
+	 * this server, and the request is then created by {@code delegate}.
+	 * </p>
+	 *
+	 * @param delegate the request factory to create requests with
+	 * @return the request factory
+	 */
+	public ClientHttpRequestFactory requestFactory(ClientHttpRequestFactory delegate) {
+		return new ClientHttpRequestFactory() {
+
+			@Override
+			public ClientHttpRequest createRequest(URI uri, HttpMethod httpMethod) throws IOException {
+				final URI base = getBaseUrl();
+				// @formatter:off
+				final URI local = UriComponentsBuilder.fromUri(uri)
+						.scheme(base.getScheme())
+						.host(base.getHost())
+						.port(base.getPort())
+						.build(true)
+						.toUri();
+				// @formatter:on
+				return delegate.createRequest(local, httpMethod);
+			}
+
+		};
+	}
+
+	/**
+	 * Get the request statistics.
+	 *
+	 * @return the statistics
+	 */
+	public Stats stats() {
+		return new Stats(requestCount.get(), bytesSent.get());
+	}
+
+	/**
+	 * Reset the request statistics and log.
+	 */
+	public void resetStats() {
+		requestCount.set(0);
+		bytesSent.set(0);
+		requests.clear();
+	}
+
+	/**
+	 * Get the log of handled requests.
+	 *
+	 * <p>
+	 * Each request is logged as its method and raw path, separated by a space,
+	 * for example {@code GET /solarquery/api/v1/sec/nodes}.
+	 * </p>
+	 *
+	 * @return the logged requests, in the order they were received
+	 */
+	public List<String> requests() {
+		return List.copyOf(requests);
+	}
+
+	private void handle(HttpExchange exchange) throws IOException {
+		try (exchange) {
+			requestCount.incrementAndGet();
+			final String request = exchange.getRequestMethod() + " " + exchange.getRequestURI().getRawPath();
+			requests.add(request);
+			if (latency.isPositive()) {
+				try {
+					Thread.sleep(latency);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+			}
+			final Predicate<String> failures = failureFilter;
+			if (failures != null && failures.test(request)) {
+				sendError(exchange, 503, "Service unavailable.");
+				return;
+			}
+			final String path = exchange.getRequestURI().getRawPath();
+			final Map<String, String> params = queryParameters(exchange.getRequestURI().getRawQuery());
+			final String method = exchange.getRequestMethod();
+			final String accept = exchange.getRequestHeaders().getFirst("Accept");
+			final boolean cbor = accept != null && accept.contains(CBOR_CONTENT_TYPE);
+			if (accept != null && accept.contains("text/csv") && !accept.contains("json")) {
+				sendError(exchange, 406, "CSV responses are not supported.");
+				return;
+			}
+
+			try {
+				route(exchange, path, params, method, cbor);
+			} catch (RuntimeException e) {
+				if (exchange.getResponseCode() < 0) {
+					sendError(exchange, 400, String.valueOf(e.getMessage()));
+				}
+			}
+		}
+	}
+
+	private void route(HttpExchange exchange, String path, Map<String, String> params, String method, boolean cbor)
+			throws IOException {
+		Matcher m;
+		if ((m = STREAM_DATUM.matcher(path)).matches()) {
+			streamDatum(exchange, params, "reading".equals(m.group(1)), cbor);
+		} else if (STREAM_META.matcher(path).matches()) {
+			final List<Map<String, Object>> result = new ArrayList<>();
+			for (int s : matchingStreams(params)) {
+				result.add(data.streamMetadata(s));
+			}
+			sendData(exchange, result, cbor);
+		} else if (path.equals("/solarquery/api/v1/sec/whoami")) {
+			sendData(exchange, Map.of("token", "test", "tokenType", "ReadNodeData"), cbor);
+		} else if (path.equals("/solarquery/api/v1/sec/nodes")) {
+			sendData(exchange, data.nodeIds(), cbor);
+		} else if (path.equals("/solarquery/api/v1/sec/nodes/sources")) {
+			final List<Map<String, Object>> result = new ArrayList<>();
+			for (int s : matchingStreams(params)) {
+				result.add(Map.of("nodeId", data.nodeId(s), "sourceId", data.sourceId(s)));
+			}
+			sendData(exchange, result, cbor);
+		} else if (path.equals("/solaruser/api/v1/sec/nodes")) {
+			sendResults(exchange, data.userNodes(), params, cbor);
+		} else if (path.startsWith("/solaruser/api/v1/sec/nodes/meta")) {
+			List<Long> nodeIds = longs(params.get("nodeIds"));
+			if (nodeIds == null && path.matches(".*/meta/\\d+")) {
+				nodeIds = List.of(Long.valueOf(path.substring(path.lastIndexOf('/') + 1)));
+			}
+			sendResults(exchange, data.nodeMetadata(nodeIds), params, cbor);
+		} else if (path.equals("/solaruser/api/v1/sec/user/c2c/integrations")) {
+			sendResults(exchange, data.integrations(), params, cbor);
+		} else if ((m = INTEGRATION.matcher(path)).matches()) {
+			final int idx = Integer.parseInt(m.group(1)) - 1;
+			final List<Map<String, Object>> all = data.integrations();
+			sendEntity(exchange, idx >= 0 && idx < all.size() ? all.get(idx) : null, cbor);
+		} else if (path.equals("/solaruser/api/v1/sec/user/c2c/datum-streams")) {
+			sendResults(exchange, data.datumStreams(), params, cbor);
+		} else if ((m = DATUM_STREAM.matcher(path)).matches()) {
+			sendEntity(exchange, data.datumStream(Long.parseLong(m.group(1))), cbor);
+		} else if ((m = MAPPING.matcher(path)).matches()) {
+			final long id = Long.parseLong(m.group(1));
+			if (m.group(2) != null) {
+				sendResults(exchange, data.datumStreamMappingProperties(id), params, cbor);
+			} else {
+				sendEntity(exchange, data.datumStreamMapping(id), cbor);
+			}
+		} else if (path.equals("/solaruser/api/v1/sec/user/c2c/datum-stream-poll-tasks")) {
+			sendResults(exchange, filterByDatumStream(data.pollTasks(), params), params, cbor);
+		} else if ((m = POLL_TASK.matcher(path)).matches()) {
+			sendEntity(exchange, withState(exchange, data.pollTask(Long.parseLong(m.group(1)))), cbor);
+		} else if (path.equals("/solaruser/api/v1/sec/user/c2c/datum-stream-rake-tasks")) {
+			sendResults(exchange, filterByDatumStream(data.rakeTasks(), params), params, cbor);
+		} else if ((m = RAKE_TASK.matcher(path)).matches()) {
+			sendEntity(exchange, withState(exchange, data.rakeTask(Long.parseLong(m.group(1)))), cbor);
+		} else if (path.equals("/solaruser/api/v1/sec/instr") && "GET".equals(method)) {
+			sendData(exchange, data.instructions(longs(params.get("nodeIds")), instructionsPerNode), cbor);
+		} else if ((m = INSTRUCTION_EXEC.matcher(path)).matches()) {
+			executeInstruction(exchange, m.group(2), cbor);
+		} else if (!"GET".equals(method)) {
+			exchange.getRequestBody().transferTo(OutputStream.nullOutputStream());
+			sendData(exchange, null, cbor);
+		} else {
+			sendError(exchange, 404, "Not found.");
+		}
+	}
+
+	private List<Integer> matchingStreams(Map<String, String> params) {
+		final String streamIds = params.get("streamIds");
+		// @formatter:off
+		return data.streams(
+				longs(params.getOrDefault("nodeIds", params.get("nodeId"))),
+				strings(params.getOrDefault("sourceIds", params.get("sourceId"))),
+				streamIds != null ? strings(streamIds).stream().map(UUID::fromString).toList() : null);
+		// @formatter:on
+	}
+
+	private void streamDatum(HttpExchange exchange, Map<String, String> params, boolean reading, boolean cbor)
+			throws IOException {
+		final List<Integer> streams = matchingStreams(params);
+		final String aggregation = params.get("aggregation");
+		final boolean agg = reading || (aggregation != null && !"None".equals(aggregation));
+		final long interval = (aggregation != null ? aggregationInterval(aggregation) : data.getDatumInterval());
+		final long origin = FakeSolarNetworkData.START.toEpochMilli();
+
+		Instant start = date(params.getOrDefault("startDate", params.get("localStartDate")));
+		Instant end = date(params.getOrDefault("endDate", params.get("localEndDate")));
+		if (start == null || start.toEpochMilli() < origin) {
+			start = FakeSolarNetworkData.START;
+		}
+		if (end == null) {
+			end = start.plus(Duration.ofDays(1));
+		}
+		long first = Math.ceilDiv(start.toEpochMilli() - origin, interval);
+		long steps = Math.max(0L, Math.ceilDiv(end.toEpochMilli() - origin, interval) - first);
+		final boolean readingRecord = reading && (aggregation == null || "None".equals(aggregation));
+		if (readingRecord || Boolean.parseBoolean(params.get("mostRecent"))) {
+			if (!readingRecord) {
+				first = first + steps - 1;
+			}
+			steps = Math.min(steps, 1L);
+		}
+
+		final long total = streams.size() * steps;
+		final long offset = Math.min(total, parseLong(params.get("offset"), 0L));
+		final long count = Math.min(total - offset, limit(params, total));
+
+		// collect the metadata for the streams in the page
+		final List<Integer> pageStreams = new ArrayList<>();
+		if (count > 0) {
+			for (long i = offset / steps, last = (offset + count - 1) / steps; i <= last; i++) {
+				pageStreams.add(streams.get((int) i));
+			}
+		}
+
+		final OutputStream out = responseStream(exchange, 200, cbor ? CBOR_CONTENT_TYPE : JSON_CONTENT_TYPE);
+		try (JsonGenerator g = (cbor ? cborMapper : jsonMapper).getFactory().createGenerator(out,
+				JsonEncoding.UTF8)) {
+			g.writeStartObject();
+			g.writeBooleanField("success", true);
+			g.writeNumberField("totalResults", total);
+			g.writeNumberField("startingOffset", offset);
+			g.writeNumberField("returnedResultCount", count);
+			g.writeArrayFieldStart("meta");
+			for (int s : pageStreams) {
+				g.writeObject(data.streamMetadata(s));
+			}
+			g.writeEndArray();
+			g.writeArrayFieldStart("data");
+			final long firstStream = (count > 0 ? offset / steps : 0);
+			for (long i = offset, last = offset + count; i < last; i++) {
+				final int metaIdx = (int) (i / steps - firstStream);
+				final long ts;
+				final long endTs;
+				if (readingRecord) {
+					ts = start.toEpochMilli();
+					endTs = end.toEpochMilli();
+				} else {
+					ts = origin + (first + i % steps) * interval;
+					endTs = (agg ? ts + interval : -1L);
+				}
+				data.writeStreamDatum(g, metaIdx, pageStreams.get(metaIdx), ts, endTs);
+			}
+			g.writeEndArray();
+			g.writeEndObject();
+		}
+	}
+
+	private long aggregationInterval(String aggregation) {
+		// @formatter:off
+		return switch (aggregation) {
+		case "Minute" -> 60_000L;
+		case "FiveMinute" -> 300_000L;
+		case "TenMinute" -> 600_000L;
+		case "FifteenMinute" -> 900_000L;
+		case "ThirtyMinute" -> 1_800_000L;
+		case "Hour" -> 3_600_000L;
+		case "Day" -> 86_400_000L;
+		case "Week" -> 7 * 86_400_000L;
+		case "Month" -> 30 * 86_400_000L;
+		case "Year" -> 365 * 86_400_000L;
+		default -> data.getDatumInterval();
+		};
+		// @formatter:on
+	}
+
+	private void executeInstruction(HttpExchange exchange, String topic, boolean cbor) throws IOException {
+		final JsonNode body = readTree(exchange);
+		final long nodeId = body.path("nodeId").asLong(FakeSolarNetworkData.FIRST_NODE_ID);
+		final Map<String, Object> params = new LinkedHashMap<>(4);
+		final JsonNode paramsNode = body.path("params");
+		for (Map.Entry<String, JsonNode> e : paramsNode.properties()) {
+			final JsonNode val = e.getValue();
+			params.put(e.getKey(), val.isArray() && !val.isEmpty() ? val.get(0).asText() : val.asText());
+		}
+		for (JsonNode param : body.path("parameters")) {
+			params.put(param.path("name").asText(), param.path("value").asText());
+		}
+		final Map<String, ?> result = FakeSolarNetworkData.instructionResult(jsonMapper, topic, params,
+				serviceCount);
+		sendData(exchange, data.instruction(instructionId.incrementAndGet(), nodeId, topic, params, result), cbor);
+	}
+
+	private Map<String, Object> withState(HttpExchange exchange, Map<String, Object> entity) throws IOException {
+		final JsonNode body = ("POST".equals(exchange.getRequestMethod()) ? readTree(exchange)
+				: MissingNode.getInstance());
+		if (entity != null && body.path("state").isTextual()) {
+			entity.put("state", body.path("state").textValue());
+		}
+		return entity;
+	}
+
+	private JsonNode readTree(HttpExchange exchange) throws IOException {
+		return Objects.requireNonNullElse(jsonMapper.readTree(exchange.getRequestBody()), MissingNode.getInstance());
+	}
+
+	private static List<Map<String, Object>> filterByDatumStream(List<Map<String, Object>> list,
+			Map<String, String> params) {
+		final List<Long> ids = longs(params.getOrDefault("datumStreamIds", params.get("datumStreamId")));
+		if (ids == null) {
+			return list;
+		}
+		return list.stream().filter(e -> ids.contains(e.get("datumStreamId"))).toList();
+	}
+
+	private long limit(Map<String, String> params, long total) {
+		long limit = parseLong(params.get("max"), total);
+		if (pageSize > 0) {
+			limit = Math.min(limit, pageSize);
+		}
+		return Math.max(0L, limit);
+	}
+
+	private void sendResults(HttpExchange exchange, List<? extends Map<String, ?>> list, Map<String, String> params,
+			boolean cbor) throws IOException {
+		final int total = list.size();
+		final int offset = (int) Math.min(total, parseLong(params.get("offset"), 0L));
+		final int count = (int) Math.min(total - offset, limit(params, total));
+		final Map<String, Object> page = new LinkedHashMap<>(4);
+		page.put("totalResults", total);
+		page.put("startingOffset", offset);
+		page.put("returnedResultCount", count);
+		page.put("results", list.subList(offset, offset + count));
+		sendData(exchange, page, cbor);
+	}
+
+	private void sendEntity(HttpExchange exchange, Map<String, ?> entity, boolean cbor) throws IOException {
+		if (entity == null) {
+			sendError(exchange, 404, "Not found.");
+		} else {
+			sendData(exchange, entity, cbor);
+		}
+	}
+
+	private void sendData(HttpExchange exchange, Object data, boolean cbor) throws IOException {
+		final Map<String, Object> body = new LinkedHashMap<>(2);
+		body.put("success", true);
+		body.put("data", data);
+		final OutputStream out = responseStream(exchange, 200, cbor ? CBOR_CONTENT_TYPE : JSON_CONTENT_TYPE);
+		(cbor ? cborMapper : jsonMapper).writeValue(out, body);
+	}
+
+	private void sendError(HttpExchange exchange, int status, String message) throws IOException {
+		final OutputStream out = responseStream(exchange, status, JSON_CONTENT_TYPE);
+		jsonMapper.writeValue(out, Map.of("success", false, "message", message));
+	}
+
+	private OutputStream responseStream(HttpExchange exchange, int status, String contentType) throws IOException {
+		exchange.getResponseHeaders().set("Content-Type", contentType);
+		exchange.sendResponseHeaders(status, 0);
+		return new FilterOutputStream(exchange.getResponseBody()) {
+
+			@Override
+			public void write(int b) throws IOException {
+				out.write(b);
+				bytesSent.incrementAndGet();
+			}
+
+			@Override
+			public void write(byte[] b, int off, int len) throws IOException {
+				out.write(b, off, len);
+				bytesSent.addAndGet(len);
+			}
+
+		};
+	}
+
+	private static Map<String, String> queryParameters(String rawQuery) {
+		if (rawQuery == null || rawQuery.isEmpty()) {
+			return Map.of();
+		}
+		final Map<String, String> result = new LinkedHashMap<>(8);
+		for (String pair : rawQuery.split("&")) {
+			final int eq = pair.indexOf('=');
+			final String key = URLDecoder.decode(eq < 0 ? pair : pair.substring(0, eq), UTF_8);
+			final String val = (eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), UTF_8));
+			// join repeated parameters like a comma-delimited list
+			result.merge(key, val, (a, b) -> a + "," + b);
+		}
+		return result;
+	}
+
+	private static List<String> strings(String value) {
+		if (value == null || value.isBlank()) {
+			return null;
+		}
+		return Arrays.stream(value.split("\\s*,\\s*")).filter(s -> !s.isEmpty()).toList();
+	}
+
+	private static List<Long> longs(String value) {
+		final List<String> list = strings(value);
+		return (list != null ? list.stream().map(Long::valueOf).toList() : null);
+	}
+
+	private static long parseLong(String value, long defaultValue) {
+		if (value == null || value.isBlank()) {
+			return defaultValue;
+		}
+		try {
+			return Long.parseLong(value);
+		} catch (NumberFormatException e) {
+			return defaultValue;
+		}
+	}
+
+	private static Instant date(String value) {
+		if (value == null || value.isBlank()) {
+			return null;
+		}
+		final Function<String, LocalDateTime> parser = (value.length() <= 10
+				? s -> LocalDate.parse(s).atStartOfDay()
+				: LocalDateTime::parse);
+		return parser.apply(value.replace(' ', 'T')).toInstant(ZoneOffset.UTC);
+	}
+
+	/**
+	 * Get the data served.
+	 *
+	 * @return the data
+	 */
+	public FakeSolarNetworkData getData() {
+		return data;
+	}
+
+	/**
+	 * Get the latency added to every response.
+	 *
+	 * @return the latency, never {@code null}
+	 */
+	public Duration getLatency() {
+		return latency;
+	}
+
+	/**
+	 * Set the latency added to every response.
+	 *
+	 * @param latency the latency to set, or {@code null} for none
+	 */
+	public void setLatency(Duration latency) {
+		this.latency = (latency != null ? latency : Duration.ZERO);
+	}
+
+	/**
+	 * Get the maximum number of results returned by list endpoints.
+	 *
+	 * @return the page size, or {@code 0} for no limit
+	 */
+	public int getPageSize() {
+		return pageSize;
+	}
+
+	/**
+	 * Set the maximum number of results returned by list endpoints.
+	 *
+	 * <p>
+	 * When set, no more than this number of results is returned, even if a
+	 * larger {@code max} is requested.
+	 * </p>
+	 *
+	 * @param pageSize the page size to set, or {@code 0} for no limit
+	 */
+	public void setPageSize(int pageSize) {
+		this.pageSize = pageSize;
+	}
+
+	/**
+	 * Get the failure filter.
+	 *
+	 * @return the filter, or {@code null} if no requests fail
+	 */
+	public Predicate<String> getFailureFilter() {
+		return failureFilter;
+	}
+
+	/**
+	 * Set a filter of requests to fail.
+	 *
+	 * <p>
+	 * The filter is passed each request in the form logged by
+	 * {@link #requests()}. Requests that match are responded to with a
+	 * {@code 503} error status, without being handled.
+	 * </p>
+	 *
+	 * @param failureFilter the filter to set, or {@code null} for no failures
+	 */
+	public void setFailureFilter(Predicate<String> failureFilter) {
+		this.failureFilter = failureFilter;
+	}
+
+	/**
+	 * Get the number of instructions returned for each node.
+	 *
+	 * @return the instruction count
+	 */
+	public int getInstructionsPerNode() {
+		return instructionsPerNode;
+	}
+
+	/**
+	 * Set the number of instructions returned for each node.
+	 *
+	 * @param instructionsPerNode the instruction count to set
+	 */
+	public void setInstructionsPerNode(int instructionsPerNode) {
+		this.instructionsPerNode = instructionsPerNode;
+	}
+
+	/**
+	 * Get the number of services returned by a service listing instruction.
+	 *
+	 * @return the service count
+	 */
+	public int getServiceCount() {
+		return serviceCount;
+	}
+
+	/**
+	 * Set the number of services returned by a service listing instruction.
+	 *
+	 * @param serviceCount the service count to set
+	 */
+	public void setServiceCount(int serviceCount) {
+		this.serviceCount = serviceCount;
+	}
+
+}
@@ -0,0 +1,50 @@
+package s10k.tool.test;
+
+import java.lang.reflect.Constructor;
+
+import org.springframework.http.client.ClientHttpRequestFactory;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import picocli.CommandLine;
+import picocli.CommandLine.IFactory;
+
+/**
+ * Command factory that provides an HTTP request factory and object mapper to
+ * commands that need them.
+ *
+ * <p>
+ * Commands with a {@code (ClientHttpRequestFactory, ObjectMapper)} constructor
+ * are created with that constructor, like the tool's Spring command factory
+ * does. All other classes are created by the picocli default factory.
+ * </p>
+ */
+public class ToolCommandFactory implements IFactory {
+
+	private final ClientHttpRequestFactory reqFactory;
+	private final ObjectMapper objectMapper;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param reqFactory   the HTTP request factory to provide
+	 * @param objectMapper the object mapper to provide
+	 */
+	public ToolCommandFactory(ClientHttpRequestFactory reqFactory, ObjectMapper objectMapper) {
+		super();
+		this.reqFactory = reqFactory;
+		this.objectMapper = objectMapper;
+	}
+
+	@Override
+	public <K> K create(Class<K> cls) throws Exception {
+		final Constructor<K> constructor;
+		try {
+			constructor = cls.getConstructor(ClientHttpRequestFactory.class, ObjectMapper.class);
+		} catch (NoSuchMethodException e) {
+			return CommandLine.defaultFactory().create(cls);
+		}
+		return constructor.newInstance(reqFactory, objectMapper);
+	}
+
+}
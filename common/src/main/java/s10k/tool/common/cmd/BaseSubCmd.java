@@ -64,15 +64,23 @@ public abstract class BaseSubCmd<P extends ProfileProvider> implements ProfilePr
 	 * @return the root tool command, or {@code null}
 	 */
 	protected ToolCmd toolCmd() {
+		return ancestorCmd(ToolCmd.class);
+	}
+
+	/**
+	 * Get the closest ancestor command of a given type.
+	 * 
+	 * @param <T>  the command type
+	 * @param type the command type to find
+	 * @return the closest ancestor command of the given type, or {@code null}
+	 */
+	protected <T> T ancestorCmd(Class<T> type) {
 		Object cmd = parentCmd;
-		while (true) {
-			if (cmd == null) {
-				break;
-			} else if (cmd instanceof ToolCmd c) {
-				return c;
-			} else if (cmd instanceof BaseSubCmd<?> c) {
-				cmd = c.parentCmd;
+		while (cmd != null) {
+			if (type.isInstance(cmd)) {
+				return type.cast(cmd);
 			}
+			cmd = (cmd instanceof BaseSubCmd<?> c ? c.parentCmd : null);
 		}
 		return null;
 	}
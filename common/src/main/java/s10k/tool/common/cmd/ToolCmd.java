@@ -1,16 +1,22 @@
 package s10k.tool.common.cmd;
 
+import java.time.LocalDateTime;
 import java.util.Map;
 import java.util.NoSuchElementException;
 
+import net.solarnetwork.domain.datum.ObjectDatumKind;
 import picocli.CommandLine;
 import picocli.CommandLine.Command;
+import picocli.CommandLine.IFactory;
 import picocli.CommandLine.Option;
 import picocli.CommandLine.ParseResult;
+import s10k.tool.common.domain.ClaimableJobState;
+import s10k.tool.common.domain.EnabledOrDisabled;
 import s10k.tool.common.domain.ProfileInfo;
 import s10k.tool.common.domain.ProfileProvider;
 import s10k.tool.common.domain.SnTokenCredentials;
 import s10k.tool.common.util.ProfileUtils;
+import s10k.tool.common.util.StringUtils;
 
 /**
  * Top-level command.
@@ -73,6 +79,36 @@ public class ToolCmd implements ProfileProvider {
 		tokenSecret = secret.toCharArray();
 	}
 
+	/**
+	 * Create a command line for this command.
+	 * 
+	 * <p>
+	 * The command line is configured with {@link #globalInit(ParseResult)} as its
+	 * execution strategy, the given subcommands, and the type converters shared
+	 * by all commands. Subcommand-specific converters can be registered on the
+	 * returned command line.
+	 * </p>
+	 * 
+	 * @param factory     the factory to create commands with
+	 * @param subcommands the subcommands to add
+	 * @return the command line
+	 */
+	public CommandLine commandLine(IFactory factory, Object... subcommands) {
+		// use our LocalDateTime converter, that supports more formats
+		System.setProperty("picocli.converters.excludes", "java.time.LocalDateTime");
+		final CommandLine cmd = new CommandLine(this, factory).setExecutionStrategy(this::globalInit);
+		for (Object subcommand : subcommands) {
+			cmd.addSubcommand(subcommand);
+		}
+		// @formatter:off
+		return cmd.setCaseInsensitiveEnumValuesAllowed(true)
+				.registerConverter(ClaimableJobState.class, ClaimableJobState::fromValue)
+				.registerConverter(EnabledOrDisabled.class, EnabledOrDisabled::fromValue)
+				.registerConverter(LocalDateTime.class, StringUtils::parseLocalDateTime)
+				.registerConverter(ObjectDatumKind.class, ObjectDatumKind::fromValue);
+		// @formatter:on
+	}
+
 	/**
 	 * Globally initialize.
 	 * 
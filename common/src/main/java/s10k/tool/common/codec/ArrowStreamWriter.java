@@ -0,0 +1,772 @@
+package s10k.tool.common.codec;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Write tabular data as an Apache Arrow IPC stream.
+ *
+ * <p>
+ * This is a minimal, dependency-free implementation of the
+ * <a href="https://arrow.apache.org/docs/format/Columnar.html#ipc-streaming-format">Arrow
+ * IPC streaming format</a>, supporting a fixed set of nullable column types.
+ * Rows are buffered into column vectors, and written as a record batch each
+ * time {@code batchSize} rows have been added. The schema message is written
+ * before the first record batch, and the end-of-stream marker is written when
+ * the writer is closed.
+ * </p>
+ *
+ * <p>
+ * Rows are added by calling the various {@code setX()} methods for the columns
+ * of the current row, followed by {@link #endRow()}. Any column not set for a
+ * row will be {@code null}.
+ * </p>
+ */
+public class ArrowStreamWriter implements Closeable {
+
+	/** The default number of rows per record batch. */
+	public static final int DEFAULT_BATCH_SIZE = 8192;
+
+	/** Arrow metadata version V5. */
+	private static final short METADATA_VERSION = 4;
+
+	private static final byte HEADER_SCHEMA = 1;
+	private static final byte HEADER_RECORD_BATCH = 3;
+
+	private static final byte TYPE_INT = 2;
+	private static final byte TYPE_FLOATING_POINT = 3;
+	private static final byte TYPE_UTF8 = 5;
+	private static final byte TYPE_TIMESTAMP = 10;
+
+	private static final short PRECISION_DOUBLE = 2;
+	private static final short TIME_UNIT_MILLISECOND = 1;
+
+	private static final int CONTINUATION = 0xFFFFFFFF;
+
+	/**
+	 * Supported column types.
+	 */
+	public enum ColumnType {
+
+		/** A millisecond precision UTC timestamp. */
+		Timestamp,
+
+		/** A 64-bit signed integer. */
+		Int64,
+
+		/** A 64-bit floating point number. */
+		Float64,
+
+		/** A UTF-8 string. */
+		Utf8,
+
+		;
+
+	}
+
+	/**
+	 * A column specification.
+	 *
+	 * @param name the column name
+	 * @param type the column type
+	 */
+	public static record ColumnSpec(String name, ColumnType type) {
+
+	}
+
+	private final OutputStream out;
+	private final List<ColumnSpec> columns;
+	private final int batchSize;
+	private final ColumnBuilder[] builders;
+	private boolean schemaWritten;
+	private boolean closed;
+	private int rowCount;
+	private long totalRowCount;
+
+	/**
+	 * Constructor.
+	 *
+	 * <p>
+	 * The output stream is not closed when this writer is closed.
+	 * </p>
+	 *
+	 * @param out       the output stream
+	 * @param columns   the column specifications
+	 * @param batchSize the number of rows to write per record batch
+	 */
+	public ArrowStreamWriter(OutputStream out, List<ColumnSpec> columns, int batchSize) {
+		super();
+		this.out = out;
+		this.columns = List.copyOf(columns);
+		this.batchSize = Math.max(1, batchSize);
+		this.builders = new ColumnBuilder[this.columns.size()];
+		for (int i = 0; i < builders.length; i++) {
+			builders[i] = switch (this.columns.get(i).type()) {
+			case Timestamp, Int64 -> new LongBuilder();
+			case Float64 -> new DoubleBuilder();
+			case Utf8 -> new Utf8Builder();
+			};
+		}
+	}
+
+	/**
+	 * Get the column specifications.
+	 *
+	 * @return the columns
+	 */
+	public List<ColumnSpec> getColumns() {
+		return columns;
+	}
+
+	/**
+	 * Get the total number of rows written.
+	 *
+	 * @return the row count
+	 */
+	public long getTotalRowCount() {
+		return totalRowCount;
+	}
+
+	/**
+	 * Set a timestamp column value in the current row.
+	 *
+	 * @param col   the column index
+	 * @param value the value
+	 */
+	public void setTimestamp(int col, @Nullable Instant value) {
+		if (value != null) {
+			builders[col].setLong(value.toEpochMilli());
+		}
+	}
+
+	/**
+	 * Set an integer column value in the current row.
+	 *
+	 * @param col   the column index
+	 * @param value the value
+	 */
+	public void setLong(int col, long value) {
+		builders[col].setLong(value);
+	}
+
+	/**
+	 * Set a floating point column value in the current row.
+	 *
+	 * @param col   the column index
+	 * @param value the value
+	 */
+	public void setDouble(int col, double value) {
+		builders[col].setDouble(value);
+	}
+
+	/**
+	 * Set a number column value in the current row.
+	 *
+	 * @param col   the column index
+	 * @param value the value, or {@code null}
+	 */
+	public void setNumber(int col, @Nullable Number value) {
+		if (value == null) {
+			return;
+		}
+		if (columns.get(col).type() == ColumnType.Float64) {
+			builders[col].setDouble(value.doubleValue());
+		} else if (columns.get(col).type() == ColumnType.Utf8) {
+			builders[col].setString(value instanceof BigDecimal d ? d.toPlainString() : value.toString());
+		} else {
+			builders[col].setLong(value.longValue());
+		}
+	}
+
+	/**
+	 * Set a string column value in the current row.
+	 *
+	 * @param col   the column index
+	 * @param value the value, or {@code null}
+	 */
+	public void setString(int col, @Nullable String value) {
+		if (value != null) {
+			builders[col].setString(value);
+		}
+	}
+
+	/**
+	 * Finish the current row.
+	 *
+	 * <p>
+	 * If the batch size has been reached, a record batch will be written.
+	 * </p>
+	 *
+	 * @throws IOException if any IO error occurs
+	 */
+	public void endRow() throws IOException {
+		for (ColumnBuilder b : builders) {
+			b.endRow();
+		}
+		rowCount++;
+		totalRowCount++;
+		if (rowCount >= batchSize) {
+			flush();
+		}
+	}
+
+	/**
+	 * Write any buffered rows as a record batch.
+	 *
+	 * @throws IOException if any IO error occurs
+	 */
+	public void flush() throws IOException {
+		writeSchema();
+		if (rowCount > 0) {
+			writeRecordBatch();
+			rowCount = 0;
+			for (ColumnBuilder b : builders) {
+				b.reset();
+			}
+		}
+		out.flush();
+	}
+
+	/**
+	 * Write any buffered rows and the end-of-stream marker.
+	 *
+	 * @throws IOException if any IO error occurs
+	 */
+	@Override
+	public void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		flush();
+		final FlatBuffer eos = new FlatBuffer(8);
+		eos.putInt(CONTINUATION);
+		eos.putInt(0);
+		eos.writeTo(out);
+		out.flush();
+	}
+
+	private void writeSchema() throws IOException {
+		if (schemaWritten) {
+			return;
+		}
+		schemaWritten = true;
+		final List<FbTable> fields = new ArrayList<>(columns.size());
+		for (ColumnSpec col : columns) {
+			FbTable type = switch (col.type()) {
+			case Timestamp -> new FbTable(List.of(FbSlot.scalar(0, 2, TIME_UNIT_MILLISECOND),
+					FbSlot.child(1, new FbString("UTC"))));
+			case Int64 -> new FbTable(List.of(FbSlot.scalar(0, 4, 64), FbSlot.scalar(1, 1, 1)));
+			case Float64 -> new FbTable(List.of(FbSlot.scalar(0, 2, PRECISION_DOUBLE)));
+			case Utf8 -> new FbTable(List.of());
+			};
+			byte typeType = switch (col.type()) {
+			case Timestamp -> TYPE_TIMESTAMP;
+			case Int64 -> TYPE_INT;
+			case Float64 -> TYPE_FLOATING_POINT;
+			case Utf8 -> TYPE_UTF8;
+			};
+			// @formatter:off
+			fields.add(new FbTable(List.of(
+					FbSlot.child(0, new FbString(col.name())),
+					FbSlot.scalar(1, 1, 1),
+					FbSlot.scalar(2, 1, typeType),
+					FbSlot.child(3, type),
+					FbSlot.child(5, new FbTableVector(List.of())))));
+			// @formatter:on
+		}
+		final FbTable schema = new FbTable(List.of(FbSlot.scalar(0, 2, 0), FbSlot.child(1, new FbTableVector(fields))));
+		writeMessage(HEADER_SCHEMA, schema, 0, List.of());
+	}
+
+	private void writeRecordBatch() throws IOException {
+		final List<byte[]> buffers = new ArrayList<>(builders.length * 3);
+		final List<Integer> bufferLengths = new ArrayList<>(builders.length * 3);
+		final long[] nodes = new long[builders.length * 2];
+		for (int i = 0; i < builders.length; i++) {
+			ColumnBuilder b = builders[i];
+			nodes[i * 2] = rowCount;
+			nodes[i * 2 + 1] = b.nullCount;
+			b.buffers(buffers, bufferLengths);
+		}
+		final long[] bufferSpecs = new long[buffers.size() * 2];
+		long offset = 0;
+		for (int i = 0; i < buffers.size(); i++) {
+			int len = bufferLengths.get(i);
+			bufferSpecs[i * 2] = offset;
+			bufferSpecs[i * 2 + 1] = len;
+			offset += padded(len);
+		}
+		// @formatter:off
+		final FbTable batch = new FbTable(List.of(
+				FbSlot.scalar(0, 8, rowCount),
+				FbSlot.child(1, new FbStructVector(nodes, 2)),
+				FbSlot.child(2, new FbStructVector(bufferSpecs, 2))));
+		// @formatter:on
+		final List<byte[]> body = new ArrayList<>(buffers.size());
+		for (int i = 0; i < buffers.size(); i++) {
+			byte[] buf = buffers.get(i);
+			int len = bufferLengths.get(i);
+			int paddedLen = padded(len);
+			body.add(buf.length == paddedLen ? buf : Arrays.copyOf(buf, paddedLen));
+		}
+		writeMessage(HEADER_RECORD_BATCH, batch, offset, body);
+	}
+
+	private void writeMessage(byte headerType, FbTable header, long bodyLength, List<byte[]> body)
+			throws IOException {
+		// @formatter:off
+		final FbTable message = new FbTable(List.of(
+				FbSlot.scalar(0, 2, METADATA_VERSION),
+				FbSlot.scalar(1, 1, headerType),
+				FbSlot.child(2, header),
+				FbSlot.scalar(3, 8, bodyLength)));
+		// @formatter:on
+		final FlatBuffer fb = new FlatBuffer(256);
+		fb.putInt(0);
+		final int root = fb.write(message);
+		fb.setInt(0, root);
+		fb.align(8);
+
+		final FlatBuffer prefix = new FlatBuffer(8);
+		prefix.putInt(CONTINUATION);
+		prefix.putInt(fb.size());
+		prefix.writeTo(out);
+		fb.writeTo(out);
+		for (byte[] b : body) {
+			out.write(b);
+		}
+	}
+
+	private static int padded(int len) {
+		return (len + 7) & ~7;
+	}
+
+	/*-
+	 * Column builders
+	 */
+
+	private static abstract class ColumnBuilder {
+
+		private byte[] validity = new byte[64];
+		protected int length;
+		protected int nullCount;
+		protected boolean set;
+
+		private void endRow() {
+			if (length / 8 >= validity.length) {
+				validity = Arrays.copyOf(validity, validity.length * 2);
+			}
+			if (set) {
+				validity[length / 8] |= (byte) (1 << (length % 8));
+				appendValue();
+			} else {
+				nullCount++;
+				appendNull();
+			}
+			length++;
+			set = false;
+		}
+
+		protected void reset() {
+			Arrays.fill(validity, 0, (length + 7) / 8, (byte) 0);
+			length = 0;
+			nullCount = 0;
+			set = false;
+		}
+
+		protected void setLong(long value) {
+			throw new IllegalArgumentException("Column does not support integer values.");
+		}
+
+		protected void setDouble(double value) {
+			throw new IllegalArgumentException("Column does not support floating point values.");
+		}
+
+		protected void setString(String value) {
+			throw new IllegalArgumentException("Column does not support string values.");
+		}
+
+		protected abstract void appendValue();
+
+		protected abstract void appendNull();
+
+		protected abstract void valueBuffers(List<byte[]> buffers, List<Integer> lengths);
+
+		private void buffers(List<byte[]> buffers, List<Integer> lengths) {
+			buffers.add(validity);
+			lengths.add((length + 7) / 8);
+			valueBuffers(buffers, lengths);
+		}
+
+	}
+
+	private static final class LongBuilder extends ColumnBuilder {
+
+		private final FlatBuffer values = new FlatBuffer(1024);
+		private long pending;
+
+		@Override
+		protected void setLong(long value) {
+			pending = value;
+			set = true;
+		}
+
+		@Override
+		protected void appendValue() {
+			values.putLong(pending);
+		}
+
+		@Override
+		protected void appendNull() {
+			values.putLong(0);
+		}
+
+		@Override
+		protected void reset() {
+			super.reset();
+			values.clear();
+		}
+
+		@Override
+		protected void valueBuffers(List<byte[]> buffers, List<Integer> lengths) {
+			buffers.add(values.array());
+			lengths.add(values.size());
+		}
+
+	}
+
+	private static final class DoubleBuilder extends ColumnBuilder {
+
+		private final FlatBuffer values = new FlatBuffer(1024);
+		private double pending;
+
+		@Override
+		protected void setDouble(double value) {
+			pending = value;
+			set = true;
+		}
+
+		@Override
+		protected void appendValue() {
+			values.putLong(Double.doubleToRawLongBits(pending));
+		}
+
+		@Override
+		protected void appendNull() {
+			values.putLong(0);
+		}
+
+		@Override
+		protected void reset() {
+			super.reset();
+			values.clear();
+		}
+
+		@Override
+		protected void valueBuffers(List<byte[]> buffers, List<Integer> lengths) {
+			buffers.add(values.array());
+			lengths.add(values.size());
+		}
+
+	}
+
+	private static final class Utf8Builder extends ColumnBuilder {
+
+		private final FlatBuffer offsets = new FlatBuffer(1024);
+		private final FlatBuffer data = new FlatBuffer(4096);
+		private @Nullable String pending;
+
+		private Utf8Builder() {
+			super();
+			offsets.putInt(0);
+		}
+
+		@Override
+		protected void setString(String value) {
+			pending = value;
+			set = true;
+		}
+
+		@Override
+		protected void appendValue() {
+			final String s = pending;
+			if (s != null) {
+				data.put(s.getBytes(UTF_8));
+			}
+			offsets.putInt(data.size());
+			pending = null;
+		}
+
+		@Override
+		protected void appendNull() {
+			offsets.putInt(data.size());
+		}
+
+		@Override
+		protected void reset() {
+			super.reset();
+			offsets.clear();
+			offsets.putInt(0);
+			data.clear();
+		}
+
+		@Override
+		protected void valueBuffers(List<byte[]> buffers, List<Integer> lengths) {
+			buffers.add(offsets.array());
+			lengths.add(offsets.size());
+			buffers.add(data.array());
+			lengths.add(data.size());
+		}
+
+	}
+
+	/*-
+	 * FlatBuffers support.
+	 *
+	 * The Arrow IPC message metadata is encoded as FlatBuffers. Rather than the
+	 * usual back-to-front builder, objects are written front-to-back: each table
+	 * is preceded by its vtable and followed by its child objects, so all
+	 * unsigned offsets point forward as the format requires.
+	 */
+
+	private static sealed interface FbObject permits FbTable, FbString, FbTableVector, FbStructVector {
+
+	}
+
+	private static record FbSlot(int index, int size, long value, @Nullable FbObject child) {
+
+		private static FbSlot scalar(int index, int size, long value) {
+			return new FbSlot(index, size, value, null);
+		}
+
+		private static FbSlot child(int index, FbObject child) {
+			return new FbSlot(index, 4, 0, child);
+		}
+
+	}
+
+	private static record FbTable(List<FbSlot> slots) implements FbObject {
+
+	}
+
+	private static record FbString(String value) implements FbObject {
+
+	}
+
+	private static record FbTableVector(List<FbTable> tables) implements FbObject {
+
+	}
+
+	private static record FbStructVector(long[] values, int longsPerStruct) implements FbObject {
+
+	}
+
+	/**
+	 * A little-endian growable byte buffer.
+	 */
+	private static final class FlatBuffer {
+
+		private byte[] buf;
+		private int pos;
+
+		private FlatBuffer(int capacity) {
+			super();
+			this.buf = new byte[capacity];
+		}
+
+		private void ensure(int n) {
+			if (pos + n > buf.length) {
+				buf = Arrays.copyOf(buf, Math.max(buf.length * 2, pos + n));
+			}
+		}
+
+		private int size() {
+			return pos;
+		}
+
+		private byte[] array() {
+			return buf;
+		}
+
+		private void clear() {
+			pos = 0;
+		}
+
+		private void align(int alignment) {
+			while (pos % alignment != 0) {
+				putByte(0);
+			}
+		}
+
+		private void put(byte[] bytes) {
+			ensure(bytes.length);
+			System.arraycopy(bytes, 0, buf, pos, bytes.length);
+			pos += bytes.length;
+		}
+
+		private void putByte(long v) {
+			ensure(1);
+			buf[pos++] = (byte) v;
+		}
+
+		private void putShort(long v) {
+			ensure(2);
+			buf[pos++] = (byte) v;
+			buf[pos++] = (byte) (v >>> 8);
+		}
+
+		private void putInt(long v) {
+			ensure(4);
+			setInt(pos, v);
+			pos += 4;
+		}
+
+		private void putLong(long v) {
+			ensure(8);
+			for (int i = 0; i < 8; i++) {
+				buf[pos++] = (byte) (v >>> (i * 8));
+			}
+		}
+
+		private void putScalar(int size, long v) {
+			switch (size) {
+			case 1 -> putByte(v);
+			case 2 -> putShort(v);
+			case 4 -> putInt(v);
+			default -> putLong(v);
+			}
+		}
+
+		private void setInt(int at, long v) {
+			buf[at] = (byte) v;
+			buf[at + 1] = (byte) (v >>> 8);
+			buf[at + 2] = (byte) (v >>> 16);
+			buf[at + 3] = (byte) (v >>> 24);
+		}
+
+		private void writeTo(OutputStream out) throws IOException {
+			out.write(buf, 0, pos);
+		}
+
+		/**
+		 * Write an object.
+		 *
+		 * @param obj the object to write
+		 * @return the position of the object, for offsets to refer to
+		 */
+		private int write(FbObject obj) {
+			return switch (obj) {
+			case FbTable t -> writeTable(t);
+			case FbString s -> writeString(s);
+			case FbTableVector v -> writeTableVector(v);
+			case FbStructVector v -> writeStructVector(v);
+			};
+		}
+
+		private int writeString(FbString s) {
+			final byte[] bytes = s.value().getBytes(UTF_8);
+			align(4);
+			final int start = pos;
+			putInt(bytes.length);
+			put(bytes);
+			putByte(0);
+			return start;
+		}
+
+		private int writeTableVector(FbTableVector v) {
+			align(4);
+			final int start = pos;
+			putInt(v.tables().size());
+			final int first = pos;
+			for (int i = 0; i < v.tables().size(); i++) {
+				putInt(0);
+			}
+			for (int i = 0; i < v.tables().size(); i++) {
+				final int slot = first + i * 4;
+				final int tablePos = writeTable(v.tables().get(i));
+				setInt(slot, tablePos - slot);
+			}
+			return start;
+		}
+
+		private int writeStructVector(FbStructVector v) {
+			// struct elements are 8-byte aligned, following the 4-byte length
+			align(4);
+			if ((pos + 4) % 8 != 0) {
+				putInt(0);
+			}
+			final int start = pos;
+			putInt(v.values().length / v.longsPerStruct());
+			for (long l : v.values()) {
+				putLong(l);
+			}
+			return start;
+		}
+
+		private int writeTable(FbTable t) {
+			final List<FbSlot> slots = new ArrayList<>(t.slots());
+			slots.sort(Comparator.comparingInt(FbSlot::size).reversed());
+			int maxIndex = -1;
+			for (FbSlot slot : slots) {
+				maxIndex = Math.max(maxIndex, slot.index());
+			}
+
+			// lay out the inline fields after the 4-byte vtable offset
+			final int[] fieldOffsets = new int[maxIndex + 1];
+			final int[] slotOffsets = new int[slots.size()];
+			int inline = 4;
+			for (int i = 0; i < slots.size(); i++) {
+				final int size = slots.get(i).size();
+				inline = (inline + size - 1) / size * size;
+				slotOffsets[i] = inline;
+				fieldOffsets[slots.get(i).index()] = inline;
+				inline += size;
+			}
+
+			// vtable
+			align(2);
+			final int vtable = pos;
+			putShort(4 + 2 * fieldOffsets.length);
+			putShort(inline);
+			for (int off : fieldOffsets) {
+				putShort(off);
+			}
+
+			// table
+			align(8);
+			final int table = pos;
+			putInt(table - vtable);
+			for (int i = 0; i < slots.size(); i++) {
+				final FbSlot slot = slots.get(i);
+				while (pos < table + slotOffsets[i]) {
+					putByte(0);
+				}
+				putScalar(slot.size(), slot.value());
+			}
+
+			// children
+			for (int i = 0; i < slots.size(); i++) {
+				final FbObject child = slots.get(i).child();
+				if (child != null) {
+					final int slotPos = table + slotOffsets[i];
+					setInt(slotPos, write(child) - slotPos);
+				}
+			}
+			return table;
+		}
+
+	}
+
+}
@@ -0,0 +1,17 @@
+package s10k.tool.common.domain;
+
+import org.jspecify.annotations.Nullable;
+import org.springframework.aot.hint.annotation.RegisterReflectionForBinding;
+
+/**
+ * A change to a single service property.
+ *
+ * @param path     the property path, with nested property names delimited by
+ *                 {@code /}
+ * @param oldValue the previous value, or {@code null} if the property was added
+ * @param newValue the new value, or {@code null} if the property was removed
+ */
+@RegisterReflectionForBinding
+public record ServicePropertyChange(String path, @Nullable Object oldValue, @Nullable Object newValue) {
+
+}
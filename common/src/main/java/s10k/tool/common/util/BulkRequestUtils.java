@@ -0,0 +1,345 @@
+package s10k.tool.common.util;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.jspecify.annotations.Nullable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.client.RestClientResponseException;
+
+/**
+ * Utilities for executing many independent API requests.
+ */
+public final class BulkRequestUtils {
+
+	/** The default maximum number of requests to execute at once. */
+	public static final int DEFAULT_PARALLELISM = 4;
+
+	/** The default number of times to retry a failed request. */
+	public static final int DEFAULT_RETRIES = 3;
+
+	/** The default delay before the first retry. */
+	public static final Duration DEFAULT_INITIAL_DELAY = Duration.ofMillis(500);
+
+	/** The default maximum delay between retries. */
+	public static final Duration DEFAULT_MAX_DELAY = Duration.ofSeconds(30);
+
+	private BulkRequestUtils() {
+		// not available
+	}
+
+	/**
+	 * A retry policy.
+	 *
+	 * @param retries      the maximum number of times to retry a failed request
+	 * @param initialDelay the delay before the first retry, which doubles on each
+	 *                     subsequent retry
+	 * @param maxDelay     the maximum delay between retries
+	 */
+	public static record RetryPolicy(int retries, Duration initialDelay, Duration maxDelay) {
+
+		/** A policy that does not retry. */
+		public static final RetryPolicy NONE = new RetryPolicy(0, Duration.ZERO, Duration.ZERO);
+
+		/**
+		 * Create a retry policy with default delays.
+		 *
+		 * @param retries the maximum number of times to retry a failed request
+		 * @return the policy
+		 */
+		public static RetryPolicy withRetries(int retries) {
+			return new RetryPolicy(retries, DEFAULT_INITIAL_DELAY, DEFAULT_MAX_DELAY);
+		}
+
+		/**
+		 * Get the delay to wait before a given retry.
+		 *
+		 * <p>
+		 * The delay grows exponentially from {@code initialDelay}, limited to
+		 * {@code maxDelay}, with up to 50% random jitter added so many concurrent
+		 * requests do not retry all at once.
+		 * </p>
+		 *
+		 * @param retry the retry number, starting from {@code 1}
+		 * @return the delay
+		 */
+		public Duration delay(int retry) {
+			final long base = Math.min(maxDelay.toMillis(),
+					initialDelay.toMillis() << Math.min(30, Math.max(0, retry - 1)));
+			return Duration.ofMillis(base + ThreadLocalRandom.current().nextLong(base / 2 + 1));
+		}
+
+	}
+
+	/**
+	 * A limit on the rate requests are started at.
+	 *
+	 * <p>
+	 * Each call to {@link #acquire()} reserves the next available start time,
+	 * spaced evenly according to the maximum rate, and waits until that time
+	 * arrives.
+	 * </p>
+	 */
+	public static final class RateLimiter {
+
+		/** A limiter that does not limit. */
+		public static final RateLimiter UNLIMITED = new RateLimiter(0);
+
+		private final long intervalNanos;
+		private long next;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param maxRate the maximum number of requests to start per second, or
+		 *                {@code 0} for no limit
+		 */
+		public RateLimiter(double maxRate) {
+			super();
+			this.intervalNanos = (maxRate > 0 ? (long) (1_000_000_000L / maxRate) : 0L);
+		}
+
+		/**
+		 * Wait until another request is allowed to start.
+		 *
+		 * @throws InterruptedException if interrupted while waiting
+		 */
+		public void acquire() throws InterruptedException {
+			if (intervalNanos < 1) {
+				return;
+			}
+			final long wait;
+			synchronized (this) {
+				final long now = System.nanoTime();
+				final long slot = (next - now > 0 ? next : now);
+				next = slot + intervalNanos;
+				wait = slot - now;
+			}
+			if (wait > 0) {
+				Thread.sleep(Duration.ofNanos(wait));
+			}
+		}
+
+	}
+
+	/**
+	 * The result of a single request.
+	 *
+	 * @param <T>      the item type
+	 * @param <R>      the result type
+	 * @param item     the item the request was made for
+	 * @param result   the request result, or {@code null} if the request failed
+	 * @param attempts the number of attempts made
+	 * @param error    the error message if the request failed
+	 */
+	public static record BulkResult<T, R>(T item, @Nullable R result, int attempts, @Nullable String error) {
+
+		/**
+		 * Test if the request succeeded.
+		 *
+		 * @return {@code true} if the request succeeded
+		 */
+		public boolean isSuccess() {
+			return error == null;
+		}
+
+	}
+
+	/**
+	 * Execute a request for each of a collection of items.
+	 *
+	 * <p>
+	 * At most {@code parallelism} requests are executed at once. A request that
+	 * fails with a 5xx or 429 HTTP status is retried according to
+	 * {@code retryPolicy}, honoring any {@code Retry-After} response header. Any
+	 * other error fails just that request; the remaining requests are still
+	 * executed.
+	 * </p>
+	 *
+	 * @param <T>         the item type
+	 * @param <R>         the result type
+	 * @param items       the items to execute requests for
+	 * @param parallelism the maximum number of requests to execute at once
+	 * @param retryPolicy the retry policy
+	 * @param request     the request to execute for each item
+	 * @return the results, in the same order as {@code items}
+	 */
+	public static <T, R> List<BulkResult<T, R>> executeAll(Collection<T> items, int parallelism,
+			RetryPolicy retryPolicy, Function<T, R> request) {
+		return executeAll(items, parallelism, retryPolicy, request, null);
+	}
+
+	/**
+	 * Execute a request for each of a collection of items, handling each result
+	 * as it completes.
+	 *
+	 * <p>
+	 * This works like {@link #executeAll(Collection, int, RetryPolicy, Function)}
+	 * but also passes each result to {@code resultHandler} as soon as its request
+	 * completes. The handler is never called concurrently.
+	 * </p>
+	 *
+	 * @param <T>           the item type
+	 * @param <R>           the result type
+	 * @param items         the items to execute requests for
+	 * @param parallelism   the maximum number of requests to execute at once
+	 * @param retryPolicy   the retry policy
+	 * @param request       the request to execute for each item
+	 * @param resultHandler an optional handler for each result, in completion
+	 *                      order
+	 * @return the results, in the same order as {@code items}
+	 */
+	public static <T, R> List<BulkResult<T, R>> executeAll(Collection<T> items, int parallelism,
+			RetryPolicy retryPolicy, Function<T, R> request, @Nullable Consumer<BulkResult<T, R>> resultHandler) {
+		return executeAll(items, parallelism, RateLimiter.UNLIMITED, retryPolicy, request, resultHandler);
+	}
+
+	/**
+	 * Execute a request for each of a collection of items, limiting the rate
+	 * requests are started at and handling each result as it completes.
+	 *
+	 * <p>
+	 * This works like
+	 * {@link #executeAll(Collection, int, RetryPolicy, Function, Consumer)} but
+	 * also waits on {@code rateLimiter} before every attempt, including retries.
+	 * </p>
+	 *
+	 * @param <T>           the item type
+	 * @param <R>           the result type
+	 * @param items         the items to execute requests for
+	 * @param parallelism   the maximum number of requests to execute at once
+	 * @param rateLimiter   the rate limiter
+	 * @param retryPolicy   the retry policy
+	 * @param request       the request to execute for each item
+	 * @param resultHandler an optional handler for each result, in completion
+	 *                      order
+	 * @return the results, in the same order as {@code items}
+	 */
+	public static <T, R> List<BulkResult<T, R>> executeAll(Collection<T> items, int parallelism,
+			RateLimiter rateLimiter, RetryPolicy retryPolicy, Function<T, R> request,
+			@Nullable Consumer<BulkResult<T, R>> resultHandler) {
+		final Semaphore permits = new Semaphore(Math.max(1, parallelism));
+		final List<CompletableFuture<BulkResult<T, R>>> futures = new ArrayList<>(items.size());
+		try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+			for (T item : items) {
+				futures.add(CompletableFuture.supplyAsync(() -> {
+					final BulkResult<T, R> result = execute(item, permits, rateLimiter, retryPolicy, request);
+					if (resultHandler != null) {
+						synchronized (permits) {
+							resultHandler.accept(result);
+						}
+					}
+					return result;
+				}, executor));
+			}
+		}
+		return futures.stream().map(CompletableFuture::join).toList();
+	}
+
+	private static <T, R> BulkResult<T, R> execute(T item, Semaphore permits, RateLimiter rateLimiter,
+			RetryPolicy retryPolicy, Function<T, R> request) {
+		final AtomicInteger attempts = new AtomicInteger();
+		try {
+			permits.acquire();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return new BulkResult<>(item, null, 0, "Interrupted");
+		}
+		try {
+			final R result = retry(retryPolicy, () -> {
+				try {
+					rateLimiter.acquire();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new IllegalStateException("Interrupted", e);
+				}
+				return request.apply(item);
+			}, attempts);
+			return new BulkResult<>(item, result, attempts.get(), null);
+		} catch (RuntimeException e) {
+			return new BulkResult<>(item, null, attempts.get(), errorMessage(e));
+		} finally {
+			permits.release();
+		}
+	}
+
+	/**
+	 * Execute a single request, retrying after 5xx or 429 HTTP status errors.
+	 *
+	 * @param <R>         the result type
+	 * @param retryPolicy the retry policy
+	 * @param request     the request to execute
+	 * @return the request result
+	 * @throws RuntimeException the last error thrown by {@code request}, if it
+	 *                          does not succeed
+	 */
+	public static <R> R retry(RetryPolicy retryPolicy, Supplier<R> request) {
+		return retry(retryPolicy, request, new AtomicInteger());
+	}
+
+	private static <R> R retry(RetryPolicy retryPolicy, Supplier<R> request, AtomicInteger attempts) {
+		while (true) {
+			final int attempt = attempts.incrementAndGet();
+			try {
+				return request.get();
+			} catch (RuntimeException e) {
+				if (attempt > retryPolicy.retries() || !isRetryable(e)) {
+					throw e;
+				}
+				try {
+					Thread.sleep(retryDelay(e, retryPolicy, attempt));
+				} catch (InterruptedException ie) {
+					Thread.currentThread().interrupt();
+					throw e;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Test if a request error should be retried.
+	 *
+	 * @param e the error
+	 * @return {@code true} if the error is a 5xx or 429 HTTP response
+	 */
+	public static boolean isRetryable(Throwable e) {
+		return (e instanceof RestClientResponseException re
+				&& (re.getStatusCode().is5xxServerError() || re.getStatusCode().value() == 429));
+	}
+
+	private static String errorMessage(Throwable e) {
+		return Objects.requireNonNullElse(e.getMessage(), e.getClass().getSimpleName());
+	}
+
+	private static Duration retryDelay(RuntimeException e, RetryPolicy retryPolicy, int retry) {
+		final Duration delay = retryPolicy.delay(retry);
+		if (e instanceof RestClientResponseException re) {
+			final HttpHeaders headers = re.getResponseHeaders();
+			final String retryAfter = (headers != null ? headers.getFirst(HttpHeaders.RETRY_AFTER) : null);
+			if (retryAfter != null) {
+				try {
+					final Duration after = Duration.ofSeconds(Long.parseLong(retryAfter.trim()));
+					if (after.compareTo(delay) > 0) {
+						return (after.compareTo(retryPolicy.maxDelay()) > 0 ? retryPolicy.maxDelay() : after);
+					}
+				} catch (NumberFormatException nfe) {
+					// ignore HTTP date form and use the computed delay
+				}
+			}
+		}
+		return delay;
+	}
+
+}
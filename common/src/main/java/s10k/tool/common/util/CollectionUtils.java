@@ -12,6 +12,11 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
 
 import org.jspecify.annotations.Nullable;
 
@@ -20,6 +25,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 
 import net.solarnetwork.codec.JsonUtils;
 import s10k.tool.common.domain.MergeMode;
+import s10k.tool.common.domain.ServicePropertyChange;
 
 /**
  * Collection utilities.
@@ -172,4 +178,53 @@ public final class CollectionUtils {
 		}
 	}
 
+	/**
+	 * Compare two service property maps.
+	 * 
+	 * <p>
+	 * Nested maps are compared property by property, while all other values,
+	 * including lists, are compared as a whole.
+	 * </p>
+	 * 
+	 * @param oldProps the previous service properties
+	 * @param newProps the new service properties
+	 * @return the changes, ordered by property path
+	 */
+	public static List<ServicePropertyChange> diffServiceProperties(final @Nullable Map<String, ?> oldProps,
+			final @Nullable Map<String, ?> newProps) {
+		final SortedMap<String, Object> oldFlat = new TreeMap<>();
+		final SortedMap<String, Object> newFlat = new TreeMap<>();
+		flattenServiceProperties(null, oldProps, oldFlat);
+		flattenServiceProperties(null, newProps, newFlat);
+		final SortedSet<String> paths = new TreeSet<>(oldFlat.keySet());
+		paths.addAll(newFlat.keySet());
+		final List<ServicePropertyChange> result = new ArrayList<>(4);
+		for (String path : paths) {
+			final Object oldVal = oldFlat.get(path);
+			final Object newVal = newFlat.get(path);
+			if (!Objects.equals(oldVal, newVal)) {
+				result.add(new ServicePropertyChange(path, oldVal, newVal));
+			}
+		}
+		return result;
+	}
+
+	private static void flattenServiceProperties(final @Nullable String prefix, final @Nullable Map<String, ?> props,
+			final Map<String, Object> output) {
+		if (props == null) {
+			return;
+		}
+		for (Entry<String, ?> e : props.entrySet()) {
+			final String path = (prefix != null ? prefix + "/" + e.getKey() : e.getKey());
+			final Object val = e.getValue();
+			if (val instanceof Map<?, ?> m && !m.isEmpty()) {
+				@SuppressWarnings("unchecked")
+				Map<String, ?> nested = (Map<String, ?>) m;
+				flattenServiceProperties(path, nested, output);
+			} else if (val != null) {
+				output.put(path, val);
+			}
+		}
+	}
+
 }
@@ -222,11 +222,22 @@ public final class DatumUtils {
 			return result.toArray(Object[]::new);
 		}
 
+		/**
+		 * Get a copy of this structure bound to a different set of datum.
+		 * 
+		 * @param datum the datum
+		 * @return the new structure, with the same properties and columns as this
+		 *         structure
+		 */
+		public DatumResultStructure withDatum(Iterable<Datum> datum) {
+			return new DatumResultStructure(datum, propertyNames, columns);
+		}
+
 	}
 
-	private static SequencedMap<DatumSamplesType, SequencedSet<String>> resolvePropertyNames(Iterable<Datum> datum) {
+	private static SequencedMap<DatumSamplesType, SequencedSet<String>> resolvePropertyNames(Iterable<Datum> datum,
+			SequencedMap<DatumSamplesType, SequencedSet<String>> propNames) {
 		// extract complete set of property names from entire datum set
-		SequencedMap<DatumSamplesType, SequencedSet<String>> propNames = new LinkedHashMap<>(3);
 		for (Datum d : datum) {
 			for (DatumSamplesType propType : PROP_TYPES) {
 				Map<String, ?> props = d.asSampleOperations().getSampleData(propType);
@@ -261,7 +272,41 @@ public final class DatumUtils {
 	 * @return the structure
 	 */
 	public static DatumResultStructure resultStructure(Iterable<Datum> datum) {
-		SequencedMap<DatumSamplesType, SequencedSet<String>> propNames = resolvePropertyNames(datum);
+		SequencedMap<DatumSamplesType, SequencedSet<String>> propNames = resolvePropertyNames(datum,
+				new LinkedHashMap<>(3));
+		List<Column> columns = resolveColumns(propNames);
+		return new DatumResultStructure(datum, propNames, columns);
+	}
+
+	/**
+	 * Extend a structure with another set of datum, to help with display of
+	 * results that are received incrementally.
+	 * 
+	 * <p>
+	 * The returned structure includes all the properties of {@code structure}
+	 * along with any new properties found in {@code datum}.
+	 * </p>
+	 * 
+	 * @param structure the structure of the datum handled so far, or {@code null}
+	 *                  if none handled yet
+	 * @param datum     the next set of datum
+	 * @return the structure of {@code datum}, which will have the same
+	 *         properties and columns as {@code structure} if {@code datum} does
+	 *         not contain any new properties
+	 */
+	public static DatumResultStructure resultStructure(@Nullable DatumResultStructure structure,
+			Iterable<Datum> datum) {
+		if (structure == null) {
+			return resultStructure(datum);
+		}
+		SequencedMap<DatumSamplesType, SequencedSet<String>> propNames = new LinkedHashMap<>(3);
+		for (Entry<DatumSamplesType, SequencedSet<String>> e : structure.propertyNames().entrySet()) {
+			propNames.put(e.getKey(), new LinkedHashSet<>(e.getValue()));
+		}
+		resolvePropertyNames(datum, propNames);
+		if (propNames.equals(structure.propertyNames())) {
+			return structure.withDatum(datum);
+		}
 		List<Column> columns = resolveColumns(propNames);
 		return new DatumResultStructure(datum, propNames, columns);
 	}
@@ -0,0 +1,318 @@
+package s10k.tool.common.util;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributeView;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A simple on-disk cache of byte content, stored as one file per key.
+ *
+ * <p>
+ * Each entry's last modified time is the time it was stored, and is used to
+ * expire entries by age. Each entry's last access time is updated whenever the
+ * entry is read or written, and is used to evict the least recently used
+ * entries once the total size of all entries exceeds a maximum size.
+ * </p>
+ *
+ * <p>
+ * The total size is computed by listing the cache directory on the first
+ * {@link #put(String, byte[])}, and then tracked as entries are stored, so the
+ * directory is only listed again when entries need to be evicted.
+ * </p>
+ */
+public class DiskCache {
+
+	/** The name of the cache directory within the user configuration directory. */
+	public static final String CACHE_DIR_NAME = "cache";
+
+	/** The default maximum cache size, in bytes. */
+	public static final long DEFAULT_MAX_SIZE = 512L * 1024L * 1024L;
+
+	private static final Logger log = LoggerFactory.getLogger(DiskCache.class);
+
+	private final Path directory;
+	private final long maxSize;
+	private final String extension;
+	private long totalSize = -1;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param directory the directory to store entries in
+	 * @param maxSize   the maximum total size of all entries, in bytes
+	 * @param extension a file name extension to use for entries, e.g.
+	 *                  {@code .json}
+	 */
+	public DiskCache(Path directory, long maxSize, String extension) {
+		super();
+		this.directory = directory;
+		this.maxSize = maxSize;
+		this.extension = extension;
+	}
+
+	/**
+	 * Get a cache directory path within the user configuration directory.
+	 *
+	 * @param name the cache name
+	 * @return the path
+	 * @see ProfileUtils#userConfigurationDir()
+	 */
+	public static Path userCacheDirectory(String name) {
+		return ProfileUtils.userConfigurationDir().resolve(CACHE_DIR_NAME).resolve(name);
+	}
+
+	/**
+	 * Generate a cache key from a list of components.
+	 *
+	 * <p>
+	 * The key is the hex-encoded SHA-256 digest of all the non-{@code null}
+	 * components.
+	 * </p>
+	 *
+	 * @param components the components
+	 * @return the key
+	 */
+	public static String cacheKey(@Nullable Object... components) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			for (@Nullable Object c : components) {
+				if (c != null) {
+					digest.update(c.toString().getBytes(UTF_8));
+				}
+				digest.update((byte) 0);
+			}
+			return HexFormat.of().formatHex(digest.digest());
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Get the path of the file used for a cache key.
+	 *
+	 * @param key the key
+	 * @return the path
+	 */
+	public Path entryPath(String key) {
+		return directory.resolve(key + extension);
+	}
+
+	/**
+	 * Get cached content.
+	 *
+	 * @param key    the key
+	 * @param maxAge the maximum age of the entry, or {@code null} for no limit
+	 * @return the content, or {@code null} if not cached or expired
+	 */
+	public byte @Nullable [] get(String key, @Nullable Duration maxAge) {
+		final Path path = entryPath(key);
+		try {
+			if (maxAge != null) {
+				Instant storedAt = Files.getLastModifiedTime(path).toInstant();
+				if (storedAt.plus(maxAge).isBefore(Instant.now())) {
+					return null;
+				}
+			}
+			byte[] content = Files.readAllBytes(path);
+			touch(path);
+			return content;
+		} catch (NoSuchFileException e) {
+			return null;
+		} catch (IOException e) {
+			log.warn("Error reading cache entry [{}]: {}", path, e.getMessage());
+			return null;
+		}
+	}
+
+	/**
+	 * Get the time an entry was stored.
+	 *
+	 * @param key the key
+	 * @return the time the entry was stored, or {@code null} if not cached
+	 */
+	public @Nullable Instant storedAt(String key) {
+		try {
+			return Files.getLastModifiedTime(entryPath(key)).toInstant();
+		} catch (IOException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Store content.
+	 *
+	 * <p>
+	 * The content is written to a temporary file that then replaces any existing
+	 * entry, so concurrent readers never see partial content. Least recently used
+	 * entries are then evicted if the cache exceeds its maximum size.
+	 * </p>
+	 *
+	 * @param key     the key
+	 * @param content the content
+	 */
+	public void put(String key, byte[] content) {
+		final Path path = entryPath(key);
+		final long replacedSize;
+		try {
+			Files.createDirectories(directory);
+			replacedSize = sizeOf(path);
+			Path tmp = Files.createTempFile(directory, key, ".tmp");
+			try {
+				Files.write(tmp, content);
+				try {
+					Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+				} catch (AtomicMoveNotSupportedException e) {
+					Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING);
+				}
+			} finally {
+				Files.deleteIfExists(tmp);
+			}
+			touch(path);
+		} catch (IOException e) {
+			log.warn("Error writing cache entry [{}]: {}", path, e.getMessage());
+			return;
+		}
+		added(content.length - replacedSize);
+	}
+
+	private static long sizeOf(Path path) throws IOException {
+		try {
+			return Files.size(path);
+		} catch (NoSuchFileException e) {
+			return 0;
+		}
+	}
+
+	/**
+	 * Track a change in the total size of all entries, evicting entries if the
+	 * maximum size is exceeded.
+	 *
+	 * @param delta the change in size
+	 */
+	private synchronized void added(long delta) {
+		if (totalSize < 0) {
+			// the first put in this process: list the directory once to get the size
+			evict();
+			return;
+		}
+		totalSize += delta;
+		if (totalSize > maxSize) {
+			evict();
+		}
+	}
+
+	/**
+	 * Remove an entry.
+	 *
+	 * @param key the key
+	 */
+	public void remove(String key) {
+		final Path path = entryPath(key);
+		try {
+			final long size = sizeOf(path);
+			if (Files.deleteIfExists(path)) {
+				synchronized (this) {
+					if (totalSize >= 0) {
+						totalSize = Math.max(0, totalSize - size);
+					}
+				}
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private static void touch(Path path) throws IOException {
+		Files.getFileAttributeView(path, BasicFileAttributeView.class).setTimes(null, FileTime.from(Instant.now()),
+				null);
+	}
+
+	private static record Entry(Path path, long size, FileTime accessed) {
+
+	}
+
+	/**
+	 * Get the total size of all entries, as last computed or tracked.
+	 *
+	 * @return the total size, in bytes, or {@code -1} if not known yet
+	 */
+	public synchronized long getTotalSize() {
+		return totalSize;
+	}
+
+	/**
+	 * Evict least recently used entries until the total size of all entries is no
+	 * more than the maximum size.
+	 *
+	 * <p>
+	 * This lists the entire cache directory, and also resets the tracked total
+	 * size.
+	 * </p>
+	 */
+	public synchronized void evict() {
+		if (!Files.isDirectory(directory)) {
+			totalSize = 0;
+			return;
+		}
+		final List<Entry> entries = new ArrayList<>();
+		long total = 0;
+		try (Stream<Path> paths = Files.list(directory)) {
+			for (Path p : (Iterable<Path>) paths::iterator) {
+				if (!p.getFileName().toString().endsWith(extension)) {
+					continue;
+				}
+				try {
+					BasicFileAttributes attrs = Files.readAttributes(p, BasicFileAttributes.class);
+					entries.add(new Entry(p, attrs.size(), attrs.lastAccessTime()));
+					total += attrs.size();
+				} catch (NoSuchFileException e) {
+					// removed concurrently
+				}
+			}
+		} catch (IOException e) {
+			log.warn("Error listing cache directory [{}]: {}", directory, e.getMessage());
+			return;
+		}
+		if (total <= maxSize) {
+			totalSize = total;
+			return;
+		}
+		entries.sort(Comparator.comparing(Entry::accessed));
+		for (Entry entry : entries) {
+			if (total <= maxSize) {
+				break;
+			}
+			try {
+				Files.deleteIfExists(entry.path());
+				total -= entry.size();
+				log.debug("Evicted cache entry [{}]", entry.path());
+			} catch (IOException e) {
+				log.warn("Error evicting cache entry [{}]: {}", entry.path(), e.getMessage());
+			}
+		}
+		totalSize = total;
+	}
+
+}
@@ -0,0 +1,186 @@
+package s10k.tool.common.util;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.jspecify.annotations.Nullable;
+import org.threeten.extra.Interval;
+
+/**
+ * Track the time intervals covered by a series of timestamps.
+ *
+ * <p>
+ * Each timestamp covers the fixed-size time bucket it falls within. Adjacent
+ * covered buckets are coalesced into runs as timestamps are added, so memory
+ * use grows with the number of gaps rather than the number of timestamps. Adding
+ * timestamps in ascending order is cheapest, but any order is supported.
+ * </p>
+ *
+ * <p>
+ * This class is not thread-safe.
+ * </p>
+ */
+public final class IntervalCoverage {
+
+	private final long resolution;
+	private long[] runs = new long[16];
+	private int size;
+	private boolean sorted = true;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param resolution the bucket size
+	 * @throws IllegalArgumentException if {@code resolution} is not positive
+	 */
+	public IntervalCoverage(Duration resolution) {
+		super();
+		if (resolution.isNegative() || resolution.isZero()) {
+			throw new IllegalArgumentException("The resolution must be positive.");
+		}
+		this.resolution = resolution.toMillis();
+	}
+
+	/**
+	 * Get the bucket size.
+	 *
+	 * @return the resolution
+	 */
+	public Duration getResolution() {
+		return Duration.ofMillis(resolution);
+	}
+
+	/**
+	 * Add a timestamp.
+	 *
+	 * @param timestamp the timestamp to add
+	 */
+	public void add(Instant timestamp) {
+		add(timestamp.toEpochMilli());
+	}
+
+	/**
+	 * Add a timestamp.
+	 *
+	 * @param epochMillis the timestamp to add, as milliseconds since the epoch
+	 */
+	public void add(long epochMillis) {
+		final long start = floor(epochMillis, resolution);
+		final long end = start + resolution;
+		if (size > 0) {
+			final int last = size - 2;
+			if (start >= runs[last] && start <= runs[last + 1]) {
+				// within or adjacent to the current run
+				if (end > runs[last + 1]) {
+					runs[last + 1] = end;
+				}
+				return;
+			} else if (start < runs[last]) {
+				sorted = false;
+			}
+		}
+		if (size == runs.length) {
+			runs = Arrays.copyOf(runs, size * 2);
+		}
+		runs[size++] = start;
+		runs[size++] = end;
+	}
+
+	/**
+	 * Get the covered intervals.
+	 *
+	 * @return the covered intervals, sorted and non-overlapping
+	 */
+	public List<Interval> intervals() {
+		final List<Interval> result = new ArrayList<>(size / 2);
+		for (int i = 0; i < size; i += 2) {
+			result.add(Interval.of(Instant.ofEpochMilli(runs[i]), Instant.ofEpochMilli(runs[i + 1])));
+		}
+		return (sorted ? result : merge(result));
+	}
+
+	/**
+	 * Get the intervals within a range that are not covered.
+	 *
+	 * <p>
+	 * The range is first aligned to whole buckets, by rounding its start down and
+	 * its end up.
+	 * </p>
+	 *
+	 * @param range the range to find the gaps within
+	 * @return the gaps, sorted
+	 */
+	public List<Interval> gaps(Interval range) {
+		final long start = floor(range.getStart().toEpochMilli(), resolution);
+		final long end = -floor(-range.getEnd().toEpochMilli(), resolution);
+		return gaps(Interval.of(Instant.ofEpochMilli(start), Instant.ofEpochMilli(end)), intervals());
+	}
+
+	/**
+	 * Sort and coalesce a list of intervals.
+	 *
+	 * @param intervals the intervals
+	 * @return a new list of sorted intervals, with overlapping and adjacent
+	 *         intervals coalesced
+	 */
+	public static List<Interval> merge(List<Interval> intervals) {
+		final List<Interval> sorted = new ArrayList<>(intervals);
+		sorted.sort(IntervalSorter.INSTANCE);
+		final List<Interval> result = new ArrayList<>(sorted.size());
+		@Nullable
+		Interval curr = null;
+		for (Interval interval : sorted) {
+			if (curr == null) {
+				curr = interval;
+			} else if (!interval.getStart().isAfter(curr.getEnd())) {
+				if (interval.getEnd().isAfter(curr.getEnd())) {
+					curr = curr.withEnd(interval.getEnd());
+				}
+			} else {
+				result.add(curr);
+				curr = interval;
+			}
+		}
+		if (curr != null) {
+			result.add(curr);
+		}
+		return result;
+	}
+
+	/**
+	 * Get the intervals within a range that are not covered by a list of sorted,
+	 * non-overlapping intervals.
+	 *
+	 * @param range   the range
+	 * @param covered the covered intervals, sorted and non-overlapping
+	 * @return the gaps, sorted
+	 */
+	public static List<Interval> gaps(Interval range, List<Interval> covered) {
+		final List<Interval> result = new ArrayList<>(4);
+		Instant pos = range.getStart();
+		for (Interval interval : covered) {
+			if (!interval.getEnd().isAfter(pos)) {
+				continue;
+			}
+			if (!interval.getStart().isBefore(range.getEnd())) {
+				break;
+			}
+			if (interval.getStart().isAfter(pos)) {
+				result.add(Interval.of(pos, interval.getStart()));
+			}
+			pos = interval.getEnd();
+		}
+		if (pos.isBefore(range.getEnd())) {
+			result.add(Interval.of(pos, range.getEnd()));
+		}
+		return result;
+	}
+
+	private static long floor(long millis, long resolution) {
+		return millis - Math.floorMod(millis, resolution);
+	}
+
+}
@@ -1,4 +1,4 @@
-package s10k.tool.support;
+package s10k.tool.common.util;
 
 import java.util.Comparator;
 
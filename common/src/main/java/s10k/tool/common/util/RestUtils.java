@@ -5,6 +5,7 @@ import static net.solarnetwork.util.ObjectUtils.nonnull;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.charset.Charset;
 import java.util.List;
 import java.util.function.Supplier;
 
@@ -12,11 +13,15 @@ import org.jspecify.annotations.Nullable;
 import org.springframework.http.MediaType;
 import org.springframework.http.client.BufferingClientHttpRequestFactory;
 import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpResponse;
 import org.springframework.http.converter.HttpMessageConverter;
 import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
 import org.springframework.util.MultiValueMap;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
 import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientResponseException;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.UriBuilder;
 
@@ -112,6 +117,32 @@ public final class RestUtils {
 		return response;
 	}
 
+	/**
+	 * Create an exception for an unsuccessful response.
+	 *
+	 * <p>
+	 * This is meant for use in {@code exchange()} handlers, and mirrors the
+	 * exceptions thrown by {@code retrieve()}, including the response body so the
+	 * exception message contains any error message returned by SolarNetwork.
+	 * </p>
+	 *
+	 * @param res the response
+	 * @return the exception, either a {@link HttpServerErrorException} for a 5xx
+	 *         status or a {@link HttpClientErrorException} otherwise
+	 * @throws IOException if the response body cannot be read
+	 */
+	public static RestClientResponseException responseException(ClientHttpResponse res) throws IOException {
+		final byte[] body = res.getBody().readAllBytes();
+		final MediaType contentType = res.getHeaders().getContentType();
+		final @Nullable Charset charset = (contentType != null ? contentType.getCharset() : null);
+		if (res.getStatusCode().is5xxServerError()) {
+			return HttpServerErrorException.create(res.getStatusCode(), res.getStatusText(), res.getHeaders(), body,
+					charset);
+		}
+		return HttpClientErrorException.create(res.getStatusCode(), res.getStatusText(), res.getHeaders(), body,
+				charset);
+	}
+
 	/**
 	 * Convert a CBOR stream into JSON.
 	 * 
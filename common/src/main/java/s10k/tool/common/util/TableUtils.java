@@ -305,11 +305,11 @@ public class TableUtils {
 				if (customJsonFormatter != null) {
 					objectMapper.writer(TableDataJsonPrettyPrinter.INSTANCE).writeValue(nonClosing(out), jsonData);
 				} else {
-					objectMapper.writerWithDefaultPrettyPrinter().writeValue(nonClosing(System.out), jsonData);
+					objectMapper.writerWithDefaultPrettyPrinter().writeValue(nonClosing(out), jsonData);
 				}
 				out.write(System.lineSeparator().getBytes(Charset.defaultCharset()));
 			} else {
-				objectMapper.writeValue(nonClosing(System.out), jsonData);
+				objectMapper.writeValue(nonClosing(out), jsonData);
 			}
 		} else {
 			Object[][] tableData;
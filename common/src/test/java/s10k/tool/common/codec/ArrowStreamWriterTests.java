@@ -0,0 +1,268 @@
+package s10k.tool.common.codec;
+
+import static org.assertj.core.api.BDDAssertions.then;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.Float8Vector;
+import org.apache.arrow.vector.TimeStampMilliTZVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.ipc.ArrowStreamReader;
+import org.apache.arrow.vector.types.FloatingPointPrecision;
+import org.apache.arrow.vector.types.TimeUnit;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import s10k.tool.common.codec.ArrowStreamWriter.ColumnSpec;
+import s10k.tool.common.codec.ArrowStreamWriter.ColumnType;
+
+/**
+ * Test cases for the {@link ArrowStreamWriter} class, reading the output back
+ * with the Arrow Java library.
+ */
+public class ArrowStreamWriterTests {
+
+	private static final List<ColumnSpec> COLUMNS = List.of(new ColumnSpec("ts", ColumnType.Timestamp),
+			new ColumnSpec("id", ColumnType.Int64), new ColumnSpec("val", ColumnType.Float64),
+			new ColumnSpec("name", ColumnType.Utf8));
+
+	private static final Instant START = Instant.parse("2025-01-01T00:00:00Z");
+
+	private BufferAllocator allocator;
+
+	@BeforeEach
+	public void setup() {
+		allocator = new RootAllocator();
+	}
+
+	@AfterEach
+	public void teardown() {
+		allocator.close();
+	}
+
+	/**
+	 * A row read back from the stream, with {@code null} for null values.
+	 */
+	private static record Row(Long ts, Long id, Double val, String name) {
+
+	}
+
+	private static record Result(List<Field> fields, List<Integer> batchSizes, List<Row> rows) {
+
+	}
+
+	private Result read(byte[] data) throws IOException {
+		final List<Integer> batchSizes = new ArrayList<>();
+		final List<Row> rows = new ArrayList<>();
+		try (ArrowStreamReader reader = new ArrowStreamReader(new ByteArrayInputStream(data), allocator)) {
+			final VectorSchemaRoot root = reader.getVectorSchemaRoot();
+			final List<Field> fields = root.getSchema().getFields();
+			while (reader.loadNextBatch()) {
+				batchSizes.add(root.getRowCount());
+				final TimeStampMilliTZVector ts = (TimeStampMilliTZVector) root.getVector("ts");
+				final BigIntVector id = (BigIntVector) root.getVector("id");
+				final Float8Vector val = (Float8Vector) root.getVector("val");
+				final VarCharVector name = (VarCharVector) root.getVector("name");
+				for (int i = 0; i < root.getRowCount(); i++) {
+					// @formatter:off
+					rows.add(new Row(
+							ts.isNull(i) ? null : ts.get(i),
+							id.isNull(i) ? null : id.get(i),
+							val.isNull(i) ? null : val.get(i),
+							name.isNull(i) ? null : name.getObject(i).toString()));
+					// @formatter:on
+				}
+			}
+			then(reader.loadNextBatch()).as("No more batches after end of stream").isFalse();
+			return new Result(fields, batchSizes, rows);
+		}
+	}
+
+	private static void writeRow(ArrowStreamWriter w, Row row) throws IOException {
+		if (row.ts() != null) {
+			w.setTimestamp(0, Instant.ofEpochMilli(row.ts()));
+		}
+		if (row.id() != null) {
+			w.setLong(1, row.id());
+		}
+		if (row.val() != null) {
+			w.setDouble(2, row.val());
+		}
+		w.setString(3, row.name());
+		w.endRow();
+	}
+
+	private static void thenEndsWithEos(byte[] data) {
+		final ByteBuffer buf = ByteBuffer.wrap(data, data.length - 8, 8).order(ByteOrder.LITTLE_ENDIAN);
+		then(buf.getInt()).as("EOS continuation marker").isEqualTo(0xFFFFFFFF);
+		then(buf.getInt()).as("EOS zero length").isEqualTo(0);
+	}
+
+	@Test
+	public void schema() throws IOException {
+		// GIVEN
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+		// WHEN
+		try (ArrowStreamWriter w = new ArrowStreamWriter(out, COLUMNS, 10)) {
+			writeRow(w, new Row(START.toEpochMilli(), 1L, 1.0, "a"));
+		}
+
+		// THEN
+		final Result result = read(out.toByteArray());
+		then(result.fields()).extracting(Field::getName).as("Column names")
+				.containsExactly("ts", "id", "val", "name");
+		then(result.fields()).extracting(Field::getType).as("Column types").containsExactly(
+				new ArrowType.Timestamp(TimeUnit.MILLISECOND, "UTC"), new ArrowType.Int(64, true),
+				new ArrowType.FloatingPoint(FloatingPointPrecision.DOUBLE), ArrowType.Utf8.INSTANCE);
+		then(result.fields()).as("All columns nullable").allMatch(Field::isNullable);
+	}
+
+	@Test
+	public void nullsAndStrings() throws IOException {
+		// GIVEN
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		// @formatter:off
+		final List<Row> rows = List.of(
+				new Row(START.toEpochMilli(), 1L, 1.5, "plain"),
+				new Row(null, null, null, null),
+				new Row(START.toEpochMilli() + 1000, -2L, -0.25, ""),
+				new Row(START.toEpochMilli() + 2000, Long.MAX_VALUE, null, "ünïcödé ☀"),
+				new Row(null, 4L, Double.MAX_VALUE, "a".repeat(1000)));
+		// @formatter:on
+
+		// WHEN
+		try (ArrowStreamWriter w = new ArrowStreamWriter(out, COLUMNS, 100)) {
+			for (Row row : rows) {
+				writeRow(w, row);
+			}
+		}
+
+		// THEN
+		final Result result = read(out.toByteArray());
+		then(result.batchSizes()).as("One batch").containsExactly(rows.size());
+		then(result.rows()).as("Values and nulls read back").containsExactlyElementsOf(rows);
+	}
+
+	@Test
+	public void multipleBatches() throws IOException {
+		// GIVEN
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		final List<Row> rows = new ArrayList<>();
+		for (int i = 0; i < 7; i++) {
+			// vary string lengths and nulls so offsets and validity differ between batches
+			rows.add(new Row(START.toEpochMilli() + i, (i % 3 == 0 ? null : (long) i), i * 0.5,
+					(i % 2 == 0 ? "x".repeat(i) : null)));
+		}
+
+		// WHEN
+		final long count;
+		try (ArrowStreamWriter w = new ArrowStreamWriter(out, COLUMNS, 3)) {
+			for (Row row : rows) {
+				writeRow(w, row);
+			}
+			count = w.getTotalRowCount();
+		}
+
+		// THEN
+		then(count).as("Total row count").isEqualTo(7L);
+		final Result result = read(out.toByteArray());
+		then(result.batchSizes()).as("Batches of batch size, then remainder").containsExactly(3, 3, 1);
+		then(result.rows()).as("Values read back across batches").containsExactlyElementsOf(rows);
+	}
+
+	@Test
+	public void flushWritesBatch() throws IOException {
+		// GIVEN
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+		// WHEN
+		try (ArrowStreamWriter w = new ArrowStreamWriter(out, COLUMNS, 100)) {
+			writeRow(w, new Row(START.toEpochMilli(), 1L, 1.0, "a"));
+			w.flush();
+			w.flush();
+			writeRow(w, new Row(START.toEpochMilli(), 2L, 2.0, "b"));
+		}
+
+		// THEN
+		final Result result = read(out.toByteArray());
+		then(result.batchSizes()).as("Flush writes a batch, empty flush writes nothing").containsExactly(1, 1);
+	}
+
+	@Test
+	public void empty() throws IOException {
+		// GIVEN
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+		// WHEN
+		new ArrowStreamWriter(out, COLUMNS, 10).close();
+
+		// THEN
+		final byte[] data = out.toByteArray();
+		thenEndsWithEos(data);
+		final Result result = read(data);
+		then(result.fields()).as("Schema written without rows").hasSize(COLUMNS.size());
+		then(result.batchSizes()).as("No batches").isEmpty();
+	}
+
+	@Test
+	public void endOfStream() throws IOException {
+		// GIVEN
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		final ArrowStreamWriter w = new ArrowStreamWriter(out, COLUMNS, 10);
+		writeRow(w, new Row(START.toEpochMilli(), 1L, 1.0, "a"));
+
+		// WHEN
+		w.close();
+		final byte[] data = out.toByteArray();
+		w.close();
+
+		// THEN
+		thenEndsWithEos(data);
+		then(out.toByteArray()).as("Closing again writes nothing more").isEqualTo(data);
+
+		// and a stream followed by other data is still read up to its end marker
+		final byte[] trailing = Arrays.copyOf(data, data.length + 16);
+		then(read(trailing).rows()).as("Rows read up to end of stream").hasSize(1);
+	}
+
+	@Test
+	public void numberConversions() throws IOException {
+		// GIVEN
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+		// WHEN
+		try (ArrowStreamWriter w = new ArrowStreamWriter(out, COLUMNS, 10)) {
+			w.setNumber(1, 3.7f);
+			w.setNumber(2, new BigDecimal("1.25"));
+			w.setNumber(3, new BigDecimal("1E+3"));
+			w.endRow();
+			w.setNumber(1, null);
+			w.setNumber(2, 7);
+			w.setNumber(3, 42L);
+			w.endRow();
+		}
+
+		// THEN
+		final Result result = read(out.toByteArray());
+		then(result.rows()).as("Numbers converted to column type").containsExactly(new Row(null, 3L, 1.25, "1000"),
+				new Row(null, null, 7.0, "42"));
+	}
+
+}
@@ -0,0 +1,70 @@
+package s10k.tool.common.util;
+
+import static org.assertj.core.api.BDDAssertions.then;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.freva.asciitable.Column;
+
+import net.solarnetwork.domain.datum.Datum;
+import net.solarnetwork.domain.datum.DatumSamples;
+import net.solarnetwork.domain.datum.GeneralDatum;
+import s10k.tool.common.util.DatumUtils.DatumResultStructure;
+
+/**
+ * Test cases for the {@link DatumUtils} class.
+ */
+public class DatumUtilsTests {
+
+	private static Datum datum(Instant date, String... props) {
+		final DatumSamples samples = new DatumSamples();
+		for (String prop : props) {
+			samples.putInstantaneousSampleValue(prop, 1);
+		}
+		return GeneralDatum.nodeDatum(1L, "a", date, samples);
+	}
+
+	private static List<String> headers(DatumResultStructure structure) {
+		return structure.columns().stream().map(Column::getHeader).toList();
+	}
+
+	@Test
+	public void resultStructure_incremental_sameProperties() {
+		// GIVEN
+		final Instant now = Instant.now();
+		final List<Datum> first = List.of(datum(now, "watts"));
+		final List<Datum> second = List.of(datum(now.plusSeconds(1), "watts"));
+		final DatumResultStructure structure = DatumUtils.resultStructure(first);
+
+		// WHEN
+		final DatumResultStructure result = DatumUtils.resultStructure(structure, second);
+
+		// THEN
+		then(result.datum()).as("Structure bound to new datum").isSameAs(second);
+		then(result.propertyNames()).as("Same properties").isEqualTo(structure.propertyNames());
+		then(result.columns()).as("Same columns").isSameAs(structure.columns());
+	}
+
+	@Test
+	public void resultStructure_incremental_newProperties() {
+		// GIVEN
+		final Instant now = Instant.now();
+		final List<Datum> first = List.of(datum(now, "watts"));
+		final List<Datum> second = List.of(datum(now.plusSeconds(1), "watts", "current"));
+		final DatumResultStructure structure = DatumUtils.resultStructure(first);
+
+		// WHEN
+		final DatumResultStructure result = DatumUtils.resultStructure(structure, second);
+
+		// THEN
+		then(result.datum()).as("Structure bound to new datum").isSameAs(second);
+		then(headers(result)).as("New property column added")
+				.containsExactly("Timestamp", "Kind", "Object ID", "Source ID", "watts", "current");
+		then(headers(structure)).as("Original structure unchanged")
+				.containsExactly("Timestamp", "Kind", "Object ID", "Source ID", "watts");
+	}
+
+}
@@ -0,0 +1,145 @@
+package s10k.tool.common.util;
+
+import static org.assertj.core.api.BDDAssertions.then;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributeView;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Test cases for the {@link DiskCache} class.
+ */
+public class DiskCacheTests {
+
+	private static final String EXT = ".dat";
+
+	@TempDir
+	private Path dir;
+
+	private static byte[] content(int size) {
+		final byte[] data = new byte[size];
+		for (int i = 0; i < size; i++) {
+			data[i] = (byte) i;
+		}
+		return data;
+	}
+
+	private static void accessedAt(Path path, Instant date) throws IOException {
+		Files.getFileAttributeView(path, BasicFileAttributeView.class).setTimes(null, FileTime.from(date), null);
+	}
+
+	@Test
+	public void putGet() {
+		// GIVEN
+		final DiskCache cache = new DiskCache(dir, 1024, EXT);
+		final byte[] data = content(10);
+
+		// WHEN
+		cache.put("a", data);
+
+		// THEN
+		then(cache.get("a", null)).as("Stored content returned").isEqualTo(data);
+		then(cache.get("b", null)).as("Missing key returns null").isNull();
+		then(cache.entryPath("a")).as("Entry stored with extension").isRegularFile().hasFileName("a" + EXT);
+	}
+
+	@Test
+	public void get_expired() throws IOException {
+		// GIVEN
+		final DiskCache cache = new DiskCache(dir, 1024, EXT);
+		cache.put("a", content(10));
+		Files.setLastModifiedTime(cache.entryPath("a"), FileTime.from(Instant.now().minusSeconds(120)));
+
+		// THEN
+		then(cache.get("a", Duration.ofMinutes(1))).as("Entry older than max age not returned").isNull();
+		then(cache.get("a", Duration.ofMinutes(5))).as("Entry younger than max age returned").isNotNull();
+	}
+
+	@Test
+	public void totalSize_tracked() {
+		// GIVEN
+		final DiskCache cache = new DiskCache(dir, 1024, EXT);
+
+		// WHEN
+		cache.put("a", content(100));
+		cache.put("b", content(200));
+		cache.put("a", content(50));
+		cache.remove("b");
+
+		// THEN
+		then(cache.getTotalSize()).as("Size tracked across put, replace, and remove").isEqualTo(50L);
+	}
+
+	@Test
+	public void totalSize_existingEntriesCountedOnFirstPut() throws IOException {
+		// GIVEN
+		new DiskCache(dir, 1024, EXT).put("a", content(100));
+		Files.write(dir.resolve("ignored.txt"), content(500));
+		final DiskCache cache = new DiskCache(dir, 1024, EXT);
+		then(cache.getTotalSize()).as("Size unknown before first put").isEqualTo(-1L);
+
+		// WHEN
+		cache.put("b", content(200));
+
+		// THEN
+		then(cache.getTotalSize()).as("Existing entries included, other files ignored").isEqualTo(300L);
+	}
+
+	@Test
+	public void evict_leastRecentlyUsed() throws IOException {
+		// GIVEN
+		final DiskCache cache = new DiskCache(dir, 250, EXT);
+		final Instant now = Instant.now();
+		cache.put("a", content(100));
+		cache.put("b", content(100));
+		accessedAt(cache.entryPath("a"), now.minusSeconds(60));
+		accessedAt(cache.entryPath("b"), now.minusSeconds(120));
+
+		// WHEN
+		cache.put("c", content(100));
+
+		// THEN
+		then(cache.entryPath("b")).as("Least recently used entry evicted").doesNotExist();
+		then(cache.entryPath("a")).as("More recently used entry kept").exists();
+		then(cache.entryPath("c")).as("New entry kept").exists();
+		then(cache.getTotalSize()).as("Size reduced by evicted entry").isEqualTo(200L);
+	}
+
+	@Test
+	public void evict_notScannedUntilFull() throws IOException {
+		// GIVEN
+		final DiskCache cache = new DiskCache(dir, 1000, EXT);
+		cache.put("a", content(100));
+
+		// WHEN
+		// add a file behind the cache's back: it is only noticed once the tracked size
+		// exceeds the maximum and the directory is listed again
+		Files.write(cache.entryPath("x"), content(800));
+		cache.put("b", content(100));
+
+		// THEN
+		then(cache.getTotalSize()).as("Directory not listed while under maximum size").isEqualTo(200L);
+
+		// WHEN
+		cache.put("c", content(850));
+
+		// THEN
+		then(cache.getTotalSize()).as("Directory listed and evicted once over maximum size")
+				.isLessThanOrEqualTo(1000L);
+	}
+
+	@Test
+	public void cacheKey_components() {
+		then(DiskCache.cacheKey("a", "b")).as("Same components same key").isEqualTo(DiskCache.cacheKey("a", "b"));
+		then(DiskCache.cacheKey("ab", null)).as("Component boundaries part of key")
+				.isNotEqualTo(DiskCache.cacheKey("a", "b"));
+	}
+
+}
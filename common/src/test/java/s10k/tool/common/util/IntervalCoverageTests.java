@@ -0,0 +1,212 @@
+package s10k.tool.common.util;
+
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.assertj.core.api.BDDAssertions.thenThrownBy;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.threeten.extra.Interval;
+
+/**
+ * Test cases for the {@link IntervalCoverage} class.
+ */
+public class IntervalCoverageTests {
+
+	private static final Instant START = Instant.parse("2025-01-01T00:00:00Z");
+
+	private static Instant hour(double hours) {
+		return START.plusMillis(Math.round(hours * 3_600_000L));
+	}
+
+	private static Interval hours(double from, double to) {
+		return Interval.of(hour(from), hour(to));
+	}
+
+	private static IntervalCoverage coverage(double... hours) {
+		final IntervalCoverage result = new IntervalCoverage(Duration.ofHours(1));
+		for (double h : hours) {
+			result.add(hour(h));
+		}
+		return result;
+	}
+
+	@Test
+	public void construct_invalidResolution() {
+		thenThrownBy(() -> new IntervalCoverage(Duration.ZERO)).as("Resolution must be positive")
+				.isInstanceOf(IllegalArgumentException.class);
+		thenThrownBy(() -> new IntervalCoverage(Duration.ofHours(-1))).as("Resolution must be positive")
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	public void intervals_ascending() {
+		// GIVEN
+		final IntervalCoverage coverage = coverage(0.1, 0.3, 1.1, 3.5, 3.9);
+
+		// WHEN
+		final List<Interval> result = coverage.intervals();
+
+		// THEN
+		then(result).as("Timestamps covered by whole buckets, adjacent buckets coalesced")
+				.containsExactly(hours(0, 2), hours(3, 4));
+	}
+
+	@Test
+	public void intervals_duplicates() {
+		// GIVEN
+		final IntervalCoverage coverage = coverage(0.5, 0.5, 1.5, 0.5, 1.0);
+
+		// WHEN
+		final List<Interval> result = coverage.intervals();
+
+		// THEN
+		then(result).as("Duplicate and earlier timestamps within the current run ignored")
+				.containsExactly(hours(0, 2));
+	}
+
+	@Test
+	public void intervals_bucketBoundary() {
+		// GIVEN
+		final IntervalCoverage coverage = coverage(0, 1, 2.999);
+
+		// WHEN
+		final List<Interval> result = coverage.intervals();
+
+		// THEN
+		then(result).as("Timestamp on bucket start covers that bucket").containsExactly(hours(0, 3));
+	}
+
+	@Test
+	public void intervals_shuffled() {
+		// GIVEN
+		final List<Double> hours = new ArrayList<>(List.of(0.5, 1.5, 2.5, 5.5, 6.5, 9.5, 1.25, 6.75));
+		Collections.shuffle(hours, new Random(1));
+		final IntervalCoverage coverage = new IntervalCoverage(Duration.ofHours(1));
+		for (double h : hours) {
+			coverage.add(hour(h));
+		}
+
+		// WHEN
+		final List<Interval> result = coverage.intervals();
+
+		// THEN
+		then(result).as("Shuffled timestamps merged into sorted runs").containsExactly(hours(0, 3), hours(5, 7),
+				hours(9, 10));
+	}
+
+	@Test
+	public void intervals_unsortedDuplicates() {
+		// GIVEN
+		final IntervalCoverage coverage = coverage(5, 0, 5, 1, 0.5, 6);
+
+		// WHEN
+		final List<Interval> result = coverage.intervals();
+
+		// THEN
+		then(result).as("Duplicate runs merged, adjacent runs coalesced").containsExactly(hours(0, 2),
+				hours(5, 7));
+	}
+
+	@Test
+	public void merge_overlapping() {
+		// WHEN
+		final List<Interval> result = IntervalCoverage
+				.merge(List.of(hours(4, 6), hours(0, 2), hours(1, 3), hours(3, 4), hours(8, 9), hours(4.5, 5)));
+
+		// THEN
+		then(result).as("Overlapping, adjacent and contained intervals coalesced").containsExactly(hours(0, 6),
+				hours(8, 9));
+	}
+
+	@Test
+	public void gaps_none() {
+		// GIVEN
+		final IntervalCoverage coverage = coverage(0, 1, 2);
+
+		// WHEN
+		final List<Interval> result = coverage.gaps(hours(0, 3));
+
+		// THEN
+		then(result).as("No gaps when range covered").isEmpty();
+	}
+
+	@Test
+	public void gaps_empty() {
+		// GIVEN
+		final IntervalCoverage coverage = coverage();
+
+		// WHEN
+		final List<Interval> result = coverage.gaps(hours(0, 3));
+
+		// THEN
+		then(result).as("Whole range is a gap when nothing covered").containsExactly(hours(0, 3));
+	}
+
+	@Test
+	public void gaps_middle() {
+		// GIVEN
+		final IntervalCoverage coverage = coverage(0, 1, 4, 5);
+
+		// WHEN
+		final List<Interval> result = coverage.gaps(hours(0, 6));
+
+		// THEN
+		then(result).as("Gap in middle of range").containsExactly(hours(2, 4));
+	}
+
+	@Test
+	public void gaps_middleShuffled() {
+		// GIVEN
+		final IntervalCoverage coverage = coverage(5, 1, 9, 0, 4, 8);
+
+		// WHEN
+		final List<Interval> result = coverage.gaps(hours(0, 10));
+
+		// THEN
+		then(result).as("Gaps between merged runs").containsExactly(hours(2, 4), hours(6, 8));
+	}
+
+	@Test
+	public void gaps_rangeEdges() {
+		// GIVEN
+		final IntervalCoverage coverage = coverage(2, 3);
+
+		// WHEN
+		final List<Interval> result = coverage.gaps(hours(0.5, 5.5));
+
+		// THEN
+		then(result).as("Range aligned to whole buckets, with gaps at both edges").containsExactly(hours(0, 2),
+				hours(4, 6));
+	}
+
+	@Test
+	public void gaps_rangeEdgesCovered() {
+		// GIVEN
+		final IntervalCoverage coverage = coverage(0, 1, 2, 5, 6, 7);
+
+		// WHEN
+		final List<Interval> result = coverage.gaps(hours(1.5, 6.5));
+
+		// THEN
+		then(result).as("Runs extending past both range edges clipped to the range").containsExactly(hours(3, 5));
+	}
+
+	@Test
+	public void gaps_coverageOutsideRange() {
+		// GIVEN
+		final IntervalCoverage coverage = coverage(0, 10);
+
+		// WHEN
+		final List<Interval> result = coverage.gaps(hours(2, 5));
+
+		// THEN
+		then(result).as("Runs outside range ignored").containsExactly(hours(2, 5));
+	}
+
+}
@@ -10,22 +10,42 @@ import static net.solarnetwork.util.NumberUtils.round;
 import static org.springframework.util.StreamUtils.nonClosing;
 import static s10k.tool.common.util.RestUtils.cborToJson;
 import static s10k.tool.common.util.RestUtils.populateQueryParameters;
-
+import static s10k.tool.common.util.RestUtils.responseException;
+import static s10k.tool.datum.stream.cmd.ListDatumStreamMetadataCmd.listStreamMetadata;
+import static s10k.tool.datum.util.DatumPagingUtils.forEachPage;
+import static s10k.tool.datum.util.DatumPagingUtils.forEachSlicedPage;
+import static s10k.tool.datum.util.StreamDatumDecoder.decodeCbor;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.Period;
 import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.EnumSet;
-import java.util.HashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.SequencedSet;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
 
-import org.springframework.core.ParameterizedTypeReference;
+import org.jspecify.annotations.Nullable;
 import org.springframework.http.MediaType;
 import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.stereotype.Component;
@@ -37,25 +57,31 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.freva.asciitable.AsciiTable;
 import com.github.freva.asciitable.Column;
 
-import net.solarnetwork.domain.datum.AggregateStreamDatum;
 import net.solarnetwork.domain.datum.Aggregation;
-import net.solarnetwork.domain.datum.DatumProperties;
-import net.solarnetwork.domain.datum.DatumPropertiesStatistics;
 import net.solarnetwork.domain.datum.DatumReadingType;
 import net.solarnetwork.domain.datum.DatumSamplesType;
 import net.solarnetwork.domain.datum.ObjectDatumKind;
-import net.solarnetwork.domain.datum.ObjectDatumStreamDataSet;
 import net.solarnetwork.domain.datum.ObjectDatumStreamMetadata;
-import net.solarnetwork.domain.datum.StreamDatum;
 import picocli.CommandLine.ArgGroup;
 import picocli.CommandLine.Command;
 import picocli.CommandLine.Option;
 import s10k.tool.common.cmd.BaseSubCmd;
 import s10k.tool.common.domain.ResultDisplayMode;
 import s10k.tool.common.util.DateUtils;
+import s10k.tool.common.util.DiskCache;
 import s10k.tool.common.util.EncodingUtils;
 import s10k.tool.common.util.SystemUtils;
+import s10k.tool.datum.domain.DatumExportCheckpoint;
 import s10k.tool.datum.domain.DatumFilter;
+import s10k.tool.datum.domain.DatumStreamFilter;
+import s10k.tool.datum.domain.DatumTimeSlice;
+import s10k.tool.datum.domain.StreamDatumView;
+import s10k.tool.datum.util.ArrowDatumWriter;
+import s10k.tool.datum.util.DatumCheckpointUtils;
+import s10k.tool.datum.util.DatumCacheUtils;
+import s10k.tool.datum.util.DatumPagingUtils;
+import s10k.tool.datum.util.DatumPagingUtils.PageHandler;
+import s10k.tool.datum.util.StreamDatumDecoder.StreamDatumHandler;
 
 /**
  * Query for datum.
@@ -150,12 +176,55 @@ public class ListDatumCmd extends BaseSubCmd<DatumCmd> implements Callable<Integ
 			description = "start returning results from this offset, 0 being the first result")
 	long resultOffset;
 
+	@Option(names = {"-A", "--all"},
+			description = "return all results, by requesting successive pages of results with -M as the page size")
+	boolean allResults;
+
+	@Option(names = {"--no-cache"},
+			description = "do not use the local datum cache")
+	boolean noCache;
+
+	@Option(names = {"--cache-settle"},
+			description = "the minimum time since a date range ended for its results to be cached, as an ISO 8601 duration",
+			paramLabel = "duration",
+			defaultValue = "PT24H")
+	Duration cacheSettle = DatumCacheUtils.DEFAULT_SETTLE;
+
+	@Option(names = {"--slice"},
+			description = "split the date range into time slices of this size, fetched in parallel; implies --all",
+			paramLabel = "size")
+	DatumTimeSlice timeSlice;
+
+	@Option(names = {"--parallel"},
+			description = "the maximum number of time slices to fetch at once",
+			paramLabel = "count",
+			defaultValue = "4")
+	int parallelism = 4;
+
+	@Option(names = {"-out", "--output"},
+			description = "write the results to this file, recording a checkpoint so an interrupted export can be resumed; requires --all or --slice",
+			paramLabel = "file")
+	Path outputFile;
+
+	@Option(names = {"--resume"},
+			description = "resume an interrupted export to --output from its checkpoint, appending to the existing output")
+	boolean resume;
+
+	@Option(names = {"--arrow"},
+			description = "write the results as an Arrow IPC stream of typed columns, instead of using -mode")
+	boolean arrow;
+
 	@Option(names = { "-mode", "--display-mode" },
 			description = "how to display the datum",
 			defaultValue = "PRETTY")
 	ResultDisplayMode displayMode = ResultDisplayMode.PRETTY;
 	// @formatter:on
 
+	private static final int OUTPUT_BUFFER_SIZE = 64 * 1024;
+
+	private @Nullable DiskCache cache;
+	private @Nullable String cacheTokenId;
+
 	/**
 	 * Grouping of node/location IDs, where only one or the other should be
 	 * specified.
@@ -203,23 +272,44 @@ public class ListDatumCmd extends BaseSubCmd<DatumCmd> implements Callable<Integ
 	public Integer call() throws Exception {
 		final DatumFilter filter = datumFilter();
 
+		if (!noCache) {
+			cache = DatumCacheUtils.datumCache();
+			cacheTokenId = profileWithCredentials().tokenCredentials().tokenId();
+		}
+
+		if (arrow && SystemUtils.systemConsoleIsTerminal()) {
+			System.err.println("Arrow output is binary: redirect the output to a file or another program.");
+			return 1;
+		}
+
+		if (outputFile != null && (!(allResults || timeSlice != null) || arrow
+				|| displayMode == ResultDisplayMode.PRETTY)) {
+			System.err.println("The --output option requires --all or --slice, with a CSV or JSON display mode.");
+			return 1;
+		} else if (resume && outputFile == null) {
+			System.err.println("The --resume option requires --output.");
+			return 1;
+		} else if (timeSlice != null && filter.isReadingStyle()) {
+			System.err.println("The --slice option cannot be used with --reading queries.");
+			return 1;
+		} else if (timeSlice != null && DatumTimeSlice.minimumFor(aggregation) == null) {
+			System.err.println("The --slice option cannot be used with %s aggregation.".formatted(aggregation));
+			return 1;
+		}
+
 		final RestClient restClient = restClient();
 
 		try {
-			if (displayMode == ResultDisplayMode.PRETTY) {
-				ObjectDatumStreamDataSet<StreamDatum> result = listDatum(restClient, filter);
-				SequencedSet<String> propertyColumns = prettyProperties(filter, result);
-				List<Column> columns = prettyColumns(filter);
-				List<Object[]> data = prettyRows(filter, result, propertyColumns, columns);
-				// @formatter:off
-				AsciiTable.builder()
-					.data(columns.toArray(Column[]::new), data.toArray(Object[][]::new))
-					.writeTo(System.out)
-					;
-				// @formatter:on
-				System.out.println();
+			if (outputFile != null) {
+				exportDatum(restClient, filter, outputFile);
+			} else if (arrow) {
+				listArrowDatum(restClient, filter);
+			} else if (allResults || timeSlice != null) {
+				listAllDatum(restClient, filter);
+			} else if (displayMode == ResultDisplayMode.PRETTY) {
+				printPrettyTable(prettyTable(restClient, filter));
 			} else {
-				listDatumDirect(restClient, objectMapper, filter, displayMode);
+				listPlainDatum(restClient, filter);
 			}
 			return 0;
 		} catch (Exception e) {
@@ -228,6 +318,346 @@ public class ListDatumCmd extends BaseSubCmd<DatumCmd> implements Callable<Integ
 		return 1;
 	}
 
+	/**
+	 * List all datum matching a filter, one page at a time.
+	 * 
+	 * <p>
+	 * Each page is written out as soon as it is available, while the next page is
+	 * fetched in the background. If a time slice size is configured, the date range
+	 * is split into slices that are fetched in parallel.
+	 * </p>
+	 * 
+	 * @param restClient the REST client to use
+	 * @param filter     the search criteria
+	 * @throws IOException if any IO error occurs
+	 */
+	private void listAllDatum(RestClient restClient, DatumFilter filter) throws IOException {
+		final int pageSize = (maxResults > 0 ? maxResults : DatumPagingUtils.DEFAULT_PAGE_SIZE);
+		try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+			if (displayMode == ResultDisplayMode.PRETTY) {
+				forEachResultPage(filter, pageSize, executor, f -> prettyTable(restClient, f),
+						t -> t.rows().size(), (page, _, _) -> printPrettyTable(page));
+			} else {
+				final boolean csv = (displayMode == ResultDisplayMode.CSV);
+				forEachResultPage(filter, pageSize, executor, f -> datumContent(restClient, f),
+						csv ? DatumPagingUtils::csvRowCount : DatumPagingUtils::cborRowCount,
+						(page, _, first) -> writeDirectPage(System.out, page, first));
+			}
+		}
+	}
+
+	/**
+	 * List datum matching a filter as CSV or JSON, using the local datum cache if
+	 * possible.
+	 * 
+	 * <p>
+	 * A CSV query without a result limit that ends within the cache settle
+	 * duration is split into cacheable date ranges and a live date range, with the
+	 * results of each range written out in order as a single CSV result.
+	 * </p>
+	 * 
+	 * @param restClient the REST client to use
+	 * @param filter     the search criteria
+	 * @throws IOException if any IO error occurs
+	 */
+	private void listPlainDatum(RestClient restClient, DatumFilter filter) throws IOException {
+		final List<DatumFilter> ranges = (displayMode == ResultDisplayMode.CSV && maxResults < 1
+				? cacheRanges(filter)
+				: List.of(filter));
+		if (ranges.size() > 1) {
+			for (int i = 0, len = ranges.size(); i < len; i++) {
+				final byte[] content = datumContent(restClient, ranges.get(i));
+				final int start = (i == 0 ? 0 : DatumPagingUtils.csvDataOffset(content));
+				System.out.write(content, start, content.length - start);
+			}
+		} else if (isCacheable(filter)) {
+			final byte[] content = datumContent(restClient, filter);
+			if (displayMode == ResultDisplayMode.CSV) {
+				System.out.write(content);
+			} else {
+				cborToJson(objectMapper, new ByteArrayInputStream(content), nonClosing(System.out));
+				if (SystemUtils.systemConsoleIsTerminal()) {
+					System.out.println();
+				}
+			}
+		} else {
+			listDatumDirect(restClient, objectMapper, filter, displayMode);
+		}
+		System.out.flush();
+	}
+
+	/**
+	 * Export all datum matching a filter to a file, with a checkpoint recorded
+	 * after each page so the export can be resumed if interrupted.
+	 * 
+	 * <p>
+	 * The output file is flushed to disk before each checkpoint is saved. When
+	 * resuming, the output is truncated to the length recorded in the checkpoint,
+	 * discarding any partially written page, and the export continues from the
+	 * checkpoint position. The checkpoint is deleted once the export completes.
+	 * </p>
+	 * 
+	 * @param restClient the REST client to use
+	 * @param filter     the search criteria
+	 * @param output     the output file
+	 * @throws IOException if any IO error occurs
+	 */
+	private void exportDatum(RestClient restClient, DatumFilter filter, Path output) throws IOException {
+		final int pageSize = (maxResults > 0 ? maxResults : DatumPagingUtils.DEFAULT_PAGE_SIZE);
+		final Path checkpointFile = DatumCheckpointUtils.checkpointPath(output);
+		final String query = DatumCheckpointUtils.exportQuery(filter, displayMode, pageSize, timeSlice);
+		@Nullable DatumExportCheckpoint checkpoint = null;
+		if (resume) {
+			checkpoint = DatumCheckpointUtils.loadCheckpoint(objectMapper, checkpointFile);
+			if (checkpoint == null) {
+				throw new IllegalStateException("No checkpoint found at [%s].".formatted(checkpointFile));
+			} else if (!query.equals(checkpoint.query())) {
+				throw new IllegalStateException(
+						"The checkpoint at [%s] is for a different query.".formatted(checkpointFile));
+			}
+		}
+		try (FileChannel channel = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+				ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+			final DatumFilter resumeFilter = filter.copy();
+			final ExportPageHandler handler;
+			if (checkpoint != null) {
+				if (channel.size() < checkpoint.outputLength()) {
+					throw new IOException("The output file [%s] is shorter than its checkpoint.".formatted(output));
+				}
+				channel.truncate(checkpoint.outputLength());
+				channel.position(checkpoint.outputLength());
+				handler = new ExportPageHandler(channel, checkpointFile, query, checkpoint.outputLength() > 0,
+						checkpoint.count());
+				if (verbosity() > 0) {
+					System.err.println("Resuming export after %d datum.".formatted(checkpoint.count()));
+				}
+			} else {
+				channel.truncate(0);
+				handler = new ExportPageHandler(channel, checkpointFile, query, false, 0);
+			}
+
+			final Function<DatumFilter, byte[]> fetcher = f -> datumContent(restClient, f);
+			final ToIntFunction<byte[]> counter = (displayMode == ResultDisplayMode.CSV
+					? DatumPagingUtils::csvRowCount
+					: DatumPagingUtils::cborRowCount);
+			if (timeSlice == null) {
+				if (checkpoint != null) {
+					resumeFilter.setOffset(checkpoint.offset());
+				}
+				forEachPage(resumeFilter, pageSize, executor, fetcher, counter, handler);
+			} else {
+				final @Nullable String sliceStart = (checkpoint != null ? checkpoint.sliceStart() : null);
+				final @Nullable String sliceEnd = (checkpoint != null ? checkpoint.sliceEnd() : null);
+				if (sliceStart != null) {
+					DatumCheckpointUtils.setStartDate(resumeFilter, sliceStart);
+				}
+				if (sliceEnd != null) {
+					// finish the partially exported slice, then continue with the next one
+					final DatumFilter sliceFilter = resumeFilter.copy();
+					DatumCheckpointUtils.setEndDate(sliceFilter, sliceEnd);
+					sliceFilter.setOffset(checkpoint != null ? checkpoint.offset() : 0L);
+					forEachPage(sliceFilter, pageSize, executor, fetcher, counter, handler);
+					DatumCheckpointUtils.setStartDate(resumeFilter, sliceEnd);
+				}
+				forEachSlicedPage(resumeFilter, timeSlice, parallelism, pageSize, executor, fetcher, counter,
+						handler);
+			}
+		}
+		Files.deleteIfExists(checkpointFile);
+	}
+
+	/**
+	 * Page handler that writes pages to an export file and saves a checkpoint
+	 * after each page.
+	 */
+	private final class ExportPageHandler implements PageHandler<byte[]> {
+
+		private final FileChannel channel;
+		private final OutputStream out;
+		private final Path checkpointFile;
+		private final String query;
+		private boolean started;
+		private long total;
+
+		private ExportPageHandler(FileChannel channel, Path checkpointFile, String query, boolean started,
+				long total) {
+			super();
+			this.channel = channel;
+			this.out = new BufferedOutputStream(Channels.newOutputStream(channel), OUTPUT_BUFFER_SIZE);
+			this.checkpointFile = checkpointFile;
+			this.query = query;
+			this.started = started;
+			this.total = total;
+		}
+
+		@Override
+		public void handlePage(byte[] page, long offset, boolean first) throws IOException {
+			writeDirectPage(out, page, !started);
+			started = true;
+		}
+
+		@Override
+		public void pageComplete(DatumFilter pageFilter, int count) throws IOException {
+			out.flush();
+			channel.force(false);
+			total += count;
+			DatumCheckpointUtils.saveCheckpoint(objectMapper, checkpointFile, DatumCheckpointUtils
+					.checkpoint(query, pageFilter, count, timeSlice != null, channel.position(), total));
+		}
+
+	}
+
+	/**
+	 * List datum matching a filter as an Arrow IPC stream.
+	 * 
+	 * <p>
+	 * Results are decoded from CBOR directly into column vectors, which are written
+	 * out in batches. When listing all results, each page is fetched in the
+	 * background as raw CBOR and then decoded.
+	 * </p>
+	 * 
+	 * @param restClient the REST client to use
+	 * @param filter     the search criteria
+	 * @throws IOException if any IO error occurs
+	 */
+	private void listArrowDatum(RestClient restClient, DatumFilter filter) throws IOException {
+		final OutputStream out = new BufferedOutputStream(nonClosing(System.out), OUTPUT_BUFFER_SIZE);
+		try (ArrowDatumWriter writer = new ArrowDatumWriter(out, filter,
+				propertyNames != null ? asList(propertyNames) : null)) {
+			if (allResults || timeSlice != null) {
+				if (propertyNames == null || propertyNames.length < 1) {
+					// properties can first appear on any page, but the Arrow schema is fixed up
+					// front, so define it from all matching streams
+					final List<ObjectDatumStreamMetadata> metas = streamMetadata(restClient, filter);
+					if (!metas.isEmpty()) {
+						writer.defineColumns(metas);
+					}
+				}
+				final int pageSize = (maxResults > 0 ? maxResults : DatumPagingUtils.DEFAULT_PAGE_SIZE);
+				try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+					forEachResultPage(filter, pageSize, executor, f -> datumContent(restClient, f),
+							DatumPagingUtils::cborRowCount,
+							(page, _, _) -> decodeCbor(objectMapper, new ByteArrayInputStream(page), writer));
+				}
+				if (!writer.getOmittedPropertyNames().isEmpty()) {
+					System.err.println("Properties not in the Arrow schema were omitted: %s; use -prop to include them."
+							.formatted(String.join(", ", writer.getOmittedPropertyNames())));
+				}
+			} else if (isCacheable(filter)) {
+				decodeCbor(objectMapper, new ByteArrayInputStream(datumContent(restClient, filter)), writer);
+			} else {
+				listDatum(restClient, objectMapper, filter, writer);
+			}
+		}
+		out.flush();
+	}
+
+	/**
+	 * Get the metadata of all streams matching a filter.
+	 * 
+	 * @param restClient the REST client to use
+	 * @param filter     the search criteria
+	 * @return the metadata
+	 */
+	private List<ObjectDatumStreamMetadata> streamMetadata(RestClient restClient, DatumFilter filter) {
+		final DatumStreamFilter streamFilter = new DatumStreamFilter(filter.getStreamIds(), filter.getObjectIds(),
+				filter.getSourceIds(), null, null, null, null);
+		final ObjectDatumKind kind = filter.getObjectKind();
+		if (kind != null) {
+			return listStreamMetadata(restClient, objectMapper, kind, streamFilter);
+		}
+		// only stream IDs given, which could be for either kind
+		final List<ObjectDatumStreamMetadata> result = new ArrayList<>(
+				listStreamMetadata(restClient, objectMapper, ObjectDatumKind.Node, streamFilter));
+		result.addAll(listStreamMetadata(restClient, objectMapper, ObjectDatumKind.Location, streamFilter));
+		return result;
+	}
+
+	private boolean isCacheable(DatumFilter filter) {
+		return (cache != null && DatumCacheUtils.isCacheable(filter, Instant.now(), cacheSettle));
+	}
+
+	private List<DatumFilter> cacheRanges(DatumFilter filter) {
+		return (cache != null ? DatumCacheUtils.cacheRanges(filter, Instant.now(), cacheSettle) : List.of(filter));
+	}
+
+	/**
+	 * Query for datum and return the raw response content, using the local datum
+	 * cache if possible.
+	 * 
+	 * @param restClient the REST client to use
+	 * @param filter     the search criteria
+	 * @return the response content
+	 * @throws RestClientException if the request fails
+	 */
+	private byte[] datumContent(RestClient restClient, DatumFilter filter) {
+		final ResultDisplayMode contentMode = (arrow ? ResultDisplayMode.JSON : displayMode);
+		final DiskCache c = this.cache;
+		if (c == null || !DatumCacheUtils.isCacheable(filter, Instant.now(), cacheSettle)) {
+			return listDatumContent(restClient, filter, contentMode);
+		}
+		final String key = DatumCacheUtils.cacheKey(cacheTokenId, filter, contentMode);
+		byte[] content = c.get(key, null);
+		if (content != null) {
+			if (verbosity() > 0) {
+				System.err.println("Using cached datum for %s".formatted(DatumCacheUtils.normalizedFilter(filter)));
+			}
+			return content;
+		}
+		content = listDatumContent(restClient, filter, contentMode);
+		c.put(key, content);
+		return content;
+	}
+
+	private <T> void forEachResultPage(DatumFilter filter, int pageSize, Executor executor,
+			Function<DatumFilter, T> fetcher, ToIntFunction<T> counter, PageHandler<T> handler) throws IOException {
+		if (timeSlice != null) {
+			forEachSlicedPage(filter, timeSlice, parallelism, pageSize, executor, fetcher, counter, handler);
+		} else {
+			forEachPage(cacheRanges(filter), pageSize, executor, fetcher, counter, handler);
+		}
+	}
+
+	/**
+	 * Render tabular data to the system out.
+	 * 
+	 * @param table the table data
+	 */
+	private static void printPrettyTable(PrettyTable table) {
+		// @formatter:off
+		AsciiTable.builder()
+			.data(table.columns().toArray(Column[]::new), table.rows().toArray(Object[][]::new))
+			.writeTo(System.out)
+			;
+		// @formatter:on
+		System.out.println();
+	}
+
+	/**
+	 * Write a page of CSV or CBOR content to an output stream.
+	 * 
+	 * <p>
+	 * CSV content after the first page has the header row omitted. CBOR content is
+	 * converted to JSON, with each page written as a separate JSON object on its
+	 * own line.
+	 * </p>
+	 * 
+	 * @param out     the output stream to write to
+	 * @param content the page content
+	 * @param first   {@code true} if this is the first page
+	 * @throws IOException if any IO error occurs
+	 */
+	private void writeDirectPage(OutputStream out, byte[] content, boolean first) throws IOException {
+		if (displayMode == ResultDisplayMode.CSV) {
+			final int start = (first ? 0 : DatumPagingUtils.csvDataOffset(content));
+			out.write(content, start, content.length - start);
+		} else {
+			cborToJson(objectMapper, new ByteArrayInputStream(content), nonClosing(out));
+			out.write('\n');
+		}
+		out.flush();
+	}
+
 	private DatumFilter datumFilter() {
 		final DatumFilter filter = new DatumFilter();
 		if (streamIds != null && streamIds.length > 0) {
@@ -282,22 +712,99 @@ public class ListDatumCmd extends BaseSubCmd<DatumCmd> implements Callable<Integ
 	private static final Set<DatumSamplesType> PROP_TYPES = EnumSet.of(DatumSamplesType.Instantaneous,
 			DatumSamplesType.Accumulating, DatumSamplesType.Status);
 
+	/**
+	 * Tabular data for pretty output.
+	 * 
+	 * @param columns the columns
+	 * @param rows    the data rows
+	 */
+	private static record PrettyTable(List<Column> columns, List<Object[]> rows) {
+
+	}
+
+	/**
+	 * A reference to a datum property within a specific stream.
+	 * 
+	 * @param type  the property type
+	 * @param index the property index
+	 */
+	private static record PropertyRef(DatumSamplesType type, int index) {
+
+	}
+
+	/**
+	 * Query for datum and generate tabular data for pretty output.
+	 * 
+	 * <p>
+	 * Rows are generated as each datum is decoded, so only the tabular data is
+	 * held in memory. If the results can be cached, the raw results are fetched via
+	 * the local datum cache and then decoded.
+	 * </p>
+	 * 
+	 * @param restClient the REST client to use
+	 * @param filter     the search criteria
+	 * @return the table data
+	 */
+	private PrettyTable prettyTable(RestClient restClient, DatumFilter filter) {
+		final List<Column> columns = prettyColumns(filter);
+		final List<Object[]> rows = new ArrayList<>();
+		final StreamDatumHandler handler = prettyTableHandler(filter, columns, rows);
+		if (isCacheable(filter)) {
+			try {
+				decodeCbor(objectMapper, new ByteArrayInputStream(datumContent(restClient, filter)), handler);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		} else {
+			listDatum(restClient, objectMapper, filter, handler);
+		}
+		return new PrettyTable(columns, rows);
+	}
+
+	/**
+	 * Create a handler that generates tabular data for pretty output.
+	 * 
+	 * @param filter  the query filter
+	 * @param columns the column definitions, as returned from
+	 *                {@link #prettyColumns(DatumFilter)}, to add property columns
+	 *                to once the stream metadata is handled
+	 * @param rows    the list to add data rows to
+	 * @return the handler
+	 */
+	StreamDatumHandler prettyTableHandler(DatumFilter filter, List<Column> columns, List<Object[]> rows) {
+		return new StreamDatumHandler() {
+
+			private List<@Nullable PropertyRef[]> propRefs = List.of();
+
+			@Override
+			public void handleMetadata(List<ObjectDatumStreamMetadata> metadata) {
+				final SequencedSet<String> propNames = prettyProperties(filter, metadata);
+				propRefs = prettyPropertyRefs(propNames, metadata, columns);
+			}
+
+			@Override
+			public void handleDatum(StreamDatumView datum) {
+				rows.add(prettyRow(filter, datum, propRefs.get(datum.getMetadataIndex())));
+			}
+
+		};
+	}
+
 	/**
 	 * Generate a set of datum property names to render in tabular form for pretty
 	 * output.
 	 * 
-	 * @param filter the query filter
-	 * @param result the results
+	 * @param filter   the query filter
+	 * @param metadata the result stream metadata
 	 * @return the set of property names
 	 */
-	private SequencedSet<String> prettyProperties(DatumFilter filter, ObjectDatumStreamDataSet<StreamDatum> result) {
+	private SequencedSet<String> prettyProperties(DatumFilter filter, List<ObjectDatumStreamMetadata> metadata) {
 		SequencedSet<String> properties = new LinkedHashSet<String>();
 		if (propertyNames != null && propertyNames.length > 0) {
 			properties.addAll(asList(propertyNames));
 		} else {
 			// generate stable list from all stream properties
-			for (UUID streamId : result.metadataStreamIds()) {
-				ObjectDatumStreamMetadata meta = result.metadataForStreamId(streamId);
+			for (ObjectDatumStreamMetadata meta : metadata) {
 				String[] names = filter.isReadingRecordStyle() ? meta.propertyNamesForType(Accumulating)
 						: meta.getPropertyNames();
 				if (names != null) {
@@ -316,7 +823,7 @@ public class ListDatumCmd extends BaseSubCmd<DatumCmd> implements Callable<Integ
 	 * @return the initial list of column definitions, to be updated with values for
 	 *         individual property columns later
 	 */
-	private List<Column> prettyColumns(DatumFilter filter) {
+	List<Column> prettyColumns(DatumFilter filter) {
 		List<Column> columns = new ArrayList<>();
 		columns.add(new Column().header(filter.isAggregateStyle() ? "Timestamp Start" : "Timestamp").dataAlign(LEFT));
 		if (filter.isReadingRecordStyle()) {
@@ -331,104 +838,147 @@ public class ListDatumCmd extends BaseSubCmd<DatumCmd> implements Callable<Integ
 	}
 
 	/**
-	 * Generate tabular data rows for pretty output.
+	 * Resolve property references for each stream, and add property columns for
+	 * pretty output.
 	 * 
-	 * @param filter    the query filter
-	 * @param result    the results
-	 * @param propNames the set of property names to include in the results
-	 * @param columns   the set of column definitions, to add {@code Column}
-	 *                  instances to for each property name in {@code propertyNames}
-	 * @return the data rows
+	 * @param propNames the property names to include in the results
+	 * @param metadata  the result stream metadata
+	 * @param columns   the column definitions, to add {@code Column} instances to
+	 *                  for each property name in {@code propNames}
+	 * @return the property references for each stream, in metadata order
 	 */
-	private List<Object[]> prettyRows(DatumFilter filter, ObjectDatumStreamDataSet<StreamDatum> result,
-			SequencedSet<String> propNames, List<Column> columns) {
-		final Map<String, DatumSamplesType> propTypes = new HashMap<>(propNames.size());
-		final int rowSize = (propNames.size() + columns.size());
-		List<Object[]> data = new ArrayList<>();
-		for (StreamDatum d : result) {
-			final AggregateStreamDatum agg = (d instanceof AggregateStreamDatum a ? a : null);
-			final ObjectDatumStreamMetadata meta = result.metadataForStreamId(d.getStreamId());
-			final Object[] row = new Object[rowSize];
-			int idx = 0;
-			row[idx++] = d.getTimestamp();
-			if (filter.isReadingRecordStyle()) {
-				row[idx++] = (agg != null ? agg.getEndTimestamp() : null);
-			}
-			if (showStreamIds) {
-				row[idx++] = d.getStreamId();
-			}
-			row[idx++] = meta.getObjectId();
-			row[idx++] = meta.getSourceId();
+	private static List<@Nullable PropertyRef[]> prettyPropertyRefs(SequencedSet<String> propNames,
+			List<ObjectDatumStreamMetadata> metadata, List<Column> columns) {
+		final List<@Nullable PropertyRef[]> result = new ArrayList<>(metadata.size());
+		final @Nullable DatumSamplesType[] columnTypes = new DatumSamplesType[propNames.size()];
+		for (ObjectDatumStreamMetadata meta : metadata) {
+			final @Nullable PropertyRef[] refs = new PropertyRef[propNames.size()];
+			int i = 0;
 			for (String propName : propNames) {
-				final DatumSamplesType propType = propTypes.computeIfAbsent(propName, _ -> {
-					for (DatumSamplesType type : PROP_TYPES) {
-						if (meta.propertyIndex(type, propName) >= 0) {
-							return type;
+				for (DatumSamplesType type : PROP_TYPES) {
+					int propIdx = meta.propertyIndex(type, propName);
+					if (propIdx >= 0) {
+						refs[i] = new PropertyRef(type, propIdx);
+						if (columnTypes[i] == null) {
+							columnTypes[i] = type;
 						}
-					}
-					return null;
-				});
-				if (data.size() == 0) {
-					// populate Column
-					columns.add(new Column().header(propName)
-							.dataAlign(propType == DatumSamplesType.Status ? LEFT : RIGHT));
-				}
-				if (propType == null) {
-					continue;
-				}
-				DatumProperties props = d.getProperties();
-				final int propIdx = meta.propertyIndex(propType, propName);
-				if (propIdx < 0) {
-					continue;
-				}
-				Object propVal = switch (propType) {
-				case Instantaneous -> props.instantaneousValue(propIdx);
-				case Accumulating -> {
-					if (filter.isReadingAggregateStyle() && agg != null) {
-						DatumPropertiesStatistics stats = agg.getStatistics();
-						yield stats.getAccumulatingDifference(propIdx);
-					} else {
-						yield props.accumulatingValue(propIdx);
+						break;
 					}
 				}
-				case Status -> props.statusValue(propIdx);
+				i++;
+			}
+			result.add(refs);
+		}
+		int i = 0;
+		for (String propName : propNames) {
+			columns.add(new Column().header(propName)
+					.dataAlign(columnTypes[i++] == DatumSamplesType.Status ? LEFT : RIGHT));
+		}
+		return result;
+	}
+
+	/**
+	 * Generate a tabular data row for pretty output.
+	 * 
+	 * @param filter   the query filter
+	 * @param datum    the datum
+	 * @param propRefs the property references for the datum stream
+	 * @return the data row
+	 */
+	private Object[] prettyRow(DatumFilter filter, StreamDatumView datum, @Nullable PropertyRef[] propRefs) {
+		final ObjectDatumStreamMetadata meta = datum.getMetadata();
+		final int rowSize = (propRefs.length + 3 + (filter.isReadingRecordStyle() ? 1 : 0) + (showStreamIds ? 1 : 0));
+		final Object[] row = new Object[rowSize];
+		int idx = 0;
+		row[idx++] = datum.getTimestamp();
+		if (filter.isReadingRecordStyle()) {
+			row[idx++] = datum.getEndTimestamp();
+		}
+		if (showStreamIds) {
+			row[idx++] = meta.getStreamId();
+		}
+		row[idx++] = meta.getObjectId();
+		row[idx++] = meta.getSourceId();
+		for (@Nullable PropertyRef ref : propRefs) {
+			@Nullable Object propVal = null;
+			if (ref != null) {
+				propVal = switch (ref.type()) {
+				case Instantaneous -> datum.instantaneousValue(ref.index());
+				case Accumulating -> datum.accumulatingValue(ref.index());
+				case Status -> datum.statusValue(ref.index());
 				default -> null;
 				};
-
-				if (propVal instanceof Number n) {
-					propVal = bigDecimalForNumber(narrow(round(n, 3), 2)).toPlainString();
-				}
-				row[idx++] = propVal;
 			}
-			data.add(row);
+			if (propVal instanceof Number n) {
+				propVal = bigDecimalForNumber(narrow(round(n, 3), 2)).toPlainString();
+			}
+			row[idx++] = propVal;
 		}
-		return data;
+		return row;
 	}
 
-	private static final ParameterizedTypeReference<ObjectDatumStreamDataSet<StreamDatum>> STREAM_DATUM_SET_TYPEREF = new ParameterizedTypeReference<ObjectDatumStreamDataSet<StreamDatum>>() {
-	};
-
 	/**
-	 * Query for "raw" datum.
+	 * Query for datum, decoding the results incrementally.
 	 * 
-	 * @param restClient the REST client to use
-	 * @param filter     the search criteria
-	 * @return the results, or {@code null} if not available
+	 * <p>
+	 * The response is decoded as it is read, with each datum passed to
+	 * {@code handler} as soon as it has been decoded.
+	 * </p>
+	 * 
+	 * @param restClient   the REST client to use
+	 * @param objectMapper the object mapper to use
+	 * @param filter       the search criteria
+	 * @param handler      the handler for the decoded results
+	 * @return the number of datum decoded
 	 * @throws RestClientException if the request fails
 	 */
-	public static ObjectDatumStreamDataSet<StreamDatum> listDatum(RestClient restClient, DatumFilter filter) {
+	public static long listDatum(RestClient restClient, ObjectMapper objectMapper, DatumFilter filter,
+			StreamDatumHandler handler) {
 		// @formatter:off
-		return restClient.get()
+		Long result = restClient.get()
 			.uri(b -> {
 				b.path("/solarquery/api/v1/sec/datum/stream/{style}");
 				populateQueryParameters(b, filter::toRequestMap);
 				return b.build(filter.getReadingType() != null ? "reading" : "datum");
 			})
 			.accept(MediaType.APPLICATION_CBOR)
+			.exchange((_, res) -> {
+				if (res.getStatusCode().is2xxSuccessful()) {
+					return decodeCbor(objectMapper, res.getBody(), handler);
+				}
+				throw responseException(res);
+			})
+			;
+		// @formatter:on
+		return (result != null ? result : 0L);
+	}
+
+	/**
+	 * Query for datum and return the raw response content.
+	 * 
+	 * @param restClient  the REST client to use
+	 * @param filter      the search criteria
+	 * @param displayMode either CSV (for CSV content) or JSON (for CBOR content)
+	 * @return the response content
+	 * @throws RestClientException if the request fails
+	 */
+	public static byte[] listDatumContent(RestClient restClient, DatumFilter filter,
+			ResultDisplayMode displayMode) {
+		// @formatter:off
+		byte[] result = restClient.get()
+			.uri(b -> {
+				b.path("/solarquery/api/v1/sec/datum/stream/{style}");
+				populateQueryParameters(b, filter::toRequestMap);
+				return b.build(filter.getReadingType() != null ? "reading" : "datum");
+			})
+			.accept(displayMode == ResultDisplayMode.CSV
+					? MediaType.asMediaType(EncodingUtils.TEXT_CSV_MIME_TYPE)
+					: MediaType.APPLICATION_CBOR)
 			.retrieve()
-			.body(STREAM_DATUM_SET_TYPEREF)
+			.body(byte[].class)
 			;
 		// @formatter:on
+		return (result != null ? result : new byte[0]);
 	}
 
 	/**
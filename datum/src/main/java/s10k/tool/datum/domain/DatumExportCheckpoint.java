@@ -0,0 +1,33 @@
+package s10k.tool.datum.domain;
+
+import org.jspecify.annotations.Nullable;
+import org.springframework.aot.hint.annotation.RegisterReflectionForBinding;
+
+/**
+ * The progress of a datum export, to resume an interrupted export from.
+ *
+ * <p>
+ * For a paged export, {@code offset} is the result offset of the next page to
+ * export. For a time sliced export, {@code sliceStart} is the start date of the
+ * next time slice to export. If the export was interrupted partway through a
+ * slice, then {@code sliceEnd} is the end date of that slice, and
+ * {@code offset} is the result offset within that slice of the next page to
+ * export.
+ * </p>
+ *
+ * @param query        a normalized representation of the export query, to
+ *                     verify a resumed export is for the same query
+ * @param outputLength the length of the output, in bytes, when the checkpoint
+ *                     was recorded
+ * @param count        the number of results exported
+ * @param offset       the result offset to resume from
+ * @param sliceStart   the time slice start date to resume from, or {@code null}
+ *                     if not time sliced
+ * @param sliceEnd     the end date of a partially exported time slice, or
+ *                     {@code null}
+ */
+@RegisterReflectionForBinding
+public record DatumExportCheckpoint(String query, long outputLength, long count, long offset,
+		@Nullable String sliceStart, @Nullable String sliceEnd) {
+
+}
@@ -177,6 +177,41 @@ public final class DatumFilter extends SimplePagination {
 		return (isReadingStyle() && isAggregateStyle());
 	}
 
+	/**
+	 * Create a copy of this filter.
+	 *
+	 * <p>
+	 * Collection properties are shared with the copy, so callers should replace
+	 * rather than modify them.
+	 * </p>
+	 *
+	 * @return the new filter instance
+	 */
+	public DatumFilter copy() {
+		DatumFilter f = new DatumFilter();
+		f.objectKind = objectKind;
+		f.streamIds = streamIds;
+		f.objectIds = objectIds;
+		f.sourceIds = sourceIds;
+		f.startDate = startDate;
+		f.endDate = endDate;
+		f.localStartDate = localStartDate;
+		f.localEndDate = localEndDate;
+		f.mostRecent = mostRecent;
+		f.withoutTotalResultsCount = withoutTotalResultsCount;
+		f.aggregation = aggregation;
+		f.partialAggregation = partialAggregation;
+		f.readingType = readingType;
+		f.timeTolerance = timeTolerance;
+		f.datumRollupTypes = datumRollupTypes;
+		f.combiningType = combiningType;
+		f.objectIdMappings = objectIdMappings;
+		f.sourceIdMappings = sourceIdMappings;
+		f.setMax(getMax());
+		f.setOffset(getOffset());
+		return f;
+	}
+
 	@Override
 	public String toString() {
 		StringBuilder builder = new StringBuilder();
@@ -0,0 +1,136 @@
+package s10k.tool.datum.domain;
+
+import static java.time.temporal.ChronoUnit.DAYS;
+import static java.time.temporal.ChronoUnit.HOURS;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.temporal.TemporalAdjusters;
+
+import org.jspecify.annotations.Nullable;
+
+import net.solarnetwork.domain.datum.Aggregation;
+
+/**
+ * Enumeration of time slice sizes used to split a datum query date range into
+ * smaller queries.
+ */
+public enum DatumTimeSlice {
+
+	/** Hourly slices. */
+	Hour,
+
+	/** Daily slices. */
+	Day,
+
+	/** Weekly slices, starting on Mondays. */
+	Week,
+
+	/** Monthly slices. */
+	Month,
+
+	/** Slice sizes adjusted based on the number of results in each slice. */
+	Adaptive,
+
+	;
+
+	/**
+	 * Get the slice boundary following a given date.
+	 *
+	 * @param date the date
+	 * @return the start of the next slice after {@code date}
+	 * @throws UnsupportedOperationException if called on {@code Adaptive}
+	 */
+	public LocalDateTime nextBoundary(LocalDateTime date) {
+		return switch (this) {
+		case Hour -> date.truncatedTo(HOURS).plusHours(1);
+		case Day -> date.truncatedTo(DAYS).plusDays(1);
+		case Week -> date.truncatedTo(DAYS).with(TemporalAdjusters.next(DayOfWeek.MONDAY));
+		case Month -> date.truncatedTo(DAYS).withDayOfMonth(1).plusMonths(1);
+		case Adaptive -> throw new UnsupportedOperationException("Adaptive slices have no fixed boundary.");
+		};
+	}
+
+	/**
+	 * Get the start of the slice that contains a given date.
+	 *
+	 * @param date the date
+	 * @return the start of the slice containing {@code date}
+	 * @throws UnsupportedOperationException if called on {@code Adaptive}
+	 */
+	public LocalDateTime startOf(LocalDateTime date) {
+		return switch (this) {
+		case Hour -> date.truncatedTo(HOURS);
+		case Day -> date.truncatedTo(DAYS);
+		case Week -> date.truncatedTo(DAYS).with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+		case Month -> date.truncatedTo(DAYS).withDayOfMonth(1);
+		case Adaptive -> throw new UnsupportedOperationException("Adaptive slices have no fixed boundary.");
+		};
+	}
+
+	/**
+	 * Get the next smaller slice size.
+	 *
+	 * @return the next smaller size, or this instance if there is no smaller size
+	 */
+	public DatumTimeSlice smaller() {
+		return switch (this) {
+		case Month -> Week;
+		case Week -> Day;
+		case Day, Hour -> Hour;
+		case Adaptive -> Adaptive;
+		};
+	}
+
+	/**
+	 * Get the next larger slice size.
+	 *
+	 * @return the next larger size, or this instance if there is no larger size
+	 */
+	public DatumTimeSlice larger() {
+		return switch (this) {
+		case Hour -> Day;
+		case Day -> Week;
+		case Week, Month -> Month;
+		case Adaptive -> Adaptive;
+		};
+	}
+
+	/**
+	 * Get the larger of this slice size and another.
+	 *
+	 * @param other the other size
+	 * @return the larger size
+	 */
+	public DatumTimeSlice atLeast(DatumTimeSlice other) {
+		return (other.compareTo(this) > 0 ? other : this);
+	}
+
+	/**
+	 * Get the smallest slice size that does not split aggregate results of a
+	 * given aggregation across slices.
+	 *
+	 * <p>
+	 * Aggregations that combine results over the whole date range, such as
+	 * {@code HourOfDay} or {@code RunningTotal}, or that are larger than a month,
+	 * cannot be split into time slices.
+	 * </p>
+	 *
+	 * @param aggregation the aggregation, or {@code null} for none
+	 * @return the minimum slice size, or {@code null} if the aggregation cannot be
+	 *         split into time slices
+	 */
+	public static @Nullable DatumTimeSlice minimumFor(@Nullable Aggregation aggregation) {
+		if (aggregation == null) {
+			return Hour;
+		}
+		return switch (aggregation) {
+		case None, Minute, FiveMinute, TenMinute, FifteenMinute, ThirtyMinute, Hour -> Hour;
+		case Day -> Day;
+		case Week -> Week;
+		case Month -> Month;
+		default -> null;
+		};
+	}
+
+}
@@ -0,0 +1,318 @@
+package s10k.tool.datum.domain;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import org.jspecify.annotations.Nullable;
+
+import net.solarnetwork.domain.datum.DatumSamplesType;
+import net.solarnetwork.domain.datum.ObjectDatumStreamMetadata;
+
+/**
+ * A reusable, mutable view of a single stream datum.
+ *
+ * <p>
+ * A single instance is re-populated for each datum as a result set is decoded,
+ * so the view must not be retained by callers after handling it. The property
+ * arrays are sized to match the stream metadata, and only re-allocated when a
+ * larger size is needed.
+ * </p>
+ *
+ * <p>
+ * For aggregate datum, the instantaneous values are averages and the
+ * accumulating values are differences, with the associated statistics available
+ * via methods like {@link #instantaneousCount(int)} and
+ * {@link #accumulatingStart(int)}.
+ * </p>
+ */
+public final class StreamDatumView {
+
+	private static final BigDecimal[] EMPTY_DECIMALS = new BigDecimal[0];
+	private static final String[] EMPTY_STRINGS = new String[0];
+
+	private int metadataIndex = -1;
+	private @Nullable ObjectDatumStreamMetadata metadata;
+	private Instant timestamp = Instant.EPOCH;
+	private @Nullable Instant endTimestamp;
+	private boolean aggregate;
+	private int instantaneousLength;
+	private int accumulatingLength;
+	private int statusLength;
+	private @Nullable BigDecimal[] instantaneous = EMPTY_DECIMALS;
+	private @Nullable BigDecimal[] instantaneousStats = EMPTY_DECIMALS;
+	private @Nullable BigDecimal[] accumulating = EMPTY_DECIMALS;
+	private @Nullable BigDecimal[] accumulatingStats = EMPTY_DECIMALS;
+	private @Nullable String[] status = EMPTY_STRINGS;
+	private final List<String> tags = new ArrayList<>(2);
+
+	/**
+	 * Constructor.
+	 */
+	public StreamDatumView() {
+		super();
+	}
+
+	/**
+	 * Reset the view for a new datum.
+	 *
+	 * <p>
+	 * All property values are cleared.
+	 * </p>
+	 *
+	 * @param metadataIndex the index of the stream metadata within the result set
+	 * @param metadata      the stream metadata
+	 * @param timestamp     the datum timestamp
+	 * @param endTimestamp  the datum end timestamp, or {@code null}
+	 * @param aggregate     {@code true} if the datum is an aggregate
+	 */
+	public void reset(int metadataIndex, ObjectDatumStreamMetadata metadata, Instant timestamp,
+			@Nullable Instant endTimestamp, boolean aggregate) {
+		this.metadataIndex = metadataIndex;
+		this.metadata = metadata;
+		this.timestamp = timestamp;
+		this.endTimestamp = endTimestamp;
+		this.aggregate = aggregate;
+		this.instantaneousLength = propertyCount(metadata, DatumSamplesType.Instantaneous);
+		this.accumulatingLength = propertyCount(metadata, DatumSamplesType.Accumulating);
+		this.statusLength = propertyCount(metadata, DatumSamplesType.Status);
+		if (instantaneous.length < instantaneousLength) {
+			instantaneous = new BigDecimal[instantaneousLength];
+			instantaneousStats = new BigDecimal[instantaneousLength * 3];
+		} else {
+			Arrays.fill(instantaneous, 0, instantaneousLength, null);
+			Arrays.fill(instantaneousStats, 0, instantaneousLength * 3, null);
+		}
+		if (accumulating.length < accumulatingLength) {
+			accumulating = new BigDecimal[accumulatingLength];
+			accumulatingStats = new BigDecimal[accumulatingLength * 2];
+		} else {
+			Arrays.fill(accumulating, 0, accumulatingLength, null);
+			Arrays.fill(accumulatingStats, 0, accumulatingLength * 2, null);
+		}
+		if (status.length < statusLength) {
+			status = new String[statusLength];
+		} else {
+			Arrays.fill(status, 0, statusLength, null);
+		}
+		tags.clear();
+	}
+
+	private static int propertyCount(ObjectDatumStreamMetadata metadata, DatumSamplesType type) {
+		String[] names = metadata.propertyNamesForType(type);
+		return (names != null ? names.length : 0);
+	}
+
+	/**
+	 * Set an instantaneous property value.
+	 *
+	 * @param index the property index
+	 * @param value the value (the average, for aggregates)
+	 * @param count the aggregate count, or {@code null}
+	 * @param min   the aggregate minimum, or {@code null}
+	 * @param max   the aggregate maximum, or {@code null}
+	 */
+	public void setInstantaneous(int index, @Nullable BigDecimal value, @Nullable BigDecimal count,
+			@Nullable BigDecimal min, @Nullable BigDecimal max) {
+		if (index < 0 || index >= instantaneousLength) {
+			return;
+		}
+		instantaneous[index] = value;
+		instantaneousStats[index * 3] = count;
+		instantaneousStats[index * 3 + 1] = min;
+		instantaneousStats[index * 3 + 2] = max;
+	}
+
+	/**
+	 * Set an accumulating property value.
+	 *
+	 * @param index the property index
+	 * @param value the value (the difference, for aggregates)
+	 * @param start the aggregate starting reading, or {@code null}
+	 * @param end   the aggregate ending reading, or {@code null}
+	 */
+	public void setAccumulating(int index, @Nullable BigDecimal value, @Nullable BigDecimal start,
+			@Nullable BigDecimal end) {
+		if (index < 0 || index >= accumulatingLength) {
+			return;
+		}
+		accumulating[index] = value;
+		accumulatingStats[index * 2] = start;
+		accumulatingStats[index * 2 + 1] = end;
+	}
+
+	/**
+	 * Set a status property value.
+	 *
+	 * @param index the property index
+	 * @param value the value
+	 */
+	public void setStatus(int index, @Nullable String value) {
+		if (index < 0 || index >= statusLength) {
+			return;
+		}
+		status[index] = value;
+	}
+
+	/**
+	 * Add a tag.
+	 *
+	 * @param tag the tag to add
+	 */
+	public void addTag(String tag) {
+		tags.add(tag);
+	}
+
+	/**
+	 * Get the index of the stream metadata within the result set.
+	 *
+	 * @return the index
+	 */
+	public int getMetadataIndex() {
+		return metadataIndex;
+	}
+
+	/**
+	 * Get the stream metadata.
+	 *
+	 * @return the metadata
+	 * @throws IllegalStateException if the view has not been populated
+	 */
+	public ObjectDatumStreamMetadata getMetadata() {
+		ObjectDatumStreamMetadata meta = this.metadata;
+		if (meta == null) {
+			throw new IllegalStateException("Datum view not populated.");
+		}
+		return meta;
+	}
+
+	/**
+	 * Get the stream ID.
+	 *
+	 * @return the stream ID
+	 */
+	public UUID getStreamId() {
+		return getMetadata().getStreamId();
+	}
+
+	/**
+	 * Get the timestamp.
+	 *
+	 * @return the timestamp
+	 */
+	public Instant getTimestamp() {
+		return timestamp;
+	}
+
+	/**
+	 * Get the end timestamp.
+	 *
+	 * @return the end timestamp, or {@code null}
+	 */
+	public @Nullable Instant getEndTimestamp() {
+		return endTimestamp;
+	}
+
+	/**
+	 * Test if the datum is an aggregate.
+	 *
+	 * @return {@code true} if the datum is an aggregate
+	 */
+	public boolean isAggregate() {
+		return aggregate;
+	}
+
+	/**
+	 * Get an instantaneous property value.
+	 *
+	 * @param index the property index
+	 * @return the value, or {@code null}
+	 */
+	public @Nullable BigDecimal instantaneousValue(int index) {
+		return (index >= 0 && index < instantaneousLength ? instantaneous[index] : null);
+	}
+
+	/**
+	 * Get an instantaneous property aggregate count.
+	 *
+	 * @param index the property index
+	 * @return the count, or {@code null}
+	 */
+	public @Nullable BigDecimal instantaneousCount(int index) {
+		return (index >= 0 && index < instantaneousLength ? instantaneousStats[index * 3] : null);
+	}
+
+	/**
+	 * Get an instantaneous property aggregate minimum.
+	 *
+	 * @param index the property index
+	 * @return the minimum, or {@code null}
+	 */
+	public @Nullable BigDecimal instantaneousMin(int index) {
+		return (index >= 0 && index < instantaneousLength ? instantaneousStats[index * 3 + 1] : null);
+	}
+
+	/**
+	 * Get an instantaneous property aggregate maximum.
+	 *
+	 * @param index the property index
+	 * @return the maximum, or {@code null}
+	 */
+	public @Nullable BigDecimal instantaneousMax(int index) {
+		return (index >= 0 && index < instantaneousLength ? instantaneousStats[index * 3 + 2] : null);
+	}
+
+	/**
+	 * Get an accumulating property value.
+	 *
+	 * @param index the property index
+	 * @return the value, or {@code null}
+	 */
+	public @Nullable BigDecimal accumulatingValue(int index) {
+		return (index >= 0 && index < accumulatingLength ? accumulating[index] : null);
+	}
+
+	/**
+	 * Get an accumulating property aggregate starting reading.
+	 *
+	 * @param index the property index
+	 * @return the starting reading, or {@code null}
+	 */
+	public @Nullable BigDecimal accumulatingStart(int index) {
+		return (index >= 0 && index < accumulatingLength ? accumulatingStats[index * 2] : null);
+	}
+
+	/**
+	 * Get an accumulating property aggregate ending reading.
+	 *
+	 * @param index the property index
+	 * @return the ending reading, or {@code null}
+	 */
+	public @Nullable BigDecimal accumulatingEnd(int index) {
+		return (index >= 0 && index < accumulatingLength ? accumulatingStats[index * 2 + 1] : null);
+	}
+
+	/**
+	 * Get a status property value.
+	 *
+	 * @param index the property index
+	 * @return the value, or {@code null}
+	 */
+	public @Nullable String statusValue(int index) {
+		return (index >= 0 && index < statusLength ? status[index] : null);
+	}
+
+	/**
+	 * Get the tags.
+	 *
+	 * @return the tags, never {@code null}
+	 */
+	public List<String> getTags() {
+		return Collections.unmodifiableList(tags);
+	}
+
+}
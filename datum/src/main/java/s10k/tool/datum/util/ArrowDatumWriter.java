@@ -0,0 +1,281 @@
+package s10k.tool.datum.util;
+
+import static net.solarnetwork.domain.datum.DatumSamplesType.Accumulating;
+import static net.solarnetwork.domain.datum.DatumSamplesType.Instantaneous;
+import static net.solarnetwork.domain.datum.DatumSamplesType.Status;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.SequencedMap;
+import java.util.SequencedSet;
+
+import org.jspecify.annotations.Nullable;
+
+import net.solarnetwork.domain.datum.DatumSamplesType;
+import net.solarnetwork.domain.datum.ObjectDatumStreamMetadata;
+import s10k.tool.common.codec.ArrowStreamWriter;
+import s10k.tool.common.codec.ArrowStreamWriter.ColumnSpec;
+import s10k.tool.common.codec.ArrowStreamWriter.ColumnType;
+import s10k.tool.datum.domain.DatumFilter;
+import s10k.tool.datum.domain.StreamDatumView;
+import s10k.tool.datum.util.StreamDatumDecoder.StreamDatumHandler;
+
+/**
+ * Write decoded stream datum as an Arrow IPC stream of typed columns.
+ *
+ * <p>
+ * The columns are {@code ts}, {@code ts_end} (for aggregate and reading
+ * results), {@code stream_id}, {@code object_id}, {@code source_id}, followed by
+ * one column per datum property. Instantaneous and accumulating properties are
+ * {@code double} columns, and status properties are {@code string} columns.
+ * </p>
+ *
+ * <p>
+ * The property columns are either those explicitly configured, or all
+ * properties of the streams in the metadata passed to
+ * {@link #defineColumns(List)} or, if that is not called, the first result
+ * set's metadata. An Arrow stream has a single schema, so the columns are fixed
+ * once defined, and when handling several result sets (for example, pages of
+ * results) any properties not in the schema are omitted, and available from
+ * {@link #getOmittedPropertyNames()}.
+ * </p>
+ */
+public class ArrowDatumWriter implements StreamDatumHandler, Closeable {
+
+	private final OutputStream out;
+	private final boolean readingStyle;
+	private final boolean endTimestamp;
+	private final @Nullable Collection<String> propertyNames;
+	private final int batchSize;
+	private final Map<String, Integer> propertyColumns = new HashMap<>();
+	private final List<int[][]> streamColumns = new ArrayList<>(4);
+	private final SequencedSet<String> omittedPropertyNames = new LinkedHashSet<>();
+	private @Nullable ArrowStreamWriter writer;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param out           the output stream to write to
+	 * @param filter        the query filter
+	 * @param propertyNames the property names to include, or {@code null} or empty
+	 *                      to include all properties of the first result set
+	 */
+	public ArrowDatumWriter(OutputStream out, DatumFilter filter, @Nullable Collection<String> propertyNames) {
+		this(out, filter, propertyNames, ArrowStreamWriter.DEFAULT_BATCH_SIZE);
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param out           the output stream to write to
+	 * @param filter        the query filter
+	 * @param propertyNames the property names to include, or {@code null} or empty
+	 *                      to include all properties of the first result set
+	 * @param batchSize     the number of rows per record batch
+	 */
+	public ArrowDatumWriter(OutputStream out, DatumFilter filter, @Nullable Collection<String> propertyNames,
+			int batchSize) {
+		super();
+		this.out = out;
+		this.readingStyle = filter.isReadingRecordStyle();
+		this.endTimestamp = filter.isReadingRecordStyle() || filter.isAggregateStyle();
+		this.propertyNames = (propertyNames != null && !propertyNames.isEmpty() ? propertyNames : null);
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * Define the column schema from the metadata of all the streams that will be
+	 * handled.
+	 *
+	 * <p>
+	 * This can be called before any results are handled, so properties that first
+	 * appear in later result sets are included. It has no effect if the columns
+	 * have already been defined.
+	 * </p>
+	 *
+	 * @param metadata the metadata of all streams to be handled
+	 * @throws IOException if any IO error occurs
+	 */
+	public void defineColumns(List<ObjectDatumStreamMetadata> metadata) throws IOException {
+		if (writer == null) {
+			writer = new ArrowStreamWriter(out, columns(metadata), batchSize);
+		}
+	}
+
+	@Override
+	public void handleMetadata(List<ObjectDatumStreamMetadata> metadata) throws IOException {
+		defineColumns(metadata);
+		streamColumns.clear();
+		for (ObjectDatumStreamMetadata meta : metadata) {
+			streamColumns.add(new int[][] { columnIndexes(meta, Instantaneous), columnIndexes(meta, Accumulating),
+					columnIndexes(meta, Status) });
+		}
+	}
+
+	@Override
+	public void handleDatum(StreamDatumView datum) throws IOException {
+		final ArrowStreamWriter w = writer;
+		if (w == null) {
+			return;
+		}
+		final ObjectDatumStreamMetadata meta = datum.getMetadata();
+		int col = 0;
+		w.setTimestamp(col++, datum.getTimestamp());
+		if (endTimestamp) {
+			w.setTimestamp(col++, datum.getEndTimestamp());
+		}
+		w.setString(col++, meta.getStreamId().toString());
+		if (meta.getObjectId() != null) {
+			w.setLong(col, meta.getObjectId());
+		}
+		col++;
+		w.setString(col++, meta.getSourceId());
+
+		final int[][] cols = streamColumns.get(datum.getMetadataIndex());
+		for (int i = 0; i < cols[0].length; i++) {
+			if (cols[0][i] >= 0) {
+				w.setNumber(cols[0][i], datum.instantaneousValue(i));
+			}
+		}
+		for (int i = 0; i < cols[1].length; i++) {
+			if (cols[1][i] >= 0) {
+				w.setNumber(cols[1][i], datum.accumulatingValue(i));
+			}
+		}
+		for (int i = 0; i < cols[2].length; i++) {
+			if (cols[2][i] >= 0) {
+				setStatus(w, cols[2][i], datum.statusValue(i));
+			}
+		}
+		w.endRow();
+	}
+
+	/**
+	 * Get the names of properties present in the handled results that were
+	 * omitted because they are not in the column schema.
+	 *
+	 * <p>
+	 * This is always empty when property names were explicitly configured.
+	 * </p>
+	 *
+	 * @return the omitted property names, in the order they were first seen
+	 */
+	public SequencedSet<String> getOmittedPropertyNames() {
+		return omittedPropertyNames;
+	}
+
+	/**
+	 * Get the number of datum written.
+	 *
+	 * @return the count
+	 */
+	public long getDatumCount() {
+		final ArrowStreamWriter w = writer;
+		return (w != null ? w.getTotalRowCount() : 0);
+	}
+
+	/**
+	 * Write any buffered datum and the end of the stream.
+	 *
+	 * <p>
+	 * If no metadata has been handled, a stream with just the fixed columns is
+	 * written. The output stream is not closed.
+	 * </p>
+	 */
+	@Override
+	public void close() throws IOException {
+		ArrowStreamWriter w = writer;
+		if (w == null) {
+			w = new ArrowStreamWriter(out, columns(List.of()), batchSize);
+			writer = w;
+		}
+		w.close();
+	}
+
+	private List<ColumnSpec> columns(List<ObjectDatumStreamMetadata> metadata) {
+		final List<ColumnSpec> result = new ArrayList<>();
+		result.add(new ColumnSpec("ts", ColumnType.Timestamp));
+		if (endTimestamp) {
+			result.add(new ColumnSpec("ts_end", ColumnType.Timestamp));
+		}
+		result.add(new ColumnSpec("stream_id", ColumnType.Utf8));
+		result.add(new ColumnSpec("object_id", ColumnType.Int64));
+		result.add(new ColumnSpec("source_id", ColumnType.Utf8));
+
+		final SequencedMap<String, ColumnType> props = new LinkedHashMap<>();
+		if (propertyNames != null) {
+			for (String propName : propertyNames) {
+				props.put(propName, ColumnType.Float64);
+			}
+		}
+		final List<DatumSamplesType> types = (readingStyle ? List.of(Accumulating)
+				: List.of(Instantaneous, Accumulating, Status));
+		for (ObjectDatumStreamMetadata meta : metadata) {
+			for (DatumSamplesType type : types) {
+				String[] names = meta.propertyNamesForType(type);
+				if (names == null) {
+					continue;
+				}
+				for (String name : names) {
+					if (propertyNames == null) {
+						props.putIfAbsent(name, columnType(type));
+					} else if (propertyNames.contains(name) && type == Status) {
+						props.replace(name, ColumnType.Utf8);
+					}
+				}
+			}
+		}
+		for (var e : props.entrySet()) {
+			propertyColumns.put(e.getKey(), result.size());
+			result.add(new ColumnSpec(e.getKey(), e.getValue()));
+		}
+		return result;
+	}
+
+	private static ColumnType columnType(DatumSamplesType type) {
+		return (type == Status ? ColumnType.Utf8 : ColumnType.Float64);
+	}
+
+	private int[] columnIndexes(ObjectDatumStreamMetadata meta, DatumSamplesType type) {
+		final String[] names = meta.propertyNamesForType(type);
+		if (names == null || (readingStyle && type != Accumulating)) {
+			return new int[0];
+		}
+		final int[] result = new int[names.length];
+		Arrays.fill(result, -1);
+		for (int i = 0; i < names.length; i++) {
+			Integer col = propertyColumns.get(names[i]);
+			if (col != null) {
+				result[i] = col;
+			} else if (propertyNames == null) {
+				omittedPropertyNames.add(names[i]);
+			}
+		}
+		return result;
+	}
+
+	private void setStatus(ArrowStreamWriter w, int col, @Nullable String value) {
+		if (value == null) {
+			return;
+		}
+		if (w.getColumns().get(col).type() == ColumnType.Utf8) {
+			w.setString(col, value);
+		} else {
+			try {
+				w.setDouble(col, Double.parseDouble(value));
+			} catch (NumberFormatException e) {
+				// ignore non-numeric status value in numeric column
+			}
+		}
+	}
+
+}
@@ -0,0 +1,227 @@
+package s10k.tool.datum.util;
+
+import static java.util.stream.Collectors.joining;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+import org.jspecify.annotations.Nullable;
+import org.springframework.util.MultiValueMap;
+
+import s10k.tool.common.domain.ResultDisplayMode;
+import s10k.tool.common.util.DiskCache;
+import s10k.tool.datum.domain.DatumFilter;
+import s10k.tool.datum.domain.DatumTimeSlice;
+
+/**
+ * Utilities for the local datum cache.
+ *
+ * <p>
+ * Only results for date ranges that ended at least a "settle" duration ago are
+ * cached, as the datum within those ranges are not expected to change once
+ * nodes have had time to upload any delayed data and SolarNetwork has updated
+ * the affected aggregates. Entries are keyed by the credentials token ID, the
+ * normalized query filter (including the date range and pagination), and the
+ * response content type.
+ * </p>
+ */
+public final class DatumCacheUtils {
+
+	/** The datum cache name. */
+	public static final String DATUM_CACHE_NAME = "datum";
+
+	/** The datum cache entry file name extension. */
+	public static final String DATUM_CACHE_EXTENSION = ".dat";
+
+	/** The default settle duration. */
+	public static final Duration DEFAULT_SETTLE = Duration.ofDays(1);
+
+	/** Query parameters with comma-delimited values whose order is not important. */
+	private static final Set<String> UNORDERED_PARAMETERS = Set.of("streamIds", "nodeIds", "locationIds",
+			"sourceIds");
+
+	private DatumCacheUtils() {
+		// not available
+	}
+
+	/**
+	 * Create the datum cache.
+	 *
+	 * @return the cache
+	 */
+	public static DiskCache datumCache() {
+		return new DiskCache(DiskCache.userCacheDirectory(DATUM_CACHE_NAME), DiskCache.DEFAULT_MAX_SIZE,
+				DATUM_CACHE_EXTENSION);
+	}
+
+	/**
+	 * Test if the results of a query can be cached.
+	 *
+	 * <p>
+	 * A query is cacheable if it has an end date that is at least {@code settle}
+	 * before {@code now}, and is not a "most recent" query. For node-local end
+	 * dates, the end date is interpreted in the furthest-behind time zone
+	 * possible.
+	 * </p>
+	 *
+	 * @param filter the query filter
+	 * @param now    the current time
+	 * @param settle the minimum time that must have passed since the end date
+	 * @return {@code true} if the results can be cached
+	 */
+	public static boolean isCacheable(DatumFilter filter, Instant now, Duration settle) {
+		if (filter.isMostRecent()) {
+			return false;
+		}
+		final Instant settled = now.minus(settle);
+		final LocalDateTime localEndDate = filter.getLocalEndDate();
+		final ZonedDateTime endDate = filter.getEndDate();
+		if (localEndDate != null && filter.getLocalStartDate() != null) {
+			return !localEndDate.atOffset(ZoneOffset.MIN).toInstant().isAfter(settled);
+		} else if (endDate != null) {
+			return !endDate.toInstant().isAfter(settled);
+		}
+		return false;
+	}
+
+	/**
+	 * Split a query into cacheable "closed" date ranges and a live "open" date
+	 * range.
+	 *
+	 * <p>
+	 * If a query date range ends after the settled time but starts before it, the
+	 * range up to the settled time is split into calendar month buckets (or week
+	 * buckets for {@code Week} aggregation), each of which can be cached, followed
+	 * by the remaining range up to the query end date, which cannot. The settled
+	 * time is rounded down to a day boundary (or the aggregation period, if
+	 * larger), so the bucket dates stay the same for repeated queries throughout
+	 * the day, and only the final bucket and the open range are fetched again.
+	 * </p>
+	 *
+	 * <p>
+	 * Queries that cannot be split like this are returned as-is: queries without
+	 * both a start and end date, with a result offset, for "most recent" or
+	 * reading results, with an aggregation that cannot be split by time, or with
+	 * a date range that is either entirely settled or entirely unsettled.
+	 * </p>
+	 *
+	 * @param filter the query filter
+	 * @param now    the current time
+	 * @param settle the minimum time that must have passed since a date range
+	 *               ended for it to be cached
+	 * @return the filters to query, in date order
+	 */
+	public static List<DatumFilter> cacheRanges(DatumFilter filter, Instant now, Duration settle) {
+		final DatumTimeSlice aggSlice = DatumTimeSlice.minimumFor(filter.getAggregation());
+		final Long offset = filter.getOffset();
+		if (filter.isMostRecent() || filter.isReadingStyle() || aggSlice == null
+				|| (offset != null && offset.longValue() > 0)) {
+			return List.of(filter);
+		}
+		final Instant settled = now.minus(settle);
+		final @Nullable ZoneId zone;
+		final LocalDateTime start;
+		final LocalDateTime end;
+		final LocalDateTime settledDate;
+		final LocalDateTime localStartDate = filter.getLocalStartDate();
+		final LocalDateTime localEndDate = filter.getLocalEndDate();
+		final ZonedDateTime startDate = filter.getStartDate();
+		final ZonedDateTime endDate = filter.getEndDate();
+		if (localStartDate != null && localEndDate != null) {
+			zone = null;
+			start = localStartDate;
+			end = localEndDate;
+			settledDate = LocalDateTime.ofInstant(settled, ZoneOffset.MIN);
+		} else if (startDate != null && endDate != null) {
+			zone = startDate.getZone();
+			start = startDate.toLocalDateTime();
+			end = endDate.withZoneSameInstant(startDate.getZone()).toLocalDateTime();
+			settledDate = LocalDateTime.ofInstant(settled, startDate.getZone());
+		} else {
+			return List.of(filter);
+		}
+		final LocalDateTime cutoff = aggSlice.atLeast(DatumTimeSlice.Day).startOf(settledDate);
+		if (!cutoff.isAfter(start) || !cutoff.isBefore(end)) {
+			return List.of(filter);
+		}
+		final DatumTimeSlice bucket = (aggSlice == DatumTimeSlice.Week ? DatumTimeSlice.Week : DatumTimeSlice.Month);
+		final List<DatumFilter> result = new ArrayList<>(8);
+		LocalDateTime next = start;
+		while (next.isBefore(cutoff)) {
+			LocalDateTime bucketEnd = bucket.nextBoundary(next);
+			if (bucketEnd.isAfter(cutoff)) {
+				bucketEnd = cutoff;
+			}
+			result.add(rangeFilter(filter, zone, next, bucketEnd));
+			next = bucketEnd;
+		}
+		result.add(rangeFilter(filter, zone, cutoff, end));
+		return result;
+	}
+
+	private static DatumFilter rangeFilter(DatumFilter filter, @Nullable ZoneId zone, LocalDateTime start,
+			LocalDateTime end) {
+		final DatumFilter f = filter.copy();
+		if (zone == null) {
+			f.setLocalStartDate(start);
+			f.setLocalEndDate(end);
+		} else {
+			f.setStartDate(start.atZone(zone));
+			f.setEndDate(end.atZone(zone));
+		}
+		return f;
+	}
+
+	/**
+	 * Generate a cache key for a query.
+	 *
+	 * @param tokenId     the credentials token ID
+	 * @param filter      the query filter
+	 * @param displayMode the display mode, which determines the response content
+	 *                    type
+	 * @return the key
+	 */
+	public static String cacheKey(@Nullable String tokenId, DatumFilter filter, ResultDisplayMode displayMode) {
+		return DiskCache.cacheKey(tokenId, normalizedFilter(filter),
+				displayMode == ResultDisplayMode.CSV ? "csv" : "cbor");
+	}
+
+	/**
+	 * Get a normalized string representation of a query filter.
+	 *
+	 * <p>
+	 * The filter request parameters are sorted by name, and the values of ID list
+	 * parameters are sorted, so that equivalent filters produce the same result.
+	 * </p>
+	 *
+	 * @param filter the filter
+	 * @return the normalized representation
+	 */
+	public static String normalizedFilter(DatumFilter filter) {
+		final MultiValueMap<String, Object> params = filter.toRequestMap();
+		final SortedMap<String, String> normalized = new TreeMap<>();
+		for (Entry<String, List<Object>> e : params.entrySet()) {
+			final boolean unordered = UNORDERED_PARAMETERS.contains(e.getKey());
+			// @formatter:off
+			normalized.put(e.getKey(), e.getValue().stream()
+					.map(String::valueOf)
+					.flatMap(v -> unordered ? Arrays.stream(v.split("\\s*,\\s*")).sorted() : Stream.of(v))
+					.collect(joining(",")));
+			// @formatter:on
+		}
+		return normalized.toString();
+	}
+
+}
@@ -0,0 +1,198 @@
+package s10k.tool.datum.util;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.ZonedDateTime;
+
+import org.jspecify.annotations.Nullable;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import s10k.tool.common.domain.ResultDisplayMode;
+import s10k.tool.datum.domain.DatumExportCheckpoint;
+import s10k.tool.datum.domain.DatumFilter;
+import s10k.tool.datum.domain.DatumTimeSlice;
+
+/**
+ * Utilities for checkpointing datum exports so they can be resumed.
+ */
+public final class DatumCheckpointUtils {
+
+	/** The file name extension added to an output file name for its checkpoint. */
+	public static final String CHECKPOINT_EXTENSION = ".checkpoint";
+
+	private DatumCheckpointUtils() {
+		// not available
+	}
+
+	/**
+	 * Get the checkpoint file path for an output file.
+	 *
+	 * @param output the output file
+	 * @return the checkpoint file, in the same directory as {@code output}
+	 */
+	public static Path checkpointPath(Path output) {
+		return output.resolveSibling(output.getFileName().toString() + CHECKPOINT_EXTENSION);
+	}
+
+	/**
+	 * Generate a normalized representation of an export query.
+	 *
+	 * <p>
+	 * The page size, display mode, and time slice size are included, as a
+	 * checkpoint is only valid for an export with the same settings.
+	 * </p>
+	 *
+	 * @param filter      the query filter
+	 * @param displayMode the display mode
+	 * @param pageSize    the page size
+	 * @param slice       the time slice size, or {@code null}
+	 * @return the query representation
+	 */
+	public static String exportQuery(DatumFilter filter, ResultDisplayMode displayMode, int pageSize,
+			@Nullable DatumTimeSlice slice) {
+		return "%s;%s;%d;%s".formatted(DatumCacheUtils.normalizedFilter(filter), displayMode, pageSize,
+				slice != null ? slice : "");
+	}
+
+	/**
+	 * Load a checkpoint.
+	 *
+	 * @param objectMapper the object mapper
+	 * @param path         the checkpoint file
+	 * @return the checkpoint, or {@code null} if the file does not exist
+	 * @throws IOException if any IO error occurs
+	 */
+	public static @Nullable DatumExportCheckpoint loadCheckpoint(ObjectMapper objectMapper, Path path)
+			throws IOException {
+		try {
+			return objectMapper.readValue(Files.readAllBytes(path), DatumExportCheckpoint.class);
+		} catch (NoSuchFileException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Save a checkpoint.
+	 *
+	 * <p>
+	 * The checkpoint is written to a temporary file that then replaces any
+	 * existing checkpoint, so an interrupted save does not leave a partial
+	 * checkpoint.
+	 * </p>
+	 *
+	 * @param objectMapper the object mapper
+	 * @param path         the checkpoint file
+	 * @param checkpoint   the checkpoint to save
+	 * @throws IOException if any IO error occurs
+	 */
+	public static void saveCheckpoint(ObjectMapper objectMapper, Path path, DatumExportCheckpoint checkpoint)
+			throws IOException {
+		final Path tmp = path.resolveSibling(path.getFileName().toString() + ".tmp");
+		Files.write(tmp, objectMapper.writeValueAsBytes(checkpoint));
+		try {
+			Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	/**
+	 * Create a checkpoint for the position following a completed page of results.
+	 *
+	 * @param query        the export query
+	 * @param pageFilter   the filter used to fetch the page
+	 * @param count        the number of results in the page
+	 * @param sliced       {@code true} if the export is time sliced
+	 * @param outputLength the output length after writing the page
+	 * @param total        the total number of results exported, including the
+	 *                     page
+	 * @return the checkpoint
+	 */
+	public static DatumExportCheckpoint checkpoint(String query, DatumFilter pageFilter, int count, boolean sliced,
+			long outputLength, long total) {
+		final Long offset = pageFilter.getOffset();
+		final Integer max = pageFilter.getMax();
+		final long nextOffset = (offset != null ? offset : 0L) + count;
+		if (!sliced) {
+			return new DatumExportCheckpoint(query, outputLength, total, nextOffset, null, null);
+		}
+		if (max == null || count < max) {
+			// slice complete: resume from the start of the next slice
+			return new DatumExportCheckpoint(query, outputLength, total, 0L, endDate(pageFilter), null);
+		}
+		return new DatumExportCheckpoint(query, outputLength, total, nextOffset, startDate(pageFilter),
+				endDate(pageFilter));
+	}
+
+	/**
+	 * Get the start date of a filter, as a string.
+	 *
+	 * @param filter the filter
+	 * @return the local or zoned start date, or {@code null} if not set
+	 */
+	public static @Nullable String startDate(DatumFilter filter) {
+		final LocalDateTime local = filter.getLocalStartDate();
+		if (local != null) {
+			return local.toString();
+		}
+		final ZonedDateTime date = filter.getStartDate();
+		return (date != null ? date.toString() : null);
+	}
+
+	/**
+	 * Get the end date of a filter, as a string.
+	 *
+	 * @param filter the filter
+	 * @return the local or zoned end date, or {@code null} if not set
+	 */
+	public static @Nullable String endDate(DatumFilter filter) {
+		final LocalDateTime local = filter.getLocalEndDate();
+		if (local != null) {
+			return local.toString();
+		}
+		final ZonedDateTime date = filter.getEndDate();
+		return (date != null ? date.toString() : null);
+	}
+
+	/**
+	 * Set the start date of a filter from a string.
+	 *
+	 * <p>
+	 * If the filter uses local dates, the value is parsed as a local date,
+	 * otherwise as a zoned date.
+	 * </p>
+	 *
+	 * @param filter the filter to update
+	 * @param value  the date string, as returned by
+	 *               {@link #startDate(DatumFilter)}
+	 */
+	public static void setStartDate(DatumFilter filter, String value) {
+		if (filter.getLocalStartDate() != null) {
+			filter.setLocalStartDate(LocalDateTime.parse(value));
+		} else {
+			filter.setStartDate(ZonedDateTime.parse(value));
+		}
+	}
+
+	/**
+	 * Set the end date of a filter from a string.
+	 *
+	 * @param filter the filter to update
+	 * @param value  the date string, as returned by {@link #endDate(DatumFilter)}
+	 * @see #setStartDate(DatumFilter, String)
+	 */
+	public static void setEndDate(DatumFilter filter, String value) {
+		if (filter.getLocalEndDate() != null) {
+			filter.setLocalEndDate(LocalDateTime.parse(value));
+		} else {
+			filter.setEndDate(ZonedDateTime.parse(value));
+		}
+	}
+
+}
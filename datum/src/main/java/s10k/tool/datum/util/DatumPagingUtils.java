@@ -0,0 +1,588 @@
+package s10k.tool.datum.util;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+import org.jspecify.annotations.Nullable;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+
+import s10k.tool.datum.domain.DatumFilter;
+import s10k.tool.datum.domain.DatumTimeSlice;
+
+/**
+ * Utilities for working with paginated datum query results.
+ */
+public final class DatumPagingUtils {
+
+	/** The default page size to use when automatically paging results. */
+	public static final int DEFAULT_PAGE_SIZE = 1000;
+
+	/**
+	 * The number of pages in a slice above which adaptive slicing reduces the slice
+	 * size.
+	 */
+	public static final int ADAPTIVE_MAX_SLICE_PAGES = 4;
+
+	/**
+	 * The maximum number of pages a time slice fetches ahead of the pages being
+	 * handled.
+	 */
+	public static final int MAX_PENDING_SLICE_PAGES = 2;
+
+	private static final CBORFactory CBOR_FACTORY = new CBORFactory();
+
+	private DatumPagingUtils() {
+		// not available
+	}
+
+	/**
+	 * API for handling a single page of results.
+	 *
+	 * @param <T> the page type
+	 */
+	@FunctionalInterface
+	public interface PageHandler<T> {
+
+		/**
+		 * Handle a page of results.
+		 *
+		 * @param page   the page
+		 * @param offset the result offset of the first result in the page
+		 * @param first  {@code true} if this is the first page
+		 * @throws IOException if any IO error occurs
+		 */
+		void handlePage(T page, long offset, boolean first) throws IOException;
+
+		/**
+		 * Callback after a page of results has been handled.
+		 *
+		 * <p>
+		 * This method is called for every page, including empty pages that are not
+		 * passed to {@link #handlePage(Object, long, boolean)}, and can be used to
+		 * track progress through the results.
+		 * </p>
+		 *
+		 * @param pageFilter the filter used to fetch the page, including the page
+		 *                   offset and size and any time slice dates
+		 * @param count      the number of results in the page
+		 * @throws IOException if any IO error occurs
+		 */
+		default void pageComplete(DatumFilter pageFilter, int count) throws IOException {
+			// extending classes can override
+		}
+
+	}
+
+	/**
+	 * Iterate over all pages of results for a query.
+	 *
+	 * <p>
+	 * While each page is handled, the following page is fetched asynchronously on
+	 * {@code executor}, so at most two pages are held in memory at any time.
+	 * Iteration stops once a page returns fewer than {@code pageSize} results.
+	 * </p>
+	 *
+	 * @param <T>      the page type
+	 * @param filter   the query filter; the offset, if set, is used as the starting
+	 *                 offset
+	 * @param pageSize the page size
+	 * @param executor the executor to fetch pages with
+	 * @param fetcher  the function to fetch a page of results, given a filter
+	 *                 configured with the page offset and size
+	 * @param counter  the function to count the results in a page
+	 * @param handler  the handler for each page
+	 * @return the total number of results handled
+	 * @throws IOException if any IO error occurs
+	 */
+	public static <T> long forEachPage(DatumFilter filter, int pageSize, Executor executor,
+			Function<DatumFilter, T> fetcher, ToIntFunction<T> counter, PageHandler<T> handler) throws IOException {
+		return forEachPage(filter, pageSize, executor, fetcher, counter, handler, true, 0L);
+	}
+
+	/**
+	 * Iterate over all pages of results for a list of queries, as if they were a
+	 * single query.
+	 *
+	 * <p>
+	 * Each query is paged as in
+	 * {@link #forEachPage(DatumFilter, int, Executor, Function, ToIntFunction, PageHandler)},
+	 * in list order. The handler is passed offsets that continue across queries,
+	 * and only the very first page is passed as the first page.
+	 * </p>
+	 *
+	 * @param <T>      the page type
+	 * @param filters  the query filters, for example date ranges that together
+	 *                 cover a larger query
+	 * @param pageSize the page size
+	 * @param executor the executor to fetch pages with
+	 * @param fetcher  the function to fetch a page of results, given a filter
+	 *                 configured with the page offset and size
+	 * @param counter  the function to count the results in a page
+	 * @param handler  the handler for each page
+	 * @return the total number of results handled
+	 * @throws IOException if any IO error occurs
+	 */
+	public static <T> long forEachPage(List<DatumFilter> filters, int pageSize, Executor executor,
+			Function<DatumFilter, T> fetcher, ToIntFunction<T> counter, PageHandler<T> handler) throws IOException {
+		long total = 0;
+		boolean first = true;
+		for (DatumFilter filter : filters) {
+			total += forEachPage(filter, pageSize, executor, fetcher, counter, handler, first, total);
+			first = false;
+		}
+		return total;
+	}
+
+	private static <T> long forEachPage(DatumFilter filter, int pageSize, Executor executor,
+			Function<DatumFilter, T> fetcher, ToIntFunction<T> counter, PageHandler<T> handler, boolean handleFirst,
+			long handledOffset) throws IOException {
+		long offset = (filter.getOffset() != null ? filter.getOffset() : 0L);
+		long total = 0;
+		boolean first = handleFirst;
+		DatumFilter nextFilter = pageFilter(filter, pageSize, offset);
+		@Nullable CompletableFuture<T> next = fetchPage(nextFilter, executor, fetcher);
+		try {
+			while (next != null) {
+				final T page = join(next);
+				final DatumFilter pageFilter = nextFilter;
+				final int count = counter.applyAsInt(page);
+				next = null;
+				if (count >= pageSize) {
+					// prefetch the next page while this one is handled
+					nextFilter = pageFilter(filter, pageSize, offset + count);
+					next = fetchPage(nextFilter, executor, fetcher);
+				}
+				if (first || count > 0) {
+					handler.handlePage(page, handledOffset + offset, first);
+				}
+				handler.pageComplete(pageFilter, count);
+				first = false;
+				offset += count;
+				total += count;
+			}
+		} finally {
+			if (next != null) {
+				next.cancel(true);
+			}
+		}
+		return total;
+	}
+
+	private static <T> CompletableFuture<T> fetchPage(DatumFilter pageFilter, Executor executor,
+			Function<DatumFilter, T> fetcher) {
+		return CompletableFuture.supplyAsync(() -> fetcher.apply(pageFilter), executor);
+	}
+
+	private static DatumFilter pageFilter(DatumFilter filter, int pageSize, long offset) {
+		final DatumFilter pageFilter = filter.copy();
+		pageFilter.setMax(pageSize);
+		pageFilter.setOffset(offset);
+		return pageFilter;
+	}
+
+	/**
+	 * Iterate over all pages of results for a query, split into time slices that
+	 * are fetched in parallel.
+	 *
+	 * <p>
+	 * The filter date range is split into slices of size {@code slice}, and up to
+	 * {@code parallelism} slices are fetched concurrently on {@code executor}, each
+	 * slice requesting all of its pages. Pages are handled in slice order, so
+	 * results are returned in the same time order as a single query would return
+	 * them. The pages of the oldest slice are handled as they arrive, while each
+	 * following slice buffers at most {@link #MAX_PENDING_SLICE_PAGES} pages before
+	 * waiting for its turn, so at most {@code parallelism} times that many pages
+	 * are held in memory at any time.
+	 * </p>
+	 *
+	 * <p>
+	 * With {@link DatumTimeSlice#Adaptive} slicing, slices start at one month and
+	 * are made smaller when a slice requires more than
+	 * {@link #ADAPTIVE_MAX_SLICE_PAGES} pages, or larger when a slice fills less
+	 * than a quarter of a single page.
+	 * </p>
+	 *
+	 * <p>
+	 * For aggregate queries the slice size is never smaller than the aggregation
+	 * period, so no aggregate result is split across slices. Reading queries, and
+	 * aggregations that cannot be split by time, are not supported.
+	 * </p>
+	 *
+	 * @param <T>         the page type
+	 * @param filter      the query filter, which must include a start and end date
+	 * @param slice       the slice size
+	 * @param parallelism the maximum number of slices to fetch concurrently
+	 * @param pageSize    the page size
+	 * @param executor    the executor to fetch slices with; slice tasks block
+	 *                    while waiting for their turn, so this should not be a
+	 *                    small fixed-size pool
+	 * @param fetcher     the function to fetch a page of results, given a filter
+	 *                    configured with the slice dates and page offset and size
+	 * @param counter     the function to count the results in a page
+	 * @param handler     the handler for each page
+	 * @return the total number of results handled
+	 * @throws IllegalArgumentException if {@code filter} does not include both a
+	 *                                  start and end date, or is for a query that
+	 *                                  cannot be split into time slices
+	 * @throws IOException              if any IO error occurs
+	 */
+	public static <T> long forEachSlicedPage(DatumFilter filter, DatumTimeSlice slice, int parallelism,
+			int pageSize, Executor executor, Function<DatumFilter, T> fetcher, ToIntFunction<T> counter,
+			PageHandler<T> handler) throws IOException {
+		final TimeSlicer slicer = new TimeSlicer(filter, slice);
+		final int maxPending = Math.max(1, parallelism);
+		final Deque<SliceFetch<T>> pending = new ArrayDeque<>(maxPending);
+		long total = 0;
+		boolean first = true;
+		try {
+			while (pending.size() < maxPending && slicer.hasNext()) {
+				pending.add(SliceFetch.start(slicer.next(), pageSize, executor, fetcher, counter));
+			}
+			while (!pending.isEmpty()) {
+				final SliceFetch<T> head = pending.getFirst();
+				int pageCount = 0;
+				int firstCount = 0;
+				CountedPage<T> page;
+				while ((page = head.take()) != null) {
+					if (pageCount == 0) {
+						firstCount = page.count();
+					}
+					pageCount++;
+					if (first || page.count() > 0) {
+						handler.handlePage(page.page(), total, first);
+					}
+					handler.pageComplete(page.filter(), page.count());
+					first = false;
+					total += page.count();
+				}
+				pending.removeFirst();
+				slicer.adapt(pageCount, firstCount, pageSize);
+				while (pending.size() < maxPending && slicer.hasNext()) {
+					pending.add(SliceFetch.start(slicer.next(), pageSize, executor, fetcher, counter));
+				}
+			}
+		} finally {
+			for (SliceFetch<T> f : pending) {
+				f.cancel();
+			}
+		}
+		return total;
+	}
+
+	private static record CountedPage<T>(T page, DatumFilter filter, int count) {
+
+	}
+
+	/**
+	 * Fetch all the pages of a time slice, handing them over through a bounded
+	 * queue.
+	 *
+	 * @param <T> the page type
+	 */
+	private static final class SliceFetch<T> implements Runnable {
+
+		private static final Object END = new Object();
+
+		private final DatumFilter sliceFilter;
+		private final int pageSize;
+		private final Function<DatumFilter, T> fetcher;
+		private final ToIntFunction<T> counter;
+		private final BlockingQueue<Object> pages = new ArrayBlockingQueue<>(MAX_PENDING_SLICE_PAGES);
+		private volatile boolean cancelled;
+
+		private SliceFetch(DatumFilter sliceFilter, int pageSize, Function<DatumFilter, T> fetcher,
+				ToIntFunction<T> counter) {
+			super();
+			this.sliceFilter = sliceFilter;
+			this.pageSize = pageSize;
+			this.fetcher = fetcher;
+			this.counter = counter;
+		}
+
+		private static <T> SliceFetch<T> start(DatumFilter sliceFilter, int pageSize, Executor executor,
+				Function<DatumFilter, T> fetcher, ToIntFunction<T> counter) {
+			final SliceFetch<T> fetch = new SliceFetch<>(sliceFilter, pageSize, fetcher, counter);
+			executor.execute(fetch);
+			return fetch;
+		}
+
+		@Override
+		public void run() {
+			Object last = END;
+			try {
+				long offset = 0;
+				int count;
+				do {
+					DatumFilter pageFilter = pageFilter(sliceFilter, pageSize, offset);
+					T page = fetcher.apply(pageFilter);
+					count = counter.applyAsInt(page);
+					if (!offer(new CountedPage<>(page, pageFilter, count))) {
+						return;
+					}
+					offset += count;
+				} while (count >= pageSize);
+			} catch (RuntimeException | Error e) {
+				last = e;
+			}
+			offer(last);
+		}
+
+		private boolean offer(Object o) {
+			try {
+				while (!cancelled) {
+					if (pages.offer(o, 100, TimeUnit.MILLISECONDS)) {
+						return true;
+					}
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return false;
+		}
+
+		/**
+		 * Take the next page, waiting for it to be fetched if necessary.
+		 *
+		 * @return the next page, or {@code null} if all pages have been taken
+		 * @throws IOException if fetching the page failed with an IO error
+		 */
+		@SuppressWarnings("unchecked")
+		private @Nullable CountedPage<T> take() throws IOException {
+			final Object o;
+			try {
+				o = pages.take();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("Interrupted waiting for time slice results.");
+			}
+			if (o == END) {
+				return null;
+			} else if (o instanceof UncheckedIOException io) {
+				throw io.getCause();
+			} else if (o instanceof RuntimeException re) {
+				throw re;
+			} else if (o instanceof Error err) {
+				throw err;
+			}
+			return (CountedPage<T>) o;
+		}
+
+		private void cancel() {
+			cancelled = true;
+			pages.clear();
+		}
+
+	}
+
+	/**
+	 * Generate successive time slice filters from a filter date range.
+	 */
+	private static final class TimeSlicer {
+
+		private final DatumFilter filter;
+		private final boolean adaptive;
+		private final DatumTimeSlice minSize;
+		private final @Nullable ZoneId zone;
+		private final LocalDateTime end;
+		private LocalDateTime next;
+		private DatumTimeSlice size;
+
+		private TimeSlicer(DatumFilter filter, DatumTimeSlice slice) {
+			super();
+			if (filter.isReadingStyle()) {
+				throw new IllegalArgumentException("Reading queries cannot be split into time slices.");
+			}
+			final DatumTimeSlice min = DatumTimeSlice.minimumFor(filter.getAggregation());
+			if (min == null) {
+				throw new IllegalArgumentException(
+						"%s aggregate queries cannot be split into time slices.".formatted(filter.getAggregation()));
+			}
+			this.filter = filter;
+			this.adaptive = (slice == DatumTimeSlice.Adaptive);
+			this.minSize = min;
+			this.size = (adaptive ? DatumTimeSlice.Month : slice).atLeast(min);
+			final LocalDateTime localStartDate = filter.getLocalStartDate();
+			final LocalDateTime localEndDate = filter.getLocalEndDate();
+			final ZonedDateTime startDate = filter.getStartDate();
+			final ZonedDateTime endDate = filter.getEndDate();
+			if (localStartDate != null && localEndDate != null) {
+				this.zone = null;
+				this.next = localStartDate;
+				this.end = localEndDate;
+			} else if (startDate != null && endDate != null) {
+				this.zone = startDate.getZone();
+				this.next = startDate.toLocalDateTime();
+				this.end = endDate.withZoneSameInstant(startDate.getZone()).toLocalDateTime();
+			} else {
+				throw new IllegalArgumentException("A minimum and maximum date are required to query time slices.");
+			}
+		}
+
+		private boolean hasNext() {
+			return next.isBefore(end);
+		}
+
+		private DatumFilter next() {
+			LocalDateTime sliceEnd = size.nextBoundary(next);
+			if (sliceEnd.isAfter(end)) {
+				sliceEnd = end;
+			}
+			final DatumFilter f = filter.copy();
+			if (zone == null) {
+				f.setLocalStartDate(next);
+				f.setLocalEndDate(sliceEnd);
+			} else {
+				f.setStartDate(next.atZone(zone));
+				f.setEndDate(sliceEnd.atZone(zone));
+			}
+			next = sliceEnd;
+			return f;
+		}
+
+		private void adapt(int pageCount, int firstCount, int pageSize) {
+			if (!adaptive) {
+				return;
+			}
+			if (pageCount > ADAPTIVE_MAX_SLICE_PAGES) {
+				size = size.smaller().atLeast(minSize);
+			} else if (pageCount == 1 && firstCount < pageSize / 4) {
+				size = size.larger();
+			}
+		}
+
+	}
+
+	/**
+	 * Wait for a future to complete, unwrapping any exception thrown by the task.
+	 *
+	 * @param <T>    the result type
+	 * @param future the future
+	 * @return the result
+	 * @throws IOException if the task failed with an IO error
+	 */
+	public static <T> T join(CompletableFuture<T> future) throws IOException {
+		try {
+			return future.join();
+		} catch (CompletionException e) {
+			Throwable t = e.getCause();
+			if (t instanceof UncheckedIOException io) {
+				throw io.getCause();
+			} else if (t instanceof RuntimeException re) {
+				throw re;
+			} else if (t instanceof Error err) {
+				throw err;
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * Count the number of data rows in CSV content.
+	 *
+	 * <p>
+	 * The first line of the content is assumed to be a header row, and is not
+	 * counted. Line breaks within quoted values are ignored.
+	 * </p>
+	 *
+	 * @param content the CSV content
+	 * @return the number of data rows
+	 */
+	public static int csvRowCount(byte @Nullable [] content) {
+		if (content == null || content.length < 1) {
+			return 0;
+		}
+		int lines = 0;
+		boolean quoted = false;
+		boolean lineContent = false;
+		for (byte b : content) {
+			if (b == '"') {
+				quoted = !quoted;
+				lineContent = true;
+			} else if (b == '\n' && !quoted) {
+				lines++;
+				lineContent = false;
+			} else if (b != '\r') {
+				lineContent = true;
+			}
+		}
+		if (lineContent) {
+			lines++;
+		}
+		return Math.max(0, lines - 1);
+	}
+
+	/**
+	 * Get the offset of the content following the first line of CSV content.
+	 *
+	 * @param content the CSV content
+	 * @return the offset of the first data row, or the content length if there is
+	 *         only a header row
+	 */
+	public static int csvDataOffset(byte[] content) {
+		for (int i = 0; i < content.length; i++) {
+			if (content[i] == '\n') {
+				return i + 1;
+			}
+		}
+		return content.length;
+	}
+
+	/**
+	 * Count the number of datum in CBOR encoded stream datum content.
+	 *
+	 * <p>
+	 * Only the top-level {@code data} array is inspected, without binding any
+	 * values.
+	 * </p>
+	 *
+	 * @param content the CBOR content
+	 * @return the number of datum
+	 * @throws UncheckedIOException if the content cannot be parsed
+	 */
+	public static int cborRowCount(byte @Nullable [] content) {
+		if (content == null || content.length < 1) {
+			return 0;
+		}
+		try (JsonParser p = CBOR_FACTORY.createParser(content)) {
+			if (p.nextToken() != JsonToken.START_OBJECT) {
+				return 0;
+			}
+			JsonToken t;
+			while ((t = p.nextToken()) == JsonToken.FIELD_NAME) {
+				String field = p.currentName();
+				t = p.nextToken();
+				if ("data".equals(field) && t == JsonToken.START_ARRAY) {
+					int count = 0;
+					while (p.nextToken() != JsonToken.END_ARRAY) {
+						p.skipChildren();
+						count++;
+					}
+					return count;
+				}
+				p.skipChildren();
+			}
+			return 0;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+}
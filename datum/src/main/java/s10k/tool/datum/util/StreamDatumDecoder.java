@@ -0,0 +1,255 @@
+package s10k.tool.datum.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jspecify.annotations.Nullable;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+
+import net.solarnetwork.domain.datum.DatumSamplesType;
+import net.solarnetwork.domain.datum.ObjectDatumStreamMetadata;
+import s10k.tool.datum.domain.StreamDatumView;
+
+/**
+ * Incremental decoder for stream datum result sets.
+ *
+ * <p>
+ * Stream datum result sets are objects with a {@code meta} array of stream
+ * metadata and a {@code data} array of datum, each datum itself an array like
+ * {@code [metaIndex, timestamp, i..., a..., s..., tags...]}. For aggregate datum
+ * the timestamp is an array of {@code [start, end]}, and each instantaneous
+ * value is an array of {@code [average, count, min, max]} and each accumulating
+ * value an array of {@code [difference, start, end]}.
+ * </p>
+ *
+ * <p>
+ * The metadata is decoded first, and then each datum is decoded into a single
+ * reused {@link StreamDatumView} and passed to a handler, so memory use does not
+ * depend on the number of datum in the result set.
+ * </p>
+ */
+public final class StreamDatumDecoder {
+
+	private static final CBORFactory CBOR_FACTORY = new CBORFactory();
+
+	private StreamDatumDecoder() {
+		// not available
+	}
+
+	/**
+	 * API for handling decoded stream datum.
+	 */
+	@FunctionalInterface
+	public interface StreamDatumHandler {
+
+		/**
+		 * Handle the stream metadata.
+		 *
+		 * <p>
+		 * This method is called once, before any datum are handled.
+		 * </p>
+		 *
+		 * @param metadata the metadata, in result set order
+		 * @throws IOException if any IO error occurs
+		 */
+		default void handleMetadata(List<ObjectDatumStreamMetadata> metadata) throws IOException {
+			// extending classes can override
+		}
+
+		/**
+		 * Handle a datum.
+		 *
+		 * <p>
+		 * The given view is reused for every datum, and must not be retained.
+		 * </p>
+		 *
+		 * @param datum the datum
+		 * @throws IOException if any IO error occurs
+		 */
+		void handleDatum(StreamDatumView datum) throws IOException;
+
+	}
+
+	/**
+	 * Decode a CBOR encoded stream datum result set.
+	 *
+	 * @param objectMapper the object mapper to decode metadata with
+	 * @param in           the input stream to read
+	 * @param handler      the handler
+	 * @return the number of datum decoded
+	 * @throws IOException if any IO error occurs
+	 */
+	public static long decodeCbor(ObjectMapper objectMapper, InputStream in, StreamDatumHandler handler)
+			throws IOException {
+		try (JsonParser p = CBOR_FACTORY.createParser(in)) {
+			p.setCodec(objectMapper);
+			return decode(objectMapper, p, handler);
+		}
+	}
+
+	/**
+	 * Decode a stream datum result set.
+	 *
+	 * @param objectMapper the object mapper to decode metadata with
+	 * @param p            the parser, positioned before the start of the result
+	 *                     object
+	 * @param handler      the handler
+	 * @return the number of datum decoded
+	 * @throws IOException if any IO error occurs
+	 */
+	public static long decode(ObjectMapper objectMapper, JsonParser p, StreamDatumHandler handler)
+			throws IOException {
+		if (p.nextToken() != JsonToken.START_OBJECT) {
+			return 0;
+		}
+		@Nullable List<ObjectDatumStreamMetadata> metadata = null;
+		long count = 0;
+		JsonToken t;
+		while ((t = p.nextToken()) == JsonToken.FIELD_NAME) {
+			final String field = p.currentName();
+			t = p.nextToken();
+			if ("meta".equals(field) && t == JsonToken.START_ARRAY) {
+				metadata = new ArrayList<>(4);
+				while (p.nextToken() == JsonToken.START_OBJECT) {
+					JsonNode node = p.readValueAsTree();
+					metadata.add(objectMapper.treeToValue(node, ObjectDatumStreamMetadata.class));
+				}
+				handler.handleMetadata(metadata);
+			} else if ("data".equals(field) && t == JsonToken.START_ARRAY) {
+				if (metadata == null) {
+					throw new JsonParseException(p, "Stream datum data encountered before metadata.");
+				}
+				final StreamDatumView view = new StreamDatumView();
+				while (p.nextToken() == JsonToken.START_ARRAY) {
+					decodeDatum(p, metadata, view);
+					handler.handleDatum(view);
+					count++;
+				}
+			} else {
+				p.skipChildren();
+			}
+		}
+		if (metadata == null) {
+			handler.handleMetadata(List.of());
+		}
+		return count;
+	}
+
+	private static void decodeDatum(JsonParser p, List<ObjectDatumStreamMetadata> metadata, StreamDatumView view)
+			throws IOException {
+		final int metaIdx = p.nextIntValue(-1);
+		if (metaIdx < 0 || metaIdx >= metadata.size()) {
+			throw new JsonParseException(p, "Stream datum metadata index %d not valid.".formatted(metaIdx));
+		}
+		final ObjectDatumStreamMetadata meta = metadata.get(metaIdx);
+		JsonToken t = p.nextToken();
+		final boolean agg = (t == JsonToken.START_ARRAY);
+		final Instant ts;
+		@Nullable Instant endTs = null;
+		if (agg) {
+			ts = Instant.ofEpochMilli(p.nextLongValue(0L));
+			t = p.nextToken();
+			if (t == JsonToken.VALUE_NUMBER_INT) {
+				endTs = Instant.ofEpochMilli(p.getLongValue());
+			}
+			skipToEndArray(p, t);
+		} else {
+			ts = Instant.ofEpochMilli(p.getLongValue());
+		}
+		view.reset(metaIdx, meta, ts, endTs, agg);
+
+		final int iLen = propertyCount(meta, DatumSamplesType.Instantaneous);
+		for (int i = 0; i < iLen; i++) {
+			t = p.nextToken();
+			if (t == JsonToken.END_ARRAY) {
+				return;
+			} else if (t == JsonToken.START_ARRAY) {
+				@Nullable BigDecimal[] vals = decimalArray(p, 4);
+				view.setInstantaneous(i, vals[0], vals[1], vals[2], vals[3]);
+			} else {
+				view.setInstantaneous(i, decimalValue(p, t), null, null, null);
+			}
+		}
+		final int aLen = propertyCount(meta, DatumSamplesType.Accumulating);
+		for (int i = 0; i < aLen; i++) {
+			t = p.nextToken();
+			if (t == JsonToken.END_ARRAY) {
+				return;
+			} else if (t == JsonToken.START_ARRAY) {
+				@Nullable BigDecimal[] vals = decimalArray(p, 3);
+				view.setAccumulating(i, vals[0], vals[1], vals[2]);
+			} else {
+				view.setAccumulating(i, decimalValue(p, t), null, null);
+			}
+		}
+		final int sLen = propertyCount(meta, DatumSamplesType.Status);
+		for (int i = 0; i < sLen; i++) {
+			t = p.nextToken();
+			if (t == null || t == JsonToken.END_ARRAY) {
+				return;
+			} else if (t.isScalarValue() && t != JsonToken.VALUE_NULL) {
+				view.setStatus(i, p.getValueAsString());
+			} else {
+				p.skipChildren();
+			}
+		}
+		while ((t = p.nextToken()) != JsonToken.END_ARRAY && t != null) {
+			if (t == JsonToken.VALUE_STRING) {
+				view.addTag(p.getText());
+			} else {
+				p.skipChildren();
+			}
+		}
+	}
+
+	private static void skipToEndArray(JsonParser p, @Nullable JsonToken t) throws IOException {
+		while (t != JsonToken.END_ARRAY && t != null) {
+			p.skipChildren();
+			t = p.nextToken();
+		}
+	}
+
+	private static int propertyCount(ObjectDatumStreamMetadata meta, DatumSamplesType type) {
+		String[] names = meta.propertyNamesForType(type);
+		return (names != null ? names.length : 0);
+	}
+
+	private static @Nullable BigDecimal[] decimalArray(JsonParser p, int len) throws IOException {
+		final @Nullable BigDecimal[] result = new BigDecimal[len];
+		int i = 0;
+		JsonToken t;
+		while ((t = p.nextToken()) != JsonToken.END_ARRAY && t != null) {
+			@Nullable BigDecimal val = decimalValue(p, t);
+			if (i < len) {
+				result[i++] = val;
+			}
+		}
+		return result;
+	}
+
+	private static @Nullable BigDecimal decimalValue(JsonParser p, @Nullable JsonToken t) throws IOException {
+		if (t == JsonToken.VALUE_NUMBER_INT || t == JsonToken.VALUE_NUMBER_FLOAT) {
+			return p.getDecimalValue();
+		} else if (t == JsonToken.VALUE_STRING) {
+			try {
+				return new BigDecimal(p.getText());
+			} catch (NumberFormatException e) {
+				return null;
+			}
+		} else if (t != null) {
+			p.skipChildren();
+		}
+		return null;
+	}
+
+}
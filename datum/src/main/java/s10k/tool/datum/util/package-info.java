@@ -0,0 +1,6 @@
+/**
+ * Datum utilities.
+ */
+
+@org.jspecify.annotations.NullMarked
+package s10k.tool.datum.util;
@@ -0,0 +1,251 @@
+package s10k.tool.datum.cmd;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.BDDAssertions.then;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import net.solarnetwork.codec.JsonUtils;
+import s10k.tool.common.cmd.ToolCmd;
+import s10k.tool.datum.domain.DatumExportCheckpoint;
+import s10k.tool.datum.util.DatumCheckpointUtils;
+import s10k.tool.test.FakeSolarNetworkData;
+import s10k.tool.test.FakeSolarNetworkServer;
+import s10k.tool.test.ToolCommandFactory;
+
+/**
+ * Test cases for the {@link ListDatumCmd} class, run against a
+ * {@link FakeSolarNetworkServer}.
+ */
+public class ListDatumCmdTests {
+
+	private static final String DATUM_REQUEST = "GET /solarquery/api/v1/sec/datum/stream/datum";
+
+	/** Two days of 10-minute datum for 2 nodes with 2 sources each. */
+	private static final int DATUM_COUNT = 2 * 144 * 4;
+
+	@TempDir
+	private Path tmpDir;
+
+	private String userHome;
+	private PrintStream stdout;
+	private ByteArrayOutputStream out;
+	private ObjectMapper objectMapper;
+	private FakeSolarNetworkServer server;
+
+	@BeforeEach
+	public void setup() throws Exception {
+		// keep the datum cache out of the real home directory
+		userHome = System.getProperty("user.home");
+		System.setProperty("user.home", tmpDir.toString());
+		stdout = System.out;
+		out = new ByteArrayOutputStream();
+		System.setOut(new PrintStream(out, true, UTF_8));
+		objectMapper = JsonUtils.newDatumObjectMapper();
+		server = new FakeSolarNetworkServer(new FakeSolarNetworkData(2, 2, 600_000L));
+		server.start();
+	}
+
+	@AfterEach
+	public void teardown() {
+		server.close();
+		System.setOut(stdout);
+		System.setProperty("user.home", userHome);
+	}
+
+	private int execute(String... args) {
+		out.reset();
+		server.resetStats();
+		final var app = new ToolCmd("test", "secret");
+		return app.commandLine(new ToolCommandFactory(server.requestFactory(new SimpleClientHttpRequestFactory()),
+				objectMapper), new DatumCmd()).execute(args);
+	}
+
+	private static List<String> args(String... extra) {
+		final List<String> result = new ArrayList<>(List.of("datum", "list", "-node", "100,101", "-min",
+				"2025-01-01", "-max", "2025-01-03", "-tz", "UTC", "-mode", "JSON"));
+		result.addAll(List.of(extra));
+		return result;
+	}
+
+	private int list(String... extra) {
+		return execute(args(extra).toArray(String[]::new));
+	}
+
+	private long datumRequestCount() {
+		return server.requests().stream().filter(DATUM_REQUEST::equals).count();
+	}
+
+	/**
+	 * Get the datum rows from JSON output, with one stream datum response per line.
+	 *
+	 * @param json the JSON output
+	 * @return the rows, as stream ID and date strings
+	 */
+	private List<String> rows(String json) throws Exception {
+		final List<String> result = new ArrayList<>();
+		for (String line : json.split("\n")) {
+			if (line.isBlank()) {
+				continue;
+			}
+			final JsonNode page = objectMapper.readTree(line);
+			final JsonNode meta = page.path("meta");
+			for (JsonNode row : page.path("data")) {
+				result.add("%s %s".formatted(meta.path(row.path(0).intValue()).path("streamId").textValue(),
+						Instant.ofEpochMilli(row.path(1).longValue())));
+			}
+		}
+		return result;
+	}
+
+	@Test
+	public void all_pages() throws Exception {
+		// WHEN
+		final int result = list("--all", "-M", "100", "--no-cache");
+
+		// THEN
+		then(result).as("Command succeeded").isZero();
+		final String output = out.toString(UTF_8);
+		final List<String> rows = rows(output);
+		then(rows).as("All datum listed").hasSize(DATUM_COUNT).doesNotHaveDuplicates();
+		then(output.lines()).as("One JSON object output per page").hasSize(DATUM_COUNT / 100 + 1);
+		then(datumRequestCount()).as("One request per page").isEqualTo(DATUM_COUNT / 100 + 1);
+	}
+
+	@Test
+	public void slice_days() throws Exception {
+		// GIVEN
+		list("--all", "--no-cache");
+		final List<String> all = rows(out.toString(UTF_8));
+
+		// WHEN
+		final int result = list("--slice", "Day", "--parallel", "2", "-M", "100", "--no-cache");
+
+		// THEN
+		then(result).as("Command succeeded").isZero();
+		final List<String> rows = rows(out.toString(UTF_8));
+		then(rows).as("Same datum listed as unsliced query").hasSize(DATUM_COUNT).doesNotHaveDuplicates()
+				.containsExactlyInAnyOrderElementsOf(all);
+		then(rows.subList(0, DATUM_COUNT / 2)).as("First day slice output first")
+				.allMatch(r -> r.contains(" 2025-01-01T"));
+		then(datumRequestCount()).as("Each day sliced into pages")
+				.isEqualTo(2 * (Math.ceilDiv(DATUM_COUNT / 2, 100)));
+	}
+
+	@Test
+	public void cache_settledQuery() throws Exception {
+		// GIVEN
+		then(list()).as("First query succeeded").isZero();
+		final String first = out.toString(UTF_8);
+		then(datumRequestCount()).as("First query fetched datum").isEqualTo(1L);
+
+		// WHEN
+		final int result = list();
+
+		// THEN
+		then(result).as("Second query succeeded").isZero();
+		then(datumRequestCount()).as("Second query of settled range served from cache").isZero();
+		then(out.toString(UTF_8)).as("Cached output same as first").isEqualTo(first);
+		then(rows(first)).as("All datum listed").hasSize(DATUM_COUNT);
+		try (var files = Files.walk(tmpDir.resolve(".s10k"))) {
+			then(files.filter(Files::isRegularFile).toList()).as("Cache stored in user home").isNotEmpty();
+		}
+	}
+
+	@Test
+	public void cache_notUsedWhenDisabled() throws Exception {
+		// GIVEN
+		list();
+
+		// WHEN
+		final int result = list("--no-cache");
+
+		// THEN
+		then(result).as("Command succeeded").isZero();
+		then(datumRequestCount()).as("Cache not used with --no-cache").isEqualTo(1L);
+	}
+
+	/**
+	 * Export all datum, failing the export partway through and then resuming it.
+	 *
+	 * @param extra the extra list arguments
+	 */
+	private void exportResumed(String... extra) throws Exception {
+		// GIVEN
+		final Path expected = tmpDir.resolve("expected.json");
+		final List<String> exportArgs = args(extra);
+		exportArgs.add("--no-cache");
+		final List<String> fullArgs = new ArrayList<>(exportArgs);
+		fullArgs.addAll(List.of("-out", expected.toString()));
+		then(execute(fullArgs.toArray(String[]::new))).as("Full export succeeded").isZero();
+
+		final Path output = tmpDir.resolve("export.json");
+		final Path checkpointFile = DatumCheckpointUtils.checkpointPath(output);
+		exportArgs.addAll(List.of("-out", output.toString()));
+		final AtomicInteger datumRequests = new AtomicInteger();
+		server.setFailureFilter(r -> DATUM_REQUEST.equals(r) && datumRequests.incrementAndGet() > 5);
+		then(execute(exportArgs.toArray(String[]::new))).as("Interrupted export failed").isOne();
+		then(checkpointFile).as("Checkpoint saved for interrupted export").exists();
+
+		final DatumExportCheckpoint checkpoint = DatumCheckpointUtils.loadCheckpoint(objectMapper, checkpointFile);
+		then(checkpoint).as("Checkpoint loaded").isNotNull();
+		then(checkpoint.count()).as("Some datum exported before interruption").isPositive()
+				.isLessThan(DATUM_COUNT);
+		// simulate a partially written page after the checkpoint
+		Files.writeString(output, "{\"partial\":", UTF_8, StandardOpenOption.APPEND);
+		then(Files.size(output)).as("Output longer than checkpoint").isGreaterThan(checkpoint.outputLength());
+
+		// WHEN
+		server.setFailureFilter(null);
+		exportArgs.add("--resume");
+		final int result = execute(exportArgs.toArray(String[]::new));
+
+		// THEN
+		then(result).as("Resumed export succeeded").isZero();
+		then(Files.readString(output, UTF_8)).as("Resumed export same as uninterrupted export")
+				.isEqualTo(Files.readString(expected, UTF_8));
+		then(rows(Files.readString(output, UTF_8))).as("No datum missing or duplicated").hasSize(DATUM_COUNT)
+				.doesNotHaveDuplicates();
+		then(datumRequestCount()).as("Only datum after checkpoint fetched")
+				.isLessThanOrEqualTo(Math.ceilDiv(DATUM_COUNT - checkpoint.count(), 100) + 2);
+		then(checkpointFile).as("Checkpoint deleted after export completes").doesNotExist();
+	}
+
+	@Test
+	public void export_resume() throws Exception {
+		exportResumed("--all", "-M", "100");
+	}
+
+	@Test
+	public void export_resumeSliced() throws Exception {
+		exportResumed("--slice", "Day", "--parallel", "1", "-M", "100");
+	}
+
+	@Test
+	public void export_resumeWithoutCheckpoint() throws Exception {
+		// WHEN
+		final int result = list("--all", "--no-cache", "-out", tmpDir.resolve("export.json").toString(),
+				"--resume");
+
+		// THEN
+		then(result).as("Resume without checkpoint failed").isOne();
+	}
+
+}
@@ -0,0 +1,76 @@
+package s10k.tool.datum.util;
+
+import static org.assertj.core.api.BDDAssertions.then;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+import net.solarnetwork.domain.datum.BasicObjectDatumStreamMetadata;
+import net.solarnetwork.domain.datum.ObjectDatumKind;
+import net.solarnetwork.domain.datum.ObjectDatumStreamMetadata;
+import s10k.tool.datum.domain.DatumFilter;
+
+/**
+ * Test cases for the {@link ArrowDatumWriter} class.
+ */
+public class ArrowDatumWriterTests {
+
+	private static ObjectDatumStreamMetadata meta(String sourceId, String[] i, String[] a, String[] s) {
+		return new BasicObjectDatumStreamMetadata(UUID.randomUUID(), "UTC", ObjectDatumKind.Node, 1L, sourceId, i, a,
+				s);
+	}
+
+	@Test
+	public void laterPropertiesOmitted() throws IOException {
+		// GIVEN
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		final ArrowDatumWriter writer = new ArrowDatumWriter(out, new DatumFilter(), null);
+
+		// WHEN
+		writer.handleMetadata(List.of(meta("a", new String[] { "watts" }, null, null)));
+		writer.handleMetadata(List.of(meta("a", new String[] { "watts", "current" }, new String[] { "wattHours" },
+				new String[] { "mode" })));
+		writer.close();
+
+		// THEN
+		then(writer.getOmittedPropertyNames()).as("Properties first seen after the schema was fixed are reported")
+				.containsExactly("current", "wattHours", "mode");
+	}
+
+	@Test
+	public void defineColumnsUpFront() throws IOException {
+		// GIVEN
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		final ArrowDatumWriter writer = new ArrowDatumWriter(out, new DatumFilter(), null);
+		final List<ObjectDatumStreamMetadata> all = List.of(meta("a", new String[] { "watts" }, null, null),
+				meta("b", new String[] { "current" }, new String[] { "wattHours" }, new String[] { "mode" }));
+
+		// WHEN
+		writer.defineColumns(all);
+		writer.handleMetadata(List.of(all.get(0)));
+		writer.handleMetadata(List.of(all.get(1)));
+		writer.close();
+
+		// THEN
+		then(writer.getOmittedPropertyNames()).as("No properties omitted").isEmpty();
+	}
+
+	@Test
+	public void explicitPropertiesNotReported() throws IOException {
+		// GIVEN
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		final ArrowDatumWriter writer = new ArrowDatumWriter(out, new DatumFilter(), List.of("watts"));
+
+		// WHEN
+		writer.handleMetadata(List.of(meta("a", new String[] { "watts", "current" }, null, null)));
+		writer.close();
+
+		// THEN
+		then(writer.getOmittedPropertyNames()).as("Unwanted properties not reported").isEmpty();
+	}
+
+}
@@ -0,0 +1,210 @@
+package s10k.tool.datum.util;
+
+import static java.time.ZoneOffset.UTC;
+import static org.assertj.core.api.BDDAssertions.then;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import net.solarnetwork.domain.datum.Aggregation;
+import net.solarnetwork.domain.datum.DatumReadingType;
+import s10k.tool.common.domain.ResultDisplayMode;
+import s10k.tool.datum.domain.DatumFilter;
+
+/**
+ * Test cases for the {@link DatumCacheUtils} class.
+ */
+public class DatumCacheUtilsTests {
+
+	private static final Duration SETTLE = DatumCacheUtils.DEFAULT_SETTLE;
+
+	private static final ZonedDateTime NOW = ZonedDateTime.of(2025, 3, 15, 10, 30, 0, 0, UTC);
+
+	private static DatumFilter filter(ZonedDateTime start, ZonedDateTime end) {
+		final DatumFilter filter = new DatumFilter();
+		filter.setObjectIds(List.of(1L));
+		filter.setSourceIds(List.of("a"));
+		filter.setStartDate(start);
+		filter.setEndDate(end);
+		return filter;
+	}
+
+	@Test
+	public void isCacheable_settled() {
+		// GIVEN
+		final DatumFilter filter = filter(NOW.minusDays(10), NOW.minusDays(2));
+
+		// THEN
+		then(DatumCacheUtils.isCacheable(filter, NOW.toInstant(), SETTLE)).as("End before settle time is cacheable")
+				.isTrue();
+	}
+
+	@Test
+	public void isCacheable_notSettled() {
+		// GIVEN
+		final DatumFilter filter = filter(NOW.minusDays(10), NOW.minusHours(1));
+
+		// THEN
+		then(DatumCacheUtils.isCacheable(filter, NOW.toInstant(), SETTLE))
+				.as("End in past but within settle time is not cacheable").isFalse();
+		then(DatumCacheUtils.isCacheable(filter, NOW.toInstant(), Duration.ZERO))
+				.as("End in past without settle time is cacheable").isTrue();
+	}
+
+	@Test
+	public void isCacheable_noEnd() {
+		// GIVEN
+		final DatumFilter filter = filter(NOW.minusDays(10), null);
+
+		// THEN
+		then(DatumCacheUtils.isCacheable(filter, NOW.toInstant(), SETTLE)).as("Open-ended query not cacheable")
+				.isFalse();
+	}
+
+	@Test
+	public void isCacheable_mostRecent() {
+		// GIVEN
+		final DatumFilter filter = filter(NOW.minusDays(10), NOW.minusDays(2));
+		filter.setMostRecent(true);
+
+		// THEN
+		then(DatumCacheUtils.isCacheable(filter, NOW.toInstant(), SETTLE)).as("Most recent query not cacheable")
+				.isFalse();
+	}
+
+	@Test
+	public void isCacheable_localDates() {
+		// GIVEN
+		final DatumFilter filter = new DatumFilter();
+		final LocalDateTime settledUtc = LocalDateTime.ofInstant(NOW.toInstant().minus(SETTLE), UTC);
+		filter.setLocalStartDate(settledUtc.minusDays(10));
+		filter.setLocalEndDate(settledUtc.minusHours(1));
+
+		// THEN
+		then(DatumCacheUtils.isCacheable(filter, NOW.toInstant(), SETTLE))
+				.as("Local end date settled in UTC might not be settled in furthest-behind time zone").isFalse();
+
+		// WHEN
+		filter.setLocalEndDate(settledUtc.minusHours(18));
+
+		// THEN
+		then(DatumCacheUtils.isCacheable(filter, NOW.toInstant(), SETTLE))
+				.as("Local end date settled in every time zone is cacheable").isTrue();
+	}
+
+	@Test
+	public void cacheRanges_splitIntoMonthsAndTail() {
+		// GIVEN
+		final ZonedDateTime start = ZonedDateTime.of(2025, 1, 20, 0, 0, 0, 0, UTC);
+		final DatumFilter filter = filter(start, NOW);
+
+		// WHEN
+		final List<DatumFilter> result = DatumCacheUtils.cacheRanges(filter, NOW.toInstant(), SETTLE);
+
+		// THEN
+		final ZonedDateTime cutoff = ZonedDateTime.of(2025, 3, 14, 0, 0, 0, 0, UTC);
+		then(result).extracting(DatumFilter::getStartDate).as("Month buckets up to start of settled day, then tail")
+				.containsExactly(start, ZonedDateTime.of(2025, 2, 1, 0, 0, 0, 0, UTC),
+						ZonedDateTime.of(2025, 3, 1, 0, 0, 0, 0, UTC), cutoff);
+		then(result).extracting(DatumFilter::getEndDate).as("Ranges contiguous, tail ends at query end")
+				.containsExactly(ZonedDateTime.of(2025, 2, 1, 0, 0, 0, 0, UTC),
+						ZonedDateTime.of(2025, 3, 1, 0, 0, 0, 0, UTC), cutoff, NOW);
+		then(result.subList(0, 3)).as("All buckets before tail are cacheable")
+				.allMatch(f -> DatumCacheUtils.isCacheable(f, NOW.toInstant(), SETTLE));
+		then(DatumCacheUtils.isCacheable(result.getLast(), NOW.toInstant(), SETTLE)).as("Tail is not cacheable")
+				.isFalse();
+		then(result).extracting(DatumFilter::getSourceIds).as("Other criteria copied")
+				.allMatch(ids -> List.of("a").equals(ids));
+	}
+
+	@Test
+	public void cacheRanges_stableKeysDuringDay() {
+		// GIVEN
+		final DatumFilter filter = filter(ZonedDateTime.of(2025, 1, 20, 0, 0, 0, 0, UTC), NOW);
+		final Instant later = NOW.plusHours(5).toInstant();
+		final DatumFilter laterFilter = filter(filter.getStartDate(), NOW.plusHours(5));
+
+		// WHEN
+		final List<DatumFilter> first = DatumCacheUtils.cacheRanges(filter, NOW.toInstant(), SETTLE);
+		final List<DatumFilter> second = DatumCacheUtils.cacheRanges(laterFilter, later, SETTLE);
+
+		// THEN
+		then(second).hasSameSizeAs(first);
+		for (int i = 0; i < first.size() - 1; i++) {
+			then(DatumCacheUtils.cacheKey("t", second.get(i), ResultDisplayMode.CSV))
+					.as("Bucket %d cache key unchanged later in the day", i)
+					.isEqualTo(DatumCacheUtils.cacheKey("t", first.get(i), ResultDisplayMode.CSV));
+		}
+	}
+
+	@Test
+	public void cacheRanges_weekAggregation() {
+		// GIVEN
+		final ZonedDateTime start = ZonedDateTime.of(2025, 2, 17, 0, 0, 0, 0, UTC); // Monday
+		final DatumFilter filter = filter(start, NOW);
+		filter.setAggregation(Aggregation.Week);
+
+		// WHEN
+		final List<DatumFilter> result = DatumCacheUtils.cacheRanges(filter, NOW.toInstant(), SETTLE);
+
+		// THEN
+		then(result).extracting(DatumFilter::getStartDate).as("Week buckets up to start of settled week, then tail")
+				.containsExactly(start, start.plusWeeks(1), start.plusWeeks(2), start.plusWeeks(3));
+		then(result.getLast().getEndDate()).as("Tail ends at query end").isEqualTo(NOW);
+	}
+
+	@Test
+	public void cacheRanges_zone() {
+		// GIVEN
+		final ZoneId zone = ZoneId.of("Pacific/Auckland");
+		final ZonedDateTime start = ZonedDateTime.of(2025, 2, 10, 0, 0, 0, 0, zone);
+		final DatumFilter filter = filter(start, NOW.withZoneSameInstant(zone));
+
+		// WHEN
+		final List<DatumFilter> result = DatumCacheUtils.cacheRanges(filter, NOW.toInstant(), SETTLE);
+
+		// THEN
+		then(result).extracting(DatumFilter::getStartDate).as("Buckets aligned to query time zone")
+				.containsExactly(start, ZonedDateTime.of(2025, 3, 1, 0, 0, 0, 0, zone),
+						ZonedDateTime.of(2025, 3, 14, 0, 0, 0, 0, zone));
+	}
+
+	@Test
+	public void cacheRanges_notSplit() {
+		final Instant now = NOW.toInstant();
+
+		final DatumFilter settled = filter(NOW.minusMonths(3), NOW.minusDays(2));
+		then(DatumCacheUtils.cacheRanges(settled, now, SETTLE)).as("Entirely settled range not split")
+				.containsExactly(settled);
+
+		final DatumFilter recent = filter(NOW.minusHours(6), NOW);
+		then(DatumCacheUtils.cacheRanges(recent, now, SETTLE)).as("Entirely unsettled range not split")
+				.containsExactly(recent);
+
+		final DatumFilter reading = filter(NOW.minusMonths(3), NOW);
+		reading.setReadingType(DatumReadingType.Difference);
+		then(DatumCacheUtils.cacheRanges(reading, now, SETTLE)).as("Reading query not split")
+				.containsExactly(reading);
+
+		final DatumFilter wholeRange = filter(NOW.minusMonths(3), NOW);
+		wholeRange.setAggregation(Aggregation.HourOfDay);
+		then(DatumCacheUtils.cacheRanges(wholeRange, now, SETTLE)).as("Whole-range aggregate not split")
+				.containsExactly(wholeRange);
+
+		final DatumFilter offset = filter(NOW.minusMonths(3), NOW);
+		offset.setOffset(10L);
+		then(DatumCacheUtils.cacheRanges(offset, now, SETTLE)).as("Query with offset not split")
+				.containsExactly(offset);
+
+		final DatumFilter openEnded = filter(NOW.minusMonths(3), null);
+		then(DatumCacheUtils.cacheRanges(openEnded, now, SETTLE)).as("Open-ended query not split")
+				.containsExactly(openEnded);
+	}
+
+}
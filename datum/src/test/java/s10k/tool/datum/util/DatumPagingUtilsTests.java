@@ -0,0 +1,276 @@
+package s10k.tool.datum.util;
+
+import static java.time.ZoneOffset.UTC;
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.assertj.core.api.BDDAssertions.thenThrownBy;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import net.solarnetwork.domain.datum.Aggregation;
+import net.solarnetwork.domain.datum.DatumReadingType;
+import s10k.tool.datum.domain.DatumFilter;
+import s10k.tool.datum.domain.DatumTimeSlice;
+
+/**
+ * Test cases for the {@link DatumPagingUtils} class.
+ */
+public class DatumPagingUtilsTests {
+
+	private static final ZonedDateTime START = ZonedDateTime.of(2025, 1, 1, 0, 0, 0, 0, UTC);
+
+	private ExecutorService executor;
+
+	@BeforeEach
+	public void setup() {
+		executor = Executors.newVirtualThreadPerTaskExecutor();
+	}
+
+	@AfterEach
+	public void teardown() {
+		executor.shutdownNow();
+	}
+
+	private static DatumFilter filter(ZonedDateTime start, ZonedDateTime end) {
+		final DatumFilter filter = new DatumFilter();
+		filter.setStartDate(start);
+		filter.setEndDate(end);
+		return filter;
+	}
+
+	/**
+	 * Generate one result per hour in the filter date range, for the filter page.
+	 */
+	private static List<ZonedDateTime> hourly(DatumFilter f) {
+		final List<ZonedDateTime> all = new ArrayList<>();
+		for (ZonedDateTime t = f.getStartDate(); t.isBefore(f.getEndDate()); t = t.plusHours(1)) {
+			all.add(t);
+		}
+		final int from = Math.min(f.getOffset().intValue(), all.size());
+		final int to = Math.min(from + f.getMax().intValue(), all.size());
+		return all.subList(from, to);
+	}
+
+	private static List<ZonedDateTime> hours(ZonedDateTime start, int count) {
+		final List<ZonedDateTime> result = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			result.add(start.plusHours(i));
+		}
+		return result;
+	}
+
+	private List<ZonedDateTime> fetchAll(DatumFilter filter, DatumTimeSlice slice, int parallelism, int pageSize,
+			Function<DatumFilter, List<ZonedDateTime>> fetcher) throws Exception {
+		final List<ZonedDateTime> results = new ArrayList<>();
+		final long total = DatumPagingUtils.forEachSlicedPage(filter, slice, parallelism, pageSize, executor,
+				fetcher, List::size, (page, _, _) -> results.addAll(page));
+		then(total).as("Total count returned").isEqualTo(results.size());
+		return results;
+	}
+
+	@Test
+	public void slices_resultsInOrder() throws Exception {
+		// GIVEN
+		final DatumFilter filter = filter(START, START.plusDays(3));
+		final List<ZonedDateTime> sliceStarts = Collections.synchronizedList(new ArrayList<>());
+
+		// WHEN
+		final List<ZonedDateTime> results = fetchAll(filter, DatumTimeSlice.Day, 3, 10, f -> {
+			if (f.getOffset() == 0L) {
+				sliceStarts.add(f.getStartDate());
+			}
+			try {
+				// complete slices out of order
+				Thread.sleep(ThreadLocalRandom.current().nextInt(20));
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return hourly(f);
+		});
+
+		// THEN
+		then(results).as("All results returned in time order").containsExactlyElementsOf(hours(START, 72));
+		then(sliceStarts).as("One slice per day")
+				.containsExactlyInAnyOrder(START, START.plusDays(1), START.plusDays(2));
+	}
+
+	@Test
+	public void slices_partialEnds() throws Exception {
+		// GIVEN
+		final DatumFilter filter = filter(START.plusHours(12), START.plusDays(2).plusHours(6));
+		final List<DatumFilter> slices = Collections.synchronizedList(new ArrayList<>());
+
+		// WHEN
+		final List<ZonedDateTime> results = fetchAll(filter, DatumTimeSlice.Day, 1, 100, f -> {
+			slices.add(f);
+			return hourly(f);
+		});
+
+		// THEN
+		then(results).as("All results returned").containsExactlyElementsOf(hours(START.plusHours(12), 42));
+		then(slices).extracting(DatumFilter::getStartDate).as("Slices aligned to day boundaries")
+				.containsExactly(START.plusHours(12), START.plusDays(1), START.plusDays(2));
+		then(slices).extracting(DatumFilter::getEndDate).as("Last slice ends at query end")
+				.containsExactly(START.plusDays(1), START.plusDays(2), START.plusDays(2).plusHours(6));
+	}
+
+	@Test
+	public void slices_aggregateClampsSliceSize() throws Exception {
+		// GIVEN
+		final DatumFilter filter = filter(START, START.plusDays(3));
+		filter.setAggregation(Aggregation.Day);
+		final List<ZonedDateTime> sliceStarts = Collections.synchronizedList(new ArrayList<>());
+
+		// WHEN
+		fetchAll(filter, DatumTimeSlice.Hour, 1, 100, f -> {
+			sliceStarts.add(f.getStartDate());
+			return hourly(f);
+		});
+
+		// THEN
+		then(sliceStarts).as("Hour slices increased to day slices for Day aggregation")
+				.containsExactly(START, START.plusDays(1), START.plusDays(2));
+	}
+
+	@Test
+	public void slices_readingNotAllowed() {
+		// GIVEN
+		final DatumFilter filter = filter(START, START.plusDays(3));
+		filter.setReadingType(DatumReadingType.Difference);
+
+		// THEN
+		thenThrownBy(() -> fetchAll(filter, DatumTimeSlice.Day, 1, 100, DatumPagingUtilsTests::hourly))
+				.as("Reading queries cannot be sliced").isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	public void slices_unsliceableAggregationNotAllowed() {
+		// GIVEN
+		final DatumFilter filter = filter(START, START.plusDays(3));
+		filter.setAggregation(Aggregation.HourOfDay);
+
+		// THEN
+		thenThrownBy(() -> fetchAll(filter, DatumTimeSlice.Day, 1, 100, DatumPagingUtilsTests::hourly))
+				.as("Whole-range aggregates cannot be sliced").isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	public void slices_adaptiveShrinks() throws Exception {
+		// GIVEN
+		final DatumFilter filter = filter(START, START.plusMonths(2));
+		final List<DatumFilter> slices = Collections.synchronizedList(new ArrayList<>());
+
+		// WHEN
+		final List<ZonedDateTime> results = fetchAll(filter, DatumTimeSlice.Adaptive, 1, 10, f -> {
+			if (f.getOffset() == 0L) {
+				slices.add(f);
+			}
+			return hourly(f);
+		});
+
+		// THEN
+		then(results).as("All results returned")
+				.containsExactlyElementsOf(hours(START, (int) Duration.between(START, START.plusMonths(2)).toHours()));
+		then(slices).hasSizeGreaterThan(3);
+		then(Duration.between(slices.get(0).getStartDate(), slices.get(0).getEndDate()))
+				.as("Adaptive starts with a month slice").isEqualTo(Duration.ofDays(31));
+		then(slices.get(1).getEndDate().getDayOfWeek()).as("Too many pages, so switched to week slice")
+				.isEqualTo(DayOfWeek.MONDAY);
+		then(Duration.between(slices.get(2).getStartDate(), slices.get(2).getEndDate()))
+				.as("Still too many pages, so switched to day slice").isEqualTo(Duration.ofDays(1));
+		then(Duration.between(slices.get(3).getStartDate(), slices.get(3).getEndDate()))
+				.as("Day slice fits in a few pages, so size kept").isEqualTo(Duration.ofDays(1));
+	}
+
+	@Test
+	public void slices_headSliceStreamed() throws Exception {
+		// GIVEN
+		final DatumFilter filter = filter(START, START.plusDays(2));
+		final CountDownLatch firstPageHandled = new CountDownLatch(1);
+		final AtomicBoolean headTimeout = new AtomicBoolean();
+		final AtomicInteger secondSliceFetches = new AtomicInteger();
+		final AtomicInteger secondSliceFetchesAhead = new AtomicInteger(-1);
+		final List<ZonedDateTime> results = new ArrayList<>();
+
+		// WHEN
+		DatumPagingUtils.forEachSlicedPage(filter, DatumTimeSlice.Day, 2, 2, executor, f -> {
+			if (f.getStartDate().equals(START)) {
+				if (f.getOffset() >= 4L) {
+					// later pages of the first slice wait for the first page to be handled, which
+					// would never happen if the whole slice was fetched before being handled
+					try {
+						if (!firstPageHandled.await(5, TimeUnit.SECONDS)) {
+							headTimeout.set(true);
+						}
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				}
+			} else {
+				secondSliceFetches.incrementAndGet();
+			}
+			return hourly(f);
+		}, List::size, (page, _, _) -> {
+			if (page.getLast().isBefore(START.plusDays(1))) {
+				firstPageHandled.countDown();
+				try {
+					// slow down the first slice so the second slice fetches ahead
+					Thread.sleep(5);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				if (page.getLast().equals(START.plusHours(23))) {
+					secondSliceFetchesAhead.set(secondSliceFetches.get());
+				}
+			}
+			results.addAll(page);
+		});
+
+		// THEN
+		then(headTimeout).as("First slice pages handled before the slice was fully fetched").isFalse();
+		then(results).as("All results returned in order").containsExactlyElementsOf(hours(START, 48));
+		then(secondSliceFetchesAhead.get()).as("Second slice fetched a bounded number of pages ahead")
+				.isBetween(1, DatumPagingUtils.MAX_PENDING_SLICE_PAGES + 1);
+	}
+
+	@Test
+	public void ranges_pagedAsOneQuery() throws Exception {
+		// GIVEN
+		final List<DatumFilter> ranges = List.of(filter(START, START.plusHours(5)),
+				filter(START.plusHours(5), START.plusHours(5)), filter(START.plusHours(5), START.plusHours(12)));
+		final List<ZonedDateTime> results = new ArrayList<>();
+		final List<Long> offsets = new ArrayList<>();
+		final List<Boolean> firsts = new ArrayList<>();
+
+		// WHEN
+		final long total = DatumPagingUtils.forEachPage(ranges, 4, executor, DatumPagingUtilsTests::hourly,
+				List::size, (page, offset, first) -> {
+					results.addAll(page);
+					offsets.add(offset);
+					firsts.add(first);
+				});
+
+		// THEN
+		then(total).as("Total count across ranges").isEqualTo(12L);
+		then(results).as("All results returned in order").containsExactlyElementsOf(hours(START, 12));
+		then(offsets).as("Offsets continue across ranges, empty range skipped").containsExactly(0L, 4L, 5L, 9L);
+		then(firsts).as("Only the very first page is first").containsExactly(true, false, false, false);
+	}
+
+}
@@ -0,0 +1,113 @@
+package s10k.tool.datum.util;
+
+import static org.assertj.core.api.BDDAssertions.then;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import net.solarnetwork.codec.JsonUtils;
+import net.solarnetwork.domain.datum.ObjectDatumStreamMetadata;
+import s10k.tool.datum.domain.StreamDatumView;
+import s10k.tool.datum.util.StreamDatumDecoder.StreamDatumHandler;
+
+/**
+ * Test cases for the {@link StreamDatumDecoder} class.
+ */
+public class StreamDatumDecoderTests {
+
+	private static final String META_JSON = """
+			{"streamId":"03c6bd01-9241-4771-ad3c-a1d5eb06b68a","zone":"Pacific/Auckland","kind":"n",\
+			"objectId":101,"sourceId":"con/1","i":["watts","current"],"a":["wattHours"],"s":["mode"]}""";
+
+	private final ObjectMapper objectMapper = JsonUtils.newDatumObjectMapper();
+
+	private static record Row(int metaIdx, Instant ts, Instant endTs, BigDecimal watts, BigDecimal wattsCount,
+			BigDecimal wattHours, BigDecimal wattHoursEnd, String mode, List<String> tags) {
+
+		private static Row of(StreamDatumView d) {
+			return new Row(d.getMetadataIndex(), d.getTimestamp(), d.getEndTimestamp(), d.instantaneousValue(0),
+					d.instantaneousCount(0), d.accumulatingValue(0), d.accumulatingEnd(0), d.statusValue(0),
+					List.copyOf(d.getTags()));
+		}
+	}
+
+	private List<Row> decode(String json, List<ObjectDatumStreamMetadata> metadata) throws Exception {
+		final List<Row> rows = new ArrayList<>();
+		try (JsonParser p = objectMapper.createParser(json)) {
+			StreamDatumDecoder.decode(objectMapper, p, new StreamDatumHandler() {
+
+				@Override
+				public void handleMetadata(List<ObjectDatumStreamMetadata> meta) {
+					metadata.addAll(meta);
+				}
+
+				@Override
+				public void handleDatum(StreamDatumView datum) {
+					rows.add(Row.of(datum));
+				}
+			});
+		}
+		return rows;
+	}
+
+	@Test
+	public void decode_raw() throws Exception {
+		// GIVEN
+		final String json = """
+				{"success":true,"meta":[%s],"data":[
+					[0,1755723600000,1234.5,10,8186363,"on","a","b"],
+					[0,1755723660000,null,11,8186370,null]
+				]}""".formatted(META_JSON);
+
+		// WHEN
+		final List<ObjectDatumStreamMetadata> metadata = new ArrayList<>();
+		final List<Row> rows = decode(json, metadata);
+
+		// THEN
+		then(metadata).as("Metadata decoded").hasSize(1).element(0)
+				.returns("con/1", ObjectDatumStreamMetadata::getSourceId);
+		// @formatter:off
+		then(rows)
+			.as("Datum decoded")
+			.containsExactly(
+				new Row(0, Instant.ofEpochMilli(1755723600000L), null, new BigDecimal("1234.5"), null,
+						new BigDecimal("8186363"), null, "on", List.of("a", "b")),
+				new Row(0, Instant.ofEpochMilli(1755723660000L), null, null, null,
+						new BigDecimal("8186370"), null, null, List.of())
+			)
+			;
+		// @formatter:on
+	}
+
+	@Test
+	public void decode_aggregate() throws Exception {
+		// GIVEN
+		final String json = """
+				{"success":true,"meta":[%s],"data":[
+					[0,[1755723600000,1755727200000],[2473.9,52,1153,3518],null,[2078.5,8186363,8225742],null]
+				]}""".formatted(META_JSON);
+
+		// WHEN
+		final List<Row> rows = decode(json, new ArrayList<>());
+
+		// THEN
+		// @formatter:off
+		then(rows)
+			.as("Aggregate datum decoded")
+			.containsExactly(
+				new Row(0, Instant.ofEpochMilli(1755723600000L), Instant.ofEpochMilli(1755727200000L),
+						new BigDecimal("2473.9"), new BigDecimal("52"), new BigDecimal("2078.5"),
+						new BigDecimal("8225742"), null, List.of())
+			)
+			;
+		// @formatter:on
+	}
+
+}
@@ -0,0 +1,57 @@
+package s10k.tool.flux.cmd;
+
+import picocli.CommandLine.Option;
+import s10k.tool.flux.util.FluxMessageBuffer;
+import s10k.tool.flux.util.FluxMessageBuffer.OverflowPolicy;
+
+/**
+ * Options for buffering SolarFlux messages between receiving and processing
+ * them.
+ */
+class FluxBufferOptions {
+
+	// @formatter:off
+	@Option(names = { "--buffer-size" },
+			description = "the maximum number of received messages to buffer",
+			defaultValue = "" + FluxMessageBuffer.DEFAULT_CAPACITY,
+			paramLabel = "count")
+	int bufferSize = FluxMessageBuffer.DEFAULT_CAPACITY;
+
+	@Option(names = { "--overflow" },
+			description = "how to handle received messages when the buffer is full",
+			defaultValue = "Block",
+			paramLabel = "policy")
+	OverflowPolicy overflowPolicy = OverflowPolicy.Block;
+
+	@Option(names = { "--sample-rate" },
+			description = "for the Sample overflow policy, keep one of every this many messages received while the buffer is full",
+			defaultValue = "" + FluxMessageBuffer.DEFAULT_SAMPLE_RATE,
+			paramLabel = "count")
+	int sampleRate = FluxMessageBuffer.DEFAULT_SAMPLE_RATE;
+	// @formatter:on
+
+	/**
+	 * Create a buffer for these options.
+	 *
+	 * @return the buffer
+	 * @throws IllegalArgumentException if the options are not valid
+	 */
+	FluxMessageBuffer buffer() {
+		return new FluxMessageBuffer(bufferSize, overflowPolicy, sampleRate);
+	}
+
+	/**
+	 * Print the buffer statistics to standard error.
+	 *
+	 * @param buffer  the buffer
+	 * @param verbose {@code true} to always print the statistics, otherwise only
+	 *                print them if messages have been dropped
+	 */
+	void printStats(FluxMessageBuffer buffer, boolean verbose) {
+		if (verbose || buffer.getDroppedCount() > 0) {
+			System.err.println("Received %d messages, dropped %d, max queued %d of %d.".formatted(
+					buffer.getReceivedCount(), buffer.getDroppedCount(), buffer.getMaxQueuedCount(), bufferSize));
+		}
+	}
+
+}
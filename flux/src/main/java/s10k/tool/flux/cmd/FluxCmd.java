@@ -9,7 +9,9 @@ import s10k.tool.common.cmd.ToolCmd;
  */
 // @formatter:off
 @Command(name = "flux", subcommands = {
-		TailFluxCmd.class
+		TailFluxCmd.class,
+		RecordFluxCmd.class,
+		ReplayFluxCmd.class
 })
 // @formatter:on
 public class FluxCmd extends BaseSubCmd<ToolCmd> {
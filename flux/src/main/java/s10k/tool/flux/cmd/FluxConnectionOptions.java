@@ -0,0 +1,192 @@
+package s10k.tool.flux.cmd;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.web.client.RestClient;
+
+import net.solarnetwork.common.mqtt.MqttVersion;
+import picocli.CommandLine.ArgGroup;
+import picocli.CommandLine.Option;
+import s10k.tool.common.domain.SnTokenCredentialsInfo;
+import s10k.tool.common.util.RestUtils;
+
+/**
+ * Options for connecting to SolarFlux and subscribing to a topic.
+ */
+class FluxConnectionOptions {
+
+	/** The default maximum delay between reconnection attempts. */
+	static final Duration DEFAULT_RECONNECT_MAX_DELAY = Duration.ofMinutes(1);
+
+	// @formatter:off
+	@ArgGroup(exclusive = true, multiplicity = "1")
+	TopicOrNodeSource topicOrNodeSource;
+
+	@Option(names = { "--client-id" },
+			description = "a client ID to use, instead of a random default")
+	String clientIdSuffix = "_" +UUID.randomUUID().toString().replaceAll("-", "").substring(0, 8);
+
+	@Option(names = {"--url"},
+			description = "the MQTT server URL to connect to, in @|bold mqtt(s)://host:port|@ form",
+			defaultValue = "mqtts://fluxion.solarnetwork.net:8885",
+			paramLabel = "url")
+	String serverUri = "mqtts://fluxion.solarnetwork.net:8885";
+
+	@Option(names = "--mqtt-version",
+			description = "the MQTT version to use",
+			defaultValue = "Mqtt5")
+	MqttVersion mqttVersion = MqttVersion.Mqtt5;
+
+	@Option(names = { "--reconnect" },
+			description = "automatically reconnect if the connection to the server is lost")
+	boolean reconnect;
+
+	@Option(names = { "--reconnect-max-delay" },
+			description = "the maximum delay between reconnection attempts",
+			defaultValue = "PT1M",
+			paramLabel = "duration")
+	Duration reconnectMaxDelay = DEFAULT_RECONNECT_MAX_DELAY;
+
+	@Option(names = { "--session-expiry" },
+			description = "for MQTT 5, ask the server to keep the session for this long after the connection is lost, "
+					+ "to deliver messages published while disconnected after reconnecting",
+			paramLabel = "duration")
+	Duration sessionExpiry;
+
+	@Option(names = { "--connections" },
+			description = "the number of MQTT connections to spread the topic filters across",
+			defaultValue = "1",
+			paramLabel = "count")
+	int connections = 1;
+	// @formatter:on
+
+	/**
+	 * Grouping of node/source IDs, where both must be provided.
+	 */
+	static class NodeAndSourceIds {
+		// @formatter:off
+    	@Option(names = { "-node", "--node-id" },
+    			description = "a node ID (or + wildcard) to subscribe to",
+    			split = "\\s*,\\s*",
+    			splitSynopsisLabel = ",",
+    			paramLabel = "nodeId")
+    	String[] nodeIds;
+
+    	@Option(names = { "-source", "--source-id" },
+    			description = "a source ID (or topic pattern) to subscribe to")
+    	String sourceId;
+    	// @formatter:on
+
+	}
+
+	/**
+	 * Grouping of topic or node/source, where one or the other must be provided.
+	 */
+	static class TopicOrNodeSource {
+		// @formatter:off
+    	@Option(names = { "-t", "--topic" },
+    			description = "a topic filter to subscribe to",
+    			paramLabel = "filter")
+    	String[] topicFilters;
+
+    	@ArgGroup(exclusive = false)
+    	NodeAndSourceIds nodeAndSource;
+    	// @formatter:on
+
+		/**
+		 * Test if node and source IDs are provided, otherwise the topic filter should
+		 * be used.
+		 *
+		 * @return {@code true} if node and source IDs are provided
+		 */
+		boolean isNodeAndSource() {
+			return nodeAndSource != null && nodeAndSource.nodeIds != null && nodeAndSource.nodeIds.length > 0
+					&& nodeAndSource.sourceId != null && !nodeAndSource.sourceId.isBlank();
+		}
+
+		/**
+		 * Test if node and source IDs are <b>not</b> provided, and all topic filters
+		 * have a {@code user/} prefix.
+		 *
+		 * @return {@code true} if a user topic prefix is specified
+		 */
+		boolean isUserTopic() {
+			if (isNodeAndSource() || topicFilters == null || topicFilters.length < 1) {
+				return false;
+			}
+			for (String topicFilter : topicFilters) {
+				if (!topicFilter.startsWith("user/")) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * Get the MQTT topic filters to subscribe to.
+	 *
+	 * <p>
+	 * Due to a bug in SolarFlux MQTTv5 where topic rewriting of "node/X" to
+	 * "user/U/node/X" prevents delivery of messages, the topics are forced to
+	 * "user/U/X" if not already.
+	 * </p>
+	 *
+	 * @param restClient the REST client to look up the token user ID with
+	 * @return the topic filters, one for each topic filter or node ID
+	 */
+	List<String> mqttTopicFilters(RestClient restClient) {
+		assert topicOrNodeSource != null;
+		if (topicOrNodeSource.isUserTopic()) {
+			return List.of(topicOrNodeSource.topicFilters);
+		}
+		SnTokenCredentialsInfo tokenInfo = RestUtils.credentialsInfo(restClient);
+		List<String> result = new ArrayList<>();
+		if (topicOrNodeSource.isNodeAndSource()) {
+			for (String nodeId : topicOrNodeSource.nodeAndSource.nodeIds) {
+				result.add("user/%d/node/%s/datum/0/%s".formatted(tokenInfo.userId(), nodeId,
+						topicOrNodeSource.nodeAndSource.sourceId));
+			}
+		} else {
+			for (String topicFilter : topicOrNodeSource.topicFilters) {
+				result.add(topicFilter.startsWith("user/") ? topicFilter
+						: "user/%d/%s".formatted(tokenInfo.userId(), topicFilter));
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Get the MQTT topic filters to subscribe to, divided into one group per
+	 * connection.
+	 *
+	 * <p>
+	 * The topic filters are assigned to groups in turn, so each group has about
+	 * the same number of filters. There will be fewer groups than
+	 * {@code --connections} if there are fewer topic filters than that.
+	 * </p>
+	 *
+	 * @param restClient the REST client to look up the token user ID with
+	 * @return the topic filter groups
+	 * @throws IllegalArgumentException if the connection count is not positive
+	 */
+	List<List<String>> mqttTopicFilterGroups(RestClient restClient) {
+		if (connections < 1) {
+			throw new IllegalArgumentException("The connection count must be positive.");
+		}
+		final List<String> filters = mqttTopicFilters(restClient);
+		final int count = Math.max(1, Math.min(connections, filters.size()));
+		final List<List<String>> groups = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			groups.add(new ArrayList<>(filters.size() / count + 1));
+		}
+		for (int i = 0, len = filters.size(); i < len; i++) {
+			groups.get(i % count).add(filters.get(i));
+		}
+		return groups;
+	}
+
+}
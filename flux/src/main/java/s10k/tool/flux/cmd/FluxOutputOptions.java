@@ -0,0 +1,56 @@
+package s10k.tool.flux.cmd;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import picocli.CommandLine.Option;
+import s10k.tool.common.domain.ResultDisplayMode;
+import s10k.tool.flux.util.FluxMessageFormatter;
+
+/**
+ * Options for displaying SolarFlux messages.
+ */
+class FluxOutputOptions {
+
+	// @formatter:off
+	@Option(names = { "-prop", "--property" },
+			description = "show only this property name in the results",
+			split = "\\s*,\\s*",
+			splitSynopsisLabel = ",",
+			paramLabel = "propName")
+	String[] propertyNames;
+
+	@Option(names = { "-G", "--csv-global-header" },
+			description = "for CSV output, generate a global header from the -prop name(s) or first result")
+	boolean csvGlobalHeader;
+
+	@Option(names = {"-R", "--max-precision" },
+			description = "max number precision, or -1 for no rounding",
+			defaultValue = "3")
+	int maxPrecision = 3;
+
+	@Option(names = { "-mode", "--display-mode" },
+			description = "how to display the results",
+			defaultValue = "PRETTY")
+	ResultDisplayMode displayMode = ResultDisplayMode.PRETTY;
+
+	@Option(names = { "--decode-threads" },
+			description = "the number of threads to decode messages with, when not using -prop",
+			defaultValue = "1",
+			paramLabel = "count")
+	int decodeThreads = 1;
+	// @formatter:on
+
+	/**
+	 * Create a message formatter for these options.
+	 *
+	 * @param objectMapper the mapper to use
+	 * @return the formatter
+	 */
+	FluxMessageFormatter formatter(ObjectMapper objectMapper) {
+		final FluxMessageFormatter formatter = new FluxMessageFormatter(objectMapper, displayMode, propertyNames,
+				csvGlobalHeader, maxPrecision);
+		formatter.setDecodeParallelism(decodeThreads);
+		return formatter;
+	}
+
+}
@@ -0,0 +1,143 @@
+package s10k.tool.flux.cmd;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import picocli.CommandLine.Option;
+import s10k.tool.flux.util.FluxSessionStats;
+
+/**
+ * Options for reporting SolarFlux session statistics.
+ */
+class FluxStatsOptions {
+
+	/** The default reporting interval. */
+	static final Duration DEFAULT_INTERVAL = Duration.ofSeconds(10);
+
+	// @formatter:off
+	@Option(names = { "--stats" },
+			description = "report throughput and latency statistics at this interval",
+			arity = "0..1",
+			fallbackValue = "PT10S",
+			paramLabel = "interval")
+	Duration statsInterval;
+
+	@Option(names = { "--stats-file" },
+			description = "append the statistics to this file as JSON lines, instead of standard error",
+			paramLabel = "file")
+	Path statsFile;
+	// @formatter:on
+
+	/**
+	 * Test if statistics reporting is enabled.
+	 *
+	 * @return {@code true} if either statistics option is configured
+	 */
+	boolean isEnabled() {
+		return (statsInterval != null || statsFile != null);
+	}
+
+	/**
+	 * Start reporting statistics.
+	 *
+	 * @param stats        the statistics to report
+	 * @param objectMapper the mapper to write JSON with
+	 * @return the reporter, which must be closed to stop reporting
+	 * @throws IOException              if the statistics file cannot be opened
+	 * @throws IllegalArgumentException if the interval is not positive
+	 */
+	StatsReporter start(FluxSessionStats stats, ObjectMapper objectMapper) throws IOException {
+		final Duration interval = (statsInterval != null ? statsInterval : DEFAULT_INTERVAL);
+		if (interval.toMillis() < 1) {
+			throw new IllegalArgumentException("The statistics interval must be positive.");
+		}
+		final Writer out = (statsFile != null ? Files.newBufferedWriter(statsFile, UTF_8, StandardOpenOption.CREATE,
+				StandardOpenOption.APPEND, StandardOpenOption.WRITE) : null);
+		return new StatsReporter(stats, objectMapper, out, interval);
+	}
+
+	/**
+	 * Periodically report statistics.
+	 */
+	static final class StatsReporter implements AutoCloseable {
+
+		private final FluxSessionStats stats;
+		private final ObjectMapper objectMapper;
+		private final Writer out;
+		private final ScheduledExecutorService scheduler;
+
+		private StatsReporter(FluxSessionStats stats, ObjectMapper objectMapper, Writer out, Duration interval) {
+			super();
+			this.stats = stats;
+			this.objectMapper = objectMapper;
+			this.out = out;
+			this.scheduler = Executors
+					.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("flux-stats").daemon(true).factory());
+			final long ms = interval.toMillis();
+			scheduler.scheduleAtFixedRate(this::report, ms, ms, TimeUnit.MILLISECONDS);
+		}
+
+		private void report() {
+			final Map<String, Object> report = stats.report(Instant.now().truncatedTo(ChronoUnit.MILLIS));
+			try {
+				if (out != null) {
+					out.write(objectMapper.writeValueAsString(report));
+					out.write(System.lineSeparator());
+					out.flush();
+				} else {
+					final StringBuilder buf = new StringBuilder(256);
+					for (Entry<String, Object> e : report.entrySet()) {
+						if (!buf.isEmpty()) {
+							buf.append(' ');
+						}
+						if (!"date".equals(e.getKey())) {
+							buf.append(e.getKey()).append('=');
+						}
+						buf.append(e.getValue());
+					}
+					System.err.println(buf);
+				}
+			} catch (IOException e) {
+				System.err.println("Error writing statistics: " + e.toString());
+			}
+		}
+
+		/**
+		 * Stop reporting, after writing a final report.
+		 */
+		@Override
+		public void close() {
+			scheduler.shutdownNow();
+			try {
+				scheduler.awaitTermination(1, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			report();
+			if (out != null) {
+				try {
+					out.close();
+				} catch (IOException e) {
+					// ignore
+				}
+			}
+		}
+
+	}
+
+}
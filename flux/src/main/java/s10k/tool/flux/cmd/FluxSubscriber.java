@@ -0,0 +1,378 @@
+package s10k.tool.flux.cmd;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.scheduling.concurrent.ConcurrentTaskScheduler;
+
+import net.solarnetwork.common.mqtt.BaseMqttConnectionService;
+import net.solarnetwork.common.mqtt.BasicMqttConnectionConfig;
+import net.solarnetwork.common.mqtt.BasicMqttProperty;
+import net.solarnetwork.common.mqtt.MqttConnection;
+import net.solarnetwork.common.mqtt.MqttConnectionFactory;
+import net.solarnetwork.common.mqtt.MqttConnectionObserver;
+import net.solarnetwork.common.mqtt.MqttMessage;
+import net.solarnetwork.common.mqtt.MqttMessageHandler;
+import net.solarnetwork.common.mqtt.MqttPropertyType;
+import net.solarnetwork.common.mqtt.MqttQos;
+import net.solarnetwork.common.mqtt.MqttVersion;
+import net.solarnetwork.common.mqtt.netty.NettyMqttConnectionFactory;
+import net.solarnetwork.util.StatTracker;
+import s10k.tool.common.domain.ProfileInfo;
+import s10k.tool.flux.util.FluxGap;
+import s10k.tool.flux.util.FluxMessageBuffer;
+import s10k.tool.flux.util.FluxMessageBuffer.Message;
+import s10k.tool.flux.util.FluxSessionStats;
+
+/**
+ * Subscribe to SolarFlux topics, adding all received messages to a buffer.
+ */
+final class FluxSubscriber {
+
+	private final FluxConnectionOptions options;
+	private final ProfileInfo profile;
+	private final List<String> mqttTopicFilters;
+	private final String clientIdSuffix;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param options          the connection options
+	 * @param profile          the profile with the credentials to connect with
+	 * @param mqttTopicFilters the topic filters to subscribe to
+	 * @param clientIdSuffix   the suffix to add to the token ID to form the MQTT
+	 *                         client ID
+	 */
+	FluxSubscriber(FluxConnectionOptions options, ProfileInfo profile, List<String> mqttTopicFilters,
+			String clientIdSuffix) {
+		super();
+		this.options = options;
+		this.profile = profile;
+		this.mqttTopicFilters = mqttTopicFilters;
+		this.clientIdSuffix = clientIdSuffix;
+	}
+
+	/**
+	 * Subscribe to groups of topic filters, each with its own connection, blocking
+	 * until any connection is lost.
+	 *
+	 * <p>
+	 * Each connection adds its received messages to the same buffer, so they are
+	 * output in the order received. When there is more than one group, each
+	 * connection's client ID has a {@code -N} suffix, where {@code N} starts at
+	 * {@code 1}. Once any connection ends, the others are closed.
+	 * </p>
+	 *
+	 * @param options the connection options
+	 * @param profile the profile with the credentials to connect with
+	 * @param groups  the topic filter groups, for example from
+	 *                {@link FluxConnectionOptions#mqttTopicFilterGroups(org.springframework.web.client.RestClient)}
+	 * @param buffer  the buffer to add received messages to
+	 * @param stats   optional statistics to record received messages to, or
+	 *                {@code null}
+	 * @throws Exception if any error occurs
+	 */
+	static void subscribe(FluxConnectionOptions options, ProfileInfo profile, List<List<String>> groups,
+			FluxMessageBuffer buffer, FluxSessionStats stats) throws Exception {
+		if (groups.size() == 1) {
+			new FluxSubscriber(options, profile, groups.getFirst(), options.clientIdSuffix).subscribe(buffer, stats);
+			return;
+		}
+		final ExecutorService executor = Executors.newFixedThreadPool(groups.size(),
+				Thread.ofPlatform().name("flux-subscriber-", 1).daemon(true).factory());
+		try {
+			final ExecutorCompletionService<Object> subscriptions = new ExecutorCompletionService<>(executor);
+			for (int i = 0, len = groups.size(); i < len; i++) {
+				final var subscriber = new FluxSubscriber(options, profile, groups.get(i),
+						options.clientIdSuffix + "-" + (i + 1));
+				subscriptions.submit(() -> {
+					subscriber.subscribe(buffer, stats);
+					return null;
+				});
+			}
+			// wait for the first connection to end, then close the rest
+			try {
+				subscriptions.take().get();
+			} catch (ExecutionException e) {
+				if (e.getCause() instanceof Exception ex) {
+					throw ex;
+				}
+				throw e;
+			}
+		} finally {
+			executor.shutdownNow();
+			executor.awaitTermination(5, TimeUnit.SECONDS);
+		}
+	}
+
+	/**
+	 * Subscribe, blocking until the connection is lost or the buffer is closed.
+	 *
+	 * <p>
+	 * If reconnecting is enabled, then when the connection is lost a new
+	 * connection will be attempted with an exponential backoff delay between
+	 * attempts, and after reconnecting a {@link FluxGap} note will be added to the
+	 * buffer to mark the period where messages might have been missed. In that
+	 * case this method only returns if the current thread is interrupted or the
+	 * buffer is closed. When a
+	 * persistent session is resumed within its expiry the server delivers the
+	 * queued messages, so the gap note estimates {@code 0} missed messages.
+	 * </p>
+	 *
+	 * @param buffer the buffer to add received messages to
+	 * @param stats  optional statistics to record received messages to, or
+	 *               {@code null}
+	 * @throws Exception if any error occurs
+	 */
+	void subscribe(FluxMessageBuffer buffer, FluxSessionStats stats) throws Exception {
+		try (final var executor = Executors.newCachedThreadPool();
+				final var scheduler = Executors.newSingleThreadScheduledExecutor()) {
+
+			final StatTracker mqttStats = new StatTracker("SolarFlux", null, null, 1000);
+
+			final var connectionFactory = new NettyMqttConnectionFactory(executor,
+					new ConcurrentTaskScheduler(executor, scheduler));
+
+			final MqttVersion mqttVersion = (options.mqttVersion != null ? options.mqttVersion
+					: MqttVersion.Mqtt311);
+			final boolean persistentSession = persistentSession(mqttVersion);
+
+			Instant lostAt = null;
+			double lostRate = 0;
+			int attempt = 0;
+			while (!buffer.isClosed()) {
+				final var client = new MqttConnectionService(connectionFactory, mqttStats, buffer, stats,
+						persistentSession ? MqttQos.AtLeastOnce : MqttQos.AtMostOnce);
+				configure(client.getMqttConfig(), mqttVersion, persistentSession);
+				try {
+					client.startup().get();
+				} catch (InterruptedException e) {
+					client.shutdown();
+					throw e;
+				} catch (ExecutionException e) {
+					client.shutdown();
+					if (lostAt == null) {
+						// fail fast if the first connection cannot be established
+						throw e;
+					}
+					attempt++;
+					final Duration delay = reconnectDelay(attempt, options.reconnectMaxDelay);
+					System.err.println("Reconnect attempt %d failed (%s); trying again in %s.".formatted(attempt,
+							e.getCause() != null ? e.getCause().getMessage() : e.getMessage(), delay));
+					Thread.sleep(delay);
+					continue;
+				}
+
+				if (lostAt != null) {
+					final Instant now = Instant.now();
+					final Duration lost = Duration.between(lostAt, now);
+					final boolean resumed = (persistentSession && sessionResumed(options.sessionExpiry, lost));
+					final long missed = estimatedMissed(resumed, lostRate, lost);
+					buffer.put(Message.gap(new FluxGap(lostAt, now, missed)));
+					System.err.println("Reconnected to %s after %d attempts%s.".formatted(options.serverUri,
+							attempt + 1, resumed ? ", resuming the session" : ""));
+					lostAt = null;
+					attempt = 0;
+				}
+
+				try {
+					client.closeFuture.get();
+				} finally {
+					client.shutdown();
+				}
+				if (!options.reconnect || buffer.isClosed()) {
+					return;
+				}
+
+				lostAt = Instant.now();
+				lostRate = client.messageRate(lostAt);
+				final Duration delay = reconnectDelay(attempt, options.reconnectMaxDelay);
+				System.err.println("Connection to %s lost; reconnecting in %s.".formatted(options.serverUri, delay));
+				Thread.sleep(delay);
+			}
+		}
+	}
+
+	private boolean persistentSession(MqttVersion mqttVersion) {
+		if (options.sessionExpiry == null || options.sessionExpiry.toSeconds() < 1) {
+			return false;
+		}
+		if (mqttVersion.compareTo(MqttVersion.Mqtt5) < 0) {
+			System.err.println("The session expiry is only supported with MQTT 5, and will be ignored.");
+			return false;
+		}
+		return true;
+	}
+
+	private void configure(BasicMqttConnectionConfig mqttConfig, MqttVersion mqttVersion, boolean persistentSession) {
+		mqttConfig.setCleanSession(!persistentSession);
+		mqttConfig.setReconnect(false); // reconnect is handled in subscribe()
+		mqttConfig.setServerUriValue(options.serverUri);
+		mqttConfig.setUsername(profile.tokenCredentials().tokenId());
+		mqttConfig.setPassword(String.valueOf(profile.tokenCredentials().tokenSecret()));
+		mqttConfig.setClientId(profile.tokenCredentials().tokenId() + clientIdSuffix);
+		mqttConfig.setReadTimeoutSeconds(0); // wait forever for messages
+		mqttConfig.setWriteTimeoutSeconds(55); // we never write, so send PING every min
+		mqttConfig.setReconnectDelaySeconds(1);
+		mqttConfig.setVersion(mqttVersion);
+		mqttConfig.setWireLoggingEnabled(true);
+		if (mqttVersion.compareTo(MqttVersion.Mqtt5) >= 0) {
+			mqttConfig.setProperty(new BasicMqttProperty<>(MqttPropertyType.TOPIC_ALIAS_MAXIMUM, 255));
+			if (persistentSession) {
+				mqttConfig.setProperty(new BasicMqttProperty<>(MqttPropertyType.SESSION_EXPIRY_INTERVAL,
+						(int) Math.min(Integer.MAX_VALUE, options.sessionExpiry.toSeconds())));
+			}
+		}
+	}
+
+	/**
+	 * Get a reconnect delay, using an exponential backoff with "equal jitter".
+	 *
+	 * <p>
+	 * The base delay doubles from 1 second with each attempt, up to the maximum,
+	 * and the actual delay is half the base delay plus a random amount up to the
+	 * other half, so many clients disconnected at the same time do not all
+	 * reconnect at the same time.
+	 * </p>
+	 *
+	 * @param attempt  the number of failed reconnect attempts so far
+	 * @param maxDelay the maximum base delay, or {@code null} for
+	 *                 {@link FluxConnectionOptions#DEFAULT_RECONNECT_MAX_DELAY};
+	 *                 anything less than 1 second is treated as 1 second
+	 * @return the delay
+	 */
+	static Duration reconnectDelay(int attempt, Duration maxDelay) {
+		final long maxMs = Math.max(1000L,
+				(maxDelay != null ? maxDelay : FluxConnectionOptions.DEFAULT_RECONNECT_MAX_DELAY).toMillis());
+		final long baseMs = Math.min(maxMs, 1000L << Math.min(Math.max(attempt, 0), 20));
+		final long halfMs = baseMs / 2;
+		return Duration.ofMillis(halfMs + ThreadLocalRandom.current().nextLong(halfMs + 1));
+	}
+
+	/**
+	 * Test if a persistent session is resumed after reconnecting.
+	 *
+	 * <p>
+	 * A persistent session that has not expired is resumed, and the server then
+	 * delivers the messages queued while disconnected, so none are missed.
+	 * </p>
+	 *
+	 * @param sessionExpiry the session expiry, or {@code null} if there is none
+	 * @param lost          the period the connection was lost for
+	 * @return {@code true} if the session is resumed
+	 */
+	static boolean sessionResumed(Duration sessionExpiry, Duration lost) {
+		return (sessionExpiry != null && lost.compareTo(sessionExpiry) < 0);
+	}
+
+	/**
+	 * Estimate the number of messages missed while disconnected.
+	 *
+	 * @param resumed {@code true} if a persistent session was resumed, so no
+	 *                messages were missed
+	 * @param rate    the average message rate while connected, in messages per
+	 *                second
+	 * @param lost    the period the connection was lost for
+	 * @return the estimated number of missed messages
+	 */
+	static long estimatedMissed(boolean resumed, double rate, Duration lost) {
+		return (resumed ? 0L : Math.round(rate * lost.toMillis() / 1000.0));
+	}
+
+	/**
+	 * Add a received message to a buffer.
+	 *
+	 * @param buffer  the buffer
+	 * @param topic   the message topic
+	 * @param payload the message payload
+	 * @return {@code true} if the subscription should continue, {@code false} if
+	 *         the buffer has been closed and so no more messages can be added
+	 * @throws InterruptedException if interrupted while waiting for space in the
+	 *                              buffer
+	 */
+	static boolean bufferMessage(FluxMessageBuffer buffer, String topic, byte[] payload)
+			throws InterruptedException {
+		return (buffer.put(topic, payload) || !buffer.isClosed());
+	}
+
+	private final class MqttConnectionService extends BaseMqttConnectionService
+			implements MqttConnectionObserver, MqttMessageHandler {
+
+		private final CompletableFuture<Object> closeFuture = new CompletableFuture<Object>();
+		private final FluxMessageBuffer buffer;
+		private final FluxSessionStats stats;
+		private final MqttQos qos;
+		private final LongAdder messageCount = new LongAdder();
+		private volatile Instant establishedAt;
+
+		private MqttConnectionService(MqttConnectionFactory connectionFactory, StatTracker mqttStats,
+				FluxMessageBuffer buffer, FluxSessionStats stats, MqttQos qos) {
+			super(connectionFactory, mqttStats);
+			this.buffer = buffer;
+			this.stats = stats;
+			this.qos = qos;
+		}
+
+		/**
+		 * Get the average message rate while connected.
+		 *
+		 * @param lostAt the date the connection was lost
+		 * @return the rate, in messages per second
+		 */
+		private double messageRate(Instant lostAt) {
+			final Instant start = establishedAt;
+			if (start == null) {
+				return 0;
+			}
+			final long ms = Duration.between(start, lostAt).toMillis();
+			return (ms > 0 ? messageCount.sum() * 1000.0 / ms : 0);
+		}
+
+		@Override
+		public String getPingTestName() {
+			return "N/A";
+		}
+
+		@Override
+		public void onMqttMessage(MqttMessage message) {
+			messageCount.increment();
+			if (stats != null) {
+				final byte[] payload = message.getPayload();
+				stats.received(message.getTopic(), payload != null ? payload.length : 0);
+			}
+			try {
+				if (!bufferMessage(buffer, message.getTopic(), message.getPayload())) {
+					// the buffer is closed once output stops, so stop receiving messages
+					closeFuture.complete(null);
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		@Override
+		public void onMqttServerConnectionLost(MqttConnection connection, boolean willReconnect, Throwable cause) {
+			closeFuture.complete(null);
+		}
+
+		@SuppressWarnings("FutureReturnValueIgnored")
+		@Override
+		public void onMqttServerConnectionEstablished(MqttConnection connection, boolean reconnected) {
+			establishedAt = Instant.now();
+			for (String mqttTopicFilter : mqttTopicFilters) {
+				connection.subscribe(mqttTopicFilter, qos, null);
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,161 @@
+package s10k.tool.flux.cmd;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.FutureTask;
+
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Mixin;
+import picocli.CommandLine.Option;
+import s10k.tool.common.cmd.BaseSubCmd;
+import s10k.tool.common.domain.ProfileInfo;
+import s10k.tool.flux.util.FluxLogWriter;
+import s10k.tool.flux.util.FluxMessageBuffer;
+import s10k.tool.flux.util.FluxMessageBuffer.Message;
+
+/**
+ * Subscribe to a SolarFlux topic and record the received messages to a
+ * segmented log, for replaying later.
+ */
+@Component
+@Command(name = "record", sortSynopsis = false, showDefaultValues = true)
+public class RecordFluxCmd extends BaseSubCmd<FluxCmd> implements Callable<Integer> {
+
+	// @formatter:off
+	@Mixin
+	FluxConnectionOptions connectionOptions;
+
+	@Option(names = { "-dir", "--directory" },
+			description = "the directory to write the log segments to",
+			required = true,
+			paramLabel = "dir")
+	Path directory;
+
+	@Option(names = { "--segment-size" },
+			description = "the maximum size of each log segment, in bytes",
+			defaultValue = "" + FluxLogWriter.DEFAULT_SEGMENT_SIZE,
+			paramLabel = "bytes")
+	long segmentSize = FluxLogWriter.DEFAULT_SEGMENT_SIZE;
+
+	@Option(names = { "--segment-duration" },
+			description = "the maximum duration of messages to write to each log segment",
+			defaultValue = "PT1H",
+			paramLabel = "duration")
+	Duration segmentDuration = FluxLogWriter.DEFAULT_SEGMENT_DURATION;
+
+	@Mixin
+	FluxBufferOptions bufferOptions;
+	// @formatter:on
+
+	/**
+	 * Constructor.
+	 *
+	 * @param reqFactory   the HTTP request factory to use
+	 * @param objectMapper the mapper to use
+	 */
+	public RecordFluxCmd(ClientHttpRequestFactory reqFactory, ObjectMapper objectMapper) {
+		super(reqFactory, objectMapper);
+	}
+
+	@Override
+	public Integer call() throws Exception {
+		final ProfileInfo profile = profileWithCredentials();
+
+		final FluxMessageBuffer buffer;
+		final FluxLogWriter log;
+		try {
+			buffer = bufferOptions.buffer();
+			log = new FluxLogWriter(directory, segmentSize, segmentDuration);
+		} catch (IllegalArgumentException e) {
+			System.err.println("Invalid record settings: %s".formatted(e.getMessage()));
+			return 1;
+		}
+
+		final FutureTask<Boolean> recording = new FutureTask<>(() -> recordMessages(buffer, log));
+		final Thread writer = Thread.ofPlatform().name("flux-recorder").daemon(true).start(recording);
+
+		// stopping with Ctrl+C is the normal way to end recording, so finish writing
+		// the buffered messages and close the current segment on shutdown
+		final Thread shutdownHook = new Thread(() -> {
+			buffer.close();
+			try {
+				writer.join(Duration.ofSeconds(5));
+			} catch (InterruptedException e) {
+				// ignore
+			}
+		});
+		Runtime.getRuntime().addShutdownHook(shutdownHook);
+
+		try {
+			FluxSubscriber.subscribe(connectionOptions, profile, connectionOptions.mqttTopicFilterGroups(restClient()),
+					buffer, null);
+		} catch (Exception e) {
+			System.err.println("Error recording datum: %s".formatted(e.getMessage()));
+			return 1;
+		} finally {
+			buffer.close();
+			writer.join();
+			try {
+				Runtime.getRuntime().removeShutdownHook(shutdownHook);
+			} catch (IllegalStateException e) {
+				// shutting down already
+			}
+			bufferOptions.printStats(buffer, verbosity() > 0);
+			if (verbosity() > 0) {
+				System.err.println("Recorded %d messages to %d segments in [%s].".formatted(log.getRecordCount(),
+						log.getSegmentCount(), directory));
+			}
+		}
+		return (recording.get() ? 0 : 1);
+	}
+
+	/**
+	 * Drain a message buffer, appending the messages to a log.
+	 *
+	 * <p>
+	 * If a message cannot be appended, for example because the disk is full, the
+	 * buffer is closed so the subscription ends rather than receiving messages
+	 * that can no longer be recorded.
+	 * </p>
+	 *
+	 * @param buffer the buffer to drain
+	 * @param log    the log to append the messages to; it is closed once the
+	 *               buffer has been drained
+	 * @return {@code true} if all messages were recorded, {@code false} if an
+	 *         error occurred
+	 */
+	static boolean recordMessages(FluxMessageBuffer buffer, FluxLogWriter log) {
+		final List<Message> batch = new ArrayList<>(64);
+		try (log) {
+			while (buffer.drainTo(batch, 1000) >= 0) {
+				for (Message msg : batch) {
+					if (msg.gap() != null) {
+						System.err.println("Connection lost from %s to %s; about %d messages missed.".formatted(
+								msg.gap().start(), msg.gap().end(), msg.gap().estimatedMissed()));
+						continue;
+					}
+					log.append(msg);
+				}
+				batch.clear();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (IOException e) {
+			System.err.println("Error recording MQTT message: " + e.toString());
+			// stop accepting messages, which also ends the subscription
+			buffer.close();
+			return false;
+		}
+		return true;
+	}
+
+}
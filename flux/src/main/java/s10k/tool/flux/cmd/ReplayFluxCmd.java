@@ -0,0 +1,108 @@
+package s10k.tool.flux.cmd;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Mixin;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.Parameters;
+import s10k.tool.common.cmd.BaseSubCmd;
+import s10k.tool.flux.util.FluxLogReader;
+import s10k.tool.flux.util.FluxMessageBuffer;
+import s10k.tool.flux.util.FluxMessageBuffer.Message;
+import s10k.tool.flux.util.FluxMessageFormatter;
+
+/**
+ * Replay SolarFlux messages recorded by {@link RecordFluxCmd}, displaying them
+ * in the same way as {@link TailFluxCmd}.
+ */
+@Component
+@Command(name = "replay", sortSynopsis = false, showDefaultValues = true)
+public class ReplayFluxCmd extends BaseSubCmd<FluxCmd> implements Callable<Integer> {
+
+	// @formatter:off
+	@Parameters(arity = "1..*",
+			description = "the log segment files, or directories of log segment files, to replay",
+			paramLabel = "path")
+	List<Path> paths;
+
+	@Option(names = { "--speed" },
+			description = "the replay speed multiplier, or 0 to replay as fast as possible",
+			defaultValue = "1")
+	double speed = 1;
+
+	@Mixin
+	FluxOutputOptions outputOptions;
+
+	@Mixin
+	FluxBufferOptions bufferOptions;
+	// @formatter:on
+
+	/**
+	 * Constructor.
+	 *
+	 * @param reqFactory   the HTTP request factory to use
+	 * @param objectMapper the mapper to use
+	 */
+	public ReplayFluxCmd(ClientHttpRequestFactory reqFactory, ObjectMapper objectMapper) {
+		super(reqFactory, objectMapper);
+	}
+
+	@Override
+	public Integer call() throws Exception {
+		if (speed < 0 || !Double.isFinite(speed)) {
+			System.err.println("The replay speed must be 0 or more.");
+			return 1;
+		}
+
+		final FluxMessageBuffer buffer;
+		try {
+			buffer = bufferOptions.buffer();
+		} catch (IllegalArgumentException e) {
+			System.err.println("Invalid buffer settings: %s".formatted(e.getMessage()));
+			return 1;
+		}
+
+		final FluxMessageFormatter formatter = outputOptions.formatter(objectMapper);
+		final Thread writer = Thread.ofPlatform().name("flux-writer").daemon(true)
+				.start(() -> TailFluxCmd.writeMessages(formatter, buffer));
+
+		try (FluxLogReader reader = new FluxLogReader(FluxLogReader.segments(paths))) {
+			long firstReceived = 0;
+			long startNanos = 0;
+			Message msg;
+			while ((msg = reader.next()) != null) {
+				if (speed > 0) {
+					if (startNanos == 0) {
+						firstReceived = msg.received();
+						startNanos = System.nanoTime();
+					} else {
+						final long offsetNanos = (long) ((msg.received() - firstReceived) * 1_000_000L / speed);
+						final long waitNanos = startNanos + offsetNanos - System.nanoTime();
+						if (waitNanos > 0) {
+							Thread.sleep(Duration.ofNanos(waitNanos));
+						}
+					}
+				}
+				buffer.put(msg);
+			}
+			return 0;
+		} catch (Exception e) {
+			System.err.println("Error replaying datum: %s".formatted(e.getMessage()));
+		} finally {
+			buffer.close();
+			writer.join();
+			bufferOptions.printStats(buffer, verbosity() > 0);
+		}
+		return 1;
+	}
+
+}
@@ -1,61 +1,26 @@
 package s10k.tool.flux.cmd;
 
-import static java.util.Map.entry;
-import static net.solarnetwork.util.NumberUtils.bigDecimalForNumber;
-import static net.solarnetwork.util.NumberUtils.narrow;
-import static net.solarnetwork.util.NumberUtils.round;
-import static s10k.tool.common.domain.ResultDisplayMode.JSON;
-import static s10k.tool.common.domain.ResultDisplayMode.PRETTY;
-
+import java.io.BufferedOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
-import java.time.Instant;
-import java.util.ArrayList;
-import java.util.LinkedHashMap;
-import java.util.List;
-import java.util.Map;
-import java.util.Set;
-import java.util.UUID;
+import java.time.Duration;
 import java.util.concurrent.Callable;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
-import java.util.concurrent.atomic.AtomicLong;
 
 import org.springframework.http.client.ClientHttpRequestFactory;
-import org.springframework.scheduling.concurrent.ConcurrentTaskScheduler;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StreamUtils;
-import org.springframework.web.client.RestClient;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.ObjectWriter;
-import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
-import com.github.freva.asciitable.Column;
-import com.github.freva.asciitable.HorizontalAlign;
 
-import net.solarnetwork.codec.JsonUtils;
-import net.solarnetwork.common.mqtt.BaseMqttConnectionService;
-import net.solarnetwork.common.mqtt.BasicMqttProperty;
-import net.solarnetwork.common.mqtt.MqttConnection;
-import net.solarnetwork.common.mqtt.MqttConnectionFactory;
-import net.solarnetwork.common.mqtt.MqttConnectionObserver;
-import net.solarnetwork.common.mqtt.MqttMessage;
-import net.solarnetwork.common.mqtt.MqttMessageHandler;
-import net.solarnetwork.common.mqtt.MqttPropertyType;
-import net.solarnetwork.common.mqtt.MqttQos;
-import net.solarnetwork.common.mqtt.MqttVersion;
-import net.solarnetwork.common.mqtt.netty.NettyMqttConnectionFactory;
-import net.solarnetwork.util.StatTracker;
-import picocli.CommandLine.ArgGroup;
 import picocli.CommandLine.Command;
+import picocli.CommandLine.Mixin;
 import picocli.CommandLine.Option;
 import s10k.tool.common.cmd.BaseSubCmd;
 import s10k.tool.common.domain.ProfileInfo;
-import s10k.tool.common.domain.ResultDisplayMode;
-import s10k.tool.common.domain.SnTokenCredentialsInfo;
-import s10k.tool.common.util.RestUtils;
-import s10k.tool.common.util.TableUtils;
+import s10k.tool.flux.util.FluxMessageBuffer;
+import s10k.tool.flux.util.FluxMessageFormatter;
+import s10k.tool.flux.util.FluxSessionStats;
+import s10k.tool.flux.util.FluxWindowAggregator;
 
 /**
  * Subscribe to a SolarFlux topic and display the results in real-time like the
@@ -66,280 +31,126 @@ import s10k.tool.common.util.TableUtils;
 public class TailFluxCmd extends BaseSubCmd<FluxCmd> implements Callable<Integer> {
 
 	// @formatter:off
-	@ArgGroup(exclusive = true, multiplicity = "1")
-	TopicOrNodeSource topicOrNodeSource;
+	@Mixin
+	FluxConnectionOptions connectionOptions;
 
-	@Option(names = { "-prop", "--property" },
-			description = "show only this property name in the results",
-			split = "\\s*,\\s*",
-			splitSynopsisLabel = ",",
-			paramLabel = "propName")
-	String[] propertyNames;
-	
-	@Option(names = { "-G", "--csv-global-header" },
-			description = "for CSV output, generate a global header from the -prop name(s) or first result")
-	boolean csvGlobalHeader;
-	
-	@Option(names = {"-R", "--max-precision" },
-			description = "max number precision, or -1 for no rounding",
-			defaultValue = "3")
-	int maxPrecision = 3;
-	
-	@Option(names = { "--client-id" },
-			description = "a client ID to use, instead of a random default")
-	String clientIdSuffix = "_" +UUID.randomUUID().toString().replaceAll("-", "").substring(0, 8);
-	
-	@Option(names = {"--url"},
-			description = "the MQTT server URL to connect to, in @|bold mqtt(s)://host:port|@ form",
-			defaultValue = "mqtts://fluxion.solarnetwork.net:8885",
-			paramLabel = "url")
-	String serverUri = "mqtts://fluxion.solarnetwork.net:8885";
-	
-	@Option(names = "--mqtt-version",
-			description = "the MQTT version to use",
-			defaultValue = "Mqtt5")
-	MqttVersion mqttVersion = MqttVersion.Mqtt5;
+	@Mixin
+	FluxOutputOptions outputOptions;
 
-	@Option(names = { "-mode", "--display-mode" },
-			description = "how to display the results",
-			defaultValue = "PRETTY")
-	ResultDisplayMode displayMode = ResultDisplayMode.PRETTY;
-	// @formatter:on
+	@Mixin
+	FluxBufferOptions bufferOptions;
 
-	private String mqttTopicFilter;
+	@Mixin
+	FluxStatsOptions statsOptions;
 
-	/**
-	 * Grouping of node/source IDs, where both must be provided.
-	 */
-	static class NodeAndSourceIds {
-		// @formatter:off
-    	@Option(names = { "-node", "--node-id" },
-    			description = "a node ID (or + wildcard) to subscribe to")
-    	String nodeId;
-
-    	@Option(names = { "-source", "--source-id" },
-    			description = "a source ID (or topic pattern) to subscribe to")
-    	String sourceId;
-    	// @formatter:on
-
-	}
-
-	/**
-	 * Grouping of topic or node/source, where one or the other must be provided.
-	 */
-	static class TopicOrNodeSource {
-		// @formatter:off
-    	@Option(names = { "-t", "--topic" },
-    			description = "a topic filter to subscribe to",
-    			paramLabel = "filter")
-    	String topicFilter;
-
-    	@ArgGroup(exclusive = false)
-    	NodeAndSourceIds nodeAndSource;
-    	// @formatter:on
-
-		/**
-		 * Test if node and source IDs are provided, otherwise the topic filter should
-		 * be used.
-		 * 
-		 * @return {@code true} if node and source IDs are provided
-		 */
-		boolean isNodeAndSource() {
-			return nodeAndSource != null && nodeAndSource.nodeId != null && !nodeAndSource.nodeId.isBlank()
-					&& nodeAndSource.sourceId != null && !nodeAndSource.sourceId.isBlank();
-		}
+	@Option(names = { "-w", "--window" },
+			description = "show statistics per topic and property for windows of this duration, instead of each message",
+			paramLabel = "duration")
+	Duration window;
 
-		/**
-		 * Test if node and source IDs are <b>not</b> provided, and the topic filter has
-		 * a {@code user/} prefix.
-		 * 
-		 * @return {@code true} if a user topic prefix is specified
-		 */
-		boolean isUserTopic() {
-			return !isNodeAndSource() && topicFilter != null && topicFilter.startsWith("user/");
-		}
-	}
-
-	private final ObjectMapper cborObjectMapper;
+	@Option(names = { "--slide" },
+			description = "for --window, the duration to advance sliding windows by; defaults to the window duration for tumbling windows",
+			paramLabel = "duration")
+	Duration slide;
+	// @formatter:on
 
 	/**
 	 * Constructor.
-	 * 
+	 *
 	 * @param reqFactory   the HTTP request factory to use
 	 * @param objectMapper the mapper to use
 	 */
 	public TailFluxCmd(ClientHttpRequestFactory reqFactory, ObjectMapper objectMapper) {
 		super(reqFactory, objectMapper);
-		this.cborObjectMapper = objectMapper.copyWith(new CBORFactory());
 	}
 
 	@Override
 	public Integer call() throws Exception {
 		final ProfileInfo profile = profileWithCredentials();
 
-		try (final var executor = Executors.newCachedThreadPool();
-				final var scheduler = Executors.newSingleThreadScheduledExecutor()) {
-
-			final StatTracker stats = new StatTracker("SolarFlux", null, null, 1000);
+		final FluxMessageBuffer buffer;
+		try {
+			buffer = bufferOptions.buffer();
+		} catch (IllegalArgumentException e) {
+			System.err.println("Invalid buffer settings: %s".formatted(e.getMessage()));
+			return 1;
+		}
 
-			final var connectionFactory = new NettyMqttConnectionFactory(executor,
-					new ConcurrentTaskScheduler(executor, scheduler));
+		final FluxSessionStats stats = (statsOptions.isEnabled()
+				? new FluxSessionStats(buffer, FluxSessionStats.DEFAULT_TOP_TOPICS)
+				: null);
 
-			final CompletableFuture<Object> closeFuture = new CompletableFuture<Object>();
-			final var client = new MqttConnectionService(connectionFactory, stats, closeFuture);
-			final var mqttConfig = client.getMqttConfig();
-			mqttConfig.setCleanSession(true);
-			mqttConfig.setReconnect(false);
-			mqttConfig.setServerUriValue(serverUri);
-			mqttConfig.setUsername(profile.tokenCredentials().tokenId());
-			mqttConfig.setPassword(String.valueOf(profile.tokenCredentials().tokenSecret()));
-			mqttConfig.setClientId(profile.tokenCredentials().tokenId() + clientIdSuffix);
-			mqttConfig.setReadTimeoutSeconds(0); // wait forever for messages
-			mqttConfig.setWriteTimeoutSeconds(55); // we never write, so send PING every min
-			mqttConfig.setReconnectDelaySeconds(1);
-			mqttConfig.setVersion(mqttVersion != null ? mqttVersion : MqttVersion.Mqtt311);
-			mqttConfig.setWireLoggingEnabled(true);
-			if (mqttVersion.compareTo(MqttVersion.Mqtt5) >= 0) {
-				mqttConfig.setProperty(new BasicMqttProperty<>(MqttPropertyType.TOPIC_ALIAS_MAXIMUM, 255));
+		final Thread writer;
+		if (window != null) {
+			final FluxWindowAggregator aggregator;
+			try {
+				aggregator = new FluxWindowAggregator(objectMapper, outputOptions.displayMode,
+						outputOptions.propertyNames, outputOptions.maxPrecision, window, slide);
+			} catch (IllegalArgumentException e) {
+				System.err.println("Invalid window settings: %s".formatted(e.getMessage()));
+				return 1;
 			}
+			aggregator.setStats(stats);
+			writer = Thread.ofPlatform().name("flux-writer").daemon(true)
+					.start(() -> aggregateMessages(aggregator, buffer));
+		} else {
+			final FluxMessageFormatter formatter = outputOptions.formatter(objectMapper);
+			formatter.setStats(stats);
+			writer = Thread.ofPlatform().name("flux-writer").daemon(true)
+					.start(() -> writeMessages(formatter, buffer));
+		}
 
-			// bug in SolarFlux MQTTv5 where topic rewriting of "node/X" to "user/U/node/X"
-			// prevents delivery of messages, so force topic to "user/X" if not already
-			mqttTopicFilter = mqttTopicFilter();
-
-			Future<?> startFuture = client.startup();
-			startFuture.get();
-			closeFuture.get();
-
+		FluxStatsOptions.StatsReporter statsReporter = null;
+		try {
+			if (stats != null) {
+				statsReporter = statsOptions.start(stats, objectMapper);
+			}
+			FluxSubscriber.subscribe(connectionOptions, profile, connectionOptions.mqttTopicFilterGroups(restClient()),
+					buffer, stats);
 			return 0;
 		} catch (Exception e) {
 			System.err.println("Error streaming datum: %s".formatted(e.getMessage()));
+		} finally {
+			buffer.close();
+			writer.join();
+			if (statsReporter != null) {
+				statsReporter.close();
+			}
+			bufferOptions.printStats(buffer, verbosity() > 0);
 		}
 		return 1;
 	}
 
-	private String mqttTopicFilter() {
-		assert topicOrNodeSource != null;
-		if (topicOrNodeSource.isUserTopic()) {
-			return topicOrNodeSource.topicFilter;
+	/**
+	 * Drain a message buffer, writing the messages to standard output.
+	 *
+	 * @param formatter the formatter to write the messages with
+	 * @param buffer    the buffer to drain
+	 */
+	static void writeMessages(FluxMessageFormatter formatter, FluxMessageBuffer buffer) {
+		final OutputStream out = new BufferedOutputStream(StreamUtils.nonClosing(System.out), 64 * 1024);
+		try {
+			formatter.writeAll(buffer, out);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (IOException e) {
+			System.err.println("Error writing MQTT message: " + e.toString());
 		}
-		RestClient restClient = restClient();
-		SnTokenCredentialsInfo tokenInfo = RestUtils.credentialsInfo(restClient);
-		return "user/%d/node/%s/datum/0/%s".formatted(tokenInfo.userId(), topicOrNodeSource.nodeAndSource.nodeId,
-				topicOrNodeSource.nodeAndSource.sourceId);
 	}
 
-	private final class MqttConnectionService extends BaseMqttConnectionService
-			implements MqttConnectionObserver, MqttMessageHandler {
-
-		private final CompletableFuture<Object> future;
-		private final ObjectWriter jsonOut;
-		private final OutputStream out;
-
-		private AtomicLong count = new AtomicLong();
-		private List<Column> globalColumns;
-
-		private MqttConnectionService(MqttConnectionFactory connectionFactory, StatTracker mqttStats,
-				CompletableFuture<Object> future) {
-			super(connectionFactory, mqttStats);
-			this.future = future;
-			jsonOut = objectMapper.writerWithDefaultPrettyPrinter();
-			out = StreamUtils.nonClosing(System.out);
-		}
-
-		@Override
-		public String getPingTestName() {
-			return "N/A";
-		}
-
-		@Override
-		public void onMqttMessage(MqttMessage message) {
-			final long msgNum = count.incrementAndGet();
-			try {
-				Map<String, Object> msgBody = JsonUtils
-						.getStringMapFromTree(cborObjectMapper.readTree(message.getPayload()));
-				List<Column> cols = msgColumns(msgBody.keySet());
-				Map<String, Object> displayMap = new LinkedHashMap<>(msgBody.size());
-				for (Column col : cols) {
-					displayMap.put(col.getHeader(), propVal(col.getHeader(), msgBody.get(col.getHeader())));
-				}
-				if (displayMode == JSON) {
-					// @formatter:off
-					jsonOut.writeValue(out, Map.ofEntries(
-							entry("ts", Instant.now()),
-							entry("topic", message.getTopic()),
-							entry("body", displayMap)
-							));
-					System.out.println();
-					// @formatter:on
-				} else {
-					// @formatter:off
-					TableUtils.renderTableData(displayMode == PRETTY || !csvGlobalHeader || msgNum == 1
-								? cols.toArray(Column[]::new)
-								: null,
-							List.of(displayMap.values()), displayMode, objectMapper, out);
-					// @formatter:on
-				}
-			} catch (IOException e) {
-				System.err.println("Error decoding MQTT message: " + e.toString());
-			}
-		}
-
-		private Object propVal(final String propName, final Object val) {
-			Object result = val;
-			if (val instanceof Number n) {
-				if (propName.equals("created")) {
-					result = Instant.ofEpochMilli(n.longValue());
-				} else if (maxPrecision >= 0) {
-					result = bigDecimalForNumber(narrow(round(n, maxPrecision), 2)).toPlainString();
-				}
-			}
-			return result;
-		}
-
-		private synchronized List<Column> msgColumns(Set<String> msgKeys) {
-			// check if global columns are required
-			if (globalColumns != null) {
-				return globalColumns;
-			}
-			List<Column> result = new ArrayList<>(propertyNames != null ? propertyNames.length : msgKeys.size());
-			if (propertyNames != null) {
-				for (String propName : propertyNames) {
-					result.add(new Column().header(propName).dataAlign(HorizontalAlign.RIGHT));
-				}
-			} else {
-				for (String msgKey : msgKeys) {
-					if (msgKey.equals("_v")) {
-						// skip the v2 flag
-						continue;
-					}
-					Column col = new Column().header(msgKey).dataAlign(HorizontalAlign.RIGHT);
-					if (msgKey.equals("created")) {
-						result.add(0, col);
-					} else {
-						result.add(col);
-					}
-				}
-			}
-			if (displayMode == ResultDisplayMode.CSV && csvGlobalHeader) {
-				globalColumns = result;
-			}
-			return result;
-		}
-
-		@Override
-		public void onMqttServerConnectionLost(MqttConnection connection, boolean willReconnect, Throwable cause) {
-			future.complete(null);
-		}
-
-		@SuppressWarnings("FutureReturnValueIgnored")
-		@Override
-		public void onMqttServerConnectionEstablished(MqttConnection connection, boolean reconnected) {
-			if (mqttTopicFilter != null) {
-				connection.subscribe(mqttTopicFilter, MqttQos.AtMostOnce, null);
+	private static void aggregateMessages(FluxWindowAggregator aggregator, FluxMessageBuffer buffer) {
+		final OutputStream out = new BufferedOutputStream(StreamUtils.nonClosing(System.out), 64 * 1024);
+		try {
+			aggregator.writeAll(buffer, out);
+			if (aggregator.getLateCount() > 0) {
+				System.err.println("%d messages received after their window was displayed were not counted."
+						.formatted(aggregator.getLateCount()));
 			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (IOException e) {
+			System.err.println("Error writing MQTT message statistics: " + e.toString());
 		}
-
 	}
 
 }
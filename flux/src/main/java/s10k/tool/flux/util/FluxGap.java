@@ -0,0 +1,26 @@
+package s10k.tool.flux.util;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * A period of time where no SolarFlux messages were received because the
+ * connection to the server was lost.
+ *
+ * @param start           the date the connection was lost
+ * @param end             the date the connection was re-established
+ * @param estimatedMissed the estimated number of messages missed, based on the
+ *                        message rate before the connection was lost
+ */
+public record FluxGap(Instant start, Instant end, long estimatedMissed) {
+
+	/**
+	 * Get the gap duration.
+	 *
+	 * @return the duration
+	 */
+	public Duration duration() {
+		return Duration.between(start, end);
+	}
+
+}
@@ -0,0 +1,157 @@
+package s10k.tool.flux.util;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static s10k.tool.flux.util.FluxLogWriter.HEADER_SIZE;
+import static s10k.tool.flux.util.FluxLogWriter.INT;
+import static s10k.tool.flux.util.FluxLogWriter.LONG;
+import static s10k.tool.flux.util.FluxLogWriter.MAGIC;
+import static s10k.tool.flux.util.FluxLogWriter.RECORD_OVERHEAD;
+import static s10k.tool.flux.util.FluxLogWriter.SEGMENT_EXTENSION;
+import static s10k.tool.flux.util.FluxLogWriter.SEGMENT_PREFIX;
+import static s10k.tool.flux.util.FluxLogWriter.SHORT;
+import static s10k.tool.flux.util.FluxLogWriter.VERSION;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Read SolarFlux messages from log segments written by {@link FluxLogWriter}.
+ *
+ * <p>
+ * This class is not thread-safe.
+ * </p>
+ */
+public final class FluxLogReader implements Closeable {
+
+	private final List<Path> segments;
+	private int segmentIndex;
+	private Arena arena;
+	private MemorySegment segment;
+	private long position;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param segments the segment files to read, in order
+	 */
+	public FluxLogReader(List<Path> segments) {
+		super();
+		this.segments = segments;
+	}
+
+	/**
+	 * Find log segment files.
+	 *
+	 * @param paths the segment files or directories containing segment files
+	 * @return the segment files, with those found in each directory sorted by
+	 *         name
+	 * @throws IOException if any IO error occurs
+	 */
+	public static List<Path> segments(List<Path> paths) throws IOException {
+		final List<Path> result = new ArrayList<>();
+		for (Path path : paths) {
+			if (Files.isDirectory(path)) {
+				try (Stream<Path> files = Files.list(path)) {
+					// @formatter:off
+					files.filter(p -> {
+							final String name = p.getFileName().toString();
+							return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_EXTENSION);
+						})
+						.sorted()
+						.forEach(result::add);
+					// @formatter:on
+				}
+			} else {
+				result.add(path);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Read the next message.
+	 *
+	 * @return the message, or {@code null} if there are no more messages
+	 * @throws IOException if any IO error occurs or a segment is not valid
+	 */
+	public FluxMessageBuffer.Message next() throws IOException {
+		while (true) {
+			if (segment == null) {
+				if (segmentIndex >= segments.size()) {
+					return null;
+				}
+				openSegment(segments.get(segmentIndex++));
+			}
+			final long remaining = segment.byteSize() - position;
+			final int length = (remaining >= 4 ? segment.get(INT, position) : 0);
+			if (length == 0) {
+				closeSegment();
+				continue;
+			}
+			if (length < RECORD_OVERHEAD - 4 || length > remaining - 4) {
+				throw new IOException("Invalid record length %d at offset %d in segment [%s]."
+						.formatted(length, position, segments.get(segmentIndex - 1)));
+			}
+			long pos = position + 4;
+			final long received = segment.get(LONG, pos);
+			pos += 8;
+			final int topicLength = Short.toUnsignedInt(segment.get(SHORT, pos));
+			pos += 2;
+			final int payloadLength = length - (RECORD_OVERHEAD - 4) - topicLength;
+			if (payloadLength < 0) {
+				throw new IOException("Invalid topic length %d at offset %d in segment [%s]."
+						.formatted(topicLength, position, segments.get(segmentIndex - 1)));
+			}
+			final byte[] topic = new byte[topicLength];
+			MemorySegment.copy(segment, ValueLayout.JAVA_BYTE, pos, topic, 0, topicLength);
+			pos += topicLength;
+			final byte[] payload = new byte[payloadLength];
+			MemorySegment.copy(segment, ValueLayout.JAVA_BYTE, pos, payload, 0, payloadLength);
+			position = pos + payloadLength;
+			return new FluxMessageBuffer.Message(new String(topic, UTF_8), payload, received);
+		}
+	}
+
+	private void openSegment(Path path) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			final long size = channel.size();
+			arena = Arena.ofConfined();
+			segment = channel.map(MapMode.READ_ONLY, 0, size, arena);
+		}
+		if (segment.byteSize() < HEADER_SIZE || segment.get(INT, 0) != MAGIC) {
+			closeSegment();
+			throw new IOException("Not a SolarFlux log segment: [%s]".formatted(path));
+		}
+		final int version = segment.get(INT, 4);
+		if (version != VERSION) {
+			closeSegment();
+			throw new IOException("Unsupported SolarFlux log segment version %d: [%s]".formatted(version, path));
+		}
+		position = HEADER_SIZE;
+	}
+
+	private void closeSegment() {
+		if (arena != null) {
+			arena.close();
+		}
+		arena = null;
+		segment = null;
+	}
+
+	@Override
+	public void close() throws IOException {
+		closeSegment();
+	}
+
+}
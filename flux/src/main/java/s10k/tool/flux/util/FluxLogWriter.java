@@ -0,0 +1,215 @@
+package s10k.tool.flux.util;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Append SolarFlux messages to a segmented, append-only binary log.
+ *
+ * <p>
+ * Each segment is a memory-mapped file, pre-sized to the configured segment
+ * size. A new segment is started when the current one does not have room for
+ * the next message, or when the first message in the current segment was
+ * received more than the configured segment duration before the next message.
+ * Closed segments are truncated to the size of their content.
+ * </p>
+ *
+ * <p>
+ * A segment starts with an 8-byte header of the {@link #MAGIC} number and the
+ * {@link #VERSION} number, followed by the records. Each record, in big-endian
+ * byte order, is:
+ * </p>
+ *
+ * <ol>
+ * <li>the record length, excluding this length, as a 4-byte integer</li>
+ * <li>the receive date, as an 8-byte count of milliseconds since the epoch</li>
+ * <li>the topic length, as a 2-byte unsigned integer</li>
+ * <li>the UTF-8 topic</li>
+ * <li>the payload</li>
+ * </ol>
+ *
+ * <p>
+ * The record length is written last, so a record length of {@code 0} marks the
+ * end of the segment, even if the writer was not closed cleanly.
+ * </p>
+ *
+ * <p>
+ * This class is not thread-safe.
+ * </p>
+ */
+public final class FluxLogWriter implements Closeable {
+
+	/** The segment header magic number, {@literal SNFL} in ASCII. */
+	public static final int MAGIC = 0x534E464C;
+
+	/** The segment format version. */
+	public static final int VERSION = 1;
+
+	/** The segment header size, in bytes. */
+	public static final int HEADER_SIZE = 8;
+
+	/** The segment file name prefix. */
+	public static final String SEGMENT_PREFIX = "flux-";
+
+	/** The segment file name extension. */
+	public static final String SEGMENT_EXTENSION = ".log";
+
+	/** The default segment size, in bytes. */
+	public static final long DEFAULT_SEGMENT_SIZE = 64L * 1024L * 1024L;
+
+	/** The default segment duration. */
+	public static final Duration DEFAULT_SEGMENT_DURATION = Duration.ofHours(1);
+
+	/** The fixed size of a record, excluding the topic and payload. */
+	static final int RECORD_OVERHEAD = 4 + 8 + 2;
+
+	static final ValueLayout.OfInt INT = ValueLayout.JAVA_INT_UNALIGNED.withOrder(ByteOrder.BIG_ENDIAN);
+	static final ValueLayout.OfLong LONG = ValueLayout.JAVA_LONG_UNALIGNED.withOrder(ByteOrder.BIG_ENDIAN);
+	static final ValueLayout.OfShort SHORT = ValueLayout.JAVA_SHORT_UNALIGNED.withOrder(ByteOrder.BIG_ENDIAN);
+
+	private static final DateTimeFormatter SEGMENT_DATE_FORMAT = DateTimeFormatter
+			.ofPattern("yyyyMMdd'T'HHmmssSSS'Z'").withZone(ZoneOffset.UTC);
+
+	private final Path directory;
+	private final long segmentSize;
+	private final long segmentDuration;
+
+	private FileChannel channel;
+	private Arena arena;
+	private MemorySegment segment;
+	private long position;
+	private long segmentStart;
+	private int segmentCount;
+	private long recordCount;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param directory       the directory to write segments to
+	 * @param segmentSize     the segment size, in bytes
+	 * @param segmentDuration the maximum duration of messages to write to one
+	 *                        segment
+	 * @throws IllegalArgumentException if {@code segmentSize} is smaller than the
+	 *                                  segment header or {@code segmentDuration}
+	 *                                  is not positive
+	 */
+	public FluxLogWriter(Path directory, long segmentSize, Duration segmentDuration) {
+		super();
+		if (segmentSize <= HEADER_SIZE + RECORD_OVERHEAD) {
+			throw new IllegalArgumentException("The segment size must be more than %d bytes."
+					.formatted(HEADER_SIZE + RECORD_OVERHEAD));
+		}
+		if (segmentDuration.isNegative() || segmentDuration.isZero()) {
+			throw new IllegalArgumentException("The segment duration must be positive.");
+		}
+		this.directory = directory;
+		this.segmentSize = segmentSize;
+		this.segmentDuration = segmentDuration.toMillis();
+	}
+
+	/**
+	 * Append a message.
+	 *
+	 * @param msg the message to append
+	 * @throws IOException if any IO error occurs
+	 */
+	public void append(FluxMessageBuffer.Message msg) throws IOException {
+		final byte[] topic = msg.topic().getBytes(UTF_8);
+		if (topic.length > 0xFFFF) {
+			throw new IOException("Topic too long (%d bytes).".formatted(topic.length));
+		}
+		final byte[] payload = (msg.payload() != null ? msg.payload() : new byte[0]);
+		final long recordSize = (long) RECORD_OVERHEAD + topic.length + payload.length;
+		if (segment == null || position + recordSize > segment.byteSize()
+				|| msg.received() - segmentStart >= segmentDuration) {
+			rollover(msg.received(), recordSize);
+		}
+
+		long pos = position + 4;
+		segment.set(LONG, pos, msg.received());
+		pos += 8;
+		segment.set(SHORT, pos, (short) topic.length);
+		pos += 2;
+		MemorySegment.copy(topic, 0, segment, ValueLayout.JAVA_BYTE, pos, topic.length);
+		pos += topic.length;
+		MemorySegment.copy(payload, 0, segment, ValueLayout.JAVA_BYTE, pos, payload.length);
+		pos += payload.length;
+
+		// write length last, to mark the record as complete
+		segment.set(INT, position, (int) (recordSize - 4));
+		position = pos;
+		recordCount++;
+	}
+
+	private void rollover(long date, long recordSize) throws IOException {
+		closeSegment();
+		Files.createDirectories(directory);
+		final Path path = directory.resolve("%s%s-%06d%s".formatted(SEGMENT_PREFIX,
+				SEGMENT_DATE_FORMAT.format(Instant.ofEpochMilli(date)), segmentCount, SEGMENT_EXTENSION));
+		final long size = Math.max(segmentSize, HEADER_SIZE + recordSize);
+		channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+				StandardOpenOption.WRITE);
+		arena = Arena.ofShared();
+		segment = channel.map(MapMode.READ_WRITE, 0, size, arena);
+		segment.set(INT, 0, MAGIC);
+		segment.set(INT, 4, VERSION);
+		position = HEADER_SIZE;
+		segmentStart = date;
+		segmentCount++;
+	}
+
+	private void closeSegment() throws IOException {
+		if (channel == null) {
+			return;
+		}
+		try {
+			segment.force();
+			arena.close();
+			channel.truncate(position);
+		} finally {
+			channel.close();
+			channel = null;
+			arena = null;
+			segment = null;
+		}
+	}
+
+	/**
+	 * Get the number of segments written.
+	 *
+	 * @return the segment count
+	 */
+	public int getSegmentCount() {
+		return segmentCount;
+	}
+
+	/**
+	 * Get the number of records written.
+	 *
+	 * @return the record count
+	 */
+	public long getRecordCount() {
+		return recordCount;
+	}
+
+	@Override
+	public void close() throws IOException {
+		closeSegment();
+	}
+
+}
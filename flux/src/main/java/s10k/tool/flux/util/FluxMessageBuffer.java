@@ -0,0 +1,356 @@
+package s10k.tool.flux.util;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A bounded ring buffer of received SolarFlux messages, for handing messages
+ * from the MQTT receive thread to a writer thread.
+ *
+ * <p>
+ * When the buffer is full, new messages are handled according to an
+ * {@link OverflowPolicy}. Gap notes are never evicted to make room for a
+ * message, so the policies only ever drop messages.
+ * </p>
+ */
+public class FluxMessageBuffer {
+
+	/** The default buffer capacity. */
+	public static final int DEFAULT_CAPACITY = 1024;
+
+	/** The default sample rate. */
+	public static final int DEFAULT_SAMPLE_RATE = 10;
+
+	/**
+	 * How to handle a new message when the buffer is full.
+	 */
+	public enum OverflowPolicy {
+
+		/** Wait for space in the buffer, applying back pressure to the receiver. */
+		Block,
+
+		/** Drop the oldest buffered message to make room. */
+		DropOldest,
+
+		/**
+		 * Drop new messages, except for one of every sample-rate messages which
+		 * replaces the oldest buffered message.
+		 */
+		Sample,
+
+	}
+
+	/**
+	 * A received message, or a note of a gap in the received messages.
+	 *
+	 * @param topic    the message topic
+	 * @param payload  the message payload
+	 * @param received the date the message was received, as milliseconds since
+	 *                 the epoch
+	 * @param gap      if not {@code null} then this is not a message but a note
+	 *                 of a gap in the received messages, and {@code topic} and
+	 *                 {@code payload} are {@code null}
+	 */
+	public static record Message(String topic, byte[] payload, long received, FluxGap gap) {
+
+		/**
+		 * Constructor for a received message.
+		 *
+		 * @param topic    the message topic
+		 * @param payload  the message payload
+		 * @param received the date the message was received, as milliseconds
+		 *                 since the epoch
+		 */
+		public Message(String topic, byte[] payload, long received) {
+			this(topic, payload, received, null);
+		}
+
+		/**
+		 * Create a gap note.
+		 *
+		 * @param gap the gap
+		 * @return the message
+		 */
+		public static Message gap(FluxGap gap) {
+			return new Message(null, null, gap.end().toEpochMilli(), gap);
+		}
+
+	}
+
+	private final Message[] ring;
+	private final OverflowPolicy overflowPolicy;
+	private final int sampleRate;
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition notEmpty = lock.newCondition();
+	private final Condition notFull = lock.newCondition();
+
+	private int head;
+	private int size;
+	private boolean closed;
+	private long received;
+	private long dropped;
+	private long overflowCount;
+	private int maxQueued;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param capacity       the maximum number of messages to buffer
+	 * @param overflowPolicy the overflow policy
+	 * @param sampleRate     for the {@link OverflowPolicy#Sample} policy, keep one
+	 *                       of every this many messages while the buffer is full
+	 * @throws IllegalArgumentException if {@code capacity} or {@code sampleRate}
+	 *                                  is less than {@code 1}
+	 */
+	public FluxMessageBuffer(int capacity, OverflowPolicy overflowPolicy, int sampleRate) {
+		super();
+		if (capacity < 1) {
+			throw new IllegalArgumentException("The buffer capacity must be at least 1.");
+		}
+		if (sampleRate < 1) {
+			throw new IllegalArgumentException("The sample rate must be at least 1.");
+		}
+		this.ring = new Message[capacity];
+		this.overflowPolicy = (overflowPolicy != null ? overflowPolicy : OverflowPolicy.Block);
+		this.sampleRate = sampleRate;
+	}
+
+	/**
+	 * Add a message received now.
+	 *
+	 * @param topic   the message topic
+	 * @param payload the message payload
+	 * @return {@code true} if the message was added, {@code false} if it was
+	 *         dropped or the buffer is closed
+	 * @throws InterruptedException if interrupted while waiting for space in the
+	 *                              buffer
+	 */
+	public boolean put(String topic, byte[] payload) throws InterruptedException {
+		return put(new Message(topic, payload, System.currentTimeMillis()));
+	}
+
+	/**
+	 * Add a message.
+	 *
+	 * @param msg the message
+	 * @return {@code true} if the message was added, {@code false} if it was
+	 *         dropped or the buffer is closed
+	 * @throws InterruptedException if interrupted while waiting for space in the
+	 *                              buffer
+	 */
+	public boolean put(Message msg) throws InterruptedException {
+		lock.lockInterruptibly();
+		try {
+			if (closed) {
+				return false;
+			}
+			if (msg.gap() == null) {
+				received++;
+			}
+			if (size == ring.length && msg.gap() != null && overflowPolicy != OverflowPolicy.Block) {
+				// never sample away a gap note
+				if (!removeOldestMessage()) {
+					// only gap notes are buffered, so one has to go
+					removeOldestGap();
+				}
+			} else if (size == ring.length) {
+				switch (overflowPolicy) {
+					case Block:
+						while (size == ring.length && !closed) {
+							notFull.await();
+						}
+						if (closed) {
+							return false;
+						}
+						break;
+
+					case DropOldest:
+						if (!removeOldestMessage()) {
+							dropped++;
+							return false;
+						}
+						break;
+
+					case Sample:
+						if (++overflowCount % sampleRate != 0 || !removeOldestMessage()) {
+							dropped++;
+							return false;
+						}
+						break;
+				}
+			} else {
+				overflowCount = 0;
+			}
+			ring[(head + size) % ring.length] = msg;
+			size++;
+			if (size > maxQueued) {
+				maxQueued = size;
+			}
+			notEmpty.signal();
+			return true;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Remove the oldest buffered message that is not a gap note.
+	 *
+	 * <p>
+	 * Any gap notes buffered before the removed message are kept, in order.
+	 * </p>
+	 *
+	 * @return {@code true} if a message was removed, {@code false} if only gap
+	 *         notes are buffered
+	 */
+	private boolean removeOldestMessage() {
+		for (int i = 0; i < size; i++) {
+			if (ring[(head + i) % ring.length].gap() != null) {
+				continue;
+			}
+			// shift the older gap notes along into the removed message slot
+			for (int j = i; j > 0; j--) {
+				ring[(head + j) % ring.length] = ring[(head + j - 1) % ring.length];
+			}
+			ring[head] = null;
+			head = (head + 1) % ring.length;
+			size--;
+			dropped++;
+			return true;
+		}
+		return false;
+	}
+
+	private void removeOldestGap() {
+		ring[head] = null;
+		head = (head + 1) % ring.length;
+		size--;
+	}
+
+	/**
+	 * Remove all available messages, waiting for at least one to be available.
+	 *
+	 * @param batch   the list to add the messages to
+	 * @param maxWait the maximum time to wait, in milliseconds
+	 * @return the number of messages added to {@code batch}, or {@code -1} if the
+	 *         buffer is closed and empty
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	public int drainTo(List<Message> batch, long maxWait) throws InterruptedException {
+		lock.lockInterruptibly();
+		try {
+			long nanos = TimeUnit.MILLISECONDS.toNanos(maxWait);
+			while (size == 0) {
+				if (closed) {
+					return -1;
+				} else if (nanos <= 0) {
+					return 0;
+				}
+				nanos = notEmpty.awaitNanos(nanos);
+			}
+			final int count = size;
+			for (int i = 0; i < count; i++) {
+				batch.add(ring[head]);
+				ring[head] = null;
+				head = (head + 1) % ring.length;
+			}
+			size = 0;
+			notFull.signalAll();
+			return count;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Close the buffer.
+	 *
+	 * <p>
+	 * No more messages will be accepted, but messages already buffered can still
+	 * be drained.
+	 * </p>
+	 */
+	public void close() {
+		lock.lock();
+		try {
+			closed = true;
+			notEmpty.signalAll();
+			notFull.signalAll();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Test if the buffer has been closed.
+	 *
+	 * @return {@code true} if {@link #close()} has been called
+	 */
+	public boolean isClosed() {
+		lock.lock();
+		try {
+			return closed;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Get the number of messages received.
+	 *
+	 * @return the received count
+	 */
+	public long getReceivedCount() {
+		lock.lock();
+		try {
+			return received;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Get the number of messages dropped because the buffer was full.
+	 *
+	 * @return the dropped count
+	 */
+	public long getDroppedCount() {
+		lock.lock();
+		try {
+			return dropped;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Get the number of messages currently buffered.
+	 *
+	 * @return the queued count
+	 */
+	public int getQueuedCount() {
+		lock.lock();
+		try {
+			return size;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Get the maximum number of messages buffered at once.
+	 *
+	 * @return the maximum queued count
+	 */
+	public int getMaxQueuedCount() {
+		lock.lock();
+		try {
+			return maxQueued;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+}
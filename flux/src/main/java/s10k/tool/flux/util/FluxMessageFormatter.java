@@ -0,0 +1,643 @@
+package s10k.tool.flux.util;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Map.entry;
+import static net.solarnetwork.util.NumberUtils.bigDecimalForNumber;
+import static net.solarnetwork.util.NumberUtils.narrow;
+import static net.solarnetwork.util.NumberUtils.round;
+import static s10k.tool.common.domain.ResultDisplayMode.JSON;
+import static s10k.tool.common.domain.ResultDisplayMode.PRETTY;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.util.RawValue;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.github.freva.asciitable.Column;
+import com.github.freva.asciitable.HorizontalAlign;
+
+import net.solarnetwork.codec.JsonUtils;
+import s10k.tool.common.domain.ResultDisplayMode;
+import s10k.tool.common.util.TableUtils;
+
+/**
+ * Decode and format SolarFlux datum messages for display.
+ *
+ * <p>
+ * When specific property names are given, messages are decoded with a
+ * {@link FluxPropertyDecoder} in every display mode, to avoid materializing
+ * each message as a map of all its properties. For CSV output the decoded
+ * values are written directly to the output. Messages that decoder does not
+ * support are decoded and rendered as a map instead.
+ * </p>
+ */
+public class FluxMessageFormatter {
+
+	/** The CSV line delimiter, matching the CSV table rendering. */
+	private static final String CSV_LINE_END = "\r\n";
+
+	/**
+	 * The minimum number of messages in a batch to decode in parallel, so a
+	 * trickle of messages is still decoded without handing off to another
+	 * thread.
+	 */
+	private static final int MIN_PARALLEL_DECODE_BATCH = 16;
+
+	private final ObjectMapper objectMapper;
+	private final ObjectMapper cborObjectMapper;
+	private final ObjectWriter jsonOut;
+	private final ResultDisplayMode displayMode;
+	private final String[] propertyNames;
+	private final boolean csvGlobalHeader;
+	private final int maxPrecision;
+
+	private final FluxPropertyDecoder propertyDecoder;
+	private final StringBuilder csvRow;
+	private byte[] csvBytes;
+
+	private List<Column> globalColumns;
+	private FluxSessionStats stats;
+	private int decodeParallelism = 1;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param objectMapper    the mapper to use
+	 * @param displayMode     the display mode
+	 * @param propertyNames   the property names to show, or {@code null} to show
+	 *                        all message properties
+	 * @param csvGlobalHeader for CSV output, {@code true} to generate a single
+	 *                        header from the property names or first message
+	 * @param maxPrecision    the maximum number precision, or {@code -1} for no
+	 *                        rounding
+	 */
+	public FluxMessageFormatter(ObjectMapper objectMapper, ResultDisplayMode displayMode, String[] propertyNames,
+			boolean csvGlobalHeader, int maxPrecision) {
+		super();
+		this.objectMapper = objectMapper;
+		this.cborObjectMapper = objectMapper.copyWith(new CBORFactory());
+		this.jsonOut = objectMapper.writerWithDefaultPrettyPrinter();
+		this.displayMode = displayMode;
+		this.propertyNames = propertyNames;
+		this.csvGlobalHeader = csvGlobalHeader;
+		this.maxPrecision = maxPrecision;
+		if (propertyNames != null && propertyNames.length > 0) {
+			this.propertyDecoder = new FluxPropertyDecoder((CBORFactory) cborObjectMapper.getFactory(),
+					propertyNames, maxPrecision);
+		} else {
+			this.propertyDecoder = null;
+		}
+		if (propertyDecoder != null && displayMode == ResultDisplayMode.CSV) {
+			this.csvRow = new StringBuilder(256);
+			this.csvBytes = new byte[512];
+		} else {
+			this.csvRow = null;
+		}
+	}
+
+	/**
+	 * Decode a CBOR message payload.
+	 *
+	 * @param payload the payload
+	 * @return the decoded message properties
+	 * @throws IOException if any IO error occurs
+	 */
+	public Map<String, Object> decode(byte[] payload) throws IOException {
+		return JsonUtils.getStringMapFromTree(cborObjectMapper.readTree(payload));
+	}
+
+	/**
+	 * Decode and write a message.
+	 *
+	 * @param topic   the message topic
+	 * @param payload the CBOR message payload
+	 * @param msgNum  the message number, starting from {@code 1}
+	 * @param out     the output stream to write to
+	 * @throws IOException if any IO error occurs
+	 */
+	public void write(String topic, byte[] payload, long msgNum, OutputStream out) throws IOException {
+		if (propertyDecoder != null && propertyDecoder.decode(payload)) {
+			writeDecoded(topic, Instant.now(), msgNum, out);
+			return;
+		}
+		write(topic, decode(payload), msgNum, out);
+	}
+
+	/**
+	 * Write a decoded message.
+	 *
+	 * @param topic   the message topic
+	 * @param msgBody the decoded message properties
+	 * @param msgNum  the message number, starting from {@code 1}
+	 * @param out     the output stream to write to
+	 * @throws IOException if any IO error occurs
+	 */
+	public void write(String topic, Map<String, Object> msgBody, long msgNum, OutputStream out) throws IOException {
+		write(topic, msgBody, Instant.now(), msgNum, out);
+	}
+
+	/**
+	 * Decode and write a buffered message.
+	 *
+	 * @param msg    the message
+	 * @param msgNum the message number, starting from {@code 1}
+	 * @param out    the output stream to write to
+	 * @throws IOException if any IO error occurs
+	 */
+	public void write(FluxMessageBuffer.Message msg, long msgNum, OutputStream out) throws IOException {
+		final FluxSessionStats stats = this.stats;
+		final long start = (stats != null ? System.nanoTime() : 0);
+		if (propertyDecoder != null && propertyDecoder.decode(msg.payload())) {
+			final long decoded = (stats != null ? System.nanoTime() : 0);
+			writeDecoded(msg.topic(), Instant.ofEpochMilli(msg.received()), msgNum, out);
+			if (stats != null) {
+				stats.decoded(decoded - start);
+				stats.rendered(System.nanoTime() - decoded);
+			}
+			return;
+		}
+		final Map<String, Object> msgBody = decode(msg.payload());
+		final long decoded = (stats != null ? System.nanoTime() : 0);
+		write(msg.topic(), msgBody, Instant.ofEpochMilli(msg.received()), msgNum, out);
+		if (stats != null) {
+			stats.decoded(decoded - start);
+			stats.rendered(System.nanoTime() - decoded);
+		}
+	}
+
+	/**
+	 * Write the properties of the last message decoded by the property decoder.
+	 *
+	 * <p>
+	 * The output matches that of a message decoded as a map: CSV is written
+	 * directly, JSON and table output are rendered from just the decoded
+	 * property values.
+	 * </p>
+	 *
+	 * @param topic  the message topic
+	 * @param ts     the message date
+	 * @param msgNum the message number
+	 * @param out    the output stream to write to
+	 * @throws IOException if any IO error occurs
+	 */
+	private void writeDecoded(String topic, Instant ts, long msgNum, OutputStream out) throws IOException {
+		final FluxPropertyDecoder decoder = propertyDecoder;
+		if (displayMode == ResultDisplayMode.CSV) {
+			writeCsv(msgNum, out);
+		} else if (displayMode == JSON) {
+			final Map<String, Object> displayMap = new LinkedHashMap<>(decoder.size());
+			for (int i = 0, len = decoder.size(); i < len; i++) {
+				displayMap.put(decoder.propertyName(i), jsonValue(i));
+			}
+			// @formatter:off
+			jsonOut.writeValue(out, Map.ofEntries(
+					entry("ts", ts),
+					entry("topic", topic),
+					entry("body", displayMap)
+					));
+			out.write(System.lineSeparator().getBytes(Charset.defaultCharset()));
+			// @formatter:on
+		} else {
+			final Object[] row = new Object[decoder.size()];
+			for (int i = 0; i < row.length; i++) {
+				final CharSequence val = decoder.value(i);
+				row[i] = (val != null ? val.toString() : null);
+			}
+			TableUtils.renderTableData(msgColumns(Set.of()).toArray(Column[]::new), List.<Object[]>of(row),
+					displayMode, objectMapper, out);
+		}
+	}
+
+	/**
+	 * Get a decoded property value for JSON output, with the same type as the
+	 * value would have if the message was decoded as a map.
+	 *
+	 * @param index the property index
+	 * @return the value
+	 */
+	private Object jsonValue(int index) {
+		final CharSequence val = propertyDecoder.value(index);
+		if (val == null) {
+			return null;
+		}
+		final String s = val.toString();
+		switch (propertyDecoder.token(index)) {
+			case VALUE_TRUE:
+			case VALUE_FALSE:
+				return Boolean.valueOf(s);
+
+			case VALUE_NUMBER_INT:
+			case VALUE_NUMBER_FLOAT:
+				if (propertyDecoder.propertyName(index).equals("created")) {
+					return Instant.parse(s);
+				} else if (maxPrecision >= 0 || !Character.isDigit(s.charAt(s.length() - 1))) {
+					// rounded numbers are formatted as strings, as are NaN and infinity
+					return s;
+				}
+				return new RawValue(s);
+
+			default:
+				return s;
+		}
+	}
+
+	/**
+	 * Write the properties of the last message decoded by the property decoder as
+	 * CSV, in the same format as {@link TableUtils#renderTableData}.
+	 *
+	 * @param msgNum the message number
+	 * @param out    the output stream to write to
+	 * @throws IOException if any IO error occurs
+	 */
+	private void writeCsv(long msgNum, OutputStream out) throws IOException {
+		final StringBuilder buf = csvRow;
+		buf.setLength(0);
+		if (!csvGlobalHeader || msgNum == 1) {
+			for (int i = 0; i < propertyNames.length; i++) {
+				if (i > 0) {
+					buf.append(',');
+				}
+				appendCsvField(buf, propertyNames[i]);
+			}
+			buf.append(CSV_LINE_END);
+		}
+		for (int i = 0, len = propertyDecoder.size(); i < len; i++) {
+			if (i > 0) {
+				buf.append(',');
+			}
+			appendCsvField(buf, propertyDecoder.value(i));
+		}
+		buf.append(CSV_LINE_END);
+		out.write(csvBytes, 0, encodeUtf8(buf));
+	}
+
+	private static void appendCsvField(StringBuilder buf, CharSequence value) {
+		if (value == null || value.isEmpty()) {
+			return;
+		}
+		boolean quote = (value.charAt(0) == '#');
+		for (int i = 0, len = value.length(); !quote && i < len; i++) {
+			final char c = value.charAt(i);
+			quote = (c == ',' || c == '"' || c == '\r' || c == '\n');
+		}
+		if (!quote) {
+			buf.append(value);
+			return;
+		}
+		buf.append('"');
+		for (int i = 0, len = value.length(); i < len; i++) {
+			final char c = value.charAt(i);
+			if (c == '"') {
+				buf.append('"');
+			}
+			buf.append(c);
+		}
+		buf.append('"');
+	}
+
+	private int encodeUtf8(CharSequence s) {
+		final int len = s.length();
+		if (csvBytes.length < len * 3) {
+			csvBytes = new byte[len * 3];
+		}
+		final byte[] b = csvBytes;
+		int n = 0;
+		for (int i = 0; i < len; i++) {
+			final char c = s.charAt(i);
+			if (c < 0x80) {
+				b[n++] = (byte) c;
+			} else if (c < 0x800) {
+				b[n++] = (byte) (0xC0 | (c >> 6));
+				b[n++] = (byte) (0x80 | (c & 0x3F));
+			} else if (Character.isHighSurrogate(c) && i + 1 < len && Character.isLowSurrogate(s.charAt(i + 1))) {
+				final int cp = Character.toCodePoint(c, s.charAt(++i));
+				b[n++] = (byte) (0xF0 | (cp >> 18));
+				b[n++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+				b[n++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+				b[n++] = (byte) (0x80 | (cp & 0x3F));
+			} else if (Character.isSurrogate(c)) {
+				b[n++] = '?';
+			} else {
+				b[n++] = (byte) (0xE0 | (c >> 12));
+				b[n++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+				b[n++] = (byte) (0x80 | (c & 0x3F));
+			}
+		}
+		return n;
+	}
+
+	/**
+	 * Decode and write all messages from a buffer, until the buffer is closed.
+	 *
+	 * <p>
+	 * Output is flushed after each batch of messages taken from the buffer,
+	 * rather than after each message. If the decode parallelism is more than
+	 * {@code 1} and messages are decoded as maps, the messages of each large
+	 * enough batch are decoded across that many threads, and then written in
+	 * order on the calling thread. Messages are numbered as they are written,
+	 * so the first message written is always message {@code 1}, even if earlier
+	 * messages were dropped. Messages that cannot be decoded are reported to
+	 * standard error and skipped. Gap notes are written with
+	 * {@link #writeGap(FluxGap, ResultDisplayMode, ObjectMapper, OutputStream)}.
+	 * </p>
+	 *
+	 * @param buffer the buffer to drain
+	 * @param out    the output stream to write to
+	 * @return the number of messages written
+	 * @throws IOException          if any IO error occurs writing to {@code out}
+	 * @throws InterruptedException if interrupted while waiting for messages
+	 */
+	public long writeAll(FluxMessageBuffer buffer, OutputStream out) throws IOException, InterruptedException {
+		final List<FluxMessageBuffer.Message> batch = new ArrayList<>(64);
+		// the property decoder is not thread-safe, and cheap enough to not need help
+		final int parallelism = (propertyDecoder == null ? decodeParallelism : 1);
+		final ExecutorService decoders = (parallelism > 1
+				? Executors.newFixedThreadPool(parallelism,
+						Thread.ofPlatform().name("flux-decoder-", 1).daemon(true).factory())
+				: null);
+		long msgNum = 0;
+		try {
+			while (buffer.drainTo(batch, 1000) >= 0) {
+				final Object[] decoded = (decoders != null && batch.size() >= MIN_PARALLEL_DECODE_BATCH
+						? decodeAll(batch, parallelism, decoders)
+						: null);
+				for (int i = 0, len = batch.size(); i < len; i++) {
+					final FluxMessageBuffer.Message msg = batch.get(i);
+					if (msg.gap() != null) {
+						writeGap(msg.gap(), displayMode, objectMapper, out);
+						continue;
+					}
+					try {
+						if (decoded != null) {
+							write(msg, decoded[i], msgNum + 1, out);
+						} else {
+							write(msg, msgNum + 1, out);
+						}
+						msgNum++;
+					} catch (IOException e) {
+						System.err.println("Error decoding MQTT message: " + e.toString());
+					}
+				}
+				batch.clear();
+				out.flush();
+			}
+		} finally {
+			if (decoders != null) {
+				decoders.shutdownNow();
+			}
+		}
+		return msgNum;
+	}
+
+	/**
+	 * Decode the messages of a batch across several threads.
+	 *
+	 * @param batch       the messages to decode
+	 * @param parallelism the number of threads to decode with
+	 * @param decoders    the executor to decode with
+	 * @return the result of decoding each message in {@code batch}, as either
+	 *         the decoded message properties or the {@link IOException} thrown
+	 *         decoding them; gap notes have {@code null} results
+	 * @throws InterruptedException if interrupted while waiting for the messages
+	 *                              to be decoded
+	 */
+	private Object[] decodeAll(List<FluxMessageBuffer.Message> batch, int parallelism, ExecutorService decoders)
+			throws InterruptedException {
+		final int len = batch.size();
+		final Object[] result = new Object[len];
+		final int chunk = Math.ceilDiv(len, parallelism);
+		final List<Future<?>> tasks = new ArrayList<>(parallelism);
+		for (int from = 0; from < len; from += chunk) {
+			final int start = from;
+			final int end = Math.min(len, from + chunk);
+			tasks.add(decoders.submit(() -> decodeAll(batch, start, end, result)));
+		}
+		for (Future<?> task : tasks) {
+			try {
+				task.get();
+			} catch (ExecutionException e) {
+				throw new IllegalStateException("Error decoding MQTT messages.", e.getCause());
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Decode a range of the messages of a batch.
+	 *
+	 * @param batch  the messages to decode
+	 * @param start  the index of the first message to decode
+	 * @param end    the index after the last message to decode
+	 * @param result the array to save each decode result to
+	 */
+	private void decodeAll(List<FluxMessageBuffer.Message> batch, int start, int end, Object[] result) {
+		final FluxSessionStats stats = this.stats;
+		for (int i = start; i < end; i++) {
+			final FluxMessageBuffer.Message msg = batch.get(i);
+			if (msg.gap() != null) {
+				continue;
+			}
+			final long t = (stats != null ? System.nanoTime() : 0);
+			try {
+				result[i] = decode(msg.payload());
+			} catch (IOException e) {
+				result[i] = e;
+			}
+			if (stats != null) {
+				stats.decoded(System.nanoTime() - t);
+			}
+		}
+	}
+
+	/**
+	 * Write a buffered message that has already been decoded.
+	 *
+	 * @param msg     the message
+	 * @param decoded the decoded message properties, or the exception thrown
+	 *                decoding them
+	 * @param msgNum  the message number, starting from {@code 1}
+	 * @param out     the output stream to write to
+	 * @throws IOException if the message could not be decoded or any IO error
+	 *                     occurs
+	 */
+	private void write(FluxMessageBuffer.Message msg, Object decoded, long msgNum, OutputStream out)
+			throws IOException {
+		if (decoded instanceof IOException e) {
+			throw e;
+		}
+		@SuppressWarnings("unchecked")
+		final Map<String, Object> msgBody = (Map<String, Object>) decoded;
+		final FluxSessionStats stats = this.stats;
+		final long start = (stats != null ? System.nanoTime() : 0);
+		write(msg.topic(), msgBody, Instant.ofEpochMilli(msg.received()), msgNum, out);
+		if (stats != null) {
+			stats.rendered(System.nanoTime() - start);
+		}
+	}
+
+	/**
+	 * Write a note of a gap in the received messages.
+	 *
+	 * <p>
+	 * For {@code JSON} output the note is an object with a {@code gap} property,
+	 * and for {@code CSV} output it is a comment line starting with {@code #gap},
+	 * followed by the start, end, duration, and estimated missed message count.
+	 * </p>
+	 *
+	 * @param gap          the gap
+	 * @param displayMode  the display mode
+	 * @param objectMapper the mapper to use
+	 * @param out          the output stream to write to
+	 * @throws IOException if any IO error occurs
+	 */
+	public static void writeGap(FluxGap gap, ResultDisplayMode displayMode, ObjectMapper objectMapper,
+			OutputStream out) throws IOException {
+		if (displayMode == JSON) {
+			// @formatter:off
+			objectMapper.writerWithDefaultPrettyPrinter().writeValue(out, Map.ofEntries(
+					entry("ts", gap.end()),
+					entry("gap", Map.ofEntries(
+							entry("start", gap.start()),
+							entry("end", gap.end()),
+							entry("duration", gap.duration().toString()),
+							entry("estimatedMissed", gap.estimatedMissed())
+							))
+					));
+			out.write(System.lineSeparator().getBytes(Charset.defaultCharset()));
+			// @formatter:on
+		} else if (displayMode == ResultDisplayMode.CSV) {
+			out.write("#gap,%s,%s,%s,%d%s".formatted(gap.start(), gap.end(), gap.duration(), gap.estimatedMissed(),
+					CSV_LINE_END).getBytes(UTF_8));
+		} else {
+			// @formatter:off
+			TableUtils.renderTableData(new Column[] {
+						new Column().header("Gap Start"),
+						new Column().header("Gap End"),
+						new Column().header("Duration").dataAlign(HorizontalAlign.RIGHT),
+						new Column().header("Est. Missed").dataAlign(HorizontalAlign.RIGHT),
+					},
+					List.<Object[]>of(new Object[] { gap.start(), gap.end(), gap.duration(), gap.estimatedMissed() }),
+					displayMode, objectMapper, out);
+			// @formatter:on
+		}
+	}
+
+	private void write(String topic, Map<String, Object> msgBody, Instant ts, long msgNum, OutputStream out)
+			throws IOException {
+		List<Column> cols = msgColumns(msgBody.keySet());
+		Map<String, Object> displayMap = new LinkedHashMap<>(msgBody.size());
+		for (Column col : cols) {
+			displayMap.put(col.getHeader(), propVal(col.getHeader(), msgBody.get(col.getHeader())));
+		}
+		if (displayMode == JSON) {
+			// @formatter:off
+			jsonOut.writeValue(out, Map.ofEntries(
+					entry("ts", ts),
+					entry("topic", topic),
+					entry("body", displayMap)
+					));
+			out.write(System.lineSeparator().getBytes(Charset.defaultCharset()));
+			// @formatter:on
+		} else {
+			// @formatter:off
+			TableUtils.renderTableData(displayMode == PRETTY || !csvGlobalHeader || msgNum == 1
+						? cols.toArray(Column[]::new)
+						: null,
+					List.of(displayMap.values()), displayMode, objectMapper, out);
+			// @formatter:on
+		}
+	}
+
+	private Object propVal(final String propName, final Object val) {
+		Object result = val;
+		if (val instanceof Number n) {
+			if (propName.equals("created")) {
+				result = Instant.ofEpochMilli(n.longValue());
+			} else if (maxPrecision >= 0) {
+				result = formatNumber(n, maxPrecision);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Set statistics to record the decode and render times of each message
+	 * written from a buffer to.
+	 *
+	 * @param stats the statistics, or {@code null}
+	 */
+	public void setStats(FluxSessionStats stats) {
+		this.stats = stats;
+	}
+
+	/**
+	 * Set the number of threads to decode messages with in
+	 * {@link #writeAll(FluxMessageBuffer, OutputStream)}.
+	 *
+	 * <p>
+	 * This only applies when messages are decoded as maps, that is when no
+	 * property names are given.
+	 * </p>
+	 *
+	 * @param decodeParallelism the number of threads; anything less than
+	 *                          {@code 1} is treated as {@code 1}
+	 */
+	public void setDecodeParallelism(int decodeParallelism) {
+		this.decodeParallelism = Math.max(1, decodeParallelism);
+	}
+
+	/**
+	 * Format a number for display.
+	 *
+	 * @param n            the number to format
+	 * @param maxPrecision the maximum number precision
+	 * @return the formatted number
+	 */
+	public static String formatNumber(Number n, int maxPrecision) {
+		return bigDecimalForNumber(narrow(round(n, maxPrecision), 2)).toPlainString();
+	}
+
+	private synchronized List<Column> msgColumns(Set<String> msgKeys) {
+		// check if global columns are required
+		if (globalColumns != null) {
+			return globalColumns;
+		}
+		List<Column> result = new ArrayList<>(propertyNames != null ? propertyNames.length : msgKeys.size());
+		if (propertyNames != null) {
+			for (String propName : propertyNames) {
+				result.add(new Column().header(propName).dataAlign(HorizontalAlign.RIGHT));
+			}
+		} else {
+			for (String msgKey : msgKeys) {
+				if (msgKey.equals("_v")) {
+					// skip the v2 flag
+					continue;
+				}
+				Column col = new Column().header(msgKey).dataAlign(HorizontalAlign.RIGHT);
+				if (msgKey.equals("created")) {
+					result.add(0, col);
+				} else {
+					result.add(col);
+				}
+			}
+		}
+		if (displayMode == ResultDisplayMode.CSV && csvGlobalHeader) {
+			globalColumns = result;
+		}
+		return result;
+	}
+
+}
@@ -0,0 +1,325 @@
+package s10k.tool.flux.util;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+
+/**
+ * Decode a fixed set of properties from CBOR SolarFlux messages into reusable
+ * text buffers.
+ *
+ * <p>
+ * The message is read as a stream of CBOR tokens. Only the values of the
+ * selected properties are decoded, directly into one reusable
+ * {@link StringBuilder} per property; all other values are skipped without
+ * being materialized. Field names are canonicalized by the parser, so
+ * decoding a stream of messages with the same shape allocates very little per
+ * message.
+ * </p>
+ *
+ * <p>
+ * Values are formatted in the same way as {@link FluxMessageFormatter}: a
+ * {@code created} number is formatted as an ISO 8601 instant, and other
+ * numbers are rounded half-up to the maximum precision with trailing zeros
+ * removed.
+ * </p>
+ *
+ * <p>
+ * This class is not thread-safe.
+ * </p>
+ */
+public final class FluxPropertyDecoder {
+
+	private static final String CREATED_PROP = "created";
+
+	private final CBORFactory cborFactory;
+	private final String[] propertyNames;
+	private final int maxPrecision;
+	private final StringBuilder[] values;
+	private final boolean[] present;
+	private final JsonToken[] tokens;
+	private final StringBuilder scratch = new StringBuilder(32);
+	private char[] digits = new char[32];
+
+	/**
+	 * Constructor.
+	 *
+	 * @param cborFactory   the CBOR factory to use
+	 * @param propertyNames the names of the properties to decode
+	 * @param maxPrecision  the maximum number precision, or {@code -1} for no
+	 *                      rounding
+	 */
+	public FluxPropertyDecoder(CBORFactory cborFactory, String[] propertyNames, int maxPrecision) {
+		super();
+		this.cborFactory = cborFactory;
+		this.propertyNames = propertyNames.clone();
+		this.maxPrecision = maxPrecision;
+		this.values = new StringBuilder[propertyNames.length];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = new StringBuilder(32);
+		}
+		this.present = new boolean[propertyNames.length];
+		this.tokens = new JsonToken[propertyNames.length];
+	}
+
+	/**
+	 * Decode a message.
+	 *
+	 * <p>
+	 * If this method returns {@code false} the message must be decoded another
+	 * way, for example with {@link FluxMessageFormatter#decode(byte[])}.
+	 * </p>
+	 *
+	 * @param payload the CBOR message payload
+	 * @return {@code true} if the message was decoded, or {@code false} if the
+	 *         message is not a map or a selected property has a value that is not
+	 *         supported, such as a nested map or array
+	 * @throws IOException if the payload cannot be parsed
+	 */
+	public boolean decode(byte[] payload) throws IOException {
+		Arrays.fill(present, false);
+		try (JsonParser p = cborFactory.createParser(payload)) {
+			if (p.nextToken() != JsonToken.START_OBJECT) {
+				return false;
+			}
+			String name;
+			while ((name = p.nextFieldName()) != null) {
+				final JsonToken t = p.nextToken();
+				final int idx = propertyIndex(name);
+				if (idx < 0) {
+					p.skipChildren();
+					continue;
+				}
+				if (!decodeValue(p, t, name, values[idx])) {
+					return false;
+				}
+				present[idx] = (t != JsonToken.VALUE_NULL);
+				tokens[idx] = t;
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * Get the number of properties.
+	 *
+	 * @return the property count
+	 */
+	public int size() {
+		return values.length;
+	}
+
+	/**
+	 * Get the decoded value of a property.
+	 *
+	 * @param index the index of the property, in the order given to the
+	 *              constructor
+	 * @return the value, or {@code null} if the property was not present in the
+	 *         last decoded message
+	 */
+	public CharSequence value(int index) {
+		return (present[index] ? values[index] : null);
+	}
+
+	/**
+	 * Get the type of the decoded value of a property.
+	 *
+	 * @param index the index of the property, in the order given to the
+	 *              constructor
+	 * @return the value token, such as {@link JsonToken#VALUE_STRING} or
+	 *         {@link JsonToken#VALUE_NUMBER_FLOAT}, or {@code null} if the
+	 *         property was not present in the last decoded message
+	 */
+	public JsonToken token(int index) {
+		return (present[index] ? tokens[index] : null);
+	}
+
+	/**
+	 * Get the name of a property.
+	 *
+	 * @param index the index of the property, in the order given to the
+	 *              constructor
+	 * @return the property name
+	 */
+	public String propertyName(int index) {
+		return propertyNames[index];
+	}
+
+	private int propertyIndex(String name) {
+		for (int i = 0; i < propertyNames.length; i++) {
+			// field names are canonicalized, so identity usually matches
+			if (propertyNames[i] == name || propertyNames[i].equals(name)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private boolean decodeValue(JsonParser p, JsonToken t, String name, StringBuilder buf) throws IOException {
+		buf.setLength(0);
+		switch (t) {
+			case VALUE_STRING:
+				buf.append(p.getTextCharacters(), p.getTextOffset(), p.getTextLength());
+				return true;
+
+			case VALUE_TRUE:
+				buf.append(true);
+				return true;
+
+			case VALUE_FALSE:
+				buf.append(false);
+				return true;
+
+			case VALUE_NULL:
+				return true;
+
+			case VALUE_NUMBER_INT:
+				if (CREATED_PROP.equals(name)) {
+					DateTimeFormatter.ISO_INSTANT.formatTo(Instant.ofEpochMilli(p.getLongValue()), buf);
+				} else if (p.getNumberType() == JsonParser.NumberType.BIG_INTEGER) {
+					buf.append(p.getBigIntegerValue());
+				} else {
+					buf.append(p.getLongValue());
+				}
+				return true;
+
+			case VALUE_NUMBER_FLOAT:
+				if (CREATED_PROP.equals(name)) {
+					DateTimeFormatter.ISO_INSTANT.formatTo(Instant.ofEpochMilli((long) p.getDoubleValue()), buf);
+					return true;
+				}
+				switch (p.getNumberType()) {
+					case FLOAT:
+						appendDecimal(buf, p.getFloatValue());
+						return true;
+
+					case DOUBLE:
+						appendDecimal(buf, p.getDoubleValue());
+						return true;
+
+					default:
+						return false;
+				}
+
+			default:
+				return false;
+		}
+	}
+
+	private void appendDecimal(StringBuilder buf, float value) {
+		if (maxPrecision < 0 || !Float.isFinite(value)) {
+			buf.append(value);
+			return;
+		}
+		scratch.setLength(0);
+		scratch.append(value);
+		appendRounded(buf);
+	}
+
+	private void appendDecimal(StringBuilder buf, double value) {
+		if (maxPrecision < 0 || !Double.isFinite(value)) {
+			buf.append(value);
+			return;
+		}
+		scratch.setLength(0);
+		scratch.append(value);
+		appendRounded(buf);
+	}
+
+	/**
+	 * Round the decimal number in {@code scratch} half-up to
+	 * {@code maxPrecision} fractional digits and append it in plain notation,
+	 * without trailing fractional zeros.
+	 *
+	 * @param buf the buffer to append to
+	 */
+	private void appendRounded(StringBuilder buf) {
+		final int len = scratch.length();
+		if (digits.length < len + 1) {
+			digits = new char[len + 1];
+		}
+
+		// extract the significant digits and the decimal point position
+		boolean negative = false;
+		boolean fraction = false;
+		int n = 0;
+		int point = 0;
+		int exp = 0;
+		for (int i = 0; i < len; i++) {
+			final char c = scratch.charAt(i);
+			if (c == '-') {
+				negative = true;
+			} else if (c == '.') {
+				fraction = true;
+			} else if (c == 'E') {
+				exp = Integer.parseInt(scratch, i + 1, len, 10);
+				break;
+			} else if (c != '0' || n > 0) {
+				digits[n++] = c;
+				if (!fraction) {
+					point++;
+				}
+			} else if (fraction) {
+				// leading zero after the decimal point
+				point--;
+			}
+		}
+		point += exp;
+
+		// round half-up, where point is the number of integer digits
+		final int keep = point + maxPrecision;
+		if (keep < n) {
+			final boolean up = (keep >= 0 && digits[keep] >= '5');
+			n = Math.max(keep, 0);
+			if (up) {
+				int i = n - 1;
+				while (i >= 0 && digits[i] == '9') {
+					i--;
+				}
+				if (i < 0) {
+					// carry out of the most significant digit, like 999.9 to 1000
+					digits[0] = '1';
+					n = 1;
+					point++;
+				} else {
+					digits[i]++;
+					n = i + 1;
+				}
+			}
+		}
+
+		// strip trailing zeros
+		while (n > 0 && digits[n - 1] == '0') {
+			n--;
+		}
+		if (n == 0) {
+			buf.append('0');
+			return;
+		}
+		if (negative) {
+			buf.append('-');
+		}
+		if (point <= 0) {
+			buf.append('0');
+		} else {
+			buf.append(digits, 0, Math.min(point, n));
+			for (int i = n; i < point; i++) {
+				buf.append('0');
+			}
+		}
+		if (n > point) {
+			buf.append('.');
+			for (int i = point; i < 0; i++) {
+				buf.append('0');
+			}
+			final int start = Math.max(point, 0);
+			buf.append(digits, start, n - start);
+		}
+	}
+
+}
@@ -0,0 +1,170 @@
+package s10k.tool.flux.util;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+/**
+ * Throughput and latency statistics for a SolarFlux session.
+ *
+ * <p>
+ * Received message and byte counts are recorded by the MQTT receive thread, and
+ * decode and render times by the writer thread. The {@link #report(Instant)}
+ * method is then called periodically by a third thread, to take a snapshot of
+ * the statistics since the previous report. Decode and render times are
+ * recorded in HDR histograms, so percentiles are accurate to 3 significant
+ * digits at a fixed memory cost.
+ * </p>
+ */
+public final class FluxSessionStats {
+
+	/** The maximum number of topics to include in a report. */
+	public static final int DEFAULT_TOP_TOPICS = 10;
+
+	private final FluxMessageBuffer buffer;
+	private final int topTopics;
+	private final LongAdder messages = new LongAdder();
+	private final LongAdder bytes = new LongAdder();
+	private final ConcurrentHashMap<String, LongAdder> topicCounts = new ConcurrentHashMap<>(64);
+	private final Recorder decodeTimes = new Recorder(3);
+	private final Recorder renderTimes = new Recorder(3);
+
+	// reporting state, only accessed by the reporting thread
+	private Histogram decodeInterval;
+	private Histogram renderInterval;
+	private long lastReportNanos = System.nanoTime();
+	private long lastMessages;
+	private long lastBytes;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param buffer    the message buffer, to report the queue depth of, or
+	 *                  {@code null}
+	 * @param topTopics the maximum number of topics to include in each report
+	 */
+	public FluxSessionStats(FluxMessageBuffer buffer, int topTopics) {
+		super();
+		this.buffer = buffer;
+		this.topTopics = topTopics;
+	}
+
+	/**
+	 * Record a received message.
+	 *
+	 * @param topic  the message topic
+	 * @param length the message payload length
+	 */
+	public void received(String topic, int length) {
+		messages.increment();
+		bytes.add(length);
+		topicCounts.computeIfAbsent(topic, _ -> new LongAdder()).increment();
+	}
+
+	/**
+	 * Record the time taken to decode a message.
+	 *
+	 * @param nanos the time, in nanoseconds
+	 */
+	public void decoded(long nanos) {
+		decodeTimes.recordValue(Math.max(0, nanos));
+	}
+
+	/**
+	 * Record the time taken to render a message.
+	 *
+	 * @param nanos the time, in nanoseconds
+	 */
+	public void rendered(long nanos) {
+		renderTimes.recordValue(Math.max(0, nanos));
+	}
+
+	/**
+	 * Take a snapshot of the statistics since the previous report.
+	 *
+	 * <p>
+	 * Rates and percentiles cover the period since the previous report, while the
+	 * message count, dropped count, and maximum queue depth are totals. Times are
+	 * reported in microseconds. The topic counts are limited to the topics with
+	 * the most messages.
+	 * </p>
+	 *
+	 * @param date the report date
+	 * @return the report properties
+	 */
+	public synchronized Map<String, Object> report(Instant date) {
+		final long now = System.nanoTime();
+		final double secs = Math.max(1, now - lastReportNanos) / (double) TimeUnit.SECONDS.toNanos(1);
+		final long msgs = messages.sum();
+		final long byteCount = bytes.sum();
+		decodeInterval = decodeTimes.getIntervalHistogram(decodeInterval);
+		renderInterval = renderTimes.getIntervalHistogram(renderInterval);
+
+		final Map<String, Object> result = new LinkedHashMap<>(16);
+		result.put("date", date);
+		result.put("messages", msgs);
+		result.put("messagesPerSec", rate(msgs - lastMessages, secs));
+		result.put("bytesPerSec", rate(byteCount - lastBytes, secs));
+		result.put("decodeMicros", percentiles(decodeInterval));
+		result.put("renderMicros", percentiles(renderInterval));
+		if (buffer != null) {
+			result.put("queued", buffer.getQueuedCount());
+			result.put("maxQueued", buffer.getMaxQueuedCount());
+			result.put("dropped", buffer.getDroppedCount());
+		}
+		result.put("topics", topicCounts(result));
+
+		lastReportNanos = now;
+		lastMessages = msgs;
+		lastBytes = byteCount;
+		return result;
+	}
+
+	private Map<String, Long> topicCounts(Map<String, Object> report) {
+		final List<Entry<String, Long>> counts = new ArrayList<>(topicCounts.size());
+		for (Entry<String, LongAdder> e : topicCounts.entrySet()) {
+			final long count = e.getValue().sumThenReset();
+			if (count > 0) {
+				counts.add(Map.entry(e.getKey(), count));
+			}
+		}
+		report.put("activeTopics", counts.size());
+		counts.sort(Entry.<String, Long>comparingByValue().reversed().thenComparing(Entry.comparingByKey()));
+		final Map<String, Long> result = new LinkedHashMap<>(Math.min(topTopics, counts.size()));
+		for (int i = 0, len = Math.min(topTopics, counts.size()); i < len; i++) {
+			result.put(counts.get(i).getKey(), counts.get(i).getValue());
+		}
+		return result;
+	}
+
+	private static double rate(long count, double secs) {
+		return Math.round(count / secs * 10.0) / 10.0;
+	}
+
+	private static Map<String, Object> percentiles(Histogram h) {
+		final Map<String, Object> result = new LinkedHashMap<>(6);
+		result.put("count", h.getTotalCount());
+		if (h.getTotalCount() > 0) {
+			result.put("p50", micros(h.getValueAtPercentile(50.0)));
+			result.put("p90", micros(h.getValueAtPercentile(90.0)));
+			result.put("p99", micros(h.getValueAtPercentile(99.0)));
+			result.put("p999", micros(h.getValueAtPercentile(99.9)));
+			result.put("max", micros(h.getMaxValue()));
+		}
+		return result;
+	}
+
+	private static double micros(long nanos) {
+		return Math.round(nanos / 100.0) / 10.0;
+	}
+
+}
@@ -0,0 +1,503 @@
+package s10k.tool.flux.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.github.freva.asciitable.Column;
+import com.github.freva.asciitable.HorizontalAlign;
+
+import s10k.tool.common.domain.ResultDisplayMode;
+import s10k.tool.common.util.TableUtils;
+
+/**
+ * Aggregate numeric SolarFlux message properties over time windows, per topic.
+ *
+ * <p>
+ * Each window is divided into panes of the slide duration, and each pane holds
+ * a primitive accumulator per topic and property. Adding a message updates one
+ * accumulator per property, and a window summary combines the accumulators of
+ * its panes. When the slide equals the window, the windows are tumbling;
+ * otherwise they are sliding, and a summary is emitted after each slide. Window
+ * boundaries are aligned to the slide duration and based on the message
+ * receive date.
+ * </p>
+ *
+ * <p>
+ * Panes are closed as messages received after them are added, so each message
+ * is counted in the window it was received in, however long it waited in the
+ * buffer. When no messages arrive, panes are closed once the current time has
+ * passed their end by {@link #IDLE_GRACE_MS}. A message received before the
+ * current pane, whose window has already been written, is not counted; see
+ * {@link #getLateCount()}.
+ * </p>
+ *
+ * <p>
+ * The rate of change is calculated per second, between the first and last
+ * values in the window, using the message {@code created} date if available or
+ * the receive date otherwise.
+ * </p>
+ *
+ * <p>
+ * This class is not thread-safe.
+ * </p>
+ */
+public final class FluxWindowAggregator {
+
+	private static final String CREATED_PROP = "created";
+
+	/**
+	 * The time after a pane ends, in milliseconds, to wait for messages received
+	 * within it before closing it when no messages arrive.
+	 */
+	public static final long IDLE_GRACE_MS = 500L;
+
+	/** The pane start before any message has been added. */
+	private static final long NO_PANE = Long.MIN_VALUE;
+
+	private static final String[] COLUMN_NAMES = new String[] { "Window Start", "Window End", "Topic", "Property",
+			"Count", "Min", "Max", "Mean", "Last", "Rate" };
+
+	private final ObjectMapper objectMapper;
+	private final CBORFactory cborFactory;
+	private final ResultDisplayMode displayMode;
+	private final String[] propertyNames;
+	private final int maxPrecision;
+	private final long window;
+	private final long slide;
+	private final int paneCount;
+
+	private final Map<String, Integer> propertyIndexes = new HashMap<>();
+	private final List<String> properties = new ArrayList<>();
+	private final Map<String, TopicStats> topics = new HashMap<>(64);
+	private final Accumulator combined = new Accumulator();
+
+	// the properties of the message being added, for applying once the date is known
+	private int[] msgProps = new int[16];
+	private double[] msgValues = new double[16];
+
+	private long paneStart = NO_PANE;
+	private long windowCount;
+	private long lateCount;
+	private FluxSessionStats stats;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param objectMapper  the mapper to use
+	 * @param displayMode   the display mode
+	 * @param propertyNames the property names to aggregate, or {@code null} to
+	 *                      aggregate all numeric message properties
+	 * @param maxPrecision  the maximum number precision, or {@code -1} for no
+	 *                      rounding
+	 * @param window        the window duration
+	 * @param slide         the slide duration, or {@code null} to use
+	 *                      {@code window} for tumbling windows
+	 * @throws IllegalArgumentException if {@code window} is not positive, or
+	 *                                  {@code slide} is not positive or does not
+	 *                                  evenly divide {@code window}
+	 */
+	public FluxWindowAggregator(ObjectMapper objectMapper, ResultDisplayMode displayMode, String[] propertyNames,
+			int maxPrecision, Duration window, Duration slide) {
+		super();
+		if (window.toMillis() < 1) {
+			throw new IllegalArgumentException("The window must be at least 1ms.");
+		}
+		final Duration s = (slide != null ? slide : window);
+		if (s.toMillis() < 1 || s.toMillis() > window.toMillis() || window.toMillis() % s.toMillis() != 0) {
+			throw new IllegalArgumentException("The slide must be positive and evenly divide the window.");
+		}
+		this.objectMapper = objectMapper;
+		this.cborFactory = (CBORFactory) objectMapper.copyWith(new CBORFactory()).getFactory();
+		this.displayMode = displayMode;
+		this.propertyNames = propertyNames;
+		this.maxPrecision = maxPrecision;
+		this.window = window.toMillis();
+		this.slide = s.toMillis();
+		this.paneCount = (int) (this.window / this.slide);
+		if (propertyNames != null) {
+			for (String propName : propertyNames) {
+				propertyIndex(propName);
+			}
+		}
+	}
+
+	/**
+	 * Aggregate all messages from a buffer, until the buffer is closed, writing a
+	 * summary after each window.
+	 *
+	 * <p>
+	 * The first pane starts with the first message received. A summary of the
+	 * final, partial, window is written when the buffer is closed.
+	 * </p>
+	 *
+	 * @param buffer the buffer to drain
+	 * @param out    the output stream to write to
+	 * @throws IOException          if any IO error occurs writing to {@code out}
+	 * @throws InterruptedException if interrupted while waiting for messages
+	 */
+	public void writeAll(FluxMessageBuffer buffer, OutputStream out) throws IOException, InterruptedException {
+		final List<FluxMessageBuffer.Message> batch = new ArrayList<>(64);
+		while (true) {
+			final long wait = (paneStart == NO_PANE ? 1000L
+					: Math.max(1, paneStart + slide + IDLE_GRACE_MS - System.currentTimeMillis()));
+			final int count = buffer.drainTo(batch, wait);
+			if (count < 0) {
+				break;
+			}
+			for (FluxMessageBuffer.Message msg : batch) {
+				add(msg, out);
+			}
+			batch.clear();
+			if (count == 0 && paneStart != NO_PANE) {
+				// no messages arrived, so close the panes that have ended
+				advance(System.currentTimeMillis() - IDLE_GRACE_MS, out);
+			}
+		}
+		if (paneStart != NO_PANE) {
+			emit(Math.min(System.currentTimeMillis(), paneStart + slide), out);
+		}
+	}
+
+	/**
+	 * Add a message, first closing any panes that ended before it was received.
+	 *
+	 * @param msg the message to add
+	 * @param out the output stream to write to
+	 * @throws IOException if any IO error occurs writing to {@code out}
+	 */
+	private void add(FluxMessageBuffer.Message msg, OutputStream out) throws IOException {
+		if (paneStart == NO_PANE) {
+			paneStart = floor(msg.received());
+		} else if (msg.received() >= paneStart + slide) {
+			advance(msg.received(), out);
+		} else if (msg.received() < paneStart && msg.gap() == null) {
+			// the message's window has already been written
+			lateCount++;
+			return;
+		}
+		if (msg.gap() != null) {
+			FluxMessageFormatter.writeGap(msg.gap(), displayMode, objectMapper, out);
+			return;
+		}
+		try {
+			final long start = (stats != null ? System.nanoTime() : 0);
+			add(msg);
+			if (stats != null) {
+				stats.decoded(System.nanoTime() - start);
+			}
+		} catch (IOException e) {
+			System.err.println("Error decoding MQTT message: " + e.toString());
+		}
+	}
+
+	/**
+	 * Add a message to the current pane.
+	 *
+	 * @param msg the message to add
+	 * @throws IOException if the message cannot be decoded
+	 */
+	private void add(FluxMessageBuffer.Message msg) throws IOException {
+		long date = msg.received();
+		int count = 0;
+		try (JsonParser p = cborFactory.createParser(msg.payload())) {
+			if (p.nextToken() != JsonToken.START_OBJECT) {
+				return;
+			}
+			String name;
+			while ((name = p.nextFieldName()) != null) {
+				final JsonToken t = p.nextToken();
+				if (!t.isNumeric()) {
+					p.skipChildren();
+					continue;
+				}
+				if (CREATED_PROP.equals(name)) {
+					date = p.getLongValue();
+					continue;
+				}
+				final int idx = (propertyNames != null ? selectedPropertyIndex(name) : allPropertyIndex(name));
+				if (idx < 0) {
+					continue;
+				}
+				if (count == msgProps.length) {
+					msgProps = Arrays.copyOf(msgProps, count * 2);
+					msgValues = Arrays.copyOf(msgValues, count * 2);
+				}
+				msgProps[count] = idx;
+				msgValues[count] = p.getDoubleValue();
+				count++;
+			}
+		}
+		if (count < 1) {
+			return;
+		}
+		final TopicStats stats = topics.computeIfAbsent(msg.topic(), _ -> new TopicStats());
+		final Accumulator[] pane = stats.pane(paneIndex(paneStart), properties.size());
+		for (int i = 0; i < count; i++) {
+			pane[msgProps[i]].add(msgValues[i], date);
+		}
+	}
+
+	private int selectedPropertyIndex(String name) {
+		final Integer idx = propertyIndexes.get(name);
+		return (idx != null ? idx : -1);
+	}
+
+	private int allPropertyIndex(String name) {
+		if ("_v".equals(name) || "nodeId".equals(name)) {
+			return -1;
+		}
+		return propertyIndex(name);
+	}
+
+	private int propertyIndex(String name) {
+		Integer idx = propertyIndexes.get(name);
+		if (idx == null) {
+			idx = properties.size();
+			properties.add(name);
+			propertyIndexes.put(name, idx);
+		}
+		return idx;
+	}
+
+	/**
+	 * Close all panes that end at or before a given date, writing a summary for
+	 * each.
+	 *
+	 * @param now the current date
+	 * @param out the output stream to write to
+	 * @throws IOException if any IO error occurs
+	 */
+	private void advance(long now, OutputStream out) throws IOException {
+		int closed = 0;
+		while (now >= paneStart + slide) {
+			if (closed++ > paneCount) {
+				// every pane is now empty, so skip ahead
+				paneStart = floor(now);
+				for (TopicStats stats : topics.values()) {
+					stats.reset(paneIndex(paneStart));
+				}
+				break;
+			}
+			emit(paneStart + slide, out);
+			paneStart += slide;
+			final int idx = paneIndex(paneStart);
+			for (TopicStats stats : topics.values()) {
+				stats.reset(idx);
+			}
+		}
+	}
+
+	/**
+	 * Write a summary of the window ending at a given date.
+	 *
+	 * @param end the window end date
+	 * @param out the output stream to write to
+	 * @throws IOException if any IO error occurs
+	 */
+	private void emit(long end, OutputStream out) throws IOException {
+		final Instant windowEnd = Instant.ofEpochMilli(end);
+		final Instant windowStart = Instant.ofEpochMilli(paneStart + slide - window);
+		final List<Object[]> rows = new ArrayList<>();
+		final String[] topicNames = topics.keySet().toArray(String[]::new);
+		Arrays.sort(topicNames);
+		final int currIdx = paneIndex(paneStart);
+		for (String topic : topicNames) {
+			final TopicStats stats = topics.get(topic);
+			for (int p = 0, len = properties.size(); p < len; p++) {
+				combined.reset();
+				// combine from the oldest pane to the current pane
+				for (int i = 1; i <= paneCount; i++) {
+					final Accumulator[] pane = stats.panes[(currIdx + i) % paneCount];
+					if (pane != null && p < pane.length) {
+						combined.merge(pane[p]);
+					}
+				}
+				if (combined.count < 1) {
+					continue;
+				}
+				final Double rate = combined.rate();
+				rows.add(new Object[] { windowStart, windowEnd, topic, properties.get(p), combined.count,
+						number(combined.min), number(combined.max), number(combined.sum / combined.count),
+						number(combined.last), rate != null ? number(rate) : null });
+			}
+		}
+		if (rows.isEmpty()) {
+			return;
+		}
+		windowCount++;
+		final long start = (stats != null ? System.nanoTime() : 0);
+		if (displayMode == ResultDisplayMode.JSON) {
+			// one JSON object per row, like the message output
+			for (Object[] row : rows) {
+				final Map<String, Object> map = new LinkedHashMap<>(COLUMN_NAMES.length);
+				for (int c = 0; c < COLUMN_NAMES.length; c++) {
+					map.put(COLUMN_NAMES[c], row[c]);
+				}
+				TableUtils.renderTableData(null, List.of(map), displayMode, objectMapper, out);
+			}
+		} else {
+			TableUtils.renderTableData(
+					displayMode == ResultDisplayMode.PRETTY || windowCount == 1 ? columns() : null, rows,
+					displayMode, objectMapper, out);
+		}
+		out.flush();
+		if (stats != null) {
+			stats.rendered(System.nanoTime() - start);
+		}
+	}
+
+	/**
+	 * Get the number of messages not counted because they were received before
+	 * the current pane, after their window had been written.
+	 *
+	 * @return the late message count
+	 */
+	public long getLateCount() {
+		return lateCount;
+	}
+
+	/**
+	 * Set statistics to record the time to add each message and write each
+	 * window summary to.
+	 *
+	 * @param stats the statistics, or {@code null}
+	 */
+	public void setStats(FluxSessionStats stats) {
+		this.stats = stats;
+	}
+
+	private static Column[] columns() {
+		final Column[] result = new Column[COLUMN_NAMES.length];
+		for (int i = 0; i < result.length; i++) {
+			result[i] = new Column().header(COLUMN_NAMES[i])
+					.dataAlign(i > 3 ? HorizontalAlign.RIGHT : HorizontalAlign.LEFT);
+		}
+		return result;
+	}
+
+	private Object number(double n) {
+		if (maxPrecision < 0 || !Double.isFinite(n)) {
+			return n;
+		}
+		return FluxMessageFormatter.formatNumber(n, maxPrecision);
+	}
+
+	private int paneIndex(long date) {
+		return (int) Math.floorMod(Math.floorDiv(date, slide), (long) paneCount);
+	}
+
+	private long floor(long date) {
+		return date - Math.floorMod(date, slide);
+	}
+
+	/**
+	 * Statistics for one topic.
+	 */
+	private final class TopicStats {
+
+		private final Accumulator[][] panes = new Accumulator[paneCount][];
+
+		private Accumulator[] pane(int idx, int propCount) {
+			Accumulator[] pane = panes[idx];
+			if (pane == null || pane.length < propCount) {
+				final int start = (pane != null ? pane.length : 0);
+				pane = (pane != null ? Arrays.copyOf(pane, propCount) : new Accumulator[propCount]);
+				for (int i = start; i < propCount; i++) {
+					pane[i] = new Accumulator();
+				}
+				panes[idx] = pane;
+			}
+			return pane;
+		}
+
+		private void reset(int idx) {
+			final Accumulator[] pane = panes[idx];
+			if (pane != null) {
+				for (Accumulator acc : pane) {
+					acc.reset();
+				}
+			}
+		}
+
+	}
+
+	/**
+	 * Primitive statistics accumulator.
+	 */
+	private static final class Accumulator {
+
+		private long count;
+		private double min;
+		private double max;
+		private double sum;
+		private double first;
+		private double last;
+		private long firstDate;
+		private long lastDate;
+
+		private void add(double v, long date) {
+			if (count == 0) {
+				min = v;
+				max = v;
+				first = v;
+				firstDate = date;
+			} else {
+				if (v < min) {
+					min = v;
+				}
+				if (v > max) {
+					max = v;
+				}
+			}
+			sum += v;
+			last = v;
+			lastDate = date;
+			count++;
+		}
+
+		private void merge(Accumulator o) {
+			if (o.count < 1) {
+				return;
+			}
+			if (count == 0) {
+				min = o.min;
+				max = o.max;
+				first = o.first;
+				firstDate = o.firstDate;
+			} else {
+				min = Math.min(min, o.min);
+				max = Math.max(max, o.max);
+			}
+			sum += o.sum;
+			last = o.last;
+			lastDate = o.lastDate;
+			count += o.count;
+		}
+
+		private Double rate() {
+			if (count < 2 || lastDate == firstDate) {
+				return null;
+			}
+			return (last - first) / ((lastDate - firstDate) / 1000.0);
+		}
+
+		private void reset() {
+			count = 0;
+			sum = 0;
+		}
+
+	}
+
+}
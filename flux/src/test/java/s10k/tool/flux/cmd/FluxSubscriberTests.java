@@ -0,0 +1,99 @@
+package s10k.tool.flux.cmd;
+
+import static org.assertj.core.api.BDDAssertions.then;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test cases for the {@link FluxSubscriber} reconnect calculations.
+ */
+public class FluxSubscriberTests {
+
+	/**
+	 * Assert that many reconnect delays are all within a range.
+	 *
+	 * @param attempt  the attempt
+	 * @param maxDelay the maximum delay
+	 * @param minMs    the minimum expected delay, in milliseconds
+	 * @param maxMs    the maximum expected delay, in milliseconds
+	 */
+	private static void thenDelaysBetween(int attempt, Duration maxDelay, long minMs, long maxMs) {
+		long min = Long.MAX_VALUE;
+		long max = Long.MIN_VALUE;
+		for (int i = 0; i < 1000; i++) {
+			final long delay = FluxSubscriber.reconnectDelay(attempt, maxDelay).toMillis();
+			min = Math.min(min, delay);
+			max = Math.max(max, delay);
+		}
+		then(min).as("Attempt %d minimum delay at least half base delay", attempt).isGreaterThanOrEqualTo(minMs);
+		then(max).as("Attempt %d maximum delay at most base delay", attempt).isLessThanOrEqualTo(maxMs);
+		then(max).as("Attempt %d delay jittered", attempt).isGreaterThan(min);
+	}
+
+	@Test
+	public void reconnectDelay_backoff() {
+		thenDelaysBetween(0, Duration.ofMinutes(1), 500, 1000);
+		thenDelaysBetween(1, Duration.ofMinutes(1), 1000, 2000);
+		thenDelaysBetween(3, Duration.ofMinutes(1), 4000, 8000);
+	}
+
+	@Test
+	public void reconnectDelay_maxDelay() {
+		thenDelaysBetween(10, Duration.ofMinutes(1), 30_000, 60_000);
+		thenDelaysBetween(3, Duration.ofSeconds(5), 2500, 5000);
+	}
+
+	@Test
+	public void reconnectDelay_manyAttempts() {
+		thenDelaysBetween(100, Duration.ofDays(30), 500L << 20, 1000L << 20);
+		thenDelaysBetween(Integer.MAX_VALUE, Duration.ofMinutes(1), 30_000, 60_000);
+	}
+
+	@Test
+	public void reconnectDelay_defaultMaxDelay() {
+		final long defaultMs = FluxConnectionOptions.DEFAULT_RECONNECT_MAX_DELAY.toMillis();
+		thenDelaysBetween(20, null, defaultMs / 2, defaultMs);
+	}
+
+	@Test
+	public void reconnectDelay_maxDelayAtLeastOneSecond() {
+		thenDelaysBetween(5, Duration.ofMillis(10), 500, 1000);
+	}
+
+	@Test
+	public void sessionResumed() {
+		then(FluxSubscriber.sessionResumed(Duration.ofHours(1), Duration.ofMinutes(10)))
+				.as("Session resumed within expiry").isTrue();
+		then(FluxSubscriber.sessionResumed(Duration.ofMinutes(1), Duration.ofMinutes(1)))
+				.as("Session expired at expiry").isFalse();
+		then(FluxSubscriber.sessionResumed(Duration.ofMinutes(1), Duration.ofMinutes(2)))
+				.as("Session expired after expiry").isFalse();
+		then(FluxSubscriber.sessionResumed(null, Duration.ofSeconds(1))).as("No session without expiry")
+				.isFalse();
+	}
+
+	@Test
+	public void estimatedMissed() {
+		then(FluxSubscriber.estimatedMissed(false, 2.5, Duration.ofSeconds(10))).as("Rate over lost period")
+				.isEqualTo(25L);
+		then(FluxSubscriber.estimatedMissed(false, 0.0, Duration.ofSeconds(10))).as("No messages at zero rate")
+				.isZero();
+		then(FluxSubscriber.estimatedMissed(false, 0.25, Duration.ofSeconds(10))).as("Estimate rounded")
+				.isEqualTo(3L);
+	}
+
+	@Test
+	public void estimatedMissed_sessionResumed() {
+		// GIVEN
+		final boolean resumed = FluxSubscriber.sessionResumed(Duration.ofHours(1), Duration.ofMinutes(5));
+
+		// WHEN
+		final long result = FluxSubscriber.estimatedMissed(resumed, 100.0, Duration.ofMinutes(5));
+
+		// THEN
+		then(result).as("No messages missed when session resumed within expiry").isZero();
+	}
+
+}
@@ -0,0 +1,93 @@
+package s10k.tool.flux.cmd;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.BDDAssertions.then;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import s10k.tool.flux.util.FluxLogReader;
+import s10k.tool.flux.util.FluxLogWriter;
+import s10k.tool.flux.util.FluxMessageBuffer;
+import s10k.tool.flux.util.FluxMessageBuffer.Message;
+import s10k.tool.flux.util.FluxMessageBuffer.OverflowPolicy;
+
+/**
+ * Test cases for the {@link RecordFluxCmd} class.
+ */
+public class RecordFluxCmdTests {
+
+	private static final long START = Instant.parse("2025-01-01T00:00:00Z").toEpochMilli();
+
+	@TempDir
+	private Path dir;
+
+	private static Message msg(int i) {
+		return new Message("node/1/datum/0/a", "{\"watts\":%d}".formatted(i).getBytes(UTF_8), START + i);
+	}
+
+	@Test
+	public void record() throws Exception {
+		// GIVEN
+		final FluxMessageBuffer buffer = new FluxMessageBuffer(4, OverflowPolicy.Block, 1);
+		buffer.put(msg(1));
+		buffer.put(msg(2));
+		buffer.close();
+
+		// WHEN
+		final boolean result = RecordFluxCmd.recordMessages(buffer,
+				new FluxLogWriter(dir, 1024, Duration.ofHours(1)));
+
+		// THEN
+		then(result).as("All messages recorded").isTrue();
+		try (FluxLogReader reader = new FluxLogReader(FluxLogReader.segments(List.of(dir)))) {
+			then(reader.next().received()).as("First message recorded").isEqualTo(START + 1);
+			then(reader.next().received()).as("Second message recorded").isEqualTo(START + 2);
+			then(reader.next()).as("No more messages").isNull();
+		}
+	}
+
+	@Test
+	public void appendFailure_closesBuffer() throws Exception {
+		// GIVEN
+		// a file where the segment directory should be fails the first append
+		final Path notDir = dir.resolve("not-a-directory");
+		Files.writeString(notDir, "file", UTF_8);
+		final FluxMessageBuffer buffer = new FluxMessageBuffer(4, OverflowPolicy.Block, 1);
+		buffer.put(msg(1));
+
+		// WHEN
+		final FutureTask<Boolean> recording = new FutureTask<>(() -> RecordFluxCmd.recordMessages(buffer,
+				new FluxLogWriter(notDir, 1024, Duration.ofHours(1))));
+		Thread.ofPlatform().start(recording);
+
+		// THEN
+		then(recording.get(5, TimeUnit.SECONDS)).as("Recording failed").isFalse();
+		then(buffer.isClosed()).as("Buffer closed after append failure").isTrue();
+		then(FluxSubscriber.bufferMessage(buffer, "node/1/datum/0/a", new byte[0]))
+				.as("Subscription stops once buffer closed").isFalse();
+	}
+
+	@Test
+	public void bufferMessage_dropped() throws Exception {
+		// GIVEN
+		final FluxMessageBuffer buffer = new FluxMessageBuffer(1, OverflowPolicy.Sample, 10);
+		buffer.put(msg(1));
+
+		// WHEN
+		final boolean result = FluxSubscriber.bufferMessage(buffer, "node/1/datum/0/a", new byte[0]);
+
+		// THEN
+		then(result).as("Subscription continues when message dropped from open buffer").isTrue();
+		then(buffer.getDroppedCount()).as("Message dropped").isOne();
+	}
+
+}
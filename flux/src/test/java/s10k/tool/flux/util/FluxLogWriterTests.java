@@ -0,0 +1,238 @@
+package s10k.tool.flux.util;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.assertj.core.api.BDDAssertions.thenThrownBy;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import s10k.tool.flux.util.FluxMessageBuffer.Message;
+
+/**
+ * Test cases for the {@link FluxLogWriter} and {@link FluxLogReader} classes.
+ */
+public class FluxLogWriterTests {
+
+	private static final long START = Instant.parse("2025-01-01T00:00:00Z").toEpochMilli();
+
+	@TempDir
+	private Path dir;
+
+	private static Message msg(String topic, String payload, long received) {
+		return new Message(topic, payload.getBytes(UTF_8), received);
+	}
+
+	private static long recordSize(Message msg) {
+		return FluxLogWriter.RECORD_OVERHEAD + msg.topic().getBytes(UTF_8).length + msg.payload().length;
+	}
+
+	private List<Path> segments() throws IOException {
+		return FluxLogReader.segments(List.of(dir));
+	}
+
+	private List<Message> readAll(List<Path> segments) throws IOException {
+		final List<Message> result = new ArrayList<>();
+		try (FluxLogReader reader = new FluxLogReader(segments)) {
+			Message msg;
+			while ((msg = reader.next()) != null) {
+				result.add(msg);
+			}
+			then(reader.next()).as("No more messages after end").isNull();
+		}
+		return result;
+	}
+
+	private static void thenSameMessages(List<Message> actual, List<Message> expected) {
+		then(actual).as("Message count").hasSameSizeAs(expected);
+		for (int i = 0; i < expected.size(); i++) {
+			final Message a = actual.get(i);
+			final Message e = expected.get(i);
+			then(a.topic()).as("Message %d topic", i).isEqualTo(e.topic());
+			then(a.payload()).as("Message %d payload", i)
+					.isEqualTo(e.payload() != null ? e.payload() : new byte[0]);
+			then(a.received()).as("Message %d received", i).isEqualTo(e.received());
+		}
+	}
+
+	@Test
+	public void construct_invalidSegmentSize() {
+		thenThrownBy(() -> new FluxLogWriter(dir, FluxLogWriter.HEADER_SIZE, Duration.ofHours(1)))
+				.as("Segment size must fit a record").isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	public void construct_invalidSegmentDuration() {
+		thenThrownBy(() -> new FluxLogWriter(dir, 1024, Duration.ZERO)).as("Segment duration must be positive")
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	public void roundTrip() throws IOException {
+		// GIVEN
+		final List<Message> msgs = List.of(msg("node/1/datum/0/a", "{\"watts\":1}", START),
+				msg("node/1/datum/0/b", "", START + 1),
+				new Message("node/2/datum/0/\u00e9t\u00e9", null, START + 2),
+				msg("node/1/datum/0/a", "{\"watts\":2}", START + 1000));
+
+		// WHEN
+		try (FluxLogWriter writer = new FluxLogWriter(dir, 1024, Duration.ofHours(1))) {
+			for (Message msg : msgs) {
+				writer.append(msg);
+			}
+			then(writer.getRecordCount()).as("Record count").isEqualTo(msgs.size());
+			then(writer.getSegmentCount()).as("One segment written").isOne();
+		}
+
+		// THEN
+		final List<Path> segments = segments();
+		then(segments).as("One segment file").hasSize(1);
+		long contentSize = FluxLogWriter.HEADER_SIZE;
+		for (Message msg : msgs) {
+			contentSize += FluxLogWriter.RECORD_OVERHEAD + msg.topic().getBytes(UTF_8).length
+					+ (msg.payload() != null ? msg.payload().length : 0);
+		}
+		then(Files.size(segments.getFirst())).as("Closed segment truncated to content").isEqualTo(contentSize);
+		thenSameMessages(readAll(segments), msgs);
+	}
+
+	@Test
+	public void rollover_size() throws IOException {
+		// GIVEN
+		final List<Message> msgs = new ArrayList<>();
+		for (int i = 0; i < 5; i++) {
+			msgs.add(msg("node/1/datum/0/a", "{\"watts\":%d}".formatted(i), START + i));
+		}
+		final long recordSize = recordSize(msgs.getFirst());
+
+		// WHEN
+		try (FluxLogWriter writer = new FluxLogWriter(dir, FluxLogWriter.HEADER_SIZE + 2 * recordSize,
+				Duration.ofHours(1))) {
+			for (Message msg : msgs) {
+				writer.append(msg);
+			}
+			then(writer.getSegmentCount()).as("New segment when segment full").isEqualTo(3);
+		}
+
+		// THEN
+		final List<Path> segments = segments();
+		then(segments).as("Segment files").hasSize(3);
+		then(Files.size(segments.get(0))).as("First segment full")
+				.isEqualTo(FluxLogWriter.HEADER_SIZE + 2 * recordSize);
+		then(Files.size(segments.get(2))).as("Last segment truncated to content")
+				.isEqualTo(FluxLogWriter.HEADER_SIZE + recordSize);
+		thenSameMessages(readAll(segments), msgs);
+	}
+
+	@Test
+	public void rollover_time() throws IOException {
+		// GIVEN
+		final List<Message> msgs = List.of(msg("a", "1", START), msg("a", "2", START + 30_000L),
+				msg("a", "3", START + 60_000L), msg("a", "4", START + 61_000L), msg("a", "5", START + 150_000L));
+
+		// WHEN
+		try (FluxLogWriter writer = new FluxLogWriter(dir, 1024, Duration.ofMinutes(1))) {
+			for (Message msg : msgs) {
+				writer.append(msg);
+			}
+			then(writer.getSegmentCount()).as("New segment when segment duration reached").isEqualTo(3);
+		}
+
+		// THEN
+		final List<Path> segments = segments();
+		then(segments).as("Segment files").hasSize(3);
+		then(segments.getLast().getFileName().toString()).as("Segment named by first message date")
+				.startsWith(FluxLogWriter.SEGMENT_PREFIX + "20250101T000230000Z-");
+		thenSameMessages(readAll(segments.subList(0, 1)), msgs.subList(0, 2));
+		thenSameMessages(readAll(segments.subList(1, 2)), msgs.subList(2, 4));
+		thenSameMessages(readAll(segments), msgs);
+	}
+
+	@Test
+	public void oversizedRecord() throws IOException {
+		// GIVEN
+		final Message big = msg("a", "x".repeat(200), START + 1);
+		final List<Message> msgs = List.of(msg("a", "1", START), big, msg("a", "2", START + 2));
+
+		// WHEN
+		try (FluxLogWriter writer = new FluxLogWriter(dir, 64, Duration.ofHours(1))) {
+			for (Message msg : msgs) {
+				writer.append(msg);
+			}
+			then(writer.getSegmentCount()).as("Oversized record written to its own segment").isEqualTo(3);
+		}
+
+		// THEN
+		final List<Path> segments = segments();
+		then(segments).as("Segment files").hasSize(3);
+		then(Files.size(segments.get(1))).as("Segment sized to fit oversized record")
+				.isEqualTo(FluxLogWriter.HEADER_SIZE + recordSize(big));
+		thenSameMessages(readAll(segments), msgs);
+	}
+
+	@Test
+	public void unclosedSegment() throws IOException {
+		// GIVEN
+		final List<Message> msgs = List.of(msg("a", "1", START), msg("b", "2", START + 1));
+		final FluxLogWriter writer = new FluxLogWriter(dir, 1024, Duration.ofHours(1));
+		try {
+			for (Message msg : msgs) {
+				writer.append(msg);
+			}
+
+			// WHEN
+			final List<Path> segments = segments();
+			final List<Message> result = readAll(segments);
+
+			// THEN
+			then(Files.size(segments.getFirst())).as("Unclosed segment still at full size").isEqualTo(1024L);
+			thenSameMessages(result, msgs);
+		} finally {
+			writer.close();
+		}
+	}
+
+	@Test
+	public void unclosedSegment_followedBySegment() throws IOException {
+		// GIVEN
+		final List<Message> msgs = List.of(msg("a", "1", START), msg("a", "2", START + 1),
+				msg("a", "3", START + 1000));
+		final FluxLogWriter unclosed = new FluxLogWriter(dir, 1024, Duration.ofHours(1));
+		try {
+			unclosed.append(msgs.get(0));
+			unclosed.append(msgs.get(1));
+			try (FluxLogWriter writer = new FluxLogWriter(dir, 1024, Duration.ofHours(1))) {
+				writer.append(msgs.get(2));
+			}
+
+			// WHEN
+			final List<Message> result = readAll(segments());
+
+			// THEN
+			thenSameMessages(result, msgs);
+		} finally {
+			unclosed.close();
+		}
+	}
+
+	@Test
+	public void read_notSegment() throws IOException {
+		// GIVEN
+		final Path path = dir.resolve("flux-bad.log");
+		Files.writeString(path, "not a segment", UTF_8);
+
+		// THEN
+		try (FluxLogReader reader = new FluxLogReader(List.of(path))) {
+			thenThrownBy(reader::next).as("Invalid segment rejected").isInstanceOf(IOException.class);
+		}
+	}
+
+}
@@ -0,0 +1,292 @@
+package s10k.tool.flux.util;
+
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.assertj.core.api.BDDAssertions.thenThrownBy;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.jupiter.api.Test;
+
+import s10k.tool.flux.util.FluxMessageBuffer.Message;
+import s10k.tool.flux.util.FluxMessageBuffer.OverflowPolicy;
+
+/**
+ * Test cases for the {@link FluxMessageBuffer} class.
+ */
+public class FluxMessageBufferTests {
+
+	private static Message msg(int i) {
+		return new Message("t/" + i, new byte[] { (byte) i }, i);
+	}
+
+	private static Message gap(int i) {
+		return Message.gap(new FluxGap(Instant.ofEpochSecond(i), Instant.ofEpochSecond(i + 1), 1L));
+	}
+
+	private static void putAll(FluxMessageBuffer buffer, Message... msgs) throws InterruptedException {
+		for (Message msg : msgs) {
+			buffer.put(msg);
+		}
+	}
+
+	/**
+	 * Drain a buffer.
+	 *
+	 * @param buffer the buffer
+	 * @return the drained messages, as topics or {@code gapN} for gap notes where
+	 *         {@code N} is the gap start second
+	 */
+	private static List<String> drain(FluxMessageBuffer buffer) throws InterruptedException {
+		final List<Message> batch = new ArrayList<>();
+		buffer.drainTo(batch, 0);
+		return batch.stream()
+				.map(m -> m.gap() != null ? "gap" + m.gap().start().getEpochSecond() : m.topic()).toList();
+	}
+
+	@Test
+	public void construct_invalidCapacity() {
+		thenThrownBy(() -> new FluxMessageBuffer(0, OverflowPolicy.Block, 1)).as("Capacity must be positive")
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	public void construct_invalidSampleRate() {
+		thenThrownBy(() -> new FluxMessageBuffer(1, OverflowPolicy.Sample, 0)).as("Sample rate must be positive")
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	public void ring_wrapsInOrder() throws Exception {
+		// GIVEN
+		final FluxMessageBuffer buffer = new FluxMessageBuffer(4, OverflowPolicy.Block, 1);
+		putAll(buffer, msg(1), msg(2), msg(3));
+		then(drain(buffer)).as("First messages drained").containsExactly("t/1", "t/2", "t/3");
+
+		// WHEN
+		putAll(buffer, msg(4), msg(5), msg(6), msg(7));
+
+		// THEN
+		then(buffer.getQueuedCount()).as("Buffer full").isEqualTo(4);
+		then(drain(buffer)).as("Messages wrapped around ring drained in order").containsExactly("t/4", "t/5",
+				"t/6", "t/7");
+		then(buffer.getQueuedCount()).as("Buffer empty").isZero();
+		then(buffer.getReceivedCount()).as("Received count").isEqualTo(7L);
+		then(buffer.getDroppedCount()).as("Nothing dropped").isZero();
+		then(buffer.getMaxQueuedCount()).as("Max queued count").isEqualTo(4);
+	}
+
+	@Test
+	public void drain_timeout() throws Exception {
+		// GIVEN
+		final FluxMessageBuffer buffer = new FluxMessageBuffer(4, OverflowPolicy.Block, 1);
+
+		// WHEN
+		final int result = buffer.drainTo(new ArrayList<>(), 10);
+
+		// THEN
+		then(result).as("Nothing drained from empty buffer").isZero();
+	}
+
+	@Test
+	public void drain_closed() throws Exception {
+		// GIVEN
+		final FluxMessageBuffer buffer = new FluxMessageBuffer(4, OverflowPolicy.Block, 1);
+		putAll(buffer, msg(1));
+		buffer.close();
+
+		// WHEN
+		final boolean added = buffer.put(msg(2));
+		final List<String> remaining = drain(buffer);
+		final int result = buffer.drainTo(new ArrayList<>(), 10);
+
+		// THEN
+		then(added).as("Message not added to closed buffer").isFalse();
+		then(remaining).as("Buffered message still drained after close").containsExactly("t/1");
+		then(result).as("Closed and empty buffer signalled").isEqualTo(-1);
+	}
+
+	@Test
+	public void block_waitsForSpace() throws Exception {
+		// GIVEN
+		final FluxMessageBuffer buffer = new FluxMessageBuffer(2, OverflowPolicy.Block, 1);
+		putAll(buffer, msg(1), msg(2));
+		final FutureTask<Boolean> put = new FutureTask<>(() -> buffer.put(msg(3)));
+		Thread.ofPlatform().start(put);
+
+		// WHEN
+		thenThrownBy(() -> put.get(100, TimeUnit.MILLISECONDS)).as("Put blocked while buffer full")
+				.isInstanceOf(TimeoutException.class);
+		final List<String> first = drain(buffer);
+
+		// THEN
+		then(put.get(5, TimeUnit.SECONDS)).as("Put completed once space available").isTrue();
+		then(first).as("Buffered messages drained").containsExactly("t/1", "t/2");
+		then(drain(buffer)).as("Blocked message added").containsExactly("t/3");
+		then(buffer.getDroppedCount()).as("Nothing dropped").isZero();
+	}
+
+	@Test
+	public void block_closeReleasesWaiting() throws Exception {
+		// GIVEN
+		final FluxMessageBuffer buffer = new FluxMessageBuffer(1, OverflowPolicy.Block, 1);
+		putAll(buffer, msg(1));
+		final FutureTask<Boolean> put = new FutureTask<>(() -> buffer.put(msg(2)));
+		Thread.ofPlatform().start(put);
+		thenThrownBy(() -> put.get(100, TimeUnit.MILLISECONDS)).as("Put blocked while buffer full")
+				.isInstanceOf(TimeoutException.class);
+
+		// WHEN
+		buffer.close();
+
+		// THEN
+		then(put.get(5, TimeUnit.SECONDS)).as("Blocked put released without adding").isFalse();
+		then(drain(buffer)).as("Only first message buffered").containsExactly("t/1");
+	}
+
+	@Test
+	public void dropOldest() throws Exception {
+		// GIVEN
+		final FluxMessageBuffer buffer = new FluxMessageBuffer(3, OverflowPolicy.DropOldest, 1);
+
+		// WHEN
+		putAll(buffer, msg(1), msg(2), msg(3), msg(4), msg(5));
+
+		// THEN
+		then(drain(buffer)).as("Oldest messages dropped").containsExactly("t/3", "t/4", "t/5");
+		then(buffer.getReceivedCount()).as("Received count").isEqualTo(5L);
+		then(buffer.getDroppedCount()).as("Dropped count").isEqualTo(2L);
+	}
+
+	@Test
+	public void dropOldest_gapNotesKept() throws Exception {
+		// GIVEN
+		final FluxMessageBuffer buffer = new FluxMessageBuffer(3, OverflowPolicy.DropOldest, 1);
+		putAll(buffer, gap(1), msg(1), msg(2));
+
+		// WHEN
+		putAll(buffer, msg(3), msg(4));
+
+		// THEN
+		then(drain(buffer)).as("Oldest messages dropped, gap note kept in order").containsExactly("gap1", "t/3",
+				"t/4");
+		then(buffer.getReceivedCount()).as("Gap notes not counted as received").isEqualTo(4L);
+		then(buffer.getDroppedCount()).as("Dropped count").isEqualTo(2L);
+	}
+
+	@Test
+	public void dropOldest_onlyGapNotes() throws Exception {
+		// GIVEN
+		final FluxMessageBuffer buffer = new FluxMessageBuffer(2, OverflowPolicy.DropOldest, 1);
+		putAll(buffer, gap(1), gap(2));
+
+		// WHEN
+		final boolean added = buffer.put(msg(1));
+
+		// THEN
+		then(added).as("Message dropped rather than evict gap note").isFalse();
+		then(drain(buffer)).as("Gap notes kept").containsExactly("gap1", "gap2");
+		then(buffer.getDroppedCount()).as("Dropped count").isEqualTo(1L);
+	}
+
+	@Test
+	public void gapNote_evictsMessage() throws Exception {
+		// GIVEN
+		final FluxMessageBuffer buffer = new FluxMessageBuffer(3, OverflowPolicy.Sample, 10);
+		putAll(buffer, msg(1), gap(1), msg(2));
+
+		// WHEN
+		final boolean added = buffer.put(gap(2));
+
+		// THEN
+		then(added).as("Gap note added to full buffer").isTrue();
+		then(drain(buffer)).as("Oldest message evicted, earlier gap note kept").containsExactly("gap1", "t/2",
+				"gap2");
+		then(buffer.getDroppedCount()).as("Dropped count").isEqualTo(1L);
+	}
+
+	@Test
+	public void gapNote_onlyGapNotes() throws Exception {
+		// GIVEN
+		final FluxMessageBuffer buffer = new FluxMessageBuffer(2, OverflowPolicy.DropOldest, 1);
+		putAll(buffer, gap(1), gap(2));
+
+		// WHEN
+		final boolean added = buffer.put(gap(3));
+
+		// THEN
+		then(added).as("Gap note added to full buffer").isTrue();
+		then(drain(buffer)).as("Oldest gap note evicted when no messages buffered").containsExactly("gap2",
+				"gap3");
+		then(buffer.getDroppedCount()).as("Gap notes not counted as dropped").isZero();
+	}
+
+	@Test
+	public void gapNote_block() throws Exception {
+		// GIVEN
+		final FluxMessageBuffer buffer = new FluxMessageBuffer(1, OverflowPolicy.Block, 1);
+		putAll(buffer, msg(1));
+		final FutureTask<Boolean> put = new FutureTask<>(() -> buffer.put(gap(1)));
+		Thread.ofPlatform().start(put);
+
+		// WHEN
+		thenThrownBy(() -> put.get(100, TimeUnit.MILLISECONDS)).as("Gap note put blocked while buffer full")
+				.isInstanceOf(TimeoutException.class);
+		final List<String> first = drain(buffer);
+
+		// THEN
+		then(put.get(5, TimeUnit.SECONDS)).as("Gap note added once space available").isTrue();
+		then(first).as("Message drained").containsExactly("t/1");
+		then(drain(buffer)).as("Gap note drained").containsExactly("gap1");
+	}
+
+	@Test
+	public void sample() throws Exception {
+		// GIVEN
+		final FluxMessageBuffer buffer = new FluxMessageBuffer(2, OverflowPolicy.Sample, 3);
+		putAll(buffer, msg(1), msg(2));
+
+		// WHEN
+		putAll(buffer, msg(3), msg(4), msg(5), msg(6), msg(7), msg(8));
+
+		// THEN
+		then(drain(buffer)).as("One of every 3 overflow messages kept, replacing the oldest")
+				.containsExactly("t/5", "t/8");
+		then(buffer.getReceivedCount()).as("Received count").isEqualTo(8L);
+		then(buffer.getDroppedCount()).as("Sampled away and evicted messages dropped").isEqualTo(6L);
+	}
+
+	@Test
+	public void sample_gapNotesKept() throws Exception {
+		// GIVEN
+		final FluxMessageBuffer buffer = new FluxMessageBuffer(2, OverflowPolicy.Sample, 2);
+		putAll(buffer, gap(1), msg(1));
+
+		// WHEN
+		putAll(buffer, msg(2), msg(3), msg(4), msg(5));
+
+		// THEN
+		then(drain(buffer)).as("Sampled messages replaced oldest message, gap note kept")
+				.containsExactly("gap1", "t/5");
+		then(buffer.getDroppedCount()).as("Dropped count").isEqualTo(4L);
+	}
+
+	@Test
+	public void sample_resetsAfterOverflow() throws Exception {
+		// GIVEN
+		final FluxMessageBuffer buffer = new FluxMessageBuffer(1, OverflowPolicy.Sample, 2);
+		putAll(buffer, msg(1), msg(2));
+		drain(buffer);
+
+		// WHEN
+		putAll(buffer, msg(3), msg(4), msg(5));
+
+		// THEN
+		then(drain(buffer)).as("Sample count restarted once buffer had space").containsExactly("t/5");
+	}
+
+}
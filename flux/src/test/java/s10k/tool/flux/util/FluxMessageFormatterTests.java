@@ -0,0 +1,167 @@
+package s10k.tool.flux.util;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.BDDAssertions.then;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+
+import net.solarnetwork.codec.JsonUtils;
+import s10k.tool.common.domain.ResultDisplayMode;
+import s10k.tool.flux.util.FluxMessageBuffer.Message;
+import s10k.tool.flux.util.FluxMessageBuffer.OverflowPolicy;
+
+/**
+ * Test cases for the {@link FluxMessageFormatter} class.
+ */
+public class FluxMessageFormatterTests {
+
+	private static final String[] PROPS = new String[] { "watts", "status", "on", "missing" };
+
+	private final ObjectMapper objectMapper = JsonUtils.newDatumObjectMapper();
+
+	private static Message msg(Object... keysAndValues) throws IOException {
+		final Map<String, Object> map = new LinkedHashMap<>();
+		for (int i = 0; i < keysAndValues.length; i += 2) {
+			map.put((String) keysAndValues[i], keysAndValues[i + 1]);
+		}
+		return new Message("node/1/datum/0/a", new ObjectMapper(new CBORFactory()).writeValueAsBytes(map),
+				1735689600000L);
+	}
+
+	private static String writeAll(FluxMessageFormatter formatter, List<Message> msgs)
+			throws IOException, InterruptedException {
+		final FluxMessageBuffer buffer = new FluxMessageBuffer(msgs.size(), OverflowPolicy.Block, 1);
+		for (Message msg : msgs) {
+			buffer.put(msg);
+		}
+		buffer.close();
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		then(formatter.writeAll(buffer, out)).as("Decoded messages written").isEqualTo(msgs.size() - 1);
+		return out.toString(UTF_8);
+	}
+
+	private String write(FluxMessageFormatter formatter, Message msg, long msgNum) throws IOException {
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		formatter.write(msg, msgNum, out);
+		return out.toString(UTF_8);
+	}
+
+	@Test
+	public void json_properties() throws IOException {
+		// GIVEN
+		final FluxMessageFormatter formatter = new FluxMessageFormatter(objectMapper, ResultDisplayMode.JSON, PROPS,
+				false, 3);
+
+		// WHEN
+		final JsonNode result = objectMapper.readTree(write(formatter,
+				msg("created", 1735689600000L, "watts", 1.23456, "status", "ok", "on", true, "other", 1), 1));
+
+		// THEN
+		then(result.path("topic").textValue()).as("Topic").isEqualTo("node/1/datum/0/a");
+		final JsonNode body = result.path("body");
+		then(body.properties()).extracting(Map.Entry::getKey).as("Selected properties in order")
+				.containsExactly(PROPS);
+		then(body.path("watts").textValue()).as("Rounded number formatted as string").isEqualTo("1.235");
+		then(body.path("status").textValue()).as("String").isEqualTo("ok");
+		then(body.path("on").isBoolean()).as("Boolean").isTrue();
+		then(body.path("missing").isNull()).as("Missing property null").isTrue();
+	}
+
+	@Test
+	public void json_properties_notRounded() throws IOException {
+		// GIVEN
+		final FluxMessageFormatter formatter = new FluxMessageFormatter(objectMapper, ResultDisplayMode.JSON,
+				new String[] { "watts", "count" }, false, -1);
+
+		// WHEN
+		final JsonNode result = objectMapper.readTree(write(formatter, msg("watts", 1.23456, "count", 3), 1));
+
+		// THEN
+		then(result.path("body").path("watts").isNumber()).as("Number").isTrue();
+		then(result.path("body").path("watts").doubleValue()).as("Number value").isEqualTo(1.23456);
+		then(result.path("body").path("count").intValue()).as("Integer value").isEqualTo(3);
+	}
+
+	@Test
+	public void json_properties_nestedValue() throws IOException {
+		// GIVEN
+		final FluxMessageFormatter formatter = new FluxMessageFormatter(objectMapper, ResultDisplayMode.JSON,
+				new String[] { "watts", "tags" }, false, 3);
+
+		// WHEN
+		final JsonNode result = objectMapper
+				.readTree(write(formatter, msg("watts", 1.23456, "tags", List.of("a", "b")), 1));
+
+		// THEN
+		then(result.path("body").path("watts").textValue()).as("Number rounded").isEqualTo("1.235");
+		then(result.path("body").path("tags").isArray()).as("Nested value decoded as map").isTrue();
+	}
+
+	@Test
+	public void pretty_properties() throws IOException {
+		// GIVEN
+		final FluxMessageFormatter formatter = new FluxMessageFormatter(objectMapper, ResultDisplayMode.PRETTY,
+				PROPS, false, 3);
+
+		// WHEN
+		final String first = write(formatter, msg("watts", 1.23456, "status", "ok", "on", true), 1);
+		final String second = write(formatter, msg("watts", 2, "status", "fault"), 2);
+
+		// THEN
+		then(first).as("Header and values rendered").contains("watts", "status", "on", "missing", "1.235", "ok",
+				"true");
+		then(second).as("Header rendered for each message").contains("watts", "missing", "2", "fault")
+				.doesNotContain("true");
+	}
+
+	@Test
+	public void csv_properties() throws IOException {
+		// GIVEN
+		final FluxMessageFormatter formatter = new FluxMessageFormatter(objectMapper, ResultDisplayMode.CSV, PROPS,
+				true, 3);
+
+		// WHEN
+		final String first = write(formatter, msg("watts", 1.23456, "status", "ok, fine", "on", true), 1);
+		final String second = write(formatter, msg("watts", 2, "status", "fault"), 2);
+
+		// THEN
+		then(first).as("Header and values").isEqualTo("watts,status,on,missing\r\n1.235,\"ok, fine\",true,\r\n");
+		then(second).as("Values only with global header").isEqualTo("2,fault,,\r\n");
+	}
+
+	@Test
+	public void writeAll_parallelDecodeInOrder() throws Exception {
+		// GIVEN
+		final List<Message> msgs = new ArrayList<>();
+		for (int i = 0; i < 100; i++) {
+			msgs.add(i == 50 ? new Message("node/1/datum/0/a", new byte[] { (byte) 0xFF }, 1735689600000L)
+					: msg("created", 1735689600000L + i, "watts", i));
+		}
+		final FluxMessageFormatter sequential = new FluxMessageFormatter(objectMapper, ResultDisplayMode.CSV, null,
+				true, 3);
+		final FluxMessageFormatter parallel = new FluxMessageFormatter(objectMapper, ResultDisplayMode.CSV, null,
+				true, 3);
+		parallel.setDecodeParallelism(4);
+
+		// WHEN
+		final String expected = writeAll(sequential, msgs);
+		final String result = writeAll(parallel, msgs);
+
+		// THEN
+		then(result).as("Messages decoded in parallel written in order, skipping undecodable message")
+				.isEqualTo(expected);
+		then(result.lines()).as("Header and one row per decoded message").hasSize(100);
+	}
+
+}
@@ -0,0 +1,153 @@
+package s10k.tool.flux.util;
+
+import static org.assertj.core.api.BDDAssertions.then;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+
+/**
+ * Test cases for the {@link FluxPropertyDecoder} class.
+ */
+public class FluxPropertyDecoderTests {
+
+	private final ObjectMapper cborMapper = new ObjectMapper(new CBORFactory());
+
+	private byte[] cbor(Object... keysAndValues) throws IOException {
+		final Map<String, Object> map = new LinkedHashMap<>();
+		for (int i = 0; i < keysAndValues.length; i += 2) {
+			map.put((String) keysAndValues[i], keysAndValues[i + 1]);
+		}
+		return cborMapper.writeValueAsBytes(map);
+	}
+
+	/**
+	 * Decode a single {@code val} property value.
+	 *
+	 * @param value        the value to encode
+	 * @param maxPrecision the maximum precision
+	 * @return the decoded value
+	 */
+	private String decode(Object value, int maxPrecision) throws IOException {
+		final FluxPropertyDecoder decoder = new FluxPropertyDecoder(new CBORFactory(), new String[] { "val" },
+				maxPrecision);
+		then(decoder.decode(cbor("val", value))).as("Value %s decoded", value).isTrue();
+		final CharSequence result = decoder.value(0);
+		return (result != null ? result.toString() : null);
+	}
+
+	@Test
+	public void decode_properties() throws IOException {
+		// GIVEN
+		final FluxPropertyDecoder decoder = new FluxPropertyDecoder(new CBORFactory(),
+				new String[] { "created", "watts", "status", "on", "missing" }, 3);
+
+		// WHEN
+		final boolean result = decoder.decode(cbor("created", 1735689600000L, "nodeId", 1, "watts", 1.23456,
+				"status", "ok, fine", "on", true, "tags", List.of("a", "b")));
+
+		// THEN
+		then(result).as("Message decoded").isTrue();
+		then(decoder.size()).as("Property count").isEqualTo(5);
+		then(decoder.value(0)).as("Created formatted as instant").hasToString("2025-01-01T00:00:00Z");
+		then(decoder.value(1)).as("Number rounded").hasToString("1.235");
+		then(decoder.token(1)).as("Number token").isEqualTo(JsonToken.VALUE_NUMBER_FLOAT);
+		then(decoder.value(2)).as("String").hasToString("ok, fine");
+		then(decoder.token(2)).as("String token").isEqualTo(JsonToken.VALUE_STRING);
+		then(decoder.value(3)).as("Boolean").hasToString("true");
+		then(decoder.token(3)).as("Boolean token").isEqualTo(JsonToken.VALUE_TRUE);
+		then(decoder.value(4)).as("Missing property").isNull();
+		then(decoder.token(4)).as("Missing property token").isNull();
+	}
+
+	@Test
+	public void decode_valuesReset() throws IOException {
+		// GIVEN
+		final FluxPropertyDecoder decoder = new FluxPropertyDecoder(new CBORFactory(), new String[] { "watts" }, 3);
+		decoder.decode(cbor("watts", 1));
+
+		// WHEN
+		decoder.decode(cbor("current", 2));
+
+		// THEN
+		then(decoder.value(0)).as("Property from previous message not present").isNull();
+	}
+
+	@Test
+	public void decode_nestedValueNotSupported() throws IOException {
+		// GIVEN
+		final FluxPropertyDecoder decoder = new FluxPropertyDecoder(new CBORFactory(), new String[] { "tags" }, 3);
+
+		// THEN
+		then(decoder.decode(cbor("tags", List.of("a")))).as("Selected nested value not supported").isFalse();
+	}
+
+	@Test
+	public void round_halfUp() throws IOException {
+		then(decode(1.2345, 3)).as("Round half up").isEqualTo("1.235");
+		then(decode(1.2344, 3)).as("Round down").isEqualTo("1.234");
+		then(decode(0.5, 0)).as("Round half up to integer").isEqualTo("1");
+		then(decode(1.5, 3)).as("Not rounded within precision").isEqualTo("1.5");
+		then(decode(2.0, 3)).as("Trailing zeros removed").isEqualTo("2");
+		then(decode(0.0004, 3)).as("Rounded to zero").isEqualTo("0");
+		then(decode(123L, 3)).as("Integer").isEqualTo("123");
+	}
+
+	@Test
+	public void round_carry() throws IOException {
+		then(decode(999.96, 1)).as("Carry out of most significant digit").isEqualTo("1000");
+		then(decode(9.5, 0)).as("Carry to integer").isEqualTo("10");
+		then(decode(0.0996, 2)).as("Carry into integer part of fraction").isEqualTo("0.1");
+		then(decode(0.996, 2)).as("Carry from fraction to integer").isEqualTo("1");
+		then(decode(19.995, 2)).as("Carry through integer digits").isEqualTo("20");
+	}
+
+	@Test
+	public void round_negative() throws IOException {
+		then(decode(-1.2345, 3)).as("Negative rounded half away from zero").isEqualTo("-1.235");
+		then(decode(-1.2344, 3)).as("Negative rounded toward zero").isEqualTo("-1.234");
+		then(decode(-999.96, 1)).as("Negative carry").isEqualTo("-1000");
+		then(decode(-0.0004, 3)).as("Negative rounded to zero without sign").isEqualTo("0");
+		then(decode(-0.25, 3)).as("Negative fraction").isEqualTo("-0.25");
+	}
+
+	@Test
+	public void round_exponent() throws IOException {
+		then(decode(1.0E-5, 6)).as("Small exponent in plain notation").isEqualTo("0.00001");
+		then(decode(1.0E-5, 3)).as("Small exponent rounded to zero").isEqualTo("0");
+		then(decode(1.5E-5, 5)).as("Small exponent rounded half up").isEqualTo("0.00002");
+		then(decode(1.2E10, 2)).as("Large exponent in plain notation").isEqualTo("12000000000");
+		then(decode(1.23456789E10, 2)).as("Large exponent with fraction").isEqualTo("12345678900");
+		then(decode(-1.2E10, 2)).as("Negative large exponent").isEqualTo("-12000000000");
+	}
+
+	@Test
+	public void round_floatAndDouble() throws IOException {
+		then(decode(0.1f, 10)).as("Float formatted from float value").isEqualTo("0.1");
+		then(decode((double) 0.1f, 10)).as("Double of float value keeps binary error")
+				.isEqualTo("0.1000000015");
+		then(decode(1.2345f, 3)).as("Float rounded").isEqualTo("1.235");
+		then(decode(1.0E-5f, 6)).as("Float exponent").isEqualTo("0.00001");
+		then(decode(9.99f, 1)).as("Float carry").isEqualTo("10");
+	}
+
+	@Test
+	public void round_disabled() throws IOException {
+		then(decode(1.23456, -1)).as("Not rounded").isEqualTo("1.23456");
+		then(decode(1.0E-5, -1)).as("Not rounded in Java notation").isEqualTo("1.0E-5");
+	}
+
+	@Test
+	public void round_notFinite() throws IOException {
+		then(decode(Double.NaN, 3)).as("NaN").isEqualTo("NaN");
+		then(decode(Double.NEGATIVE_INFINITY, 3)).as("Infinity").isEqualTo("-Infinity");
+	}
+
+}
@@ -0,0 +1,225 @@
+package s10k.tool.flux.util;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.assertj.core.api.BDDAssertions.thenThrownBy;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+
+import net.solarnetwork.codec.JsonUtils;
+import s10k.tool.common.domain.ResultDisplayMode;
+import s10k.tool.flux.util.FluxMessageBuffer.Message;
+import s10k.tool.flux.util.FluxMessageBuffer.OverflowPolicy;
+
+/**
+ * Test cases for the {@link FluxWindowAggregator} class.
+ */
+public class FluxWindowAggregatorTests {
+
+	private static final Instant START = Instant.parse("2025-01-01T00:00:00Z");
+
+	private static final String TOPIC = "node/1/datum/0/a";
+
+	private static final String HEADER = "Window Start,Window End,Topic,Property,Count,Min,Max,Mean,Last,Rate";
+
+	private final ObjectMapper objectMapper = JsonUtils.newDatumObjectMapper();
+
+	private static long seconds(int s) {
+		return START.toEpochMilli() + s * 1000L;
+	}
+
+	/**
+	 * Create a message with a {@code watts} property, created when received.
+	 *
+	 * @param topic    the topic
+	 * @param received the received second offset from {@code START}
+	 * @param watts    the property value
+	 * @return the message
+	 */
+	private static Message msg(String topic, int received, Object watts) throws IOException {
+		final Map<String, Object> map = new LinkedHashMap<>();
+		map.put("created", seconds(received));
+		map.put("nodeId", 1);
+		map.put("watts", watts);
+		return new Message(topic, new ObjectMapper(new CBORFactory()).writeValueAsBytes(map), seconds(received));
+	}
+
+	private static Message msg(int received, Object watts) throws IOException {
+		return msg(TOPIC, received, watts);
+	}
+
+	private static String row(int start, int end, String topic, String prop, Object... stats) {
+		final StringBuilder buf = new StringBuilder();
+		buf.append(Instant.ofEpochMilli(seconds(start))).append(',').append(Instant.ofEpochMilli(seconds(end)))
+				.append(',').append(topic).append(',').append(prop);
+		for (Object stat : stats) {
+			buf.append(',').append(stat != null ? stat : "");
+		}
+		return buf.toString();
+	}
+
+	/**
+	 * Aggregate messages as CSV, from a closed buffer.
+	 *
+	 * @param aggregator the aggregator
+	 * @param msgs       the messages
+	 * @return the output lines
+	 */
+	private static List<String> writeAll(FluxWindowAggregator aggregator, Message... msgs) throws Exception {
+		final FluxMessageBuffer buffer = new FluxMessageBuffer(Math.max(1, msgs.length), OverflowPolicy.Block, 1);
+		for (Message msg : msgs) {
+			buffer.put(msg);
+		}
+		buffer.close();
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		aggregator.writeAll(buffer, out);
+		return out.toString(UTF_8).lines().toList();
+	}
+
+	private FluxWindowAggregator aggregator(String[] propertyNames, Duration window, Duration slide) {
+		return new FluxWindowAggregator(objectMapper, ResultDisplayMode.CSV, propertyNames, -1, window, slide);
+	}
+
+	@Test
+	public void construct_invalidSlide() {
+		thenThrownBy(() -> aggregator(null, Duration.ofMinutes(1), Duration.ofSeconds(7)))
+				.as("Slide must evenly divide window").isInstanceOf(IllegalArgumentException.class);
+		thenThrownBy(() -> aggregator(null, Duration.ofMinutes(1), Duration.ofMinutes(2)))
+				.as("Slide must not exceed window").isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	public void empty() throws Exception {
+		// WHEN
+		final List<String> result = writeAll(aggregator(null, Duration.ofMinutes(1), null));
+
+		// THEN
+		then(result).as("Nothing written without messages").isEmpty();
+	}
+
+	@Test
+	public void tumbling() throws Exception {
+		// GIVEN
+		final FluxWindowAggregator aggregator = aggregator(null, Duration.ofMinutes(1), null);
+
+		// WHEN
+		final List<String> result = writeAll(aggregator, msg(0, 1), msg(30, 4), msg(59, 1), msg(60, 10),
+				msg(90, 20));
+
+		// THEN
+		then(result).as("One summary per window, with header once").containsExactly(HEADER,
+				row(0, 60, TOPIC, "watts", 3, 1.0, 4.0, 2.0, 1.0, 0.0), row(60, 120, TOPIC, "watts", 2, 10.0, 20.0,
+						15.0, 20.0, 10.0 / 30));
+		then(aggregator.getLateCount()).as("No late messages").isZero();
+	}
+
+	@Test
+	public void tumbling_rateAndSingleValue() throws Exception {
+		// GIVEN
+		final FluxWindowAggregator aggregator = aggregator(null, Duration.ofMinutes(1), null);
+
+		// WHEN
+		final List<String> result = writeAll(aggregator, msg(0, 1), msg(30, 4), msg(60, 5));
+
+		// THEN
+		then(result).as("Rate per second between first and last values, none for a single value")
+				.containsExactly(HEADER, row(0, 60, TOPIC, "watts", 2, 1.0, 4.0, 2.5, 4.0, 0.1),
+						row(60, 120, TOPIC, "watts", 1, 5.0, 5.0, 5.0, 5.0, null));
+	}
+
+	@Test
+	public void sliding() throws Exception {
+		// GIVEN
+		final FluxWindowAggregator aggregator = aggregator(null, Duration.ofMinutes(2), Duration.ofMinutes(1));
+
+		// WHEN
+		final List<String> result = writeAll(aggregator, msg(10, 1), msg(70, 2), msg(130, 3));
+
+		// THEN
+		then(result).as("Summary after each slide, merging the panes of each window").containsExactly(HEADER,
+				row(-60, 60, TOPIC, "watts", 1, 1.0, 1.0, 1.0, 1.0, null),
+				row(0, 120, TOPIC, "watts", 2, 1.0, 2.0, 1.5, 2.0, 1.0 / 60),
+				row(60, 180, TOPIC, "watts", 2, 2.0, 3.0, 2.5, 3.0, 1.0 / 60));
+	}
+
+	@Test
+	public void idlePanesSkipped() throws Exception {
+		// GIVEN
+		final FluxWindowAggregator aggregator = aggregator(null, Duration.ofMinutes(1), null);
+
+		// WHEN
+		final List<String> result = writeAll(aggregator, msg(0, 1), msg(600, 2));
+
+		// THEN
+		then(result).as("Empty windows not written").containsExactly(HEADER,
+				row(0, 60, TOPIC, "watts", 1, 1.0, 1.0, 1.0, 1.0, null),
+				row(600, 660, TOPIC, "watts", 1, 2.0, 2.0, 2.0, 2.0, null));
+	}
+
+	@Test
+	public void topicsAndSelectedProperties() throws Exception {
+		// GIVEN
+		final FluxWindowAggregator aggregator = aggregator(new String[] { "watts" }, Duration.ofMinutes(1),
+				null);
+		final Map<String, Object> map = new LinkedHashMap<>();
+		map.put("current", 2);
+		map.put("watts", 3);
+		final Message other = new Message("node/1/datum/0/b",
+				new ObjectMapper(new CBORFactory()).writeValueAsBytes(map), seconds(5));
+
+		// WHEN
+		final List<String> result = writeAll(aggregator, msg(0, 1), other);
+
+		// THEN
+		then(result).as("Topics sorted, only selected properties").containsExactly(HEADER,
+				row(0, 60, TOPIC, "watts", 1, 1.0, 1.0, 1.0, 1.0, null),
+				row(0, 60, "node/1/datum/0/b", "watts", 1, 3.0, 3.0, 3.0, 3.0, null));
+	}
+
+	@Test
+	public void bufferedMessagesCountedByReceiveDate() throws Exception {
+		// GIVEN
+		// all messages are buffered before any are aggregated, as under a backlog
+		final FluxWindowAggregator aggregator = aggregator(null, Duration.ofMinutes(1), null);
+		final Message[] msgs = new Message[180];
+		for (int i = 0; i < msgs.length; i++) {
+			msgs[i] = msg(i, 1);
+		}
+
+		// WHEN
+		final List<String> result = writeAll(aggregator, msgs);
+
+		// THEN
+		then(result).as("Each message counted in the window it was received in").containsExactly(HEADER,
+				row(0, 60, TOPIC, "watts", 60, 1.0, 1.0, 1.0, 1.0, 0.0),
+				row(60, 120, TOPIC, "watts", 60, 1.0, 1.0, 1.0, 1.0, 0.0),
+				row(120, 180, TOPIC, "watts", 60, 1.0, 1.0, 1.0, 1.0, 0.0));
+	}
+
+	@Test
+	public void lateMessagesNotCounted() throws Exception {
+		// GIVEN
+		final FluxWindowAggregator aggregator = aggregator(null, Duration.ofMinutes(1), null);
+
+		// WHEN
+		final List<String> result = writeAll(aggregator, msg(10, 1), msg(70, 2), msg(20, 100), msg(80, 3));
+
+		// THEN
+		then(result).as("Message received after its window was written not counted").containsExactly(HEADER,
+				row(0, 60, TOPIC, "watts", 1, 1.0, 1.0, 1.0, 1.0, null),
+				row(60, 120, TOPIC, "watts", 2, 2.0, 3.0, 2.5, 3.0, 0.1));
+		then(aggregator.getLateCount()).as("Late message counted").isOne();
+	}
+
+}